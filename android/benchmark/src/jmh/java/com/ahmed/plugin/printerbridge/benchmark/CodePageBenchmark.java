@@ -0,0 +1,58 @@
+package com.ahmed.plugin.printerbridge.benchmark;
+
+import com.ahmed.plugin.printerbridge.escpos.CodePageEncoder;
+import com.ahmed.plugin.printerbridge.escpos.EscPosEncoder;
+import com.ahmed.plugin.printerbridge.escpos.JobBuffer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-line code page encoding. {@code stringGetBytes} is the charset-by-name lookup the encoder used
+ * before; keep it as the baseline the cached encoder is compared against.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CodePageBenchmark {
+
+    @Param({"ascii", "arabic"})
+    public String script;
+
+    private final CodePageEncoder codePage = new CodePageEncoder(EscPosEncoder.ARABIC_CODE_TABLE);
+    private final JobBuffer job = new JobBuffer(256);
+    private String line;
+
+    @Setup
+    public void setUp() {
+        line = "ascii".equals(script)
+                ? "Orange juice 33cl        x3     9.75"
+                : "عصير برتقال 33cl   x3     9.75";
+    }
+
+    @Benchmark
+    public byte[] stringGetBytes() throws UnsupportedEncodingException {
+        return line.getBytes("ISO-8859-6");
+    }
+
+    @Benchmark
+    public byte[] codePageEncode() {
+        return codePage.encode(line);
+    }
+
+    @Benchmark
+    public int codePageEncodeInto() {
+        job.reset();
+        codePage.encode(line, job);
+        return job.size();
+    }
+}
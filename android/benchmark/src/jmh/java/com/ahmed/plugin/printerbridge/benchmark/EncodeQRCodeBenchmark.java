@@ -0,0 +1,39 @@
+package com.ahmed.plugin.printerbridge.benchmark;
+
+import com.ahmed.plugin.printerbridge.escpos.EscPosEncoder;
+import com.ahmed.plugin.printerbridge.exceptions.PrinterException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/** QR job encoding, the path behind {@code printQRCode}, across the size tiers of determineQRSettings. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EncodeQRCodeBenchmark {
+
+    // Short link, medium tier (> 500), large tier (> 1000) and the validation cap
+    @Param({"64", "600", "1200", "2900"})
+    public int payloadLength;
+
+    private final EscPosEncoder encoder = new EscPosEncoder();
+    private String payload;
+
+    @Setup
+    public void setUp() {
+        payload = Receipts.qrPayload(payloadLength);
+    }
+
+    @Benchmark
+    public byte[] encodeQRCode() throws PrinterException {
+        return encoder.encodeQRCode(payload);
+    }
+}
@@ -0,0 +1,38 @@
+package com.ahmed.plugin.printerbridge.benchmark;
+
+import com.ahmed.plugin.printerbridge.escpos.EscPosEncoder;
+import com.ahmed.plugin.printerbridge.exceptions.PrinterException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/** Full text job encoding, the path behind {@code printText}. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EncodeTextBenchmark {
+
+    @Param({"10", "100", "5000"})
+    public int lines;
+
+    private final EscPosEncoder encoder = new EscPosEncoder();
+    private String[] receipt;
+
+    @Setup
+    public void setUp() {
+        receipt = Receipts.lines(lines);
+    }
+
+    @Benchmark
+    public byte[] encodeText() throws PrinterException {
+        return encoder.encodeText(receipt);
+    }
+}
@@ -0,0 +1,75 @@
+package com.ahmed.plugin.printerbridge.benchmark;
+
+import com.ahmed.plugin.printerbridge.escpos.EscPosCommands;
+import com.ahmed.plugin.printerbridge.escpos.JobBuffer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Job assembly from pre-encoded line bytes: the buffer the encoder writes into, against the
+ * ByteArrayOutputStream it replaced, with and without up-front sizing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JobBufferBenchmark {
+
+    @Param({"10", "100", "5000"})
+    public int lines;
+
+    private byte[][] encodedLines;
+    private int totalSize;
+
+    @Setup
+    public void setUp() {
+        String[] receipt = Receipts.lines(lines);
+        encodedLines = new byte[receipt.length][];
+        totalSize = 16;
+        for (int i = 0; i < receipt.length; i++) {
+            encodedLines[i] = receipt[i].getBytes(StandardCharsets.ISO_8859_1);
+            totalSize += encodedLines[i].length + 1;
+        }
+    }
+
+    @Benchmark
+    public byte[] byteArrayOutputStream() {
+        ByteArrayOutputStream job = new ByteArrayOutputStream();
+        job.write(EscPosCommands.INITIALIZE, 0, EscPosCommands.INITIALIZE.length);
+        for (byte[] line : encodedLines) {
+            job.write(line, 0, line.length);
+            job.write(EscPosCommands.LF);
+        }
+        return job.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] jobBufferGrowing() {
+        JobBuffer job = new JobBuffer(32);
+        job.write(EscPosCommands.INITIALIZE);
+        for (byte[] line : encodedLines) {
+            job.write(line).write(EscPosCommands.LF);
+        }
+        return job.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] jobBufferPresized() {
+        JobBuffer job = new JobBuffer(totalSize);
+        job.write(EscPosCommands.INITIALIZE);
+        for (byte[] line : encodedLines) {
+            job.write(line).write(EscPosCommands.LF);
+        }
+        return job.toByteArray();
+    }
+}
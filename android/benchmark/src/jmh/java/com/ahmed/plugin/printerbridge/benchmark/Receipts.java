@@ -0,0 +1,37 @@
+package com.ahmed.plugin.printerbridge.benchmark;
+
+/**
+ * Deterministic receipt content shared by the benchmarks: a mix of ASCII item lines and Arabic
+ * headers, roughly what a point-of-sale ticket looks like.
+ */
+final class Receipts {
+    private static final String[] ITEMS = {
+        "Espresso                 x2     6.00",
+        "Croissant                x1     2.50",
+        "Orange juice 33cl        x3     9.75",
+        "Mineral water            x1     1.20",
+    };
+    private static final String ARABIC_HEADER = "فاتورة رقم ";
+
+    private Receipts() {
+    }
+
+    static String[] lines(int count) {
+        String[] lines = new String[count];
+        for (int i = 0; i < count; i++) {
+            // One Arabic line in ten, the rest plain ASCII item lines
+            lines[i] = i % 10 == 0 ? ARABIC_HEADER + i : ITEMS[i % ITEMS.length];
+        }
+        return lines;
+    }
+
+    static String qrPayload(int length) {
+        StringBuilder payload = new StringBuilder(length);
+        payload.append("https://pay.example.com/r?");
+        while (payload.length() < length) {
+            payload.append((char) ('a' + payload.length() % 26));
+        }
+        payload.setLength(length);
+        return payload.toString();
+    }
+}
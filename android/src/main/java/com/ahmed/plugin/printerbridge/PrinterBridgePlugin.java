@@ -1,16 +1,38 @@
 package com.ahmed.plugin.printerbridge;
 
 import android.Manifest;
+import android.bluetooth.BluetoothAdapter;
 import android.os.Build;
-import android.os.Handler;
-import android.os.Looper;
 
+import com.ahmed.plugin.printerbridge.escpos.EscPosEncoder;
+import com.ahmed.plugin.printerbridge.exceptions.JobCancelledException;
 import com.ahmed.plugin.printerbridge.exceptions.PrinterException;
+import com.ahmed.plugin.printerbridge.exceptions.PrinterNotReadyException;
+import com.ahmed.plugin.printerbridge.exceptions.PrinterUnavailableException;
+import com.ahmed.plugin.printerbridge.exceptions.QueueFullException;
+import com.ahmed.plugin.printerbridge.metrics.PrinterMetrics;
+import com.ahmed.plugin.printerbridge.models.CodesPrintRequest;
+import com.ahmed.plugin.printerbridge.models.CommitJobRequest;
+import com.ahmed.plugin.printerbridge.models.MultiPrintRequest;
+import com.ahmed.plugin.printerbridge.models.PrepareJobRequest;
+import com.ahmed.plugin.printerbridge.models.PrintJobEvent;
 import com.ahmed.plugin.printerbridge.models.PrintRequest;
+import com.ahmed.plugin.printerbridge.models.PrintTargetResult;
+import com.ahmed.plugin.printerbridge.models.PrinterQueueStatus;
+import com.ahmed.plugin.printerbridge.models.PrinterStatus;
 import com.ahmed.plugin.printerbridge.models.QRCodePrintRequest;
+import com.ahmed.plugin.printerbridge.models.QueueLimits;
+import com.ahmed.plugin.printerbridge.models.ReprintRequest;
+import com.ahmed.plugin.printerbridge.services.AdapterStateMonitor;
 import com.ahmed.plugin.printerbridge.services.BluetoothService;
+import com.ahmed.plugin.printerbridge.profile.PrinterProfile;
 import com.ahmed.plugin.printerbridge.services.PrinterService;
+import com.ahmed.plugin.printerbridge.transport.PrintoothTransport;
+import com.ahmed.plugin.printerbridge.transport.RfcommTransport;
+import com.ahmed.plugin.printerbridge.utils.DiagnosticBuffer;
 import com.ahmed.plugin.printerbridge.utils.Logger;
+import com.ahmed.plugin.printerbridge.utils.Readiness;
+import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
 import com.getcapacitor.PermissionState;
 import com.getcapacitor.Plugin;
@@ -19,11 +41,15 @@ import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
 import com.getcapacitor.annotation.Permission;
 import com.getcapacitor.annotation.PermissionCallback;
-import com.mazenrashed.printooth.Printooth;
 
 import org.json.JSONException;
 
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import io.paperdb.Paper;
 
 @CapacitorPlugin(
@@ -54,41 +80,121 @@ public class PrinterBridgePlugin extends Plugin {
     static final String BLUETOOTH = "bluetooth";
     static final String BLUETOOTH_CONNECT = "bluetooth_connect";
     private static final String TAG = "PrinterBridgePlugin";
+    static final String EVENT_BLUETOOTH_STATE_CHANGE = "bluetoothStateChange";
+    static final String EVENT_PRINT_JOB_UPDATE = "printJobUpdate";
+    static final String EVENT_PRINTER_STATUS_CHANGE = "printerStatusChange";
 
     // Your implementation services
     private BluetoothService bluetoothService;
     private PrinterService printerService;
 
-    // State management
-    private final AtomicBoolean isInitialized = new AtomicBoolean(false);
-    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Calls that arrive while the services are being set up wait here, up to this many, and run once they are
+    static final int MAX_CALLS_BEFORE_READY = 64;
+    private final Readiness readiness = new Readiness(MAX_CALLS_BEFORE_READY);
+    private long loadedAt;
+    // Print calls wait here for the scheduler, not on the single plugin thread: a bulk job blocking
+    // that thread would keep an urgent one from even being queued. Calls beyond the threads queue in
+    // arrival order; calls beyond the queue are rejected at once rather than piling up behind a stuck printer
+    static final int PRINT_CALL_THREADS = 16;
+    static final int PRINT_CALL_QUEUE = 32;
+    private final ExecutorService printCallExecutor = newBoundedExecutor("printer-call", PRINT_CALL_THREADS, PRINT_CALL_QUEUE);
+    // Discovery, pairing and paired-device lookups: Binder calls into the Bluetooth service, and a discovery
+    // runs for seconds. Two threads, so a lookup is not stuck behind a discovery
+    static final int BLUETOOTH_CALL_THREADS = 2;
+    static final int BLUETOOTH_CALL_QUEUE = 16;
+    private final ExecutorService bluetoothCallExecutor = newBoundedExecutor("bluetooth-call", BLUETOOTH_CALL_THREADS,
+            BLUETOOTH_CALL_QUEUE);
 
     @Override
     public void load() {
-        // Initialize services in a background thread
-        new Thread(this::initializeServices).start();
+        // capacitor.config: plugins.PrinterBridge.logLevel / diagnosticsLevel
+        Logger.setLogcatLevel(Logger.parseLevel(getConfig().getString("logLevel", null), Logger.WARN));
+        Logger.setDiagnosticsLevel(Logger.parseLevel(getConfig().getString("diagnosticsLevel", null), Logger.DEBUG));
+        loadedAt = System.nanoTime();
+        Thread init = new Thread(this::initializeServices, "printer-init");
+        init.setDaemon(true);
+        init.start();
+    }
+
+    // capacitor.config: plugins.PrinterBridge.paperWidth (58 or 80 mm) / nativeQr
+    private EscPosEncoder createEncoder() {
+        int paperWidthDots = EscPosEncoder.PAPER_58MM_DOTS;
+        try {
+            paperWidthDots = EscPosEncoder.paperWidthDots(getConfig().getInt("paperWidth", 58));
+        } catch (IllegalArgumentException e) {
+            Logger.w(TAG, "{} Using 58 mm.", e.getMessage());
+        }
+        return new EscPosEncoder(paperWidthDots, getConfig().getBoolean("nativeQr", true));
+    }
+
+    // capacitor.config: plugins.PrinterBridge.maxQueuedJobs / maxQueuedBytes / whenQueueFull / queueBlockTimeoutMs
+    private QueueLimits createQueueLimits() {
+        try {
+            return new QueueLimits(getConfig().getInt("maxQueuedJobs", 0), getConfig().getInt("maxQueuedBytes", 0),
+                    QueueLimits.WhenFull.fromJsValue(getConfig().getString("whenQueueFull", null)),
+                    getConfig().getInt("queueBlockTimeoutMs", (int) QueueLimits.DEFAULT_BLOCK_TIMEOUT_MS));
+        } catch (IllegalArgumentException e) {
+            Logger.w(TAG, "{} Queues are not limited.", e.getMessage());
+            return QueueLimits.NONE;
+        }
+    }
+
+    // capacitor.config: plugins.PrinterBridge.transport ("printooth" or "rfcomm")
+    private PrinterService createPrinterService() throws PrinterException {
+        String transport = getConfig().getString("transport", "printooth");
+        if ("rfcomm".equalsIgnoreCase(transport)) {
+            // A socket per printer, so printers are sent to side by side
+            return new PrinterService(this.bluetoothService, RfcommTransport::new, createEncoder());
+        }
+        if (!"printooth".equalsIgnoreCase(transport)) {
+            Logger.w(TAG, "Unknown transport '{}'. Using Printooth.", transport);
+        }
+        // Printooth itself is set up on the first print, not at startup
+        return new PrinterService(this.bluetoothService, new PrintoothTransport(getContext()), createEncoder());
     }
 
     private void initializeServices() {
-        if (isInitialized.compareAndSet(false, true)) {
-            try {
-                Paper.init(getContext());
-                Printooth.INSTANCE.init(getContext());
-                this.bluetoothService = new BluetoothService(getContext());
-                this.printerService = new PrinterService(this.bluetoothService);
-                Logger.d(TAG, "Services initialized successfully.");
-            } catch (Exception e) {
-                Logger.e(TAG, "Fatal: Failed to initialize services.", e);
-                isInitialized.set(false);
-            }
+        try {
+            Paper.init(getContext());
+            this.bluetoothService = new BluetoothService(getContext());
+            this.printerService = createPrinterService();
+            this.printerService.setQueueLimits(createQueueLimits());
+            this.bluetoothService.addAdapterStateListener(this::onAdapterStateChanged);
+            this.printerService.addPrintJobListener(this::onPrintJobEvent);
+            this.printerService.addPrinterStatusListener(this::onPrinterStatusChanged);
+            bluetoothService.getMetrics().recordStartup(loadedAt);
+            Logger.d(TAG, "Services initialized successfully.");
+        } catch (Exception e) {
+            Logger.e(TAG, "Fatal: Failed to initialize services.", e);
+            readiness.fail(e);
+            return;
         }
+        readiness.complete();
+        // Still on the init thread: send whatever was spooled but not printed before the app was killed
+        printerService.replaySpool();
+    }
+
+    private void onAdapterStateChanged(int state, int previousState) {
+        JSObject event = new JSObject();
+        event.put("state", AdapterStateMonitor.stateToString(state));
+        event.put("previousState", AdapterStateMonitor.stateToString(previousState));
+        event.put("enabled", state == BluetoothAdapter.STATE_ON);
+        notifyListeners(EVENT_BLUETOOTH_STATE_CHANGE, event);
+    }
+
+    private void onPrintJobEvent(PrintJobEvent event) {
+        notifyListeners(EVENT_PRINT_JOB_UPDATE, event.toJSObject());
+    }
+
+    private void onPrinterStatusChanged(PrinterStatus status) {
+        notifyListeners(EVENT_PRINTER_STATUS_CHANGE, status.toJSObject());
     }
 
     // --- Core Plugin Methods ---
 
     @PluginMethod
     public void getPairedDevices(PluginCall call) {
-        if (!ensureInitialized(call)) return;
+        if (!ensureReady(call, this::getPairedDevices)) return;
 
         if (!hasBluetoothPermissions()) {
             requestBluetoothPermissions(call, "pairedDevicesPermissionCallback");
@@ -99,7 +205,7 @@ public class PrinterBridgePlugin extends Plugin {
 
     @PluginMethod
     public void getAvailableDevices(PluginCall call) {
-        if (!ensureInitialized(call)) return;
+        if (!ensureReady(call, this::getAvailableDevices)) return;
 
         if (!hasBluetoothPermissions()) {
             requestBluetoothPermissions(call, "availableDevicesPermissionCallback");
@@ -110,7 +216,7 @@ public class PrinterBridgePlugin extends Plugin {
 
     @PluginMethod
     public void pairDevice(PluginCall call) {
-        if (!ensureInitialized(call)) return;
+        if (!ensureReady(call, this::pairDevice)) return;
 
         if (!hasBluetoothPermissions()) {
             requestBluetoothPermissions(call, "pairDevicePermissionCallback");
@@ -121,7 +227,7 @@ public class PrinterBridgePlugin extends Plugin {
 
     @PluginMethod
     public void getDeviceInfo(PluginCall call) {
-        if (!ensureInitialized(call)) return;
+        if (!ensureReady(call, this::getDeviceInfo)) return;
 
         if (!hasBluetoothPermissions()) {
             requestBluetoothPermissions(call, "deviceInfoPermissionCallback");
@@ -132,7 +238,7 @@ public class PrinterBridgePlugin extends Plugin {
 
     @PluginMethod
     public void getDeviceIdFromPairedDevices(PluginCall call) {
-        if (!ensureInitialized(call)) return;
+        if (!ensureReady(call, this::getDeviceIdFromPairedDevices)) return;
 
         if (!hasBluetoothPermissions()) {
             requestBluetoothPermissions(call, "deviceIdFromPairedPermissionCallback");
@@ -141,10 +247,20 @@ public class PrinterBridgePlugin extends Plugin {
         }
     }
 
+    @PluginMethod
+    public void findPrinter(PluginCall call) {
+        if (!ensureReady(call, this::findPrinter)) return;
+
+        if (!hasBluetoothPermissions()) {
+            requestBluetoothPermissions(call, "findPrinterPermissionCallback");
+        } else {
+            doFindPrinter(call);
+        }
+    }
 
     @PluginMethod
     public void print(PluginCall call) {
-        if (!ensureInitialized(call)) return;
+        if (!ensureReady(call, this::print)) return;
 
         if (!hasBluetoothPermissions()) {
             requestBluetoothPermissions(call, "printPermissionCallback");
@@ -156,9 +272,53 @@ public class PrinterBridgePlugin extends Plugin {
 
 
 
+    @PluginMethod
+    public void printToMany(PluginCall call) {
+        if (!ensureReady(call, this::printToMany)) return;
+
+        if (!hasBluetoothPermissions()) {
+            requestBluetoothPermissions(call, "printToManyPermissionCallback");
+        } else {
+            doPrintToMany(call);
+        }
+    }
+
+    @PluginMethod
+    public void prepareJob(PluginCall call) {
+        if (!ensureReady(call, this::prepareJob)) return;
+
+        if (!hasBluetoothPermissions()) {
+            requestBluetoothPermissions(call, "prepareJobPermissionCallback");
+        } else {
+            doPrepareJob(call);
+        }
+    }
+
+    @PluginMethod
+    public void commitJob(PluginCall call) {
+        if (!ensureReady(call, this::commitJob)) return;
+
+        if (!hasBluetoothPermissions()) {
+            requestBluetoothPermissions(call, "commitJobPermissionCallback");
+        } else {
+            doCommitJob(call);
+        }
+    }
+
+    @PluginMethod
+    public void reprint(PluginCall call) {
+        if (!ensureReady(call, this::reprint)) return;
+
+        if (!hasBluetoothPermissions()) {
+            requestBluetoothPermissions(call, "reprintPermissionCallback");
+        } else {
+            doReprint(call);
+        }
+    }
+
     @PluginMethod
     public void printQRCode(PluginCall call) {
-        if (!ensureInitialized(call)) return;
+        if (!ensureReady(call, this::printQRCode)) return;
 
         if (!hasBluetoothPermissions()) {
             requestBluetoothPermissions(call, "printQRCodePermissionCallback");
@@ -167,6 +327,124 @@ public class PrinterBridgePlugin extends Plugin {
         }
     }
 
+    @PluginMethod
+    public void printCodes(PluginCall call) {
+        if (!ensureReady(call, this::printCodes)) return;
+
+        if (!hasBluetoothPermissions()) {
+            requestBluetoothPermissions(call, "printCodesPermissionCallback");
+        } else {
+            doPrintCodes(call);
+        }
+    }
+
+    @PluginMethod
+    public void cancelJob(PluginCall call) {
+        if (!ensureReady(call, this::cancelJob)) return;
+
+        String jobId = call.getString("jobId");
+        if (jobId == null || jobId.trim().isEmpty()) {
+            call.reject("jobId is required.");
+            return;
+        }
+        // Only touches the queue and interrupts the dispatch thread, so it is safe to run here
+        JSObject result = new JSObject();
+        result.put("cancelled", printerService.cancelJob(jobId));
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void getPrinterProfile(PluginCall call) {
+        if (!ensureReady(call, this::getPrinterProfile)) return;
+
+        String deviceId = call.getString("deviceId");
+        if (deviceId == null || deviceId.trim().isEmpty()) {
+            call.reject("deviceId is required.");
+            return;
+        }
+        // Reads the stored profile only; printers are probed when a job first connects to them
+        PrinterProfile profile = printerService.getPrinterProfile(deviceId);
+        JSObject result = new JSObject();
+        result.put("found", profile != null);
+        if (profile != null) {
+            result.put("profile", profile.toJSObject());
+        }
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void getPrinterStatus(PluginCall call) {
+        if (!ensureReady(call, this::getPrinterStatus)) return;
+
+        String deviceId = call.getString("deviceId");
+        if (deviceId == null || deviceId.trim().isEmpty()) {
+            call.reject("deviceId is required.");
+            return;
+        }
+        // The last status the printer reported; nothing is sent to it
+        PrinterStatus status = printerService.getPrinterStatus(deviceId);
+        JSObject result = new JSObject();
+        result.put("known", status != null);
+        if (status != null) {
+            result.put("status", status.toJSObject());
+        }
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void getQueueStatus(PluginCall call) {
+        if (!ensureReady(call, this::getQueueStatus)) return;
+
+        // Reads the queues in memory; nothing is sent to the printers
+        String deviceId = call.getString("deviceId");
+        JSArray printers = new JSArray();
+        for (PrinterQueueStatus status : printerService.getQueueStatus(deviceId != null && !deviceId.trim().isEmpty() ? deviceId : null)) {
+            printers.put(status.toJSObject());
+        }
+        JSObject result = new JSObject();
+        result.put("printers", printers);
+        result.put("limits", printerService.getQueueLimits().toJSObject());
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void getMetrics(PluginCall call) {
+        if (!ensureReady(call, this::getMetrics)) return;
+
+        // Reads in-memory counters only, no Bluetooth access and so no permission needed
+        PrinterMetrics metrics = bluetoothService.getMetrics();
+        JSObject result = metrics.toJSObject();
+        if (call.getBoolean("reset", false)) {
+            metrics.reset();
+        }
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void dumpDiagnostics(PluginCall call) {
+        // Works before initialization too: that is when a diagnostic dump is most useful
+        DiagnosticBuffer buffer = Logger.getDiagnostics();
+        JSArray entries = new JSArray();
+        for (DiagnosticBuffer.Record record : Logger.dumpDiagnostics()) {
+            JSObject entry = new JSObject();
+            entry.put("sequence", record.sequence);
+            entry.put("timestamp", record.timestamp);
+            entry.put("level", Logger.levelToString(record.level));
+            entry.put("tag", record.tag);
+            entry.put("thread", record.thread);
+            entry.put("message", record.message);
+            entries.put(entry);
+        }
+        JSObject result = new JSObject();
+        result.put("entries", entries);
+        result.put("capacity", buffer.capacity());
+        result.put("recorded", buffer.recorded());
+        if (call.getBoolean("clear", false)) {
+            buffer.clear();
+        }
+        call.resolve(result);
+    }
+
     // --- Permission Callbacks ---
 
     @PermissionCallback
@@ -214,6 +492,15 @@ public class PrinterBridgePlugin extends Plugin {
         }
     }
 
+    @PermissionCallback
+    private void findPrinterPermissionCallback(PluginCall call) {
+        if (hasBluetoothPermissions()) {
+            doFindPrinter(call);
+        } else {
+            call.reject("Bluetooth permissions are required to find printers.");
+        }
+    }
+
     @PermissionCallback
     private void printPermissionCallback(PluginCall call) {
         if (hasBluetoothPermissions()) {
@@ -223,6 +510,42 @@ public class PrinterBridgePlugin extends Plugin {
         }
     }
 
+    @PermissionCallback
+    private void printToManyPermissionCallback(PluginCall call) {
+        if (hasBluetoothPermissions()) {
+            doPrintToMany(call);
+        } else {
+            call.reject("Bluetooth permissions are required to print.");
+        }
+    }
+
+    @PermissionCallback
+    private void prepareJobPermissionCallback(PluginCall call) {
+        if (hasBluetoothPermissions()) {
+            doPrepareJob(call);
+        } else {
+            call.reject("Bluetooth permissions are required to print.");
+        }
+    }
+
+    @PermissionCallback
+    private void commitJobPermissionCallback(PluginCall call) {
+        if (hasBluetoothPermissions()) {
+            doCommitJob(call);
+        } else {
+            call.reject("Bluetooth permissions are required to print.");
+        }
+    }
+
+    @PermissionCallback
+    private void reprintPermissionCallback(PluginCall call) {
+        if (hasBluetoothPermissions()) {
+            doReprint(call);
+        } else {
+            call.reject("Bluetooth permissions are required to print.");
+        }
+    }
+
     @PermissionCallback
     private void printQRCodePermissionCallback(PluginCall call) {
         if (hasBluetoothPermissions()) {
@@ -232,36 +555,47 @@ public class PrinterBridgePlugin extends Plugin {
         }
     }
 
+    @PermissionCallback
+    private void printCodesPermissionCallback(PluginCall call) {
+        if (hasBluetoothPermissions()) {
+            doPrintCodes(call);
+        } else {
+            call.reject("Bluetooth permissions are required to print codes.");
+        }
+    }
+
     // --- Private "Implementation" Methods ---
 
     private void doGetPairedDevices(PluginCall call) {
-        try {
-            JSObject result = bluetoothService.getPairedDevices();
-            // Add count for consistency with TypeScript interface
-            if (result.has("devices")) {
-                result.put("count", result.getJSONArray("devices").length());
+        runOn(bluetoothCallExecutor, call, () -> {
+            try {
+                JSObject result = bluetoothService.getPairedDevices();
+                // Add count for consistency with TypeScript interface
+                if (result.has("devices")) {
+                    result.put("count", result.getJSONArray("devices").length());
+                }
+                call.resolve(result);
+            } catch (PrinterException e) {
+                call.reject(e.getMessage());
+            } catch (JSONException e) {
+                throw new RuntimeException(e);
             }
-            call.resolve(result);
-        } catch (PrinterException e) {
-            call.reject(e.getMessage());
-        } catch (JSONException e) {
-            throw new RuntimeException(e);
-        }
+        });
     }
 
     private void doGetAvailableDevices(PluginCall call) {
-        // Execute discovery in background thread as it takes time
-        getBridge().execute(() -> {
+        // Discovery takes seconds
+        runOn(bluetoothCallExecutor, call, () -> {
             try {
                 JSObject result = bluetoothService.discoverDevices();
                 // Add count for consistency with TypeScript interface
                 if (result.has("devices")) {
                     result.put("count", result.getJSONArray("devices").length());
                 }
-                mainHandler.post(() -> call.resolve(result));
+                call.resolve(result);
             } catch (PrinterException e) {
                 Logger.e(TAG, "Device discovery failed", e);
-                mainHandler.post(() -> call.reject(e.getMessage()));
+                call.reject(e.getMessage());
             } catch (JSONException e) {
                 throw new RuntimeException(e);
             }
@@ -275,14 +609,14 @@ public class PrinterBridgePlugin extends Plugin {
             return;
         }
 
-        // Execute pairing in background thread as it takes time
-        getBridge().execute(() -> {
+        // Pairing waits for the user to confirm
+        runOn(bluetoothCallExecutor, call, () -> {
             try {
                 JSObject result = bluetoothService.pairDevice(deviceAddress);
-                mainHandler.post(() -> call.resolve(result));
+                call.resolve(result);
             } catch (PrinterException e) {
                 Logger.e(TAG, "Device pairing failed", e);
-                mainHandler.post(() -> call.reject(e.getMessage()));
+                call.reject(e.getMessage());
             }
         });
     }
@@ -294,12 +628,14 @@ public class PrinterBridgePlugin extends Plugin {
             return;
         }
 
-        try {
-            JSObject result = bluetoothService.getDeviceInfo(deviceAddress);
-            call.resolve(result);
-        } catch (PrinterException e) {
-            call.reject(e.getMessage());
-        }
+        runOn(bluetoothCallExecutor, call, () -> {
+            try {
+                JSObject result = bluetoothService.getDeviceInfo(deviceAddress);
+                call.resolve(result);
+            } catch (PrinterException e) {
+                call.reject(e.getMessage());
+            }
+        });
     }
 
     private void doGetDeviceIdFromPairedDevices(PluginCall call) {
@@ -309,55 +645,195 @@ public class PrinterBridgePlugin extends Plugin {
             return;
         }
 
-        try {
-            JSObject result = bluetoothService.getDeviceIdFromPairedDevices(printerName);
-            // Add success flag and deviceName for consistency with TypeScript interface
-            result.put("success", true);
-            result.put("deviceName", printerName);
-            call.resolve(result);
-        } catch (PrinterException e) {
-            JSObject result = new JSObject();
-            result.put("success", false);
-            result.put("deviceName", printerName);
-            result.put("deviceId", "");
-            call.resolve(result);
+        runOn(bluetoothCallExecutor, call, () -> {
+            try {
+                JSObject result = bluetoothService.getDeviceIdFromPairedDevices(printerName);
+                // Add success flag and deviceName for consistency with TypeScript interface
+                result.put("success", true);
+                result.put("deviceName", printerName);
+                call.resolve(result);
+            } catch (PrinterException e) {
+                JSObject result = new JSObject();
+                result.put("success", false);
+                result.put("deviceName", printerName);
+                result.put("deviceId", "");
+                call.resolve(result);
+            }
+        });
+    }
+
+    private void doFindPrinter(PluginCall call) {
+        String name = call.getString("name");
+        if (name == null || name.trim().isEmpty()) {
+            call.reject("Printer name is required");
+            return;
         }
+        boolean autoPair = call.getBoolean("autoPair", false);
+
+        // May fall back to discovery
+        runOn(bluetoothCallExecutor, call, () -> {
+            try {
+                JSObject result = bluetoothService.findPrinter(name.trim(), autoPair);
+                call.resolve(result);
+            } catch (PrinterException e) {
+                Logger.e(TAG, "Find printer failed", e);
+                call.reject(e.getMessage());
+            }
+        });
     }
 
     private void doPrint(PluginCall call) {
         try {
             PrintRequest request = PrintRequest.fromPluginCall(call);
-            executePrintOperation(call, () -> printerService.printText(request));
+            executePrintOperation(call, request.getJobId(), () -> printerService.printText(request));
+        } catch (Exception e) {
+            call.reject("Invalid print request: " + e.getMessage());
+        }
+    }
+
+    private void doPrintToMany(PluginCall call) {
+        MultiPrintRequest request;
+        try {
+            request = MultiPrintRequest.fromPluginCall(call);
         } catch (Exception e) {
             call.reject("Invalid print request: " + e.getMessage());
+            return;
+        }
+        runOn(printCallExecutor, call, () -> {
+            try {
+                List<PrintTargetResult> results = printerService.printToMany(request);
+                JSArray resultArray = new JSArray();
+                boolean success = true;
+                for (PrintTargetResult result : results) {
+                    resultArray.put(result.toJSObject());
+                    success &= result.isSuccess();
+                }
+                JSObject response = new JSObject();
+                response.put("success", success);
+                response.put("jobId", request.getJobId());
+                response.put("results", resultArray);
+                call.resolve(response);
+            } catch (PrinterException e) {
+                Logger.e(TAG, "Print to several printers failed", e);
+                call.reject(e.getMessage());
+            }
+        });
+    }
+
+    private void doPrepareJob(PluginCall call) {
+        PrepareJobRequest request;
+        try {
+            request = PrepareJobRequest.fromPluginCall(call);
+        } catch (Exception e) {
+            call.reject("Invalid prepare request: " + e.getMessage());
+            return;
+        }
+        // Looking up the printer's link and encoder can read its stored profile, so it stays off the plugin thread
+        runOn(printCallExecutor, call, () -> {
+            try {
+                // Hands the encoding itself to a worker, so the handle comes back before it is done
+                String handle = printerService.prepareJob(request);
+                JSObject result = new JSObject();
+                result.put("handle", handle);
+                call.resolve(result);
+            } catch (PrinterException e) {
+                Logger.e(TAG, "Prepare job failed", e);
+                call.reject(e.getMessage());
+            }
+        });
+    }
+
+    private void doCommitJob(PluginCall call) {
+        try {
+            CommitJobRequest request = CommitJobRequest.fromPluginCall(call);
+            executePrintOperation(call, request.getJobId(), () -> printerService.commitJob(request));
+        } catch (Exception e) {
+            call.reject("Invalid commit request: " + e.getMessage());
+        }
+    }
+
+    private void doReprint(PluginCall call) {
+        try {
+            ReprintRequest request = ReprintRequest.fromPluginCall(call);
+            executePrintOperation(call, request.getJobId(), () -> printerService.reprint(request));
+        } catch (Exception e) {
+            call.reject("Invalid reprint request: " + e.getMessage());
         }
     }
 
     private void doPrintQRCode(PluginCall call) {
         try {
             QRCodePrintRequest request = QRCodePrintRequest.fromPluginCall(call);
-            executePrintOperation(call, () -> printerService.printQRCode(request));
+            executePrintOperation(call, request.getJobId(), () -> printerService.printQRCode(request));
         } catch (Exception e) {
             call.reject("Invalid QR code print request: " + e.getMessage());
         }
     }
 
-    private void executePrintOperation(PluginCall call, PrintOperation operation) {
-        getBridge().execute(() -> {
+    private void doPrintCodes(PluginCall call) {
+        try {
+            CodesPrintRequest request = CodesPrintRequest.fromPluginCall(call);
+            executePrintOperation(call, request.getJobId(), () -> printerService.printCodes(request));
+        } catch (Exception e) {
+            call.reject("Invalid codes print request: " + e.getMessage());
+        }
+    }
+
+    private void executePrintOperation(PluginCall call, String jobId, PrinterService.PrintOperation operation) {
+        String idempotencyKey = call.getString("idempotencyKey");
+        runOn(printCallExecutor, call, () -> {
             try {
-                operation.execute();
-                JSObject result = new JSObject();
-                result.put("success", true);
-                mainHandler.post(() -> call.resolve(result));
+                String printedJobId = printerService.runOnce(idempotencyKey, jobId, operation);
+                resolvePrintResult(call, printedJobId, true, "sent");
+            } catch (JobCancelledException e) {
+                Logger.i(TAG, "Print operation stopped: {}", e.getMessage());
+                resolvePrintResult(call, jobId, false, e.isExpired() ? "expired" : "cancelled");
+            } catch (PrinterNotReadyException e) {
+                Logger.w(TAG, "Print operation refused: {}", e.getMessage());
+                resolvePrintResult(call, jobId, false, "not_ready");
+            } catch (QueueFullException e) {
+                Logger.w(TAG, "Print operation refused: {}", e.getMessage());
+                resolvePrintResult(call, jobId, false, "queue_full");
+            } catch (PrinterUnavailableException e) {
+                Logger.w(TAG, "Print operation refused: {}", e.getMessage());
+                resolvePrintResult(call, jobId, false, "unavailable");
             } catch (PrinterException e) {
                 Logger.e(TAG, "Print operation failed", e);
-                JSObject result = new JSObject();
-                result.put("success", false);
-                mainHandler.post(() -> call.resolve(result));
+                resolvePrintResult(call, jobId, false, "failed");
             }
         });
     }
 
+    // Calls resolve on the worker thread: Capacitor hands the result to the WebView itself, so there is no need
+    // to queue it behind UI work on the main looper
+    private static void runOn(ExecutorService executor, PluginCall call, Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            Logger.w(TAG, "Rejected call {}: too many calls waiting", call.getMethodName());
+            call.reject("Too many calls are waiting for the printer bridge; try again later.", "BUSY");
+        }
+    }
+
+    private static ExecutorService newBoundedExecutor(String name, int threads, int queueLength) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueLength), runnable -> {
+                    Thread thread = new Thread(runnable, name);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private void resolvePrintResult(PluginCall call, String jobId, boolean success, String status) {
+        JSObject result = new JSObject();
+        result.put("success", success);
+        result.put("jobId", jobId);
+        result.put("status", status);
+        call.resolve(result);
+    }
+
     // --- Permission Helper Methods ---
 
     private boolean hasBluetoothPermissions() {
@@ -394,24 +870,47 @@ public class PrinterBridgePlugin extends Plugin {
 
     // --- Internal Helpers ---
 
-    private boolean ensureInitialized(PluginCall call) {
-        if (!isInitialized.get()) {
-            call.reject("PrinterBridge plugin is not initialized.");
-            return false;
+    /**
+     * True if the services are ready and {@code method} can go on with {@code call}. Otherwise {@code call} waits
+     * and {@code method} is called with it again, on the plugin thread, once they are.
+     */
+    private boolean ensureReady(PluginCall call, PluginMethodHandler method) {
+        if (readiness.isReady()) {
+            return true;
+        }
+        boolean waiting = readiness.whenReady(new Readiness.Waiter() {
+            @Override
+            public void onReady() {
+                getBridge().execute(() -> method.handle(call));
+            }
+
+            @Override
+            public void onFailed(Exception cause) {
+                call.reject("PrinterBridge plugin failed to initialize: " + cause.getMessage());
+            }
+        });
+        if (!waiting) {
+            Logger.w(TAG, "Rejected call {}: too many calls waiting for initialization", call.getMethodName());
+            call.reject("Too many calls are waiting for the printer bridge to initialize; try again later.", "BUSY");
         }
-        return true;
+        return false;
+    }
+
+    @FunctionalInterface
+    private interface PluginMethodHandler {
+        void handle(PluginCall call);
     }
 
     @Override
     protected void handleOnDestroy() {
+        if (printerService != null) {
+            printerService.cleanup();
+        }
         if (bluetoothService != null) {
             bluetoothService.cleanup();
         }
+        printCallExecutor.shutdown();
+        bluetoothCallExecutor.shutdown();
         super.handleOnDestroy();
     }
-
-    @FunctionalInterface
-    private interface PrintOperation {
-        void execute() throws PrinterException;
-    }
 }
\ No newline at end of file
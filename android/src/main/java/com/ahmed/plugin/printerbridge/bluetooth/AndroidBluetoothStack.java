@@ -0,0 +1,202 @@
+package com.ahmed.plugin.printerbridge.bluetooth;
+
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothDevice;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+
+import com.ahmed.plugin.printerbridge.exceptions.PrinterException;
+import com.ahmed.plugin.printerbridge.utils.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * {@link BluetoothStack} backed by the platform {@link BluetoothAdapter}. Adapter, discovery and bond
+ * broadcasts are received by a single receiver and fanned out to the listeners.
+ */
+public class AndroidBluetoothStack implements BluetoothStack {
+    private static final String TAG = "AndroidBluetoothStack";
+
+    private final Context context;
+    private final BluetoothAdapter bluetoothAdapter;
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final BroadcastReceiver receiver;
+    private volatile boolean isRegistered;
+
+    public AndroidBluetoothStack(Context context) throws PrinterException {
+        this.context = context;
+        this.bluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
+        if (bluetoothAdapter == null) {
+            throw new PrinterException("Bluetooth is not supported on this device.");
+        }
+        this.receiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                handleBroadcast(intent);
+            }
+        };
+    }
+
+    @Override
+    public void start() {
+        if (isRegistered) {
+            return;
+        }
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(BluetoothAdapter.ACTION_STATE_CHANGED);
+        filter.addAction(BluetoothDevice.ACTION_FOUND);
+        filter.addAction(BluetoothAdapter.ACTION_DISCOVERY_FINISHED);
+        filter.addAction(BluetoothDevice.ACTION_BOND_STATE_CHANGED);
+        context.registerReceiver(receiver, filter);
+        isRegistered = true;
+    }
+
+    @Override
+    public void stop() {
+        cancelDiscovery();
+        if (!isRegistered) {
+            return;
+        }
+        try {
+            context.unregisterReceiver(receiver);
+        } catch (Exception e) {
+            Logger.e(TAG, "Error unregistering Bluetooth receiver", e);
+        }
+        isRegistered = false;
+    }
+
+    @Override
+    public void addListener(Listener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    @Override
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public int getState() {
+        return bluetoothAdapter.getState();
+    }
+
+    @Override
+    public List<RemoteDevice> getBondedDevices() {
+        Set<BluetoothDevice> bondedDevices = bluetoothAdapter.getBondedDevices();
+        List<RemoteDevice> devices = new ArrayList<>();
+        if (bondedDevices != null) {
+            for (BluetoothDevice device : bondedDevices) {
+                devices.add(toRemoteDevice(device, null));
+            }
+        }
+        return devices;
+    }
+
+    @Override
+    public RemoteDevice getRemoteDevice(String address) {
+        try {
+            BluetoothDevice device = bluetoothAdapter.getRemoteDevice(address);
+            return device != null ? toRemoteDevice(device, null) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public boolean isDiscovering() {
+        return bluetoothAdapter.isDiscovering();
+    }
+
+    @Override
+    public boolean startDiscovery() {
+        return bluetoothAdapter.startDiscovery();
+    }
+
+    @Override
+    public boolean cancelDiscovery() {
+        try {
+            return !bluetoothAdapter.isDiscovering() || bluetoothAdapter.cancelDiscovery();
+        } catch (SecurityException e) {
+            Logger.w(TAG, "Missing permission to cancel discovery.");
+            return false;
+        }
+    }
+
+    @Override
+    public boolean createBond(String address) {
+        BluetoothDevice device = bluetoothAdapter.getRemoteDevice(address);
+        return device != null && device.createBond();
+    }
+
+    @Override
+    public int getBondState(String address) {
+        BluetoothDevice device = bluetoothAdapter.getRemoteDevice(address);
+        return device != null ? device.getBondState() : BluetoothDevice.BOND_NONE;
+    }
+
+    /**
+     * Exposes the platform device for transports that need to open sockets on it.
+     */
+    public BluetoothDevice getPlatformDevice(String address) {
+        return bluetoothAdapter.getRemoteDevice(address);
+    }
+
+    private void handleBroadcast(Intent intent) {
+        String action = intent.getAction();
+        if (BluetoothAdapter.ACTION_STATE_CHANGED.equals(action)) {
+            int state = intent.getIntExtra(BluetoothAdapter.EXTRA_STATE, BluetoothAdapter.ERROR);
+            if (state != BluetoothAdapter.ERROR) {
+                for (Listener listener : listeners) {
+                    listener.onAdapterStateChanged(state);
+                }
+            }
+        } else if (BluetoothDevice.ACTION_FOUND.equals(action)) {
+            BluetoothDevice device = intent.getParcelableExtra(BluetoothDevice.EXTRA_DEVICE);
+            if (device != null) {
+                // The name may only be present in the broadcast extras until the remote name is cached
+                RemoteDevice remoteDevice = toRemoteDevice(device, intent.getStringExtra(BluetoothDevice.EXTRA_NAME));
+                for (Listener listener : listeners) {
+                    listener.onDeviceFound(remoteDevice);
+                }
+            }
+        } else if (BluetoothAdapter.ACTION_DISCOVERY_FINISHED.equals(action)) {
+            for (Listener listener : listeners) {
+                listener.onDiscoveryFinished();
+            }
+        } else if (BluetoothDevice.ACTION_BOND_STATE_CHANGED.equals(action)) {
+            BluetoothDevice device = intent.getParcelableExtra(BluetoothDevice.EXTRA_DEVICE);
+            int bondState = intent.getIntExtra(BluetoothDevice.EXTRA_BOND_STATE, BluetoothDevice.BOND_NONE);
+            if (device != null) {
+                RemoteDevice remoteDevice = toRemoteDevice(device, null);
+                for (Listener listener : listeners) {
+                    listener.onBondStateChanged(remoteDevice, bondState);
+                }
+            }
+        }
+    }
+
+    private RemoteDevice toRemoteDevice(BluetoothDevice device, String nameHint) {
+        String name = nameHint;
+        int bondState = BluetoothDevice.BOND_NONE;
+        int deviceClass = RemoteDevice.UNKNOWN_CLASS;
+        int majorDeviceClass = RemoteDevice.UNKNOWN_CLASS;
+        try {
+            if (name == null) {
+                name = device.getName();
+            }
+            bondState = device.getBondState();
+            if (device.getBluetoothClass() != null) {
+                deviceClass = device.getBluetoothClass().getDeviceClass();
+                majorDeviceClass = device.getBluetoothClass().getMajorDeviceClass();
+            }
+        } catch (SecurityException e) {
+            Logger.w(TAG, "Could not get full device info due to missing permissions.");
+        }
+        return new RemoteDevice(name, device.getAddress(), bondState, deviceClass, majorDeviceClass);
+    }
+}
@@ -0,0 +1,47 @@
+package com.ahmed.plugin.printerbridge.bluetooth;
+
+import java.util.List;
+
+/**
+ * The subset of the platform Bluetooth adapter the services rely on. State and bond values use the
+ * {@code BluetoothAdapter.STATE_*} and {@code BluetoothDevice.BOND_*} constants.
+ */
+public interface BluetoothStack {
+
+    interface Listener {
+        default void onAdapterStateChanged(int state) {}
+
+        default void onDeviceFound(RemoteDevice device) {}
+
+        default void onDiscoveryFinished() {}
+
+        default void onBondStateChanged(RemoteDevice device, int bondState) {}
+    }
+
+    /** Starts delivering events to the registered listeners. */
+    void start();
+
+    /** Stops delivering events and cancels any running discovery. */
+    void stop();
+
+    void addListener(Listener listener);
+
+    void removeListener(Listener listener);
+
+    int getState();
+
+    List<RemoteDevice> getBondedDevices();
+
+    /** Returns null if the address is not a valid Bluetooth address. */
+    RemoteDevice getRemoteDevice(String address);
+
+    boolean isDiscovering();
+
+    boolean startDiscovery();
+
+    boolean cancelDiscovery();
+
+    boolean createBond(String address);
+
+    int getBondState(String address);
+}
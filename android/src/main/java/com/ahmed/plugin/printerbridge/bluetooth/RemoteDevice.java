@@ -0,0 +1,67 @@
+package com.ahmed.plugin.printerbridge.bluetooth;
+
+/**
+ * Immutable snapshot of a remote Bluetooth device, decoupled from {@code android.bluetooth.BluetoothDevice}
+ * so the services can run against any {@link BluetoothStack}.
+ */
+public class RemoteDevice {
+    public static final int UNKNOWN_CLASS = -1;
+
+    private final String name;
+    private final String address;
+    private final int bondState;
+    private final int deviceClass;
+    private final int majorDeviceClass;
+
+    public RemoteDevice(String name, String address, int bondState, int deviceClass, int majorDeviceClass) {
+        this.name = name;
+        this.address = address;
+        this.bondState = bondState;
+        this.deviceClass = deviceClass;
+        this.majorDeviceClass = majorDeviceClass;
+    }
+
+    public RemoteDevice(String name, String address, int bondState) {
+        this(name, address, bondState, UNKNOWN_CLASS, UNKNOWN_CLASS);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public int getBondState() {
+        return bondState;
+    }
+
+    public int getDeviceClass() {
+        return deviceClass;
+    }
+
+    public int getMajorDeviceClass() {
+        return majorDeviceClass;
+    }
+
+    public boolean hasDeviceClass() {
+        return deviceClass != UNKNOWN_CLASS;
+    }
+
+    public RemoteDevice withBondState(int newBondState) {
+        return new RemoteDevice(name, address, newBondState, deviceClass, majorDeviceClass);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RemoteDevice)) return false;
+        return address.equals(((RemoteDevice) o).address);
+    }
+
+    @Override
+    public int hashCode() {
+        return address.hashCode();
+    }
+}
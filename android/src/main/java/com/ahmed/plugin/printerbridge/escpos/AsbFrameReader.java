@@ -0,0 +1,43 @@
+package com.ahmed.plugin.printerbridge.escpos;
+
+/**
+ * Picks Automatic Status Back frames out of the bytes a printer sends. A frame is four bytes: the first has
+ * bit 4 set and bits 0, 1 and 7 clear, the other three have bits 4 and 7 clear. That sets a frame start
+ * apart from the first byte of a {@code DLE EOT} reply (bit 1 set) and of a {@code GS I} reply ('_').
+ */
+public final class AsbFrameReader {
+    public static final int FRAME_BYTES = 4;
+
+    private final byte[] frame = new byte[FRAME_BYTES];
+    private int length;
+
+    public static boolean isFrameStart(int b) {
+        return (b & 0x93) == 0x10;
+    }
+
+    /** Whether part of a frame has been read. */
+    public boolean inFrame() {
+        return length > 0;
+    }
+
+    /**
+     * Takes the next received byte.
+     *
+     * @return the frame this byte completes, or null; bytes outside a frame are dropped
+     */
+    public byte[] feed(int b) {
+        if (length > 0 && (b & 0x90) != 0) {
+            // Not a frame after all; the byte may still start one
+            length = 0;
+        }
+        if (length == 0 && !isFrameStart(b)) {
+            return null;
+        }
+        frame[length++] = (byte) b;
+        if (length < FRAME_BYTES) {
+            return null;
+        }
+        length = 0;
+        return frame.clone();
+    }
+}
@@ -0,0 +1,78 @@
+package com.ahmed.plugin.printerbridge.escpos;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes text for the printer's active character code table ({@code ESC t n}). The charset is resolved
+ * once; ASCII runs, the bulk of every receipt, are copied straight into the job without going through
+ * the charset at all.
+ */
+public final class CodePageEncoder {
+    private final int codeTable;
+    private final Charset charset;
+
+    public CodePageEncoder(int codeTable) {
+        this.codeTable = codeTable;
+        this.charset = charsetFor(codeTable);
+    }
+
+    public int getCodeTable() {
+        return codeTable;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    public void encode(String text, JobBuffer job) {
+        int length = text.length();
+        job.ensureCapacity(job.size() + length);
+        byte[] out = job.array();
+        int start = job.size();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                // Non-ASCII: let the charset handle the rest of the string
+                job.advance(i);
+                job.write(text.substring(i).getBytes(charset));
+                return;
+            }
+            out[start + i] = (byte) c;
+        }
+        job.advance(length);
+    }
+
+    public byte[] encode(String text) {
+        JobBuffer job = new JobBuffer(text.length());
+        encode(text, job);
+        return job.toByteArray();
+    }
+
+    static Charset charsetFor(int codeTable) {
+        String name;
+        switch (codeTable) {
+            case EscPosEncoder.ARABIC_CODE_TABLE:
+                name = "ISO-8859-6";
+                break;
+            case 16:
+                name = "windows-1252";
+                break;
+            case 17:
+                name = "IBM866";
+                break;
+            case 19:
+                name = "IBM858";
+                break;
+            default:
+                name = "IBM437";
+                break;
+        }
+        try {
+            return Charset.forName(name);
+        } catch (IllegalArgumentException e) {
+            // Fallback to UTF-8 if the code table's charset is not available
+            return StandardCharsets.UTF_8;
+        }
+    }
+}
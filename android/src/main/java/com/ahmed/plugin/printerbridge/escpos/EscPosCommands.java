@@ -0,0 +1,134 @@
+package com.ahmed.plugin.printerbridge.escpos;
+
+/**
+ * ESC/POS command bytes used by the encoders.
+ */
+public final class EscPosCommands {
+    public static final byte ESC = 0x1B;
+    public static final byte GS = 0x1D;
+    public static final byte CR = 0x0D;
+    public static final byte LF = 0x0A;
+    public static final byte DLE = 0x10;
+
+    // ESC @
+    public static final byte[] INITIALIZE = { ESC, 0x40 };
+    // ESC a n
+    public static final byte[] ALIGN_LEFT = { ESC, 0x61, 0x00 };
+    public static final byte[] ALIGN_CENTER = { ESC, 0x61, 0x01 };
+    // CR LF
+    public static final byte[] CR_LF = { CR, LF };
+    // GS V m
+    public static final byte[] FULL_CUT = { GS, 0x56, 0x00 };
+    public static final byte[] PARTIAL_CUT = { GS, 0x56, 0x01 };
+    // ESC p m t1 t2: pulse on pin 2, 50 ms on / 500 ms off
+    public static final byte[] CASH_DRAWER_KICK = { ESC, 0x70, 0x00, 0x19, (byte) 0xFA };
+
+    // GS ( k QR code functions (cn = 0x31)
+    public static final byte[] QR_SELECT_MODEL_2 = { GS, 0x28, 0x6B, 0x04, 0x00, 0x31, 0x41, 0x32, 0x00 };
+    public static final byte[] QR_PRINT = { GS, 0x28, 0x6B, 0x03, 0x00, 0x31, 0x51, 0x30 };
+
+    private EscPosCommands() {}
+
+    // ESC t n
+    public static byte[] selectCodeTable(int table) {
+        return new byte[] { ESC, 0x74, (byte) table };
+    }
+
+    // ESC a n
+    public static byte[] align(int alignment) {
+        return new byte[] { ESC, 0x61, (byte) alignment };
+    }
+
+    // ESC d n
+    public static byte[] feedLines(int lines) {
+        return new byte[] { ESC, 0x64, (byte) lines };
+    }
+
+    // ESC ! n
+    public static byte[] printMode(int mode) {
+        return new byte[] { ESC, 0x21, (byte) mode };
+    }
+
+    // ESC E n
+    public static byte[] emphasis(boolean on) {
+        return new byte[] { ESC, 0x45, (byte) (on ? 1 : 0) };
+    }
+
+    // GS ! n
+    public static byte[] characterSize(int size) {
+        return new byte[] { GS, 0x21, (byte) size };
+    }
+
+    // GS v 0 m xL xH yL yH, normal density; followed by widthBytes * rows bytes of image, MSB leftmost
+    public static byte[] rasterImageHeader(int widthBytes, int rows) {
+        return new byte[] {
+                GS, 0x76, 0x30, 0x00,
+                (byte) (widthBytes & 0xFF), (byte) (widthBytes >> 8),
+                (byte) (rows & 0xFF), (byte) (rows >> 8)
+        };
+    }
+
+    // DLE EOT n: real-time status, one byte; n = 1 printer, 2 offline cause, 3 error cause, 4 paper sensor
+    public static byte[] realTimeStatus(int n) {
+        return new byte[] { DLE, 0x04, (byte) n };
+    }
+
+    // GS a n: automatic status back for the events in mask n; the printer answers with its status at once
+    public static byte[] automaticStatusBack(int n) {
+        return new byte[] { GS, 0x61, (byte) n };
+    }
+
+    // GS I n: transmit printer ID or information
+    public static byte[] printerInfo(int n) {
+        return new byte[] { GS, 0x49, (byte) n };
+    }
+
+    // GS h n, in dots
+    public static byte[] barcodeHeight(int dots) {
+        return new byte[] { GS, 0x68, (byte) dots };
+    }
+
+    // GS w n, narrow bar width in dots
+    public static byte[] barcodeModuleWidth(int dots) {
+        return new byte[] { GS, 0x77, (byte) dots };
+    }
+
+    // GS H n: 0 = none, 1 = above, 2 = below, 3 = both
+    public static byte[] barcodeTextPosition(int position) {
+        return new byte[] { GS, 0x48, (byte) position };
+    }
+
+    // GS k m n d1...dn (function B, m = 65..73)
+    public static byte[] barcode(int symbology, byte[] data) {
+        byte[] command = new byte[data.length + 4];
+        command[0] = GS;
+        command[1] = 0x6B;
+        command[2] = (byte) symbology;
+        command[3] = (byte) data.length;
+        System.arraycopy(data, 0, command, 4, data.length);
+        return command;
+    }
+
+    public static byte[] qrModuleSize(int size) {
+        return new byte[] { GS, 0x28, 0x6B, 0x03, 0x00, 0x31, 0x43, (byte) size };
+    }
+
+    public static byte[] qrErrorCorrection(int level) {
+        return new byte[] { GS, 0x28, 0x6B, 0x03, 0x00, 0x31, 0x45, (byte) level };
+    }
+
+    public static byte[] qrStoreData(byte[] data) {
+        int len = data.length + 3;
+        byte[] command = new byte[data.length + 8];
+        command[0] = GS;
+        command[1] = 0x28;
+        command[2] = 0x6B;
+        command[3] = (byte) (len % 256);
+        command[4] = (byte) (len / 256);
+        command[5] = 0x31;
+        command[6] = 0x50;
+        command[7] = 0x30;
+        System.arraycopy(data, 0, command, 8, data.length);
+        return command;
+    }
+}
@@ -0,0 +1,305 @@
+package com.ahmed.plugin.printerbridge.escpos;
+
+import com.ahmed.plugin.printerbridge.exceptions.PrinterException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Turns print requests into complete ESC/POS byte streams. Pure Java, so the encoding can be exercised
+ * without a device.
+ */
+public class EscPosEncoder {
+    // Code table 28 is Arabic on the printers we ship with
+    public static final int ARABIC_CODE_TABLE = 28;
+
+    // Printable width of 58 mm and 80 mm paper at 203 dpi
+    public static final int PAPER_58MM_DOTS = 384;
+    public static final int PAPER_80MM_DOTS = 576;
+
+    // Rendered QR codes kept for printers without native QR; about 20 KB each on 58 mm paper
+    private static final int QR_CACHE_ENTRIES = 32;
+    private static final int QR_CACHE_BYTES = 512 * 1024;
+
+    // 10 mm bars with the digits printed underneath
+    private static final int BARCODE_HEIGHT_DOTS = 80;
+    private static final int BARCODE_TEXT_BELOW = 2;
+    // GS w accepts 2-6 on every printer we know; wider than 3 dots only wastes paper
+    private static final int MIN_BARCODE_MODULE_DOTS = 2;
+    private static final int MAX_BARCODE_MODULE_DOTS = 3;
+    // Distance from the print head to the cutter
+    private static final int CUT_FEED_LINES = 4;
+
+    // Charset lookup is done once; encodeText runs on every sale
+    private final CodePageEncoder textEncoder;
+    private final int paperWidthDots;
+    private final boolean nativeQr;
+    private final QrRasterCache qrRasterCache = new QrRasterCache(QR_CACHE_ENTRIES, QR_CACHE_BYTES);
+
+    public EscPosEncoder() {
+        this(PAPER_58MM_DOTS, true);
+    }
+
+    /**
+     * @param paperWidthDots printable width, which bounds the QR module size
+     * @param nativeQr whether the printer has a QR engine ({@code GS ( k}); if not, QR codes are sent as images
+     */
+    public EscPosEncoder(int paperWidthDots, boolean nativeQr) {
+        this(paperWidthDots, nativeQr, ARABIC_CODE_TABLE);
+    }
+
+    /**
+     * @param codeTable {@code ESC t} table selected at the start of every job and used to encode text
+     */
+    public EscPosEncoder(int paperWidthDots, boolean nativeQr, int codeTable) {
+        this.paperWidthDots = paperWidthDots;
+        this.nativeQr = nativeQr;
+        this.textEncoder = new CodePageEncoder(codeTable);
+    }
+
+    /** Printable dots for a paper width in millimetres; only 58 and 80 mm rolls are known. */
+    public static int paperWidthDots(int paperWidthMm) {
+        switch (paperWidthMm) {
+            case 58:
+                return PAPER_58MM_DOTS;
+            case 80:
+                return PAPER_80MM_DOTS;
+            default:
+                throw new IllegalArgumentException("Unsupported paper width " + paperWidthMm + " mm; use 58 or 80.");
+        }
+    }
+
+    public byte[] encodeText(String[] lines) throws PrinterException {
+        return encodeText(lines, JobFinishing.NONE);
+    }
+
+    public byte[] encodeText(String[] lines, JobFinishing finishing) throws PrinterException {
+        JobBuffer job = new JobBuffer(textCapacity(lines) + finishing.byteCount());
+        writeTextHeader(job);
+        writeLines(lines, job);
+        writeTextEnd(finishing, job);
+        return job.toByteArray();
+    }
+
+    /**
+     * The start of a text job whose last lines are not known yet. Followed by {@link #encodeTextTail} from the
+     * same encoder, it prints the same as {@link #encodeText} of all the lines.
+     */
+    public byte[] encodeTextHead(String[] lines) throws PrinterException {
+        JobBuffer job = new JobBuffer(textCapacity(lines));
+        writeTextHeader(job);
+        writeLines(lines, job);
+        return job.toByteArray();
+    }
+
+    /** The rest of a job started with {@link #encodeTextHead}: the remaining lines, trailing feeds and finishing. */
+    public byte[] encodeTextTail(String[] lines, JobFinishing finishing) throws PrinterException {
+        JobBuffer job = new JobBuffer(textCapacity(lines) + finishing.byteCount());
+        writeLines(lines, job);
+        writeTextEnd(finishing, job);
+        return job.toByteArray();
+    }
+
+    // Size the job up front: header + every line and its LF + trailing feeds
+    private static int textCapacity(String[] lines) {
+        int capacity = 16;
+        for (String line : lines) {
+            if (line != null) {
+                capacity += line.length() + 1;
+            }
+        }
+        return capacity;
+    }
+
+    private void writeTextHeader(JobBuffer job) {
+        // Initialize printer
+        job.write(EscPosCommands.INITIALIZE);
+
+        // Set character code table, Arabic unless the printer's profile says otherwise
+        job.write(EscPosCommands.selectCodeTable(textEncoder.getCodeTable()));
+    }
+
+    private void writeLines(String[] lines, JobBuffer job) {
+        for (String line : lines) {
+            if (line != null) {
+                textEncoder.encode(line, job);
+                // Print and feed one line
+                job.write(EscPosCommands.LF);
+            }
+        }
+    }
+
+    private static void writeTextEnd(JobFinishing finishing, JobBuffer job) {
+        // Add line feeds at the end
+        addLineFeed(3, job);
+        finishing.writeTo(job);
+    }
+
+    public byte[] encodeQRCode(String qrData) throws PrinterException {
+        return encodeQRCode(qrData, JobFinishing.NONE);
+    }
+
+    public byte[] encodeQRCode(String qrData, JobFinishing finishing) throws PrinterException {
+        byte[] qrBytes = qrData.getBytes(StandardCharsets.UTF_8);
+        QrLayout layout = QrLayout.plan(qrBytes.length, paperWidthDots);
+        byte[] raster = nativeQr ? null : qrRasterCache.get(qrData, layout);
+        JobBuffer job = new JobBuffer((raster != null ? raster.length : qrBytes.length) + 64 + finishing.byteCount());
+
+        // Initialize printer
+        job.write(EscPosCommands.INITIALIZE);
+
+        // Set center alignment
+        job.write(EscPosCommands.ALIGN_CENTER);
+
+        if (raster != null) {
+            // No QR engine on the printer: send the symbol as an image
+            job.write(raster);
+        } else {
+            // Select QR Code model (Model 2)
+            job.write(EscPosCommands.QR_SELECT_MODEL_2);
+
+            // Set module size
+            job.write(EscPosCommands.qrModuleSize(layout.getModuleDots()));
+
+            // Set error correction level
+            job.write(EscPosCommands.qrErrorCorrection(layout.escPosErrorCorrection()));
+
+            // Store QR code data
+            job.write(EscPosCommands.qrStoreData(qrBytes));
+
+            // Print the QR code
+            job.write(EscPosCommands.QR_PRINT);
+        }
+
+        // Reset alignment to left
+        job.write(EscPosCommands.ALIGN_LEFT);
+
+        // Add line feeds
+        addLineFeed(2, job);
+        finishing.writeTo(job);
+        return job.toByteArray();
+    }
+
+    /**
+     * Encodes a run of QR codes and barcodes as one job: the printer is initialised and the symbol
+     * settings shared by all codes are sent once, and a module size or error correction level only when
+     * it changes from the previous code.
+     *
+     * @param cutBetween cut after every code but the last; the last one is finished by {@code finishing}
+     * @throws PrinterException if a code does not fit on the paper
+     */
+    public byte[] encodeCodes(List<PrintCode> codes, JobFinishing.Cut cutBetween, JobFinishing finishing) throws PrinterException {
+        boolean hasQr = false;
+        boolean hasBarcode = false;
+        int capacity = 64 + finishing.byteCount();
+        for (PrintCode code : codes) {
+            boolean qr = code.getSymbology() == PrintCode.Symbology.QR;
+            hasQr |= qr;
+            hasBarcode |= !qr;
+            capacity += code.getData().length() + 48 + (code.getCaption() != null ? code.getCaption().length() : 0);
+        }
+        JobBuffer job = new JobBuffer(capacity);
+
+        job.write(EscPosCommands.INITIALIZE);
+        job.write(EscPosCommands.selectCodeTable(textEncoder.getCodeTable()));
+        job.write(EscPosCommands.ALIGN_CENTER);
+        if (hasQr && nativeQr) {
+            job.write(EscPosCommands.QR_SELECT_MODEL_2);
+        }
+        if (hasBarcode) {
+            job.write(EscPosCommands.barcodeHeight(BARCODE_HEIGHT_DOTS));
+            job.write(EscPosCommands.barcodeTextPosition(BARCODE_TEXT_BELOW));
+        }
+
+        // Settings last sent; -1 until the first code that needs them
+        int qrModuleDots = -1;
+        int qrErrorCorrection = -1;
+        int barcodeModuleDots = -1;
+        for (int i = 0; i < codes.size(); i++) {
+            PrintCode code = codes.get(i);
+            if (i > 0) {
+                if (cutBetween == JobFinishing.Cut.NONE) {
+                    addLineFeed(1, job);
+                } else {
+                    // Past the cutter first, or the cut goes through the code just printed
+                    addLineFeed(CUT_FEED_LINES, job);
+                    job.write(cutBetween == JobFinishing.Cut.FULL ? EscPosCommands.FULL_CUT : EscPosCommands.PARTIAL_CUT);
+                }
+            }
+            if (code.getSymbology() == PrintCode.Symbology.QR) {
+                byte[] qrBytes = code.getData().getBytes(StandardCharsets.UTF_8);
+                QrLayout layout = QrLayout.plan(qrBytes.length, paperWidthDots);
+                if (!nativeQr) {
+                    job.write(qrRasterCache.get(code.getData(), layout));
+                } else {
+                    if (layout.getModuleDots() != qrModuleDots) {
+                        qrModuleDots = layout.getModuleDots();
+                        job.write(EscPosCommands.qrModuleSize(qrModuleDots));
+                    }
+                    if (layout.escPosErrorCorrection() != qrErrorCorrection) {
+                        qrErrorCorrection = layout.escPosErrorCorrection();
+                        job.write(EscPosCommands.qrErrorCorrection(qrErrorCorrection));
+                    }
+                    job.write(EscPosCommands.qrStoreData(qrBytes));
+                    job.write(EscPosCommands.QR_PRINT);
+                }
+            } else {
+                int moduleDots = Math.min(MAX_BARCODE_MODULE_DOTS, paperWidthDots / code.barcodeModules());
+                if (moduleDots < MIN_BARCODE_MODULE_DOTS) {
+                    throw new PrinterException("Barcode data is too long to print on this paper: " + code.getData());
+                }
+                byte[] data = code.barcodeData();
+                if (data.length > PrintCode.MAX_BARCODE_LENGTH) {
+                    throw new PrinterException("Barcode data is too long: " + code.getData());
+                }
+                if (moduleDots != barcodeModuleDots) {
+                    barcodeModuleDots = moduleDots;
+                    job.write(EscPosCommands.barcodeModuleWidth(moduleDots));
+                }
+                job.write(EscPosCommands.barcode(code.getSymbology().gsK, data));
+            }
+            addLineFeed(1, job);
+            if (code.getCaption() != null) {
+                textEncoder.encode(code.getCaption(), job);
+                job.write(EscPosCommands.LF);
+            }
+        }
+
+        job.write(EscPosCommands.ALIGN_LEFT);
+        addLineFeed(2, job);
+        finishing.writeTo(job);
+        return job.toByteArray();
+    }
+
+    public byte[] encodeLineFeed(int lines) {
+        JobBuffer job = new JobBuffer(lines * 2);
+        addLineFeed(lines, job);
+        return job.toByteArray();
+    }
+
+    public byte[] encodeCut(boolean partial) {
+        return (partial ? EscPosCommands.PARTIAL_CUT : EscPosCommands.FULL_CUT).clone();
+    }
+
+    public byte[] encodeCashDrawerKick() {
+        return EscPosCommands.CASH_DRAWER_KICK.clone();
+    }
+
+    public int getPaperWidthDots() {
+        return paperWidthDots;
+    }
+
+    public boolean hasNativeQr() {
+        return nativeQr;
+    }
+
+    QrRasterCache getQrRasterCache() {
+        return qrRasterCache;
+    }
+
+    private static void addLineFeed(int lines, JobBuffer job) {
+        for (int i = 0; i < lines; i++) {
+            job.write(EscPosCommands.CR_LF);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.ahmed.plugin.printerbridge.escpos;
+
+import static com.ahmed.plugin.printerbridge.escpos.EscPosSession.State.ALIGNMENT;
+import static com.ahmed.plugin.printerbridge.escpos.EscPosSession.State.CHARACTER_SIZE;
+import static com.ahmed.plugin.printerbridge.escpos.EscPosSession.State.CODE_TABLE;
+import static com.ahmed.plugin.printerbridge.escpos.EscPosSession.State.EMPHASIS;
+import static com.ahmed.plugin.printerbridge.escpos.EscPosSession.State.FIELD_COUNT;
+import static com.ahmed.plugin.printerbridge.escpos.EscPosSession.State.PRINT_MODE;
+import static com.ahmed.plugin.printerbridge.escpos.EscPosSession.State.UNKNOWN;
+
+import java.util.Arrays;
+
+/**
+ * Peephole pass run on each job right before it goes out. It replays the stream against the printer
+ * state tracked in an {@link EscPosSession} and drops what the printer would not notice:
+ * <ul>
+ *   <li>settings (code table, alignment, print mode, emphasis, size) are only sent right before the
+ *   content that uses them, and only if the printer is not already set that way, so repeated and
+ *   cancelling settings disappear;</li>
+ *   <li>{@code ESC @} is skipped when the session knows the printer is idle at the start of a line with
+ *   nothing set that a reset would have to undo;</li>
+ *   <li>runs of line feeds become one {@code ESC d n}; a CR inside such a run is dropped, which assumes
+ *   the printer's auto line feed is off, as it is on ESC/POS printers by default.</li>
+ * </ul>
+ * Every job still leaves the printer exactly as the unoptimized job would have.
+ */
+public final class EscPosOptimizer {
+    private static final EscPosStreamParser PARSER = new EscPosStreamParser();
+
+    private static final int MAX_FEED_LINES = 255;
+    private static final int QR_PRINT_FUNCTION = 0x51;
+    private static final int ESC_EMPHASIS_BIT = 0x08;
+    private static final int ESC_DOUBLE_HEIGHT_BIT = 0x10;
+    private static final int ESC_DOUBLE_WIDTH_BIT = 0x20;
+
+    /** The bytes to send and what the printer will be like once they are printed. */
+    public static final class Result {
+        private final byte[] data;
+        private final int bytesSaved;
+        final EscPosSession.State endState;
+
+        Result(byte[] data, int bytesSaved, EscPosSession.State endState) {
+            this.data = data;
+            this.bytesSaved = bytesSaved;
+            this.endState = endState;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+
+        /** Bytes removed compared to the input job. */
+        public int getBytesSaved() {
+            return bytesSaved;
+        }
+    }
+
+    private EscPosOptimizer() {}
+
+    /**
+     * Optimizes a job for the printer described by {@code session}. The session itself is left alone;
+     * {@link EscPosSession#commit} the result once it has been delivered.
+     */
+    public static Result optimize(byte[] job, EscPosSession session) {
+        Pass pass = new Pass(job, session.snapshot());
+        for (EscPosStreamParser.Command command : PARSER.parse(job)) {
+            pass.apply(command);
+        }
+        return pass.finish();
+    }
+
+    private static final class Pass {
+        private final byte[] job;
+        private final JobBuffer out;
+        // What the printer is set to after the bytes written so far, and what the input stream has asked for
+        private final int[] printer;
+        private final int[] wanted;
+        private boolean lineStart;
+        private boolean untracked;
+        // Pending run of LF/CR bytes
+        private int runStart = -1;
+        private int runEnd;
+        private int runFeeds;
+
+        Pass(byte[] job, EscPosSession.State start) {
+            this.job = job;
+            this.out = new JobBuffer(job.length);
+            this.printer = start.values();
+            this.wanted = start.values();
+            this.lineStart = start.lineStart;
+            this.untracked = start.untracked;
+        }
+
+        void apply(EscPosStreamParser.Command command) {
+            if (command.type == EscPosStreamParser.Type.LINE_FEED
+                    || command.type == EscPosStreamParser.Type.CARRIAGE_RETURN) {
+                if (runStart < 0) {
+                    runStart = command.offset;
+                }
+                runEnd = command.offset + command.length;
+                if (command.type == EscPosStreamParser.Type.LINE_FEED) {
+                    runFeeds++;
+                }
+                return;
+            }
+            flushFeeds();
+            switch (command.type) {
+                case INITIALIZE:
+                    if (!canSkipInitialize()) {
+                        copy(command);
+                        Arrays.fill(printer, 0);
+                        lineStart = true;
+                        untracked = false;
+                    }
+                    Arrays.fill(wanted, 0);
+                    break;
+                case SELECT_CODE_TABLE:
+                    wanted[CODE_TABLE] = command.arg;
+                    break;
+                case ALIGN:
+                    if (lineStart) {
+                        wanted[ALIGNMENT] = command.arg;
+                    } else {
+                        // Mid-line the printer may ignore it or apply it to the current line; leave that to it
+                        copy(command);
+                        printer[ALIGNMENT] = UNKNOWN;
+                        wanted[ALIGNMENT] = UNKNOWN;
+                    }
+                    break;
+                case EMPHASIS:
+                    wanted[EMPHASIS] = command.arg & 1;
+                    break;
+                case PRINT_MODE:
+                    if (job[command.offset] == EscPosCommands.GS) {
+                        wanted[CHARACTER_SIZE] = command.arg;
+                    } else {
+                        setFromEscPrintMode(wanted, command.arg);
+                    }
+                    break;
+                case TEXT:
+                    syncAll();
+                    copy(command);
+                    lineStart = false;
+                    break;
+                case QR:
+                    if (command.arg == QR_PRINT_FUNCTION) {
+                        sync(ALIGNMENT);
+                        lineStart = false;
+                    } else {
+                        untracked = true;
+                    }
+                    copy(command);
+                    break;
+                case RASTER_IMAGE:
+                case BARCODE:
+                    sync(ALIGNMENT);
+                    copy(command);
+                    lineStart = false;
+                    break;
+                case FEED_LINES:
+                    sync(ALIGNMENT);
+                    copy(command);
+                    lineStart = true;
+                    break;
+                case BARCODE_SETTING:
+                    copy(command);
+                    untracked = true;
+                    break;
+                case UNKNOWN:
+                    // May touch anything, including what we track: settle pending settings first, forget after
+                    syncAll();
+                    copy(command);
+                    Arrays.fill(printer, UNKNOWN);
+                    Arrays.fill(wanted, UNKNOWN);
+                    untracked = true;
+                    break;
+                default:
+                    // Cut, cash drawer and status requests do not depend on or change tracked settings
+                    copy(command);
+                    break;
+            }
+        }
+
+        Result finish() {
+            flushFeeds();
+            // Leave the printer as the input would have, so the next job can rely on the session
+            syncAll();
+            byte[] data = out.toByteArray();
+            return new Result(data, job.length - data.length, new EscPosSession.State(printer, lineStart, untracked));
+        }
+
+        private boolean canSkipInitialize() {
+            if (!lineStart || untracked) {
+                return false;
+            }
+            for (int value : printer) {
+                if (value == UNKNOWN) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void flushFeeds() {
+            if (runStart < 0) {
+                return;
+            }
+            int runBytes = runEnd - runStart;
+            if (runFeeds > 0) {
+                // Alignment applies to the line the feed prints
+                sync(ALIGNMENT);
+                lineStart = true;
+            }
+            int commands = (runFeeds + MAX_FEED_LINES - 1) / MAX_FEED_LINES;
+            if (runFeeds > 0 && commands * 3 < runBytes) {
+                for (int left = runFeeds; left > 0; left -= MAX_FEED_LINES) {
+                    out.write(EscPosCommands.feedLines(Math.min(left, MAX_FEED_LINES)));
+                }
+            } else {
+                out.write(job, runStart, runBytes);
+            }
+            runStart = -1;
+            runFeeds = 0;
+        }
+
+        private void syncAll() {
+            for (int field = 0; field < FIELD_COUNT; field++) {
+                sync(field);
+            }
+        }
+
+        private void sync(int field) {
+            int value = wanted[field];
+            if (value == UNKNOWN || value == printer[field]) {
+                return;
+            }
+            switch (field) {
+                case CODE_TABLE:
+                    out.write(EscPosCommands.selectCodeTable(value));
+                    break;
+                case ALIGNMENT:
+                    out.write(EscPosCommands.align(value));
+                    break;
+                case PRINT_MODE: {
+                    // ESC ! also sets emphasis and double size; carry the wanted ones so they rarely need fixing
+                    int size = wanted[CHARACTER_SIZE];
+                    int mode = value
+                            | (wanted[EMPHASIS] == 1 ? ESC_EMPHASIS_BIT : 0)
+                            | (size != UNKNOWN && (size & 0x0F) != 0 ? ESC_DOUBLE_HEIGHT_BIT : 0)
+                            | (size != UNKNOWN && (size & 0xF0) != 0 ? ESC_DOUBLE_WIDTH_BIT : 0);
+                    out.write(EscPosCommands.printMode(mode));
+                    setFromEscPrintMode(printer, mode);
+                    return;
+                }
+                case EMPHASIS:
+                    out.write(EscPosCommands.emphasis(value == 1));
+                    break;
+                case CHARACTER_SIZE:
+                    out.write(EscPosCommands.characterSize(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown field " + field);
+            }
+            printer[field] = value;
+        }
+
+        private void copy(EscPosStreamParser.Command command) {
+            out.write(job, command.offset, command.length);
+        }
+
+        private static void setFromEscPrintMode(int[] state, int mode) {
+            state[PRINT_MODE] = mode & ~(ESC_EMPHASIS_BIT | ESC_DOUBLE_HEIGHT_BIT | ESC_DOUBLE_WIDTH_BIT) & 0xFF;
+            state[EMPHASIS] = (mode & ESC_EMPHASIS_BIT) != 0 ? 1 : 0;
+            state[CHARACTER_SIZE] = ((mode & ESC_DOUBLE_WIDTH_BIT) != 0 ? 0x10 : 0)
+                    | ((mode & ESC_DOUBLE_HEIGHT_BIT) != 0 ? 0x01 : 0);
+        }
+    }
+}
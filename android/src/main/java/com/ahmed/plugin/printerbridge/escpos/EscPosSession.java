@@ -0,0 +1,76 @@
+package com.ahmed.plugin.printerbridge.escpos;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the printer on the current connection is known to be set to, as left by the jobs sent to it.
+ * {@link EscPosOptimizer} reads it to drop commands the printer does not need, and the sender commits
+ * the optimizer's end state once a job has been delivered. Anything that may have left the printer in
+ * an unknown state (a failed or cut-off transfer, another printer) has to {@link #invalidate()} it; a
+ * printer left alone for {@link #IDLE_TIMEOUT_MS} is no longer trusted either, since another app may
+ * have printed in between.
+ */
+public final class EscPosSession {
+    /** How long a quiet printer is still trusted to hold the state we left it in. */
+    public static final long IDLE_TIMEOUT_MS = 60_000;
+
+    private State state = State.COLD;
+    private long lastCommitNanos;
+
+    public synchronized void invalidate() {
+        state = State.COLD;
+    }
+
+    /** Records the state a delivered job left the printer in. */
+    public synchronized void commit(EscPosOptimizer.Result delivered) {
+        state = delivered.endState;
+        lastCommitNanos = System.nanoTime();
+    }
+
+    synchronized State snapshot() {
+        if (System.nanoTime() - lastCommitNanos >= TimeUnit.MILLISECONDS.toNanos(IDLE_TIMEOUT_MS)) {
+            return State.COLD;
+        }
+        return state;
+    }
+
+    /** Immutable printer state as tracked by the optimizer. */
+    static final class State {
+        // Tracked settings, indexes into values
+        static final int CODE_TABLE = 0;
+        static final int ALIGNMENT = 1;
+        // ESC ! bits other than emphasis and double size, which live in the next two fields
+        static final int PRINT_MODE = 2;
+        static final int EMPHASIS = 3;
+        // GS ! n
+        static final int CHARACTER_SIZE = 4;
+        static final int FIELD_COUNT = 5;
+
+        static final int UNKNOWN = -1;
+
+        static final State COLD;
+
+        static {
+            int[] unknown = new int[FIELD_COUNT];
+            Arrays.fill(unknown, UNKNOWN);
+            COLD = new State(unknown, false, true);
+        }
+
+        private final int[] values;
+        // Print buffer empty, i.e. the last job did not stop in the middle of a line
+        final boolean lineStart;
+        // A command changed printer state we do not track, so only ESC @ can bring it back to defaults
+        final boolean untracked;
+
+        State(int[] values, boolean lineStart, boolean untracked) {
+            this.values = values.clone();
+            this.lineStart = lineStart;
+            this.untracked = untracked;
+        }
+
+        int[] values() {
+            return values.clone();
+        }
+    }
+}
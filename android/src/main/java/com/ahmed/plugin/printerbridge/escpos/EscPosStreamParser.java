@@ -0,0 +1,179 @@
+package com.ahmed.plugin.printerbridge.escpos;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits an ESC/POS byte stream into commands and text runs, the way a printer's command
+ * interpreter would.
+ */
+public class EscPosStreamParser {
+
+    public enum Type {
+        TEXT,
+        LINE_FEED,
+        CARRIAGE_RETURN,
+        INITIALIZE,
+        SELECT_CODE_TABLE,
+        ALIGN,
+        FEED_LINES,
+        PRINT_MODE,
+        EMPHASIS,
+        CASH_DRAWER,
+        CUT,
+        QR,
+        RASTER_IMAGE,
+        BARCODE,
+        BARCODE_SETTING,
+        STATUS_REQUEST,
+        UNKNOWN
+    }
+
+    public static class Command {
+        public final Type type;
+        public final int offset;
+        public final int length;
+        // Command-specific numeric argument (table, alignment, line count, QR function, ...)
+        public final int arg;
+        // Payload slice of the stream, e.g. text bytes, QR data or raster bits
+        public final int payloadOffset;
+        public final int payloadLength;
+
+        Command(Type type, int offset, int length, int arg, int payloadOffset, int payloadLength) {
+            this.type = type;
+            this.offset = offset;
+            this.length = length;
+            this.arg = arg;
+            this.payloadOffset = payloadOffset;
+            this.payloadLength = payloadLength;
+        }
+
+        @Override
+        public String toString() {
+            return type + "(" + arg + ")@" + offset;
+        }
+    }
+
+    public List<Command> parse(byte[] data) {
+        List<Command> commands = new ArrayList<>();
+        int i = 0;
+        while (i < data.length) {
+            int b = data[i] & 0xFF;
+            Command command;
+            if (b == 0x1B) {
+                command = parseEsc(data, i);
+            } else if (b == 0x1D) {
+                command = parseGs(data, i);
+            } else if (b == 0x10) {
+                command = parseDle(data, i);
+            } else if (b == 0x0A) {
+                command = new Command(Type.LINE_FEED, i, 1, 1, i, 0);
+            } else if (b == 0x0D) {
+                command = new Command(Type.CARRIAGE_RETURN, i, 1, 0, i, 0);
+            } else {
+                int end = i;
+                while (end < data.length && !isControl(data[end] & 0xFF)) {
+                    end++;
+                }
+                if (end == i) {
+                    // Lone control byte we do not model
+                    end = i + 1;
+                    command = new Command(Type.UNKNOWN, i, 1, b, i, 1);
+                } else {
+                    command = new Command(Type.TEXT, i, end - i, 0, i, end - i);
+                }
+            }
+            commands.add(command);
+            i += command.length;
+        }
+        return commands;
+    }
+
+    private static boolean isControl(int b) {
+        return b == 0x1B || b == 0x1D || b == 0x10 || b == 0x0A || b == 0x0D || b < 0x20 && b != 0x09;
+    }
+
+    private Command parseEsc(byte[] data, int i) {
+        int fn = at(data, i + 1);
+        switch (fn) {
+            case 0x40: // ESC @
+                return new Command(Type.INITIALIZE, i, 2, 0, i, 0);
+            case 0x74: // ESC t n
+                return new Command(Type.SELECT_CODE_TABLE, i, 3, at(data, i + 2), i, 0);
+            case 0x61: // ESC a n
+                return new Command(Type.ALIGN, i, 3, at(data, i + 2) % 0x30, i, 0);
+            case 0x64: // ESC d n
+                return new Command(Type.FEED_LINES, i, 3, at(data, i + 2), i, 0);
+            case 0x21: // ESC ! n
+                return new Command(Type.PRINT_MODE, i, 3, at(data, i + 2), i, 0);
+            case 0x45: // ESC E n
+                return new Command(Type.EMPHASIS, i, 3, at(data, i + 2), i, 0);
+            case 0x70: // ESC p m t1 t2
+                return new Command(Type.CASH_DRAWER, i, 5, at(data, i + 2), i, 0);
+            default:
+                return new Command(Type.UNKNOWN, i, Math.min(2, data.length - i), fn, i, 0);
+        }
+    }
+
+    private Command parseGs(byte[] data, int i) {
+        int fn = at(data, i + 1);
+        switch (fn) {
+            case 0x56: { // GS V m [n]
+                int m = at(data, i + 2);
+                int length = m >= 65 ? 4 : 3;
+                return new Command(Type.CUT, i, length, m % 65 % 0x30, i, 0);
+            }
+            case 0x28: { // GS ( k pL pH cn fn [params]
+                int len = at(data, i + 3) + at(data, i + 4) * 256;
+                int total = Math.min(5 + len, data.length - i);
+                if (at(data, i + 2) == 0x6B && at(data, i + 5) == 0x31) {
+                    // arg = function code; payload = params after fn
+                    return new Command(Type.QR, i, total, at(data, i + 6), i + 7, Math.max(0, total - 7));
+                }
+                return new Command(Type.UNKNOWN, i, total, fn, i, 0);
+            }
+            case 0x76: { // GS v 0 m xL xH yL yH d1...dk
+                int widthBytes = at(data, i + 4) + at(data, i + 5) * 256;
+                int height = at(data, i + 6) + at(data, i + 7) * 256;
+                int total = Math.min(8 + widthBytes * height, data.length - i);
+                return new Command(Type.RASTER_IMAGE, i, total, widthBytes, i + 8, total - 8);
+            }
+            case 0x6B: { // GS k m ...
+                int m = at(data, i + 2);
+                if (m <= 6) {
+                    int end = i + 3;
+                    while (end < data.length && data[end] != 0) {
+                        end++;
+                    }
+                    return new Command(Type.BARCODE, i, Math.min(end + 1, data.length) - i, m, i + 3, end - i - 3);
+                }
+                int n = at(data, i + 3);
+                int total = Math.min(4 + n, data.length - i);
+                return new Command(Type.BARCODE, i, total, m, i + 4, total - 4);
+            }
+            case 0x68: // GS h n
+            case 0x77: // GS w n
+            case 0x48: // GS H n
+                return new Command(Type.BARCODE_SETTING, i, 3, at(data, i + 2), i, 0);
+            case 0x61: // GS a n
+            case 0x49: // GS I n
+            case 0x72: // GS r n
+                return new Command(Type.STATUS_REQUEST, i, 3, at(data, i + 2), i, 0);
+            case 0x21: // GS ! n
+                return new Command(Type.PRINT_MODE, i, 3, at(data, i + 2), i, 0);
+            default:
+                return new Command(Type.UNKNOWN, i, Math.min(2, data.length - i), fn, i, 0);
+        }
+    }
+
+    private Command parseDle(byte[] data, int i) {
+        if (at(data, i + 1) == 0x04) { // DLE EOT n
+            return new Command(Type.STATUS_REQUEST, i, 3, at(data, i + 2), i, 0);
+        }
+        return new Command(Type.UNKNOWN, i, 1, 0x10, i, 0);
+    }
+
+    private static int at(byte[] data, int index) {
+        return index < data.length ? data[index] & 0xFF : 0;
+    }
+}
@@ -0,0 +1,60 @@
+package com.ahmed.plugin.printerbridge.escpos;
+
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer for assembling ESC/POS jobs. Unlike {@link java.io.ByteArrayOutputStream} it is not
+ * synchronized and lets callers size it up front, so building a job costs one array plus the final copy.
+ */
+public final class JobBuffer {
+    private byte[] buffer;
+    private int size;
+
+    public JobBuffer(int initialCapacity) {
+        this.buffer = new byte[Math.max(16, initialCapacity)];
+    }
+
+    public JobBuffer write(byte value) {
+        ensureCapacity(size + 1);
+        buffer[size++] = value;
+        return this;
+    }
+
+    public JobBuffer write(byte[] bytes) {
+        return write(bytes, 0, bytes.length);
+    }
+
+    public JobBuffer write(byte[] bytes, int offset, int length) {
+        ensureCapacity(size + length);
+        System.arraycopy(bytes, offset, buffer, size, length);
+        size += length;
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void reset() {
+        size = 0;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    void ensureCapacity(int capacity) {
+        if (capacity > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(capacity, buffer.length << 1));
+        }
+    }
+
+    // Direct access for encoders writing single-byte characters in place
+    byte[] array() {
+        return buffer;
+    }
+
+    void advance(int count) {
+        size += count;
+    }
+}
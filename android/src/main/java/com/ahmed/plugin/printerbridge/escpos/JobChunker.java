@@ -0,0 +1,149 @@
+package com.ahmed.plugin.printerbridge.escpos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Splits a long ESC/POS job into chunks that can be sent one at a time, so other jobs can be printed
+ * in between. Chunks only end right after a line feed, feed or cut, never inside a command or a
+ * half-printed line, and every chunk after the first starts by re-selecting the code table, alignment,
+ * print mode and QR and barcode settings in effect at that point: a job printed in between begins with
+ * ESC @ and resets them.
+ */
+public final class JobChunker {
+
+    private JobChunker() {}
+
+    /**
+     * @param maxChunkBytes target chunk size; a chunk only exceeds it when there is no boundary to
+     *                      split at, e.g. for one very long line or a raster image
+     */
+    public static List<byte[]> split(byte[] job, int maxChunkBytes) {
+        if (job.length <= maxChunkBytes) {
+            return Collections.singletonList(job);
+        }
+        List<byte[]> chunks = new ArrayList<>();
+        ModalState state = new ModalState();
+        byte[] prefix = new byte[0];
+        int chunkStart = 0;
+        int safeEnd = -1;
+        byte[] stateAtSafeEnd = null;
+
+        for (EscPosStreamParser.Command command : new EscPosStreamParser().parse(job)) {
+            int end = command.offset + command.length;
+            // Close the chunk at the last boundary before the command that would overflow it
+            if (prefix.length + end - chunkStart > maxChunkBytes && safeEnd > chunkStart) {
+                chunks.add(concat(prefix, job, chunkStart, safeEnd));
+                prefix = stateAtSafeEnd;
+                chunkStart = safeEnd;
+            }
+            state.apply(command, job);
+            if (isPrintBoundary(command.type)) {
+                safeEnd = end;
+                stateAtSafeEnd = state.restoreCommands();
+            }
+        }
+        if (chunkStart < job.length) {
+            chunks.add(concat(prefix, job, chunkStart, job.length));
+        }
+        return chunks;
+    }
+
+    private static boolean isPrintBoundary(EscPosStreamParser.Type type) {
+        return type == EscPosStreamParser.Type.LINE_FEED
+                || type == EscPosStreamParser.Type.FEED_LINES
+                || type == EscPosStreamParser.Type.CUT;
+    }
+
+    private static byte[] concat(byte[] prefix, byte[] job, int from, int to) {
+        byte[] chunk = new byte[prefix.length + to - from];
+        System.arraycopy(prefix, 0, chunk, 0, prefix.length);
+        System.arraycopy(job, from, chunk, prefix.length, to - from);
+        return chunk;
+    }
+
+    // Settings that outlive a line; -1 means never set by this job, so the printer default applies
+    private static final class ModalState {
+        // GS ( k functions that hold no setting: store symbol data and print it
+        private static final int QR_STORE_FUNCTION = 0x50;
+        private static final int QR_PRINT_FUNCTION = 0x51;
+        // Keeps QR function codes apart from the GS h / w / H bytes in symbolSettings
+        private static final int QR_SETTING_KEY = 0x100;
+
+        int codeTable = -1;
+        int alignment = -1;
+        int printMode = -1;
+        int emphasis = -1;
+        int characterSize = -1;
+        // QR model, module size and error correction, and barcode height, width and text position, as
+        // sent; keyed by function byte so only the last of each is kept
+        final Map<Integer, byte[]> symbolSettings = new TreeMap<>();
+
+        void apply(EscPosStreamParser.Command command, byte[] job) {
+            switch (command.type) {
+                case INITIALIZE:
+                    codeTable = alignment = printMode = emphasis = characterSize = -1;
+                    symbolSettings.clear();
+                    break;
+                case SELECT_CODE_TABLE:
+                    codeTable = command.arg;
+                    break;
+                case ALIGN:
+                    alignment = command.arg;
+                    break;
+                case EMPHASIS:
+                    emphasis = command.arg;
+                    break;
+                case PRINT_MODE:
+                    // ESC ! and GS ! share the type; the lead byte tells them apart
+                    if (job[command.offset] == EscPosCommands.GS) {
+                        characterSize = command.arg;
+                    } else {
+                        printMode = command.arg;
+                    }
+                    break;
+                case QR:
+                    if (command.arg != QR_STORE_FUNCTION && command.arg != QR_PRINT_FUNCTION) {
+                        symbolSettings.put(QR_SETTING_KEY + command.arg, copy(command, job));
+                    }
+                    break;
+                case BARCODE_SETTING:
+                    symbolSettings.put(job[command.offset + 1] & 0xFF, copy(command, job));
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private static byte[] copy(EscPosStreamParser.Command command, byte[] job) {
+            return Arrays.copyOfRange(job, command.offset, command.offset + command.length);
+        }
+
+        byte[] restoreCommands() {
+            JobBuffer out = new JobBuffer(16);
+            if (codeTable >= 0) {
+                out.write(EscPosCommands.selectCodeTable(codeTable));
+            }
+            if (alignment >= 0) {
+                out.write(new byte[] { EscPosCommands.ESC, 0x61, (byte) alignment });
+            }
+            if (printMode >= 0) {
+                out.write(new byte[] { EscPosCommands.ESC, 0x21, (byte) printMode });
+            }
+            if (emphasis >= 0) {
+                out.write(new byte[] { EscPosCommands.ESC, 0x45, (byte) emphasis });
+            }
+            if (characterSize >= 0) {
+                out.write(new byte[] { EscPosCommands.GS, 0x21, (byte) characterSize });
+            }
+            for (byte[] setting : symbolSettings.values()) {
+                out.write(setting);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.ahmed.plugin.printerbridge.escpos;
+
+import java.util.Locale;
+
+/**
+ * Paper handling appended to the end of a print job: extra feed, a cut and a cash drawer kick, in that
+ * order. Sending them with the job saves a connect and a round trip per step at checkout.
+ */
+public final class JobFinishing {
+    public static final int MAX_FEED_LINES = 255;
+
+    public static final JobFinishing NONE = new JobFinishing(0, Cut.NONE, false);
+
+    public enum Cut {
+        NONE,
+        FULL,
+        PARTIAL
+    }
+
+    private final int feedLines;
+    private final Cut cut;
+    private final boolean openDrawer;
+
+    public JobFinishing(int feedLines, Cut cut, boolean openDrawer) {
+        if (feedLines < 0 || feedLines > MAX_FEED_LINES) {
+            throw new IllegalArgumentException("feed must be between 0 and " + MAX_FEED_LINES + ".");
+        }
+        this.feedLines = feedLines;
+        this.cut = cut != null ? cut : Cut.NONE;
+        this.openDrawer = openDrawer;
+    }
+
+    /**
+     * Builds the finishing from plugin call options; absent options mean "do nothing".
+     *
+     * @param cut "full", "partial" or null
+     * @throws IllegalArgumentException for out-of-range or unknown values
+     */
+    public static JobFinishing fromOptions(Integer feed, String cut, Boolean openDrawer) {
+        Cut cutMode = parseCut(cut, "cut");
+        int feedLines = feed != null ? feed : 0;
+        boolean drawer = openDrawer != null && openDrawer;
+        if (feedLines == 0 && cutMode == Cut.NONE && !drawer) {
+            return NONE;
+        }
+        return new JobFinishing(feedLines, cutMode, drawer);
+    }
+
+    /**
+     * @param cut "full", "partial" or null for no cut
+     * @param option name of the option, for the error message
+     * @throws IllegalArgumentException for unknown values
+     */
+    public static Cut parseCut(String cut, String option) {
+        if (cut == null || cut.trim().isEmpty()) {
+            return Cut.NONE;
+        }
+        switch (cut.trim().toLowerCase(Locale.ROOT)) {
+            case "full":
+                return Cut.FULL;
+            case "partial":
+                return Cut.PARTIAL;
+            default:
+                throw new IllegalArgumentException(option + " must be 'full' or 'partial'.");
+        }
+    }
+
+    public int getFeedLines() {
+        return feedLines;
+    }
+
+    public Cut getCut() {
+        return cut;
+    }
+
+    public boolean isOpenDrawer() {
+        return openDrawer;
+    }
+
+    int byteCount() {
+        return feedLines * EscPosCommands.CR_LF.length
+                + (cut != Cut.NONE ? EscPosCommands.FULL_CUT.length : 0)
+                + (openDrawer ? EscPosCommands.CASH_DRAWER_KICK.length : 0);
+    }
+
+    void writeTo(JobBuffer job) {
+        for (int i = 0; i < feedLines; i++) {
+            job.write(EscPosCommands.CR_LF);
+        }
+        if (cut == Cut.FULL) {
+            job.write(EscPosCommands.FULL_CUT);
+        } else if (cut == Cut.PARTIAL) {
+            job.write(EscPosCommands.PARTIAL_CUT);
+        }
+        if (openDrawer) {
+            // Last, so the drawer only opens once the receipt is out
+            job.write(EscPosCommands.CASH_DRAWER_KICK);
+        }
+    }
+}
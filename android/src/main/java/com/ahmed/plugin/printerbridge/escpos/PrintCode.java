@@ -0,0 +1,180 @@
+package com.ahmed.plugin.printerbridge.escpos;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * One symbol of a {@code printCodes} job: a QR code or a 1D barcode, with an optional caption printed
+ * under it.
+ */
+public final class PrintCode {
+    // GS k function B takes the data length in one byte
+    public static final int MAX_BARCODE_LENGTH = 255;
+
+    public enum Symbology {
+        QR(0),
+        UPC_A(65),
+        EAN13(67),
+        EAN8(68),
+        CODE39(69),
+        CODE128(73);
+
+        // GS k function B symbology code; unused for QR
+        final int gsK;
+
+        Symbology(int gsK) {
+            this.gsK = gsK;
+        }
+
+        /**
+         * @param value "qr", "code128", "code39", "ean13", "ean8" or "upca"; null means "qr"
+         * @throws IllegalArgumentException for anything else
+         */
+        public static Symbology fromJsValue(String value) {
+            if (value == null || value.trim().isEmpty()) {
+                return QR;
+            }
+            switch (value.trim().toLowerCase(Locale.ROOT)) {
+                case "qr":
+                    return QR;
+                case "code128":
+                    return CODE128;
+                case "code39":
+                    return CODE39;
+                case "ean13":
+                    return EAN13;
+                case "ean8":
+                    return EAN8;
+                case "upca":
+                    return UPC_A;
+                default:
+                    throw new IllegalArgumentException("type must be 'qr', 'code128', 'code39', 'ean13', 'ean8' or 'upca'.");
+            }
+        }
+    }
+
+    private final Symbology symbology;
+    private final String data;
+    private final String caption;
+
+    /**
+     * @throws IllegalArgumentException if the data is empty or not valid for the symbology
+     */
+    public PrintCode(Symbology symbology, String data, String caption) {
+        if (data == null || data.isEmpty()) {
+            throw new IllegalArgumentException("Code data is required.");
+        }
+        this.symbology = symbology != null ? symbology : Symbology.QR;
+        this.data = data;
+        this.caption = caption != null && !caption.trim().isEmpty() ? caption : null;
+        validate();
+    }
+
+    public Symbology getSymbology() {
+        return symbology;
+    }
+
+    public String getData() {
+        return data;
+    }
+
+    /** Text printed under the symbol, or null. */
+    public String getCaption() {
+        return caption;
+    }
+
+    private void validate() {
+        switch (symbology) {
+            case UPC_A:
+                requireDigits(11, 12);
+                break;
+            case EAN13:
+                requireDigits(12, 13);
+                break;
+            case EAN8:
+                requireDigits(7, 8);
+                break;
+            case CODE39:
+                for (int i = 0; i < data.length(); i++) {
+                    if ("0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ $%+-./".indexOf(data.charAt(i)) < 0) {
+                        throw new IllegalArgumentException("CODE39 data may only hold 0-9, A-Z, space and $%+-./");
+                    }
+                }
+                break;
+            case CODE128:
+                for (int i = 0; i < data.length(); i++) {
+                    if (data.charAt(i) < 0x20 || data.charAt(i) > 0x7E) {
+                        throw new IllegalArgumentException("CODE128 data may only hold printable ASCII.");
+                    }
+                }
+                break;
+            default:
+                return;
+        }
+        if (data.length() > MAX_BARCODE_LENGTH) {
+            throw new IllegalArgumentException("Barcode data is longer than " + MAX_BARCODE_LENGTH + " characters.");
+        }
+    }
+
+    private void requireDigits(int min, int max) {
+        if (data.length() < min || data.length() > max || !isDigits(data)) {
+            throw new IllegalArgumentException(symbology + " data must be " + min + " or " + max + " digits.");
+        }
+    }
+
+    /**
+     * The GS k function B data bytes. CODE128 all-digit data of even length goes out in code set C, two
+     * digits per symbol character, which halves the barcode's width; anything else uses code set B.
+     */
+    byte[] barcodeData() {
+        if (symbology != Symbology.CODE128) {
+            return data.getBytes(StandardCharsets.US_ASCII);
+        }
+        if (isCodeSetC()) {
+            byte[] bytes = new byte[2 + data.length() / 2];
+            bytes[0] = '{';
+            bytes[1] = 'C';
+            for (int i = 0; i < data.length(); i += 2) {
+                bytes[2 + i / 2] = (byte) ((data.charAt(i) - '0') * 10 + data.charAt(i + 1) - '0');
+            }
+            return bytes;
+        }
+        // '{' starts a code set or function code, so a literal one is sent as "{{"
+        String escaped = "{B" + data.replace("{", "{{");
+        return escaped.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /** Width of the barcode in modules, including the quiet zones the scanner needs on either side. */
+    int barcodeModules() {
+        switch (symbology) {
+            case UPC_A:
+            case EAN13:
+                return 95 + 2 * 9;
+            case EAN8:
+                return 67 + 2 * 7;
+            case CODE39:
+                // Start and stop characters, 3:1 wide to narrow ratio, plus an inter-character gap each
+                return (data.length() + 2) * 16 - 1 + 2 * 10;
+            case CODE128: {
+                int symbols = isCodeSetC() ? data.length() / 2 : data.length();
+                // Start and check character, 11 modules each like the data, stop is 13
+                return (symbols + 2) * 11 + 13 + 2 * 10;
+            }
+            default:
+                return 0;
+        }
+    }
+
+    private boolean isCodeSetC() {
+        return data.length() >= 4 && data.length() % 2 == 0 && isDigits(data);
+    }
+
+    private static boolean isDigits(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) < '0' || value.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
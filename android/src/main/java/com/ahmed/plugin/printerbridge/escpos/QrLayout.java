@@ -0,0 +1,88 @@
+package com.ahmed.plugin.printerbridge.escpos;
+
+import com.ahmed.plugin.printerbridge.exceptions.PrinterException;
+import com.ahmed.plugin.printerbridge.qr.QrCode;
+import com.ahmed.plugin.printerbridge.qr.QrEncoder;
+
+/**
+ * Symbol version, error correction level and module size for a QR payload on a given paper width.
+ * The level starts at MEDIUM and is raised as far as the symbol stays the same size, so short payloads
+ * get the most damage tolerance for free; only payloads too long for MEDIUM drop to LOW.
+ */
+public final class QrLayout {
+    // Bigger modules only waste paper; 8 dots is 1 mm at 203 dpi
+    public static final int MAX_MODULE_DOTS = 8;
+    // Below 2 dots per module, thermal bleed makes symbols unreliable to scan
+    public static final int MIN_MODULE_DOTS = 2;
+
+    private final int version;
+    private final QrCode.ErrorCorrection errorCorrection;
+    private final int moduleDots;
+
+    QrLayout(int version, QrCode.ErrorCorrection errorCorrection, int moduleDots) {
+        this.version = version;
+        this.errorCorrection = errorCorrection;
+        this.moduleDots = moduleDots;
+    }
+
+    /**
+     * @param paperWidthDots printable width of the paper
+     * @throws PrinterException if the payload does not fit in a QR code, or not legibly on this paper
+     */
+    public static QrLayout plan(int payloadBytes, int paperWidthDots) throws PrinterException {
+        QrCode.ErrorCorrection level = QrCode.ErrorCorrection.MEDIUM;
+        int version = QrEncoder.minVersion(payloadBytes, level);
+        if (version < 0) {
+            level = QrCode.ErrorCorrection.LOW;
+            version = QrEncoder.minVersion(payloadBytes, level);
+        }
+        if (version < 0) {
+            throw new PrinterException("QR code data is too long: " + payloadBytes + " bytes, a QR code holds at most "
+                    + QrEncoder.capacity(QrCode.MAX_VERSION, QrCode.ErrorCorrection.LOW) + ".");
+        }
+        QrCode.ErrorCorrection[] levels = QrCode.ErrorCorrection.values();
+        for (int i = level.ordinal() + 1; i < levels.length; i++) {
+            if (payloadBytes <= QrEncoder.capacity(version, levels[i])) {
+                level = levels[i];
+            }
+        }
+        int modules = QrCode.sizeOf(version) + 2 * QrCode.QUIET_ZONE_MODULES;
+        int moduleDots = Math.min(MAX_MODULE_DOTS, paperWidthDots / modules);
+        if (moduleDots < MIN_MODULE_DOTS) {
+            throw new PrinterException("QR code data is too long to print legibly on this paper: " + payloadBytes
+                    + " bytes need a version " + version + " symbol.");
+        }
+        return new QrLayout(version, level, moduleDots);
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public QrCode.ErrorCorrection getErrorCorrection() {
+        return errorCorrection;
+    }
+
+    public int getModuleDots() {
+        return moduleDots;
+    }
+
+    /** Printed width of the symbol including its quiet zone, in dots. */
+    public int getWidthDots() {
+        return (QrCode.sizeOf(version) + 2 * QrCode.QUIET_ZONE_MODULES) * moduleDots;
+    }
+
+    // GS ( k function 069 parameter: 48 = L, 49 = M, 50 = Q, 51 = H
+    int escPosErrorCorrection() {
+        switch (errorCorrection) {
+            case LOW:
+                return 48;
+            case MEDIUM:
+                return 49;
+            case QUARTILE:
+                return 50;
+            default:
+                return 51;
+        }
+    }
+}
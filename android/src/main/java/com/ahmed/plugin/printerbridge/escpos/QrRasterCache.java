@@ -0,0 +1,103 @@
+package com.ahmed.plugin.printerbridge.escpos;
+
+import com.ahmed.plugin.printerbridge.qr.QrCode;
+import com.ahmed.plugin.printerbridge.qr.QrEncoder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Rendered QR raster commands for the payloads printed most recently. Table tents, loyalty and payment
+ * codes repeat all day; encoding and rendering one is by far the most expensive step of a QR job without
+ * a native QR engine, so those are kept ready to send.
+ */
+final class QrRasterCache {
+    // Rows per GS v 0 command; some printers cannot buffer one tall image
+    static final int MAX_BAND_ROWS = 256;
+
+    private final int maxEntries;
+    private final int maxBytes;
+    // Access order, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private int bytes;
+    private long hits;
+    private long misses;
+
+    QrRasterCache(int maxEntries, int maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /** The raster commands printing {@code payload} with {@code layout}; the array must not be modified. */
+    synchronized byte[] get(String payload, QrLayout layout) {
+        String key = layout.getModuleDots() + ":" + layout.getErrorCorrection() + ":" + payload;
+        byte[] raster = entries.get(key);
+        if (raster != null) {
+            hits++;
+            return raster;
+        }
+        misses++;
+        raster = render(QrEncoder.encode(payload.getBytes(StandardCharsets.UTF_8), layout.getErrorCorrection()),
+                layout.getModuleDots());
+        entries.put(key, raster);
+        bytes += raster.length;
+        Iterator<Map.Entry<String, byte[]>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || bytes > maxBytes) && entries.size() > 1) {
+            bytes -= eldest.next().getValue().length;
+            eldest.remove();
+        }
+        return raster;
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /** GS v 0 commands drawing the symbol with its quiet zone, {@code moduleDots} dots per module. */
+    static byte[] render(QrCode code, int moduleDots) {
+        int modules = code.getSize() + 2 * QrCode.QUIET_ZONE_MODULES;
+        int widthDots = modules * moduleDots;
+        int widthBytes = (widthDots + 7) / 8;
+        int height = widthDots;
+        int bands = (height + MAX_BAND_ROWS - 1) / MAX_BAND_ROWS;
+        JobBuffer job = new JobBuffer(widthBytes * height + bands * 8);
+
+        byte[] row = new byte[widthBytes];
+        int rowsLeftInBand = 0;
+        for (int y = 0; y < height; y++) {
+            if (rowsLeftInBand == 0) {
+                rowsLeftInBand = Math.min(MAX_BAND_ROWS, height - y);
+                job.write(EscPosCommands.rasterImageHeader(widthBytes, rowsLeftInBand));
+            }
+            // Each module row repeats moduleDots times; build it once per module row
+            if (y % moduleDots == 0) {
+                Arrays.fill(row, (byte) 0);
+                int moduleY = y / moduleDots - QrCode.QUIET_ZONE_MODULES;
+                if (moduleY >= 0 && moduleY < code.getSize()) {
+                    for (int moduleX = 0; moduleX < code.getSize(); moduleX++) {
+                        if (code.isDark(moduleX, moduleY)) {
+                            int x0 = (moduleX + QrCode.QUIET_ZONE_MODULES) * moduleDots;
+                            for (int x = x0; x < x0 + moduleDots; x++) {
+                                row[x >>> 3] |= (byte) (0x80 >>> (x & 7));
+                            }
+                        }
+                    }
+                }
+            }
+            job.write(row);
+            rowsLeftInBand--;
+        }
+        return job.toByteArray();
+    }
+}
@@ -0,0 +1,26 @@
+package com.ahmed.plugin.printerbridge.exceptions;
+
+/**
+ * A print job that was stopped on purpose: cancelled by the app, or past its deadline.
+ */
+public class JobCancelledException extends PrinterException {
+    private final boolean expired;
+
+    private JobCancelledException(String message, boolean expired) {
+        super(message);
+        this.expired = expired;
+    }
+
+    public static JobCancelledException cancelled(String jobId) {
+        return new JobCancelledException("Print job " + jobId + " was cancelled.", false);
+    }
+
+    public static JobCancelledException expired(String jobId, long deadlineMs) {
+        return new JobCancelledException("Print job " + jobId + " did not finish within its " + deadlineMs + " ms deadline.", true);
+    }
+
+    /** Whether the job ran out of time rather than being cancelled. */
+    public boolean isExpired() {
+        return expired;
+    }
+}
@@ -0,0 +1,38 @@
+package com.ahmed.plugin.printerbridge.exceptions;
+
+/**
+ * A print job turned away, or stopped mid-transfer, because the printer reported it cannot print.
+ */
+public class PrinterNotReadyException extends PrinterException {
+    private final String deviceId;
+    private final String problem;
+    private final boolean paperOut;
+    private final boolean coverOpen;
+
+    /**
+     * @param problem what the printer reported, e.g. "paper out"
+     */
+    public PrinterNotReadyException(String deviceId, String problem, boolean paperOut, boolean coverOpen) {
+        super("Printer " + deviceId + " is not ready: " + problem + ".");
+        this.deviceId = deviceId;
+        this.problem = problem;
+        this.paperOut = paperOut;
+        this.coverOpen = coverOpen;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public String getProblem() {
+        return problem;
+    }
+
+    public boolean isPaperOut() {
+        return paperOut;
+    }
+
+    public boolean isCoverOpen() {
+        return coverOpen;
+    }
+}
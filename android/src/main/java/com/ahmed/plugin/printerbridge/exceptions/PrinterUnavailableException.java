@@ -0,0 +1,19 @@
+package com.ahmed.plugin.printerbridge.exceptions;
+
+/**
+ * A print job turned away without trying, because the last jobs sent to its printer all failed and the
+ * printer's circuit breaker is open. Nothing was sent.
+ */
+public class PrinterUnavailableException extends PrinterException {
+    private final long retryInMs;
+
+    public PrinterUnavailableException(String message, long retryInMs) {
+        super(message);
+        this.retryInMs = retryInMs;
+    }
+
+    /** Time until a job is let through to the printer again, in milliseconds. */
+    public long getRetryInMs() {
+        return retryInMs;
+    }
+}
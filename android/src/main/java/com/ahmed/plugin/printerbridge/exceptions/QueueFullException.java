@@ -0,0 +1,11 @@
+package com.ahmed.plugin.printerbridge.exceptions;
+
+/**
+ * A print job turned away because its printer already has as many jobs or bytes waiting as the queue limits
+ * allow. Nothing was sent.
+ */
+public class QueueFullException extends PrinterException {
+    public QueueFullException(String message) {
+        super(message);
+    }
+}
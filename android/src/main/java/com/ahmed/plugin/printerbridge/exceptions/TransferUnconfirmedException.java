@@ -0,0 +1,11 @@
+package com.ahmed.plugin.printerbridge.exceptions;
+
+/**
+ * A job handed to the printer whose delivery was never confirmed: the transfer timed out, and the bytes may
+ * well have printed.
+ */
+public class TransferUnconfirmedException extends PrinterException {
+    public TransferUnconfirmedException(String message) {
+        super(message);
+    }
+}
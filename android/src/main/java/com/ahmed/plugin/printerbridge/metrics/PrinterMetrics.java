@@ -0,0 +1,282 @@
+package com.ahmed.plugin.printerbridge.metrics;
+
+import com.getcapacitor.JSObject;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-printer latency breakdown and throughput counters. Phase timings go into {@link LatencyHistogram}s,
+ * so recording from the print path never takes a lock; {@link #toJSObject()} reports p50/p95/p99 in
+ * milliseconds for {@code getMetrics}.
+ */
+public class PrinterMetrics {
+    private static final String UNKNOWN_DEVICE = "unknown";
+
+    /** Phases of a print job, in the order they run. */
+    public enum Phase {
+        ENCODE("encode"),
+        // Write-ahead of the encoded job to the spool
+        SPOOL("spool"),
+        // Waiting in the scheduler behind higher-priority or earlier jobs
+        QUEUE("queue"),
+        // Waiting for the adapter to be on (immediate unless Bluetooth was off)
+        BLUETOOTH_READY("bluetoothReady"),
+        // Selecting the printer on the transport
+        CONNECTION_SETUP("connectionSetup"),
+        // send() until the transport reports the link open; only for transports that report it
+        CONNECT("connect"),
+        // Link open (or send() when the connect is not reported) until the printer took the bytes
+        TRANSFER("transfer"),
+        TOTAL("total");
+
+        final String key;
+
+        Phase(String key) {
+            this.key = key;
+        }
+    }
+
+    /** Bluetooth operations that are not tied to one print job. */
+    public enum Operation {
+        DISCOVERY("discovery"),
+        PAIRING("pairing"),
+        FIND_PRINTER("findPrinter");
+
+        final String key;
+
+        Operation(String key) {
+            this.key = key;
+        }
+    }
+
+    public static class DeviceMetrics {
+        private final Map<Phase, LatencyHistogram> phases = new EnumMap<>(Phase.class);
+        private final AtomicLong jobs = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong cancellations = new AtomicLong();
+        private final AtomicLong retries = new AtomicLong();
+        private final AtomicLong bytesSent = new AtomicLong();
+        private final AtomicLong bytesSaved = new AtomicLong();
+        private volatile long lastJobAt;
+
+        DeviceMetrics() {
+            // Filled once here and only read afterwards, so the EnumMap needs no synchronization
+            for (Phase phase : Phase.values()) {
+                phases.put(phase, new LatencyHistogram());
+            }
+        }
+
+        /**
+         * Records the time since {@code startNanos} for {@code phase}.
+         *
+         * @return the current {@link System#nanoTime()}, to be used as the start of the next phase
+         */
+        public long record(Phase phase, long startNanos) {
+            long now = System.nanoTime();
+            phases.get(phase).recordNanos(now - startNanos);
+            return now;
+        }
+
+        public void recordNanos(Phase phase, long nanos) {
+            phases.get(phase).recordNanos(nanos);
+        }
+
+        public void recordRetry() {
+            retries.incrementAndGet();
+        }
+
+        public void recordBytesSent(long bytes) {
+            bytesSent.addAndGet(bytes);
+        }
+
+        /** Bytes the optimizer kept off the link. */
+        public void recordBytesSaved(long bytes) {
+            bytesSaved.addAndGet(bytes);
+        }
+
+        /** Closes a job started at {@code startNanos}; only successful jobs feed the total latency. */
+        public void recordJob(boolean success, long startNanos) {
+            jobs.incrementAndGet();
+            lastJobAt = System.currentTimeMillis();
+            if (success) {
+                record(Phase.TOTAL, startNanos);
+            } else {
+                failures.incrementAndGet();
+            }
+        }
+
+        /** Closes a job that was cancelled or expired; counted as a job, but not as a failure. */
+        public void recordCancelled() {
+            jobs.incrementAndGet();
+            cancellations.incrementAndGet();
+            lastJobAt = System.currentTimeMillis();
+        }
+
+        // Zeroes this printer's data in place, so jobs in flight holding this object keep recording into it
+        void reset() {
+            for (LatencyHistogram histogram : phases.values()) {
+                histogram.reset();
+            }
+            jobs.set(0);
+            failures.set(0);
+            cancellations.set(0);
+            retries.set(0);
+            bytesSent.set(0);
+            bytesSaved.set(0);
+            lastJobAt = 0;
+        }
+
+        public LatencyHistogram.Snapshot snapshot(Phase phase) {
+            return phases.get(phase).snapshot();
+        }
+
+        public long getJobs() {
+            return jobs.get();
+        }
+
+        public long getFailures() {
+            return failures.get();
+        }
+
+        public long getCancellations() {
+            return cancellations.get();
+        }
+
+        public long getRetries() {
+            return retries.get();
+        }
+
+        public long getBytesSent() {
+            return bytesSent.get();
+        }
+
+        public long getBytesSaved() {
+            return bytesSaved.get();
+        }
+
+        JSObject toJSObject() {
+            JSObject result = new JSObject();
+            result.put("jobs", jobs.get());
+            result.put("failures", failures.get());
+            result.put("cancelled", cancellations.get());
+            result.put("retries", retries.get());
+            result.put("bytesSent", bytesSent.get());
+            result.put("bytesSaved", bytesSaved.get());
+            result.put("lastJobAt", lastJobAt);
+            JSObject phaseTimings = new JSObject();
+            for (Map.Entry<Phase, LatencyHistogram> entry : phases.entrySet()) {
+                LatencyHistogram.Snapshot snapshot = entry.getValue().snapshot();
+                if (snapshot.getCount() > 0) {
+                    phaseTimings.put(entry.getKey().key, timingToJSObject(snapshot));
+                }
+            }
+            result.put("phases", phaseTimings);
+            return result;
+        }
+    }
+
+    private final ConcurrentHashMap<String, DeviceMetrics> devices = new ConcurrentHashMap<>();
+    private final Map<Operation, LatencyHistogram> operations = new EnumMap<>(Operation.class);
+    private volatile long since = System.currentTimeMillis();
+    // System.nanoTime() at which the plugin started loading; 0 until recordStartup
+    private volatile long startedAt;
+    private volatile long readyNanos;
+    private final AtomicLong firstPrintNanos = new AtomicLong(-1);
+
+    public PrinterMetrics() {
+        for (Operation operation : Operation.values()) {
+            operations.put(operation, new LatencyHistogram());
+        }
+    }
+
+    /** The printer's metrics; MAC addresses are matched regardless of case and surrounding spaces. */
+    public DeviceMetrics device(String deviceId) {
+        String key = deviceId == null || deviceId.trim().isEmpty() ? UNKNOWN_DEVICE : deviceId.trim().toUpperCase(Locale.ROOT);
+        DeviceMetrics metrics = devices.get(key);
+        return metrics != null ? metrics : devices.computeIfAbsent(key, k -> new DeviceMetrics());
+    }
+
+    public void recordOperation(Operation operation, long startNanos) {
+        operations.get(operation).recordNanos(System.nanoTime() - startNanos);
+    }
+
+    public LatencyHistogram.Snapshot snapshot(Operation operation) {
+        return operations.get(operation).snapshot();
+    }
+
+    /** Records that the services were ready, {@code startedAtNanos} being when the plugin started loading. */
+    public void recordStartup(long startedAtNanos) {
+        readyNanos = System.nanoTime() - startedAtNanos;
+        startedAt = startedAtNanos;
+    }
+
+    /** Called for every delivered job; only the first after {@link #recordStartup} is kept. */
+    public void recordPrintDelivered() {
+        long started = startedAt;
+        if (started != 0 && firstPrintNanos.get() < 0) {
+            firstPrintNanos.compareAndSet(-1, System.nanoTime() - started);
+        }
+    }
+
+    /**
+     * Zeroes all recorded data but the startup timings. Printers seen before stay listed, with zero counts, and
+     * jobs in flight keep recording into them.
+     */
+    public void reset() {
+        for (DeviceMetrics metrics : devices.values()) {
+            metrics.reset();
+        }
+        for (LatencyHistogram histogram : operations.values()) {
+            histogram.reset();
+        }
+        since = System.currentTimeMillis();
+    }
+
+    public JSObject toJSObject() {
+        JSObject result = new JSObject();
+        result.put("since", since);
+        JSObject deviceMetrics = new JSObject();
+        for (Map.Entry<String, DeviceMetrics> entry : devices.entrySet()) {
+            deviceMetrics.put(entry.getKey(), entry.getValue().toJSObject());
+        }
+        result.put("devices", deviceMetrics);
+        JSObject operationMetrics = new JSObject();
+        for (Map.Entry<Operation, LatencyHistogram> entry : operations.entrySet()) {
+            LatencyHistogram.Snapshot snapshot = entry.getValue().snapshot();
+            if (snapshot.getCount() > 0) {
+                operationMetrics.put(entry.getKey().key, timingToJSObject(snapshot));
+            }
+        }
+        result.put("operations", operationMetrics);
+        if (startedAt != 0) {
+            JSObject startup = new JSObject();
+            startup.put("readyMs", toMillis(TimeUnit.NANOSECONDS.toMicros(readyNanos)));
+            long firstPrint = firstPrintNanos.get();
+            if (firstPrint >= 0) {
+                startup.put("firstPrintMs", toMillis(TimeUnit.NANOSECONDS.toMicros(firstPrint)));
+            }
+            result.put("startup", startup);
+        }
+        return result;
+    }
+
+    private static JSObject timingToJSObject(LatencyHistogram.Snapshot snapshot) {
+        JSObject timing = new JSObject();
+        timing.put("count", snapshot.getCount());
+        timing.put("p50", toMillis(snapshot.percentileMicros(50)));
+        timing.put("p95", toMillis(snapshot.percentileMicros(95)));
+        timing.put("p99", toMillis(snapshot.percentileMicros(99)));
+        timing.put("max", toMillis(snapshot.getMaxMicros()));
+        timing.put("mean", toMillis(Math.round(snapshot.getMeanMicros())));
+        return timing;
+    }
+
+    private static double toMillis(long micros) {
+        return micros / 1000.0;
+    }
+}
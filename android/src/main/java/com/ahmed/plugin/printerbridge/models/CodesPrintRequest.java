@@ -0,0 +1,119 @@
+package com.ahmed.plugin.printerbridge.models;
+
+import com.ahmed.plugin.printerbridge.escpos.JobFinishing;
+import com.ahmed.plugin.printerbridge.escpos.PrintCode;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.PluginCall;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+public class CodesPrintRequest {
+    // One call is one job: the whole run is encoded and spooled before the first code prints
+    public static final int MAX_CODES = 500;
+
+    private final String deviceName;
+    private final String deviceId;
+    private final List<PrintCode> codes;
+    private final JobFinishing.Cut cutBetween;
+    private final String jobId;
+    private final JobPriority priority;
+    private final long deadlineMs;
+    private final JobFinishing finishing;
+
+    public CodesPrintRequest(String deviceName, String deviceId, List<PrintCode> codes) {
+        this(deviceName, deviceId, codes, JobFinishing.Cut.NONE, null, JobPriority.NORMAL, 0, JobFinishing.NONE);
+    }
+
+    public CodesPrintRequest(String deviceName, String deviceId, List<PrintCode> codes, JobFinishing.Cut cutBetween,
+            String jobId, JobPriority priority, long deadlineMs, JobFinishing finishing) {
+        this.deviceName = deviceName;
+        this.deviceId = deviceId;
+        this.codes = Collections.unmodifiableList(new ArrayList<>(codes));
+        this.cutBetween = cutBetween != null ? cutBetween : JobFinishing.Cut.NONE;
+        this.jobId = jobId != null && !jobId.trim().isEmpty() ? jobId : UUID.randomUUID().toString();
+        this.priority = priority != null ? priority : JobPriority.NORMAL;
+        this.deadlineMs = deadlineMs;
+        this.finishing = finishing != null ? finishing : JobFinishing.NONE;
+    }
+
+    public String getDeviceName() {
+        return deviceName;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public List<PrintCode> getCodes() {
+        return codes;
+    }
+
+    /** Cut made after every code but the last. */
+    public JobFinishing.Cut getCutBetween() {
+        return cutBetween;
+    }
+
+    /** Caller-supplied ID, or a generated one, used to correlate {@code printJobUpdate} events. */
+    public String getJobId() {
+        return jobId;
+    }
+
+    public JobPriority getPriority() {
+        return priority;
+    }
+
+    /** Time the job may take from the moment it was received, in milliseconds; 0 for no deadline. */
+    public long getDeadlineMs() {
+        return deadlineMs;
+    }
+
+    /** Feed, cut and drawer kick sent in the same transmission, after the last code. */
+    public JobFinishing getFinishing() {
+        return finishing;
+    }
+
+    public static CodesPrintRequest fromPluginCall(PluginCall call) throws JSONException {
+        String deviceName = call.getString("deviceName");
+        String deviceId = call.getString("deviceId");
+        JSArray items = call.getArray("codes");
+
+        if (deviceName == null || deviceName.trim().isEmpty()) {
+            throw new IllegalArgumentException("deviceName is required.");
+        }
+        if (deviceId == null || deviceId.trim().isEmpty()) {
+            throw new IllegalArgumentException("deviceId is required.");
+        }
+        if (items == null || items.length() == 0) {
+            throw new IllegalArgumentException("codes must hold at least one code.");
+        }
+        if (items.length() > MAX_CODES) {
+            throw new IllegalArgumentException("codes may hold at most " + MAX_CODES + " codes per call.");
+        }
+
+        List<PrintCode> codes = new ArrayList<>(items.length());
+        for (int i = 0; i < items.length(); i++) {
+            JSONObject item = items.getJSONObject(i);
+            try {
+                codes.add(new PrintCode(PrintCode.Symbology.fromJsValue(item.optString("type", null)),
+                        item.optString("data", null), item.optString("caption", null)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("codes[" + i + "]: " + e.getMessage());
+            }
+        }
+
+        Integer deadlineMs = call.getInt("deadlineMs");
+        if (deadlineMs != null && deadlineMs <= 0) {
+            throw new IllegalArgumentException("deadlineMs must be greater than 0.");
+        }
+
+        return new CodesPrintRequest(deviceName, deviceId, codes,
+                JobFinishing.parseCut(call.getString("cutBetween"), "cutBetween"), call.getString("jobId"),
+                JobPriority.fromJsValue(call.getString("priority")), deadlineMs != null ? deadlineMs : 0,
+                JobFinishing.fromOptions(call.getInt("feed"), call.getString("cut"), call.getBoolean("openDrawer")));
+    }
+}
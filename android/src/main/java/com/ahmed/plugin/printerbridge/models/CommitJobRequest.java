@@ -0,0 +1,78 @@
+package com.ahmed.plugin.printerbridge.models;
+
+import com.ahmed.plugin.printerbridge.escpos.JobFinishing;
+import com.getcapacitor.PluginCall;
+
+import java.util.UUID;
+
+/** Sends a prepared job, with the lines only known at checkout appended. */
+public class CommitJobRequest {
+    private final String handle;
+    private final String[] tail;
+    private final String jobId;
+    private final JobPriority priority;
+    private final long deadlineMs;
+    private final JobFinishing finishing;
+
+    public CommitJobRequest(String handle, String[] tail) {
+        this(handle, tail, null, JobPriority.NORMAL, 0, JobFinishing.NONE);
+    }
+
+    public CommitJobRequest(String handle, String[] tail, String jobId, JobPriority priority, long deadlineMs,
+            JobFinishing finishing) {
+        this.handle = handle;
+        this.tail = tail != null ? tail : new String[0];
+        this.jobId = jobId != null && !jobId.trim().isEmpty() ? jobId : UUID.randomUUID().toString();
+        this.priority = priority != null ? priority : JobPriority.NORMAL;
+        this.deadlineMs = deadlineMs;
+        this.finishing = finishing != null ? finishing : JobFinishing.NONE;
+    }
+
+    /** The handle {@code prepareJob} returned. */
+    public String getHandle() {
+        return handle;
+    }
+
+    /** Lines printed after the prepared ones; may be empty. */
+    public String[] getTail() {
+        return tail;
+    }
+
+    /** Caller-supplied ID, or a generated one, used to correlate {@code printJobUpdate} events. */
+    public String getJobId() {
+        return jobId;
+    }
+
+    public JobPriority getPriority() {
+        return priority;
+    }
+
+    /** Time the job may take from the moment it was committed, in milliseconds; 0 for no deadline. */
+    public long getDeadlineMs() {
+        return deadlineMs;
+    }
+
+    /** Feed, cut and drawer kick sent in the same transmission, after the tail. */
+    public JobFinishing getFinishing() {
+        return finishing;
+    }
+
+    public static CommitJobRequest fromPluginCall(PluginCall call) {
+        String handle = call.getString("handle");
+        String tailString = call.getString("tail");
+
+        if (handle == null || handle.trim().isEmpty()) {
+            throw new IllegalArgumentException("handle is required.");
+        }
+
+        Integer deadlineMs = call.getInt("deadlineMs");
+        if (deadlineMs != null && deadlineMs <= 0) {
+            throw new IllegalArgumentException("deadlineMs must be greater than 0.");
+        }
+
+        return new CommitJobRequest(handle, tailString != null && !tailString.isEmpty() ? tailString.split("\n") : null,
+                call.getString("jobId"), JobPriority.fromJsValue(call.getString("priority")),
+                deadlineMs != null ? deadlineMs : 0,
+                JobFinishing.fromOptions(call.getInt("feed"), call.getString("cut"), call.getBoolean("openDrawer")));
+    }
+}
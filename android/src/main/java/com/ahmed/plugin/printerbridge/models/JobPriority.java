@@ -0,0 +1,36 @@
+package com.ahmed.plugin.printerbridge.models;
+
+import java.util.Locale;
+
+/**
+ * Scheduling class of a print job. Higher classes are sent first; jobs of the same class keep their
+ * submission order. Declaration order is priority order.
+ */
+public enum JobPriority {
+    /** Cash drawer kicks and anything a customer is standing in front of. */
+    URGENT,
+    /** Receipts, feeds and cuts. */
+    NORMAL,
+    /** Reports and other long jobs; sent in chunks so urgent work can cut in. */
+    BULK;
+
+    public String toJsValue() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param value JS value ("urgent", "normal" or "bulk"), or null for {@link #NORMAL}
+     * @throws IllegalArgumentException for any other value
+     */
+    public static JobPriority fromJsValue(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return NORMAL;
+        }
+        for (JobPriority priority : values()) {
+            if (priority.toJsValue().equals(value.trim().toLowerCase(Locale.ROOT))) {
+                return priority;
+            }
+        }
+        throw new IllegalArgumentException("priority must be one of urgent, normal or bulk.");
+    }
+}
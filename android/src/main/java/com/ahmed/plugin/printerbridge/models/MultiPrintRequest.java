@@ -0,0 +1,134 @@
+package com.ahmed.plugin.printerbridge.models;
+
+import com.ahmed.plugin.printerbridge.escpos.JobFinishing;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.PluginCall;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+
+/** One text job printed on several printers, e.g. an order on the counter printer and the kitchen printers. */
+public class MultiPrintRequest {
+    // Each target holds a Bluetooth link of its own while the job is sent
+    public static final int MAX_TARGETS = 8;
+
+    public static class Target {
+        private final String deviceName;
+        private final String deviceId;
+
+        public Target(String deviceName, String deviceId) {
+            this.deviceName = deviceName;
+            this.deviceId = deviceId;
+        }
+
+        public String getDeviceName() {
+            return deviceName;
+        }
+
+        public String getDeviceId() {
+            return deviceId;
+        }
+    }
+
+    private final List<Target> targets;
+    private final String[] data;
+    private final String jobId;
+    private final JobPriority priority;
+    private final long deadlineMs;
+    private final JobFinishing finishing;
+
+    public MultiPrintRequest(List<Target> targets, String[] data) {
+        this(targets, data, null, JobPriority.NORMAL, 0, JobFinishing.NONE);
+    }
+
+    public MultiPrintRequest(List<Target> targets, String[] data, String jobId, JobPriority priority, long deadlineMs,
+            JobFinishing finishing) {
+        this.targets = Collections.unmodifiableList(new ArrayList<>(targets));
+        this.data = data;
+        this.jobId = jobId != null && !jobId.trim().isEmpty() ? jobId : UUID.randomUUID().toString();
+        this.priority = priority != null ? priority : JobPriority.NORMAL;
+        this.deadlineMs = deadlineMs;
+        this.finishing = finishing != null ? finishing : JobFinishing.NONE;
+    }
+
+    public List<Target> getTargets() {
+        return targets;
+    }
+
+    public String[] getData() {
+        return data;
+    }
+
+    /** Caller-supplied ID, or a generated one; each target's job is {@link #getTargetJobId(Target)}. */
+    public String getJobId() {
+        return jobId;
+    }
+
+    /** ID of the job sent to {@code target}, used to correlate its {@code printJobUpdate} events. */
+    public String getTargetJobId(Target target) {
+        return jobId + ":" + target.getDeviceId();
+    }
+
+    public JobPriority getPriority() {
+        return priority;
+    }
+
+    /** Time each target's job may take from the moment it was received, in milliseconds; 0 for no deadline. */
+    public long getDeadlineMs() {
+        return deadlineMs;
+    }
+
+    /** Feed, cut and drawer kick sent in the same transmission, after the content. */
+    public JobFinishing getFinishing() {
+        return finishing;
+    }
+
+    public static MultiPrintRequest fromPluginCall(PluginCall call) throws JSONException {
+        JSArray items = call.getArray("targets");
+        String dataString = call.getString("data");
+
+        if (items == null || items.length() == 0) {
+            throw new IllegalArgumentException("targets must hold at least one printer.");
+        }
+        if (items.length() > MAX_TARGETS) {
+            throw new IllegalArgumentException("targets may hold at most " + MAX_TARGETS + " printers per call.");
+        }
+        if (dataString == null) {
+            throw new IllegalArgumentException("data string is required.");
+        }
+
+        List<Target> targets = new ArrayList<>(items.length());
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < items.length(); i++) {
+            JSONObject item = items.getJSONObject(i);
+            String deviceName = item.optString("deviceName", null);
+            String deviceId = item.optString("deviceId", null);
+            if (deviceName == null || deviceName.trim().isEmpty()) {
+                throw new IllegalArgumentException("targets[" + i + "]: deviceName is required.");
+            }
+            if (deviceId == null || deviceId.trim().isEmpty()) {
+                throw new IllegalArgumentException("targets[" + i + "]: deviceId is required.");
+            }
+            if (!seen.add(deviceId.trim().toUpperCase(Locale.ROOT))) {
+                throw new IllegalArgumentException("targets[" + i + "]: " + deviceId + " is listed twice.");
+            }
+            targets.add(new Target(deviceName, deviceId));
+        }
+
+        Integer deadlineMs = call.getInt("deadlineMs");
+        if (deadlineMs != null && deadlineMs <= 0) {
+            throw new IllegalArgumentException("deadlineMs must be greater than 0.");
+        }
+
+        return new MultiPrintRequest(targets, dataString.split("\n"), call.getString("jobId"),
+                JobPriority.fromJsValue(call.getString("priority")), deadlineMs != null ? deadlineMs : 0,
+                JobFinishing.fromOptions(call.getInt("feed"), call.getString("cut"), call.getBoolean("openDrawer")));
+    }
+}
@@ -0,0 +1,46 @@
+package com.ahmed.plugin.printerbridge.models;
+
+import com.getcapacitor.PluginCall;
+
+/** The part of a text job known before checkout, encoded ahead and sent later by a {@link CommitJobRequest}. */
+public class PrepareJobRequest {
+    private final String deviceName;
+    private final String deviceId;
+    private final String[] data;
+
+    public PrepareJobRequest(String deviceName, String deviceId, String[] data) {
+        this.deviceName = deviceName;
+        this.deviceId = deviceId;
+        this.data = data;
+    }
+
+    public String getDeviceName() {
+        return deviceName;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public String[] getData() {
+        return data;
+    }
+
+    public static PrepareJobRequest fromPluginCall(PluginCall call) {
+        String deviceName = call.getString("deviceName");
+        String deviceId = call.getString("deviceId");
+        String dataString = call.getString("data");
+
+        if (deviceName == null || deviceName.trim().isEmpty()) {
+            throw new IllegalArgumentException("deviceName is required.");
+        }
+        if (deviceId == null || deviceId.trim().isEmpty()) {
+            throw new IllegalArgumentException("deviceId is required.");
+        }
+        if (dataString == null) {
+            throw new IllegalArgumentException("data string is required.");
+        }
+
+        return new PrepareJobRequest(deviceName, deviceId, dataString.split("\n"));
+    }
+}
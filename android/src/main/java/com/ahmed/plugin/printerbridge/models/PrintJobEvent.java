@@ -0,0 +1,112 @@
+package com.ahmed.plugin.printerbridge.models;
+
+import com.getcapacitor.JSObject;
+
+import java.util.Locale;
+
+/**
+ * One step in the lifecycle of a print job, as streamed to JS through the {@code printJobUpdate} event.
+ */
+public class PrintJobEvent {
+
+    public enum State {
+        QUEUED,
+        CONNECTING,
+        CONNECTED,
+        SENDING,
+        SENT,
+        FAILED,
+        // Stopped by cancelJob
+        CANCELLED,
+        // Stopped because its deadline passed
+        EXPIRED;
+
+        public String toJsValue() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final String jobId;
+    private final String deviceId;
+    private final State state;
+    private final int attempt;
+    private final long bytesSent;
+    private final long totalBytes;
+    private final String error;
+    private final long bytesSaved;
+    private final long timestamp;
+
+    public PrintJobEvent(String jobId, String deviceId, State state, int attempt, long bytesSent, long totalBytes, String error) {
+        this(jobId, deviceId, state, attempt, bytesSent, totalBytes, error, 0);
+    }
+
+    /**
+     * @param bytesSaved bytes the optimizer removed from the job, reported with {@link State#SENT}
+     */
+    public PrintJobEvent(String jobId, String deviceId, State state, int attempt, long bytesSent, long totalBytes, String error, long bytesSaved) {
+        this.jobId = jobId;
+        this.deviceId = deviceId;
+        this.state = state;
+        this.attempt = attempt;
+        this.bytesSent = bytesSent;
+        this.totalBytes = totalBytes;
+        this.error = error;
+        this.bytesSaved = bytesSaved;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public int getAttempt() {
+        return attempt;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getBytesSaved() {
+        return bytesSaved;
+    }
+
+    public int getPercent() {
+        return totalBytes > 0 ? (int) (bytesSent * 100 / totalBytes) : 0;
+    }
+
+    public JSObject toJSObject() {
+        JSObject event = new JSObject();
+        event.put("jobId", jobId);
+        event.put("deviceId", deviceId);
+        event.put("state", state.toJsValue());
+        event.put("attempt", attempt);
+        event.put("bytesSent", bytesSent);
+        event.put("totalBytes", totalBytes);
+        event.put("percent", getPercent());
+        if (error != null) {
+            event.put("error", error);
+        }
+        if (state == State.SENT) {
+            event.put("bytesSaved", bytesSaved);
+        }
+        event.put("timestamp", timestamp);
+        return event;
+    }
+}
@@ -1,17 +1,45 @@
 package com.ahmed.plugin.printerbridge.models;
 
+import com.ahmed.plugin.printerbridge.escpos.JobFinishing;
 import com.getcapacitor.PluginCall;
 import org.json.JSONException;
 
+import java.util.UUID;
+
 public class PrintRequest {
     private final String deviceName;
     private final String deviceId;
     private final String[] data;
+    private final String jobId;
+    private final JobPriority priority;
+    private final long deadlineMs;
+    private final JobFinishing finishing;
 
     public PrintRequest(String deviceName, String deviceId, String[] data) {
+        this(deviceName, deviceId, data, null);
+    }
+
+    public PrintRequest(String deviceName, String deviceId, String[] data, String jobId) {
+        this(deviceName, deviceId, data, jobId, JobPriority.NORMAL);
+    }
+
+    public PrintRequest(String deviceName, String deviceId, String[] data, String jobId, JobPriority priority) {
+        this(deviceName, deviceId, data, jobId, priority, 0);
+    }
+
+    public PrintRequest(String deviceName, String deviceId, String[] data, String jobId, JobPriority priority, long deadlineMs) {
+        this(deviceName, deviceId, data, jobId, priority, deadlineMs, JobFinishing.NONE);
+    }
+
+    public PrintRequest(String deviceName, String deviceId, String[] data, String jobId, JobPriority priority, long deadlineMs,
+            JobFinishing finishing) {
         this.deviceName = deviceName;
         this.deviceId = deviceId;
         this.data = data;
+        this.jobId = jobId != null && !jobId.trim().isEmpty() ? jobId : UUID.randomUUID().toString();
+        this.priority = priority != null ? priority : JobPriority.NORMAL;
+        this.deadlineMs = deadlineMs;
+        this.finishing = finishing != null ? finishing : JobFinishing.NONE;
     }
 
     public String getDeviceName() {
@@ -26,6 +54,25 @@ public class PrintRequest {
         return data;
     }
 
+    /** Caller-supplied ID, or a generated one, used to correlate {@code printJobUpdate} events. */
+    public String getJobId() {
+        return jobId;
+    }
+
+    public JobPriority getPriority() {
+        return priority;
+    }
+
+    /** Time the job may take from the moment it was received, in milliseconds; 0 for no deadline. */
+    public long getDeadlineMs() {
+        return deadlineMs;
+    }
+
+    /** Feed, cut and drawer kick sent in the same transmission, after the content. */
+    public JobFinishing getFinishing() {
+        return finishing;
+    }
+
     public static PrintRequest fromPluginCall(PluginCall call) throws JSONException {
         String deviceName = call.getString("deviceName");
         String deviceId = call.getString("deviceId");
@@ -44,6 +91,13 @@ public class PrintRequest {
         // Split the data string by newlines, just like in the original code
         String[] data = dataString.split("\n");
 
-        return new PrintRequest(deviceName, deviceId, data);
+        Integer deadlineMs = call.getInt("deadlineMs");
+        if (deadlineMs != null && deadlineMs <= 0) {
+            throw new IllegalArgumentException("deadlineMs must be greater than 0.");
+        }
+
+        return new PrintRequest(deviceName, deviceId, data, call.getString("jobId"),
+                JobPriority.fromJsValue(call.getString("priority")), deadlineMs != null ? deadlineMs : 0,
+                JobFinishing.fromOptions(call.getInt("feed"), call.getString("cut"), call.getBoolean("openDrawer")));
     }
 }
\ No newline at end of file
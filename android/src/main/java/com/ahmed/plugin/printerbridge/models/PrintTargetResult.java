@@ -0,0 +1,76 @@
+package com.ahmed.plugin.printerbridge.models;
+
+import com.ahmed.plugin.printerbridge.exceptions.JobCancelledException;
+import com.ahmed.plugin.printerbridge.exceptions.PrinterException;
+import com.ahmed.plugin.printerbridge.exceptions.PrinterNotReadyException;
+import com.ahmed.plugin.printerbridge.exceptions.PrinterUnavailableException;
+import com.ahmed.plugin.printerbridge.exceptions.QueueFullException;
+import com.getcapacitor.JSObject;
+
+/** How one printer of a {@link MultiPrintRequest} fared. */
+public class PrintTargetResult {
+    private final String deviceId;
+    private final String jobId;
+    private final String status;
+    private final String error;
+
+    private PrintTargetResult(String deviceId, String jobId, String status, String error) {
+        this.deviceId = deviceId;
+        this.jobId = jobId;
+        this.status = status;
+        this.error = error;
+    }
+
+    public static PrintTargetResult sent(String deviceId, String jobId) {
+        return new PrintTargetResult(deviceId, jobId, "sent", null);
+    }
+
+    /** The same statuses {@code print} resolves with for the same failure. */
+    public static PrintTargetResult failed(String deviceId, String jobId, PrinterException e) {
+        String status;
+        if (e instanceof JobCancelledException) {
+            status = ((JobCancelledException) e).isExpired() ? "expired" : "cancelled";
+        } else if (e instanceof PrinterNotReadyException) {
+            status = "not_ready";
+        } else if (e instanceof QueueFullException) {
+            status = "queue_full";
+        } else if (e instanceof PrinterUnavailableException) {
+            status = "unavailable";
+        } else {
+            status = "failed";
+        }
+        return new PrintTargetResult(deviceId, jobId, status, e.getMessage());
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public JSObject toJSObject() {
+        JSObject result = new JSObject();
+        result.put("deviceId", deviceId);
+        result.put("jobId", jobId);
+        result.put("success", isSuccess());
+        result.put("status", status);
+        if (error != null) {
+            result.put("error", error);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,92 @@
+package com.ahmed.plugin.printerbridge.models;
+
+import com.getcapacitor.JSObject;
+
+/** The load on one printer at a point in time, as {@code getQueueStatus} reports it. */
+public class PrinterQueueStatus {
+    private final String deviceId;
+    private final int depth;
+    private final long queuedBytes;
+    private final String inFlightJobId;
+    private final JobPriority inFlightPriority;
+    private final long inFlightBytes;
+    private final long inFlightBytesSent;
+    private final long bytesPerSecond;
+    private final long estimatedWaitMs;
+    private final String breaker;
+    private final long breakerRetryInMs;
+
+    /**
+     * @param inFlightJobId the job being sent to the printer, or null
+     * @param bytesPerSecond 0 until a transfer was measured
+     * @param estimatedWaitMs -1 until a transfer was measured
+     */
+    public PrinterQueueStatus(String deviceId, int depth, long queuedBytes, String inFlightJobId, JobPriority inFlightPriority,
+            long inFlightBytes, long inFlightBytesSent, long bytesPerSecond, long estimatedWaitMs, String breaker,
+            long breakerRetryInMs) {
+        this.deviceId = deviceId;
+        this.depth = depth;
+        this.queuedBytes = queuedBytes;
+        this.inFlightJobId = inFlightJobId;
+        this.inFlightPriority = inFlightPriority;
+        this.inFlightBytes = inFlightBytes;
+        this.inFlightBytesSent = inFlightBytesSent;
+        this.bytesPerSecond = bytesPerSecond;
+        this.estimatedWaitMs = estimatedWaitMs;
+        this.breaker = breaker;
+        this.breakerRetryInMs = breakerRetryInMs;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    /** Jobs admitted and not finished, including the one being sent. */
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getQueuedBytes() {
+        return queuedBytes;
+    }
+
+    public String getInFlightJobId() {
+        return inFlightJobId;
+    }
+
+    /** Time for the printer to take everything queued on its link, from the measured rate; -1 if unknown. */
+    public long getEstimatedWaitMs() {
+        return estimatedWaitMs;
+    }
+
+    /** "closed", "open" or "half_open". */
+    public String getBreaker() {
+        return breaker;
+    }
+
+    public JSObject toJSObject() {
+        JSObject result = new JSObject();
+        result.put("deviceId", deviceId);
+        result.put("depth", depth);
+        result.put("queuedBytes", queuedBytes);
+        if (inFlightJobId != null) {
+            JSObject inFlight = new JSObject();
+            inFlight.put("jobId", inFlightJobId);
+            inFlight.put("priority", inFlightPriority.toJsValue());
+            inFlight.put("bytes", inFlightBytes);
+            inFlight.put("bytesSent", inFlightBytesSent);
+            result.put("inFlight", inFlight);
+        }
+        if (bytesPerSecond > 0) {
+            result.put("bytesPerSecond", bytesPerSecond);
+        }
+        if (estimatedWaitMs >= 0) {
+            result.put("estimatedWaitMs", estimatedWaitMs);
+        }
+        result.put("breaker", breaker);
+        if (breakerRetryInMs > 0) {
+            result.put("breakerRetryInMs", breakerRetryInMs);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,137 @@
+package com.ahmed.plugin.printerbridge.models;
+
+import com.getcapacitor.JSObject;
+
+import java.util.Locale;
+
+/**
+ * A printer's condition as it last reported it, streamed to JS through the {@code printerStatusChange} event.
+ */
+public class PrinterStatus {
+
+    public enum Source {
+        // Sent by the printer on its own after GS a
+        AUTOMATIC,
+        // Answer to DLE EOT real-time requests
+        QUERY;
+
+        public String toJsValue() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final String deviceId;
+    private final Source source;
+    private final boolean online;
+    private final boolean coverOpen;
+    private final boolean paperOut;
+    private final boolean paperLow;
+    private final boolean error;
+    private final long timestamp;
+
+    private PrinterStatus(String deviceId, Source source, boolean online, boolean coverOpen, boolean paperOut, boolean paperLow, boolean error) {
+        this.deviceId = deviceId;
+        this.source = source;
+        this.online = online;
+        this.coverOpen = coverOpen;
+        this.paperOut = paperOut;
+        this.paperLow = paperLow;
+        this.error = error;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    /**
+     * Decodes a four-byte Automatic Status Back frame: byte 1 bit 3 offline, bit 5 cover open; byte 2 bits 2, 3,
+     * 5 and 6 mechanical, cutter, unrecoverable and auto-recoverable errors; byte 3 bits 0-1 paper near end,
+     * bits 2-3 paper end.
+     */
+    public static PrinterStatus fromAutomaticStatus(String deviceId, byte[] frame) {
+        return new PrinterStatus(deviceId, Source.AUTOMATIC,
+                (frame[0] & 0x08) == 0,
+                (frame[0] & 0x20) != 0,
+                (frame[2] & 0x0C) != 0,
+                (frame[2] & 0x03) != 0,
+                (frame[1] & 0x6C) != 0);
+    }
+
+    /**
+     * Decodes the answers to {@code DLE EOT} 1 (bit 3 offline), 2 (bit 2 cover open, bit 5 stopped at paper end,
+     * bit 6 error) and 4 (bits 2-3 paper near end, bits 5-6 paper end).
+     */
+    public static PrinterStatus fromRealTimeStatus(String deviceId, int printer, int offlineCause, int paperSensor) {
+        return new PrinterStatus(deviceId, Source.QUERY,
+                (printer & 0x08) == 0,
+                (offlineCause & 0x04) != 0,
+                (paperSensor & 0x60) != 0 || (offlineCause & 0x20) != 0,
+                (paperSensor & 0x0C) != 0,
+                (offlineCause & 0x40) != 0);
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public Source getSource() {
+        return source;
+    }
+
+    public boolean isOnline() {
+        return online;
+    }
+
+    public boolean isCoverOpen() {
+        return coverOpen;
+    }
+
+    public boolean isPaperOut() {
+        return paperOut;
+    }
+
+    public boolean isPaperLow() {
+        return paperLow;
+    }
+
+    public boolean hasError() {
+        return error;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /** Whether the printer can take a job: a printer out of paper or with its cover open prints nothing. */
+    public boolean isReady() {
+        return !paperOut && !coverOpen;
+    }
+
+    /** Whether both describe the same condition, whatever their source and time. */
+    public boolean sameConditionAs(PrinterStatus other) {
+        return other != null && online == other.online && coverOpen == other.coverOpen
+                && paperOut == other.paperOut && paperLow == other.paperLow && error == other.error;
+    }
+
+    /** Why the printer is not ready, for error messages. */
+    public String describeProblem() {
+        if (paperOut && coverOpen) {
+            return "out of paper and its cover is open";
+        }
+        if (paperOut) {
+            return "out of paper";
+        }
+        return coverOpen ? "cover is open" : "ready";
+    }
+
+    public JSObject toJSObject() {
+        JSObject event = new JSObject();
+        event.put("deviceId", deviceId);
+        event.put("ready", isReady());
+        event.put("online", online);
+        event.put("coverOpen", coverOpen);
+        event.put("paperOut", paperOut);
+        event.put("paperLow", paperLow);
+        event.put("error", error);
+        event.put("source", source.toJsValue());
+        event.put("timestamp", timestamp);
+        return event;
+    }
+}
@@ -1,16 +1,44 @@
 package com.ahmed.plugin.printerbridge.models;
 
+import com.ahmed.plugin.printerbridge.escpos.JobFinishing;
 import com.getcapacitor.PluginCall;
 
+import java.util.UUID;
+
 public class QRCodePrintRequest {
     private final String deviceName;
     private final String deviceId;
     private final String qrData;
+    private final String jobId;
+    private final JobPriority priority;
+    private final long deadlineMs;
+    private final JobFinishing finishing;
 
     public QRCodePrintRequest(String deviceName, String deviceId, String qrData) {
+        this(deviceName, deviceId, qrData, null);
+    }
+
+    public QRCodePrintRequest(String deviceName, String deviceId, String qrData, String jobId) {
+        this(deviceName, deviceId, qrData, jobId, JobPriority.NORMAL);
+    }
+
+    public QRCodePrintRequest(String deviceName, String deviceId, String qrData, String jobId, JobPriority priority) {
+        this(deviceName, deviceId, qrData, jobId, priority, 0);
+    }
+
+    public QRCodePrintRequest(String deviceName, String deviceId, String qrData, String jobId, JobPriority priority, long deadlineMs) {
+        this(deviceName, deviceId, qrData, jobId, priority, deadlineMs, JobFinishing.NONE);
+    }
+
+    public QRCodePrintRequest(String deviceName, String deviceId, String qrData, String jobId, JobPriority priority, long deadlineMs,
+            JobFinishing finishing) {
         this.deviceName = deviceName;
         this.deviceId = deviceId;
         this.qrData = qrData;
+        this.jobId = jobId != null && !jobId.trim().isEmpty() ? jobId : UUID.randomUUID().toString();
+        this.priority = priority != null ? priority : JobPriority.NORMAL;
+        this.deadlineMs = deadlineMs;
+        this.finishing = finishing != null ? finishing : JobFinishing.NONE;
     }
 
     public String getDeviceName() {
@@ -25,6 +53,25 @@ public class QRCodePrintRequest {
         return qrData;
     }
 
+    /** Caller-supplied ID, or a generated one, used to correlate {@code printJobUpdate} events. */
+    public String getJobId() {
+        return jobId;
+    }
+
+    public JobPriority getPriority() {
+        return priority;
+    }
+
+    /** Time the job may take from the moment it was received, in milliseconds; 0 for no deadline. */
+    public long getDeadlineMs() {
+        return deadlineMs;
+    }
+
+    /** Feed, cut and drawer kick sent in the same transmission, after the content. */
+    public JobFinishing getFinishing() {
+        return finishing;
+    }
+
     public static QRCodePrintRequest fromPluginCall(PluginCall call) {
         String deviceName = call.getString("deviceName");
         String deviceId = call.getString("deviceId");
@@ -40,7 +87,14 @@ public class QRCodePrintRequest {
             throw new IllegalArgumentException("qrData is required.");
         }
 
-        return new QRCodePrintRequest(deviceName, deviceId, qrData);
+        Integer deadlineMs = call.getInt("deadlineMs");
+        if (deadlineMs != null && deadlineMs <= 0) {
+            throw new IllegalArgumentException("deadlineMs must be greater than 0.");
+        }
+
+        return new QRCodePrintRequest(deviceName, deviceId, qrData, call.getString("jobId"),
+                JobPriority.fromJsValue(call.getString("priority")), deadlineMs != null ? deadlineMs : 0,
+                JobFinishing.fromOptions(call.getInt("feed"), call.getString("cut"), call.getBoolean("openDrawer")));
     }
 }
 
@@ -0,0 +1,96 @@
+package com.ahmed.plugin.printerbridge.models;
+
+import com.getcapacitor.JSObject;
+
+import java.util.Locale;
+
+/**
+ * How much work may wait for one printer, counting the job being sent. Urgent jobs are always admitted, so a
+ * queue full of bulk work cannot keep a drawer kick or a receipt marked urgent out.
+ */
+public class QueueLimits {
+    public static final long DEFAULT_BLOCK_TIMEOUT_MS = 30_000;
+    public static final QueueLimits NONE = new QueueLimits(0, 0, WhenFull.REJECT, DEFAULT_BLOCK_TIMEOUT_MS);
+
+    /** What a call does when its printer's queue is full. */
+    public enum WhenFull {
+        /** Fail at once with a {@link com.ahmed.plugin.printerbridge.exceptions.QueueFullException}. */
+        REJECT,
+        /** Wait for room, up to the job's deadline or the block timeout. */
+        BLOCK;
+
+        public String toJsValue() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        /**
+         * @param value JS value ("reject" or "block"), or null for {@link #REJECT}
+         * @throws IllegalArgumentException for any other value
+         */
+        public static WhenFull fromJsValue(String value) {
+            if (value == null || value.trim().isEmpty()) {
+                return REJECT;
+            }
+            for (WhenFull whenFull : values()) {
+                if (whenFull.toJsValue().equals(value.trim().toLowerCase(Locale.ROOT))) {
+                    return whenFull;
+                }
+            }
+            throw new IllegalArgumentException("whenQueueFull must be reject or block.");
+        }
+    }
+
+    private final int maxJobs;
+    private final long maxBytes;
+    private final WhenFull whenFull;
+    private final long blockTimeoutMs;
+
+    /**
+     * @param maxJobs jobs per printer; 0 for no limit
+     * @param maxBytes encoded bytes per printer; 0 for no limit. A single larger job is still admitted into an
+     * empty queue
+     * @param blockTimeoutMs longest a {@link WhenFull#BLOCK} call without a deadline waits for room
+     */
+    public QueueLimits(int maxJobs, long maxBytes, WhenFull whenFull, long blockTimeoutMs) {
+        if (maxJobs < 0 || maxBytes < 0 || blockTimeoutMs <= 0) {
+            throw new IllegalArgumentException("Queue limits must not be negative and the block timeout must be positive.");
+        }
+        this.maxJobs = maxJobs;
+        this.maxBytes = maxBytes;
+        this.whenFull = whenFull != null ? whenFull : WhenFull.REJECT;
+        this.blockTimeoutMs = blockTimeoutMs;
+    }
+
+    public int getMaxJobs() {
+        return maxJobs;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public WhenFull getWhenFull() {
+        return whenFull;
+    }
+
+    public long getBlockTimeoutMs() {
+        return blockTimeoutMs;
+    }
+
+    /** Whether a job of {@code bytes} fits next to {@code jobs} jobs of {@code queuedBytes} in total. */
+    public boolean admits(int jobs, long queuedBytes, long bytes) {
+        if (jobs == 0) {
+            return true;
+        }
+        return (maxJobs == 0 || jobs < maxJobs) && (maxBytes == 0 || queuedBytes + bytes <= maxBytes);
+    }
+
+    public JSObject toJSObject() {
+        JSObject result = new JSObject();
+        result.put("maxJobs", maxJobs);
+        result.put("maxBytes", maxBytes);
+        result.put("whenFull", whenFull.toJsValue());
+        result.put("blockTimeoutMs", blockTimeoutMs);
+        return result;
+    }
+}
@@ -0,0 +1,72 @@
+package com.ahmed.plugin.printerbridge.models;
+
+import com.getcapacitor.PluginCall;
+
+import java.util.UUID;
+
+/** Sends a delivered job again, as it was encoded, e.g. a lost receipt or a customer copy. */
+public class ReprintRequest {
+    // All copies go out as one transmission
+    public static final int MAX_COPIES = 10;
+
+    private final String originalJobId;
+    private final int copies;
+    private final String jobId;
+    private final JobPriority priority;
+    private final long deadlineMs;
+
+    public ReprintRequest(String originalJobId, int copies) {
+        this(originalJobId, copies, null, JobPriority.NORMAL, 0);
+    }
+
+    public ReprintRequest(String originalJobId, int copies, String jobId, JobPriority priority, long deadlineMs) {
+        this.originalJobId = originalJobId;
+        this.copies = copies;
+        this.jobId = jobId != null && !jobId.trim().isEmpty() ? jobId : UUID.randomUUID().toString();
+        this.priority = priority != null ? priority : JobPriority.NORMAL;
+        this.deadlineMs = deadlineMs;
+    }
+
+    /** The job to print again. */
+    public String getOriginalJobId() {
+        return originalJobId;
+    }
+
+    public int getCopies() {
+        return copies;
+    }
+
+    /** Caller-supplied ID of the reprint itself, or a generated one, used to correlate {@code printJobUpdate} events. */
+    public String getJobId() {
+        return jobId;
+    }
+
+    public JobPriority getPriority() {
+        return priority;
+    }
+
+    /** Time the reprint may take from the moment it was received, in milliseconds; 0 for no deadline. */
+    public long getDeadlineMs() {
+        return deadlineMs;
+    }
+
+    public static ReprintRequest fromPluginCall(PluginCall call) {
+        String originalJobId = call.getString("jobId");
+        int copies = call.getInt("copies", 1);
+
+        if (originalJobId == null || originalJobId.trim().isEmpty()) {
+            throw new IllegalArgumentException("jobId is required.");
+        }
+        if (copies < 1 || copies > MAX_COPIES) {
+            throw new IllegalArgumentException("copies must be between 1 and " + MAX_COPIES + ".");
+        }
+
+        Integer deadlineMs = call.getInt("deadlineMs");
+        if (deadlineMs != null && deadlineMs <= 0) {
+            throw new IllegalArgumentException("deadlineMs must be greater than 0.");
+        }
+
+        return new ReprintRequest(originalJobId, copies, call.getString("reprintJobId"),
+                JobPriority.fromJsValue(call.getString("priority")), deadlineMs != null ? deadlineMs : 0);
+    }
+}
@@ -0,0 +1,36 @@
+package com.ahmed.plugin.printerbridge.profile;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-durable {@link ProfileStore}, used when no persistent store is configured and by the JVM tests.
+ */
+public class MemoryProfileStore implements ProfileStore {
+    private final ConcurrentHashMap<String, PrinterProfile> profiles = new ConcurrentHashMap<>();
+    private final AtomicInteger reads = new AtomicInteger();
+
+    @Override
+    public PrinterProfile read(String deviceId) {
+        reads.incrementAndGet();
+        return profiles.get(deviceId);
+    }
+
+    @Override
+    public void write(PrinterProfile profile) {
+        profiles.put(profile.getDeviceId(), profile);
+    }
+
+    @Override
+    public void delete(String deviceId) {
+        profiles.remove(deviceId);
+    }
+
+    public int size() {
+        return profiles.size();
+    }
+
+    public int getReadCount() {
+        return reads.get();
+    }
+}
@@ -0,0 +1,44 @@
+package com.ahmed.plugin.printerbridge.profile;
+
+import com.ahmed.plugin.printerbridge.utils.Logger;
+
+import io.paperdb.Book;
+import io.paperdb.Paper;
+
+/**
+ * {@link ProfileStore} on Paper: one key per printer in a dedicated book. Requires {@code Paper.init} to
+ * have been called.
+ */
+public class PaperProfileStore implements ProfileStore {
+    private static final String TAG = "PaperProfileStore";
+    private static final String BOOK_NAME = "printer_bridge_profiles";
+
+    private final Book book = Paper.book(BOOK_NAME);
+
+    @Override
+    public PrinterProfile read(String deviceId) {
+        try {
+            return book.read(key(deviceId));
+        } catch (Exception e) {
+            // Unreadable after an upgrade, say: probe again rather than fail the job
+            Logger.w(TAG, "Dropping unreadable profile for {}", deviceId);
+            book.delete(key(deviceId));
+            return null;
+        }
+    }
+
+    @Override
+    public void write(PrinterProfile profile) {
+        book.write(key(profile.getDeviceId()), profile);
+    }
+
+    @Override
+    public void delete(String deviceId) {
+        book.delete(key(deviceId));
+    }
+
+    // Paper keys become file names, and colons are not allowed in those everywhere
+    private static String key(String deviceId) {
+        return deviceId.replace(':', '-');
+    }
+}
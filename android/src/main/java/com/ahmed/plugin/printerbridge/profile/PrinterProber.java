@@ -0,0 +1,63 @@
+package com.ahmed.plugin.printerbridge.profile;
+
+import com.ahmed.plugin.printerbridge.escpos.EscPosCommands;
+import com.ahmed.plugin.printerbridge.exceptions.PrinterException;
+import com.ahmed.plugin.printerbridge.transport.PrinterTransport;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Asks a printer who it is: a real-time status request first, to learn whether it answers at all, then
+ * the {@code GS I} manufacturer, model and firmware strings.
+ */
+public final class PrinterProber {
+    // Printers answer within a few ms over an open link; this covers a busy one
+    static final long QUERY_TIMEOUT_MS = 500;
+    private static final int MAX_INFO_BYTES = 80;
+
+    // DLE EOT 1: printer status, one byte
+    static final byte[] STATUS_REQUEST = EscPosCommands.realTimeStatus(1);
+    // GS I n, n = 65 firmware, 66 manufacturer, 67 model: "_" + text + NUL
+    static final int INFO_FIRMWARE = 65;
+    static final int INFO_MANUFACTURER = 66;
+    static final int INFO_MODEL = 67;
+
+    /** What the printer reported about itself; any field may be null. */
+    public static final class Identity {
+        final String manufacturer;
+        final String model;
+        final String firmware;
+
+        Identity(String manufacturer, String model, String firmware) {
+            this.manufacturer = manufacturer;
+            this.model = model;
+            this.firmware = firmware;
+        }
+    }
+
+    private PrinterProber() {}
+
+    /**
+     * @return what the printer reported, or null if the transport cannot read or the printer does not answer
+     * status requests
+     */
+    public static Identity probe(PrinterTransport transport) throws PrinterException {
+        byte[] status = transport.query(STATUS_REQUEST, 1, -1, QUERY_TIMEOUT_MS);
+        // Fixed bits 1 and 4 set, bits 0 and 7 clear, in every DLE EOT reply
+        if (status == null || status.length != 1 || (status[0] & 0x93) != 0x12) {
+            return null;
+        }
+        return new Identity(info(transport, INFO_MANUFACTURER), info(transport, INFO_MODEL),
+                info(transport, INFO_FIRMWARE));
+    }
+
+    private static String info(PrinterTransport transport, int n) throws PrinterException {
+        byte[] reply = transport.query(EscPosCommands.printerInfo(n), MAX_INFO_BYTES, 0, QUERY_TIMEOUT_MS);
+        // Printers without the extended functions stay silent or answer with something else
+        if (reply == null || reply.length < 3 || reply[0] != '_' || reply[reply.length - 1] != 0) {
+            return null;
+        }
+        String text = new String(reply, 1, reply.length - 2, StandardCharsets.US_ASCII).trim();
+        return text.isEmpty() ? null : text;
+    }
+}
@@ -0,0 +1,161 @@
+package com.ahmed.plugin.printerbridge.profile;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+
+/**
+ * What is known about one printer: its identity as reported by the printer, if it answered, and the
+ * capabilities of its vendor. Serialized field by field by Paper, so fields must not be renamed.
+ */
+public class PrinterProfile {
+    private String deviceId;
+    private String deviceName;
+    private String vendor;
+    private String manufacturer;
+    private String model;
+    private String firmware;
+    // Whether the printer answered the probe; if not, the vendor was guessed from the Bluetooth name
+    private boolean probed;
+    private long updatedAt;
+    private int columns;
+    private int dotsPerLine;
+    private int codeTable;
+    private int[] codeTables;
+    private boolean nativeQr;
+    private boolean rasterImages;
+    private boolean nvGraphics;
+    private int bufferBytes;
+    private int bytesPerSecond;
+
+    // Required by Paper (Kryo) for deserialization
+    @SuppressWarnings("unused")
+    private PrinterProfile() {
+    }
+
+    PrinterProfile(String deviceId, String deviceName, PrinterProber.Identity identity, VendorTable.Entry capabilities) {
+        this.deviceId = deviceId;
+        this.deviceName = deviceName;
+        this.vendor = capabilities.vendor;
+        if (identity != null) {
+            this.manufacturer = identity.manufacturer;
+            this.model = identity.model;
+            this.firmware = identity.firmware;
+            this.probed = true;
+        }
+        this.updatedAt = System.currentTimeMillis();
+        this.columns = capabilities.columns;
+        this.dotsPerLine = capabilities.dotsPerLine;
+        this.codeTable = capabilities.codeTable;
+        this.codeTables = capabilities.codeTables.clone();
+        this.nativeQr = capabilities.nativeQr;
+        this.rasterImages = capabilities.rasterImages;
+        this.nvGraphics = capabilities.nvGraphics;
+        this.bufferBytes = capabilities.bufferBytes;
+        this.bytesPerSecond = capabilities.bytesPerSecond;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public String getDeviceName() {
+        return deviceName;
+    }
+
+    public String getVendor() {
+        return vendor;
+    }
+
+    /** As reported by the printer ({@code GS I}); null if it did not answer. */
+    public String getManufacturer() {
+        return manufacturer;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public String getFirmware() {
+        return firmware;
+    }
+
+    public boolean isProbed() {
+        return probed;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /** Characters per line in the default font. */
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getDotsPerLine() {
+        return dotsPerLine;
+    }
+
+    /** The {@code ESC t} table text is encoded for. */
+    public int getCodeTable() {
+        return codeTable;
+    }
+
+    public int[] getCodeTables() {
+        return codeTables.clone();
+    }
+
+    public boolean hasNativeQr() {
+        return nativeQr;
+    }
+
+    public boolean hasRasterImages() {
+        return rasterImages;
+    }
+
+    public boolean hasNvGraphics() {
+        return nvGraphics;
+    }
+
+    /** Size of the printer's receive buffer. */
+    public int getBufferBytes() {
+        return bufferBytes;
+    }
+
+    /** Sustained rate at which the printer takes data over Bluetooth. */
+    public int getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    public JSObject toJSObject() {
+        JSObject result = new JSObject();
+        result.put("deviceId", deviceId);
+        result.put("deviceName", deviceName);
+        result.put("vendor", vendor);
+        if (manufacturer != null) {
+            result.put("manufacturer", manufacturer);
+        }
+        if (model != null) {
+            result.put("model", model);
+        }
+        if (firmware != null) {
+            result.put("firmware", firmware);
+        }
+        result.put("probed", probed);
+        result.put("updatedAt", updatedAt);
+        result.put("columns", columns);
+        result.put("dotsPerLine", dotsPerLine);
+        result.put("codeTable", codeTable);
+        JSArray tables = new JSArray();
+        for (int table : codeTables) {
+            tables.put(table);
+        }
+        result.put("codeTables", tables);
+        result.put("nativeQr", nativeQr);
+        result.put("rasterImages", rasterImages);
+        result.put("nvGraphics", nvGraphics);
+        result.put("bufferBytes", bufferBytes);
+        result.put("bytesPerSecond", bytesPerSecond);
+        return result;
+    }
+}
@@ -0,0 +1,94 @@
+package com.ahmed.plugin.printerbridge.profile;
+
+import com.ahmed.plugin.printerbridge.exceptions.PrinterException;
+import com.ahmed.plugin.printerbridge.transport.PrinterTransport;
+import com.ahmed.plugin.printerbridge.utils.Logger;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Printer profiles by MAC address. A printer is probed the first time it is connected; the answer is
+ * merged with the {@link VendorTable} and persisted, so later sessions know the printer before the first
+ * job is encoded. A printer that did not answer gets a profile guessed from its Bluetooth name and is
+ * probed again in the next session.
+ */
+public class PrinterProfiles {
+    private static final String TAG = "PrinterProfiles";
+
+    private final ProfileStore store;
+    private final VendorTable.Entry defaults;
+    private final ConcurrentHashMap<String, PrinterProfile> cache = new ConcurrentHashMap<>();
+    // Printers the store had no profile for, so a printer without one costs a single read, not one per job
+    private final Set<String> absent = ConcurrentHashMap.newKeySet();
+    // Printers tried since the plugin loaded: one probe per session is enough, answered or not
+    private final Set<String> tried = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param defaultDotsPerLine paper width assumed for printers not in the vendor table
+     * @param defaultNativeQr QR support assumed for printers not in the vendor table
+     */
+    public PrinterProfiles(ProfileStore store, int defaultDotsPerLine, boolean defaultNativeQr) {
+        this.store = store;
+        this.defaults = VendorTable.generic(defaultDotsPerLine, defaultNativeQr);
+    }
+
+    /** The stored profile, or null if the printer was never connected. Does not touch the printer. */
+    public PrinterProfile get(String deviceId) {
+        if (deviceId == null) {
+            return null;
+        }
+        String key = key(deviceId);
+        PrinterProfile profile = cache.get(key);
+        if (profile == null && !absent.contains(key)) {
+            profile = store.read(key);
+            if (profile != null) {
+                cache.put(key, profile);
+            } else {
+                absent.add(key);
+            }
+        }
+        return profile;
+    }
+
+    /**
+     * Probes the connected printer unless it already has a probed profile or was tried this session.
+     * Call only between jobs, on the thread that sends them.
+     *
+     * @return the new profile, or null if nothing changed
+     */
+    public PrinterProfile ensureProbed(String deviceName, String deviceId, PrinterTransport transport) {
+        String key = key(deviceId);
+        PrinterProfile current = get(key);
+        if (current != null && current.isProbed() || !tried.add(key)) {
+            return null;
+        }
+        PrinterProber.Identity identity = null;
+        try {
+            identity = PrinterProber.probe(transport);
+        } catch (PrinterException e) {
+            Logger.w(TAG, "Probing {} failed: {}", deviceName, e.getMessage());
+        }
+        if (identity == null && current != null) {
+            // Still silent: keep the guess already on file
+            return null;
+        }
+        VendorTable.Entry entry = identity != null
+                ? VendorTable.match(identity.manufacturer, identity.model, deviceName)
+                : VendorTable.match(null, null, deviceName);
+        PrinterProfile profile = new PrinterProfile(key, deviceName, identity, entry != null ? entry : defaults);
+        cache.put(key, profile);
+        absent.remove(key);
+        store.write(profile);
+        Logger.i(TAG, "Profile for {}: {}", deviceName, profile.isProbed()
+                ? profile.getVendor() + " " + profile.getModel() + ", firmware " + profile.getFirmware()
+                : profile.getVendor() + " (no answer to probe)");
+        return profile;
+    }
+
+    // The same printer may be passed with either case of hex digits
+    private static String key(String deviceId) {
+        return deviceId.trim().toUpperCase(Locale.ROOT);
+    }
+}
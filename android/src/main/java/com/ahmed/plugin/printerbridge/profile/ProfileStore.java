@@ -0,0 +1,13 @@
+package com.ahmed.plugin.printerbridge.profile;
+
+/**
+ * Durable storage behind {@link PrinterProfiles}, keyed by the printer's MAC address.
+ */
+public interface ProfileStore {
+    /** Returns null if no profile is stored for the device. */
+    PrinterProfile read(String deviceId);
+
+    void write(PrinterProfile profile);
+
+    void delete(String deviceId);
+}
@@ -0,0 +1,103 @@
+package com.ahmed.plugin.printerbridge.profile;
+
+import com.ahmed.plugin.printerbridge.escpos.EscPosEncoder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Capabilities of the printer models in our fleet, by vendor. A printer is matched by the manufacturer
+ * and model it reports, or failing that by its Bluetooth name; unknown printers get the configured
+ * defaults.
+ */
+public final class VendorTable {
+
+    /** One vendor's capabilities. */
+    public static final class Entry {
+        final String vendor;
+        // Upper-case prefixes of the manufacturer, model or Bluetooth name
+        final List<String> prefixes;
+        final int columns;
+        final int dotsPerLine;
+        final int codeTable;
+        final int[] codeTables;
+        final boolean nativeQr;
+        final boolean rasterImages;
+        final boolean nvGraphics;
+        final int bufferBytes;
+        final int bytesPerSecond;
+
+        Entry(String vendor, List<String> prefixes, int columns, int dotsPerLine, int codeTable, int[] codeTables,
+                boolean nativeQr, boolean rasterImages, boolean nvGraphics, int bufferBytes, int bytesPerSecond) {
+            this.vendor = vendor;
+            this.prefixes = prefixes;
+            this.columns = columns;
+            this.dotsPerLine = dotsPerLine;
+            this.codeTable = codeTable;
+            this.codeTables = codeTables;
+            this.nativeQr = nativeQr;
+            this.rasterImages = rasterImages;
+            this.nvGraphics = nvGraphics;
+            this.bufferBytes = bufferBytes;
+            this.bytesPerSecond = bytesPerSecond;
+        }
+
+        public String getVendor() {
+            return vendor;
+        }
+
+        boolean matches(String value) {
+            if (value == null) {
+                return false;
+            }
+            String upper = value.trim().toUpperCase(Locale.ROOT);
+            for (String prefix : prefixes) {
+                if (upper.startsWith(prefix)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    public static final String GENERIC_VENDOR = "generic";
+
+    // Tables: 0 = PC437, 16 = WPC1252, 17 = PC866, 19 = PC858, 28 = Arabic as set up on our printers
+    private static final int[] COMMON_TABLES = { 0, 16, 17, 19, EscPosEncoder.ARABIC_CODE_TABLE };
+
+    private static final List<Entry> ENTRIES = Collections.unmodifiableList(Arrays.asList(
+            new Entry("epson", Arrays.asList("EPSON", "TM-"), 48, EscPosEncoder.PAPER_80MM_DOTS,
+                    EscPosEncoder.ARABIC_CODE_TABLE, COMMON_TABLES, true, true, true, 4096, 20_000),
+            new Entry("xprinter", Arrays.asList("XPRINTER", "XP-"), 32, EscPosEncoder.PAPER_58MM_DOTS,
+                    EscPosEncoder.ARABIC_CODE_TABLE, COMMON_TABLES, true, true, true, 4096, 11_000),
+            new Entry("rongta", Arrays.asList("RONGTA", "RPP"), 32, EscPosEncoder.PAPER_58MM_DOTS,
+                    EscPosEncoder.ARABIC_CODE_TABLE, COMMON_TABLES, true, true, false, 2048, 11_000),
+            // Cheap mobile printers: no QR engine and a small receive buffer
+            new Entry("goojprt", Arrays.asList("GOOJPRT", "MTP-", "PT-2"), 32, EscPosEncoder.PAPER_58MM_DOTS,
+                    EscPosEncoder.ARABIC_CODE_TABLE, COMMON_TABLES, false, true, false, 1024, 8_000)));
+
+    private VendorTable() {}
+
+    /**
+     * The first entry matching the manufacturer, then the model, then the Bluetooth name; null if none does.
+     */
+    public static Entry match(String manufacturer, String model, String deviceName) {
+        for (String value : new String[] { manufacturer, model, deviceName }) {
+            for (Entry entry : ENTRIES) {
+                if (entry.matches(value)) {
+                    return entry;
+                }
+            }
+        }
+        return null;
+    }
+
+    /** The entry for printers not in the table, from the configured paper width and QR support. */
+    public static Entry generic(int dotsPerLine, boolean nativeQr) {
+        return new Entry(GENERIC_VENDOR, Collections.<String>emptyList(),
+                dotsPerLine >= EscPosEncoder.PAPER_80MM_DOTS ? 48 : 32, dotsPerLine, EscPosEncoder.ARABIC_CODE_TABLE,
+                COMMON_TABLES, nativeQr, true, false, 1024, 8_000);
+    }
+}
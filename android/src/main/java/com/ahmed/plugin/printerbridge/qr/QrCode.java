@@ -0,0 +1,64 @@
+package com.ahmed.plugin.printerbridge.qr;
+
+/**
+ * A finished QR symbol: a square grid of dark and light modules, without the quiet zone.
+ */
+public final class QrCode {
+    public static final int MIN_VERSION = 1;
+    public static final int MAX_VERSION = 40;
+    // Light border the symbol needs on every side to be found by a scanner, in modules
+    public static final int QUIET_ZONE_MODULES = 4;
+
+    public enum ErrorCorrection {
+        // Recovers ~7%, ~15%, ~25% and ~30% of damaged codewords
+        LOW(1),
+        MEDIUM(0),
+        QUARTILE(3),
+        HIGH(2);
+
+        // The two error correction bits of the format information
+        final int formatBits;
+
+        ErrorCorrection(int formatBits) {
+            this.formatBits = formatBits;
+        }
+    }
+
+    private final int version;
+    private final ErrorCorrection errorCorrection;
+    private final int mask;
+    private final boolean[][] modules;
+
+    QrCode(int version, ErrorCorrection errorCorrection, int mask, boolean[][] modules) {
+        this.version = version;
+        this.errorCorrection = errorCorrection;
+        this.mask = mask;
+        this.modules = modules;
+    }
+
+    /** Modules per side for a version: 21 for version 1 up to 177 for version 40. */
+    public static int sizeOf(int version) {
+        return version * 4 + 17;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public ErrorCorrection getErrorCorrection() {
+        return errorCorrection;
+    }
+
+    public int getMask() {
+        return mask;
+    }
+
+    public int getSize() {
+        return modules.length;
+    }
+
+    /** Whether the module in column {@code x}, row {@code y} is dark. */
+    public boolean isDark(int x, int y) {
+        return modules[y][x];
+    }
+}
@@ -0,0 +1,428 @@
+package com.ahmed.plugin.printerbridge.qr;
+
+/**
+ * Encodes bytes into a QR symbol (ISO/IEC 18004, byte mode), for printers without a QR engine of their
+ * own. Byte mode takes any payload, including UTF-8 text, and is also what sizes the symbol a printer's
+ * native QR command would produce, so the same capacity rules serve both paths.
+ */
+public final class QrEncoder {
+    private static final int MODE_BYTE = 0x4;
+    private static final int PAD_CODEWORD_1 = 0xEC;
+    private static final int PAD_CODEWORD_2 = 0x11;
+    private static final int FORMAT_POLYNOMIAL = 0x537;
+    private static final int FORMAT_MASK = 0x5412;
+    private static final int VERSION_POLYNOMIAL = 0x1F25;
+
+    // Per error correction level (in enum order), indexed by version; index 0 is unused
+    private static final int[][] ECC_CODEWORDS_PER_BLOCK = {
+            { -1, 7, 10, 15, 20, 26, 18, 20, 24, 30, 18, 20, 24, 26, 30, 22, 24, 28, 30, 28, 28, 28, 28, 30, 30, 26, 28, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30 },
+            { -1, 10, 16, 26, 18, 24, 16, 18, 22, 22, 26, 30, 22, 22, 24, 24, 28, 28, 26, 26, 26, 26, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28, 28 },
+            { -1, 13, 22, 18, 26, 18, 24, 18, 22, 20, 24, 28, 26, 24, 20, 30, 24, 28, 28, 26, 30, 28, 30, 30, 30, 30, 28, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30 },
+            { -1, 17, 28, 22, 16, 22, 28, 26, 26, 24, 28, 24, 28, 22, 24, 24, 30, 28, 28, 26, 28, 30, 24, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30, 30 },
+    };
+    private static final int[][] ERROR_CORRECTION_BLOCKS = {
+            { -1, 1, 1, 1, 1, 1, 2, 2, 2, 2, 4, 4, 4, 4, 4, 6, 6, 6, 6, 7, 8, 8, 9, 9, 10, 12, 12, 12, 13, 14, 15, 16, 17, 18, 19, 19, 20, 21, 22, 24, 25 },
+            { -1, 1, 1, 1, 2, 2, 4, 4, 4, 5, 5, 5, 8, 9, 9, 10, 10, 11, 13, 14, 16, 17, 17, 18, 20, 21, 23, 25, 26, 28, 29, 31, 33, 35, 37, 38, 40, 43, 45, 47, 49 },
+            { -1, 1, 1, 2, 2, 4, 4, 6, 6, 8, 8, 8, 10, 12, 16, 12, 17, 16, 18, 21, 20, 23, 23, 25, 27, 29, 34, 34, 35, 38, 40, 43, 45, 48, 51, 53, 56, 59, 62, 65, 68 },
+            { -1, 1, 1, 2, 4, 4, 4, 5, 6, 8, 8, 11, 11, 16, 16, 18, 16, 19, 21, 25, 25, 25, 34, 30, 32, 35, 37, 40, 42, 45, 48, 51, 54, 57, 60, 63, 66, 70, 74, 77, 81 },
+    };
+
+    // Penalty weights of the mask evaluation rules
+    private static final int PENALTY_RUN = 3;
+    private static final int PENALTY_BLOCK = 3;
+    private static final int PENALTY_FINDER_LIKE = 40;
+    private static final int PENALTY_BALANCE = 10;
+    // Dark-light-dark-dark-dark-light-dark followed by four light modules
+    private static final boolean[] FINDER_LIKE = {
+            true, false, true, true, true, false, true, false, false, false, false
+    };
+
+    private QrEncoder() {}
+
+    /** Largest payload in bytes a symbol of this version and level holds. */
+    public static int capacity(int version, QrCode.ErrorCorrection errorCorrection) {
+        int dataBits = dataCodewords(version, errorCorrection) * 8 - 4 - countBits(version);
+        return dataBits / 8;
+    }
+
+    /** Smallest version that holds {@code byteLength} bytes at this level, or -1 if none does. */
+    public static int minVersion(int byteLength, QrCode.ErrorCorrection errorCorrection) {
+        for (int version = QrCode.MIN_VERSION; version <= QrCode.MAX_VERSION; version++) {
+            if (byteLength <= capacity(version, errorCorrection)) {
+                return version;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Encodes {@code data} into the smallest symbol with the given error correction level.
+     *
+     * @throws IllegalArgumentException if the data does not fit in a version 40 symbol
+     */
+    public static QrCode encode(byte[] data, QrCode.ErrorCorrection errorCorrection) {
+        int version = minVersion(data.length, errorCorrection);
+        if (version < 0) {
+            throw new IllegalArgumentException("QR code data is too long: " + data.length + " bytes, at most "
+                    + capacity(QrCode.MAX_VERSION, errorCorrection) + " fit at this error correction level.");
+        }
+        return encode(data, version, errorCorrection);
+    }
+
+    static QrCode encode(byte[] data, int version, QrCode.ErrorCorrection errorCorrection) {
+        byte[] codewords = interleaveWithEcc(dataCodewords(data, version, errorCorrection), version, errorCorrection);
+        Symbol symbol = new Symbol(version);
+        symbol.drawFunctionPatterns();
+        symbol.drawCodewords(codewords);
+
+        // Try every mask and keep the one that leaves the fewest scanner-confusing patterns
+        int bestMask = 0;
+        int bestPenalty = Integer.MAX_VALUE;
+        for (int mask = 0; mask < 8; mask++) {
+            symbol.applyMask(mask);
+            symbol.drawFormatBits(errorCorrection, mask);
+            int penalty = symbol.penalty();
+            if (penalty < bestPenalty) {
+                bestMask = mask;
+                bestPenalty = penalty;
+            }
+            symbol.applyMask(mask); // XOR again to undo
+        }
+        symbol.applyMask(bestMask);
+        symbol.drawFormatBits(errorCorrection, bestMask);
+        return new QrCode(version, errorCorrection, bestMask, symbol.modules);
+    }
+
+    /** The 15 format information bits for a level and mask, BCH-protected and masked. */
+    static int formatBits(QrCode.ErrorCorrection errorCorrection, int mask) {
+        int data = errorCorrection.formatBits << 3 | mask;
+        int remainder = data;
+        for (int i = 0; i < 10; i++) {
+            remainder = (remainder << 1) ^ ((remainder >>> 9) * FORMAT_POLYNOMIAL);
+        }
+        return (data << 10 | remainder) ^ FORMAT_MASK;
+    }
+
+    /** The 18 version information bits, only present from version 7. */
+    static int versionBits(int version) {
+        int remainder = version;
+        for (int i = 0; i < 12; i++) {
+            remainder = (remainder << 1) ^ ((remainder >>> 11) * VERSION_POLYNOMIAL);
+        }
+        return version << 12 | remainder;
+    }
+
+    static int dataCodewords(int version, QrCode.ErrorCorrection errorCorrection) {
+        int level = errorCorrection.ordinal();
+        return rawDataModules(version) / 8
+                - ECC_CODEWORDS_PER_BLOCK[level][version] * ERROR_CORRECTION_BLOCKS[level][version];
+    }
+
+    // Modules left for data and error correction once all function patterns are drawn
+    static int rawDataModules(int version) {
+        int result = (16 * version + 128) * version + 64;
+        if (version >= 2) {
+            int alignments = version / 7 + 2;
+            result -= (25 * alignments - 10) * alignments - 55;
+            if (version >= 7) {
+                result -= 36;
+            }
+        }
+        return result;
+    }
+
+    static int[] alignmentPositions(int version) {
+        if (version == 1) {
+            return new int[0];
+        }
+        int count = version / 7 + 2;
+        int step = version == 32 ? 26 : (version * 4 + count * 2 + 1) / (count * 2 - 2) * 2;
+        int[] result = new int[count];
+        result[0] = 6;
+        for (int i = count - 1, position = QrCode.sizeOf(version) - 7; i >= 1; i--, position -= step) {
+            result[i] = position;
+        }
+        return result;
+    }
+
+    private static int countBits(int version) {
+        return version <= 9 ? 8 : 16;
+    }
+
+    // Mode indicator, length, payload, terminator and padding, filling exactly the data capacity
+    private static byte[] dataCodewords(byte[] data, int version, QrCode.ErrorCorrection errorCorrection) {
+        int capacityBits = dataCodewords(version, errorCorrection) * 8;
+        BitWriter bits = new BitWriter(capacityBits / 8);
+        bits.append(MODE_BYTE, 4);
+        bits.append(data.length, countBits(version));
+        for (byte b : data) {
+            bits.append(b & 0xFF, 8);
+        }
+        bits.append(0, Math.min(4, capacityBits - bits.length));
+        bits.append(0, (8 - bits.length % 8) % 8);
+        for (int pad = PAD_CODEWORD_1; bits.length < capacityBits; pad ^= PAD_CODEWORD_1 ^ PAD_CODEWORD_2) {
+            bits.append(pad, 8);
+        }
+        return bits.bytes;
+    }
+
+    // Splits the data into blocks, appends each block's error correction, then interleaves the blocks
+    private static byte[] interleaveWithEcc(byte[] data, int version, QrCode.ErrorCorrection errorCorrection) {
+        int level = errorCorrection.ordinal();
+        int blocks = ERROR_CORRECTION_BLOCKS[level][version];
+        int eccLength = ECC_CODEWORDS_PER_BLOCK[level][version];
+        int rawCodewords = rawDataModules(version) / 8;
+        int shortBlocks = blocks - rawCodewords % blocks;
+        int shortBlockLength = rawCodewords / blocks;
+        byte[] divisor = ReedSolomon.divisor(eccLength);
+
+        // Short blocks carry one data codeword less; position shortBlockLength - eccLength stays empty in them
+        byte[][] blockData = new byte[blocks][];
+        for (int i = 0, offset = 0; i < blocks; i++) {
+            int dataLength = shortBlockLength - eccLength + (i < shortBlocks ? 0 : 1);
+            byte[] ecc = ReedSolomon.remainder(data, offset, dataLength, divisor);
+            byte[] block = new byte[shortBlockLength + 1];
+            System.arraycopy(data, offset, block, 0, dataLength);
+            System.arraycopy(ecc, 0, block, block.length - eccLength, eccLength);
+            blockData[i] = block;
+            offset += dataLength;
+        }
+
+        byte[] result = new byte[rawCodewords];
+        int k = 0;
+        for (int i = 0; i < shortBlockLength + 1; i++) {
+            for (int j = 0; j < blocks; j++) {
+                if (i != shortBlockLength - eccLength || j >= shortBlocks) {
+                    result[k++] = blockData[j][i];
+                }
+            }
+        }
+        return result;
+    }
+
+    private static final class BitWriter {
+        final byte[] bytes;
+        int length;
+
+        BitWriter(int capacityBytes) {
+            this.bytes = new byte[capacityBytes];
+        }
+
+        void append(int value, int count) {
+            for (int i = count - 1; i >= 0; i--, length++) {
+                if (((value >>> i) & 1) != 0) {
+                    bytes[length >>> 3] |= (byte) (0x80 >>> (length & 7));
+                }
+            }
+        }
+    }
+
+    /** The module grid while it is being built, with the cells reserved for function patterns. */
+    private static final class Symbol {
+        final int version;
+        final int size;
+        final boolean[][] modules;
+        final boolean[][] function;
+
+        Symbol(int version) {
+            this.version = version;
+            this.size = QrCode.sizeOf(version);
+            this.modules = new boolean[size][size];
+            this.function = new boolean[size][size];
+        }
+
+        void drawFunctionPatterns() {
+            for (int i = 0; i < size; i++) {
+                set(6, i, i % 2 == 0);
+                set(i, 6, i % 2 == 0);
+            }
+            drawFinder(3, 3);
+            drawFinder(size - 4, 3);
+            drawFinder(3, size - 4);
+
+            int[] positions = alignmentPositions(version);
+            for (int i = 0; i < positions.length; i++) {
+                for (int j = 0; j < positions.length; j++) {
+                    boolean finderCorner = i == 0 && j == 0
+                            || i == 0 && j == positions.length - 1
+                            || i == positions.length - 1 && j == 0;
+                    if (!finderCorner) {
+                        drawAlignment(positions[i], positions[j]);
+                    }
+                }
+            }
+
+            // Reserve the format areas now; the real bits depend on the mask chosen later
+            drawFormatBits(QrCode.ErrorCorrection.MEDIUM, 0);
+            if (version >= 7) {
+                int bits = versionBits(version);
+                for (int i = 0; i < 18; i++) {
+                    boolean dark = ((bits >>> i) & 1) != 0;
+                    int a = size - 11 + i % 3;
+                    int b = i / 3;
+                    set(a, b, dark);
+                    set(b, a, dark);
+                }
+            }
+        }
+
+        void drawFormatBits(QrCode.ErrorCorrection errorCorrection, int mask) {
+            int bits = formatBits(errorCorrection, mask);
+            // Copy around the top-left finder
+            for (int i = 0; i <= 5; i++) {
+                set(8, i, bit(bits, i));
+            }
+            set(8, 7, bit(bits, 6));
+            set(8, 8, bit(bits, 7));
+            set(7, 8, bit(bits, 8));
+            for (int i = 9; i < 15; i++) {
+                set(14 - i, 8, bit(bits, i));
+            }
+            // Copy split between the other two finders
+            for (int i = 0; i < 8; i++) {
+                set(size - 1 - i, 8, bit(bits, i));
+            }
+            for (int i = 8; i < 15; i++) {
+                set(8, size - 15 + i, bit(bits, i));
+            }
+            set(8, size - 8, true); // Always dark
+        }
+
+        // Places the bits in two-column strips, zigzagging up and down from the bottom-right corner
+        void drawCodewords(byte[] codewords) {
+            int i = 0;
+            for (int right = size - 1; right >= 1; right -= 2) {
+                if (right == 6) {
+                    right = 5; // Skip the vertical timing pattern
+                }
+                for (int vertical = 0; vertical < size; vertical++) {
+                    for (int j = 0; j < 2; j++) {
+                        int x = right - j;
+                        boolean upward = ((right + 1) & 2) == 0;
+                        int y = upward ? size - 1 - vertical : vertical;
+                        if (!function[y][x] && i < codewords.length * 8) {
+                            modules[y][x] = ((codewords[i >>> 3] >>> (7 - (i & 7))) & 1) != 0;
+                            i++;
+                        }
+                        // Remainder bits, if any, stay light
+                    }
+                }
+            }
+        }
+
+        void applyMask(int mask) {
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    if (!function[y][x] && masked(mask, x, y)) {
+                        modules[y][x] = !modules[y][x];
+                    }
+                }
+            }
+        }
+
+        int penalty() {
+            int result = 0;
+            for (int i = 0; i < size; i++) {
+                result += linePenalty(i, true) + linePenalty(i, false);
+            }
+            int dark = 0;
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    boolean color = modules[y][x];
+                    if (color) {
+                        dark++;
+                    }
+                    if (x + 1 < size && y + 1 < size && color == modules[y][x + 1]
+                            && color == modules[y + 1][x] && color == modules[y + 1][x + 1]) {
+                        result += PENALTY_BLOCK;
+                    }
+                }
+            }
+            int total = size * size;
+            // Deviation from a 50% dark ratio, in whole 5% steps
+            int deviation = Math.abs(dark * 20 - total * 10) / total;
+            return result + deviation * PENALTY_BALANCE;
+        }
+
+        // Runs of five or more same-colored modules, and 1:1:3:1:1 patterns that look like a finder
+        private int linePenalty(int index, boolean row) {
+            int result = 0;
+            int run = 0;
+            boolean previous = false;
+            for (int i = 0; i < size; i++) {
+                boolean color = row ? modules[index][i] : modules[i][index];
+                if (i > 0 && color == previous) {
+                    run++;
+                } else {
+                    if (run >= 5) {
+                        result += PENALTY_RUN + run - 5;
+                    }
+                    run = 1;
+                    previous = color;
+                }
+                if (i + 10 < size && finderLike(index, i, row)) {
+                    result += PENALTY_FINDER_LIKE;
+                }
+            }
+            if (run >= 5) {
+                result += PENALTY_RUN + run - 5;
+            }
+            return result;
+        }
+
+        private boolean finderLike(int index, int start, boolean row) {
+            boolean matchesForward = true;
+            boolean matchesBackward = true;
+            for (int k = 0; k < 11; k++) {
+                boolean color = row ? modules[index][start + k] : modules[start + k][index];
+                matchesForward &= color == FINDER_LIKE[k];
+                matchesBackward &= color == FINDER_LIKE[10 - k];
+            }
+            return matchesForward || matchesBackward;
+        }
+
+        private void drawFinder(int cx, int cy) {
+            for (int dy = -4; dy <= 4; dy++) {
+                for (int dx = -4; dx <= 4; dx++) {
+                    int distance = Math.max(Math.abs(dx), Math.abs(dy));
+                    int x = cx + dx;
+                    int y = cy + dy;
+                    if (x >= 0 && x < size && y >= 0 && y < size) {
+                        set(x, y, distance != 2 && distance != 4);
+                    }
+                }
+            }
+        }
+
+        private void drawAlignment(int cx, int cy) {
+            for (int dy = -2; dy <= 2; dy++) {
+                for (int dx = -2; dx <= 2; dx++) {
+                    set(cx + dx, cy + dy, Math.max(Math.abs(dx), Math.abs(dy)) != 1);
+                }
+            }
+        }
+
+        private void set(int x, int y, boolean dark) {
+            modules[y][x] = dark;
+            function[y][x] = true;
+        }
+
+        private static boolean bit(int value, int index) {
+            return ((value >>> index) & 1) != 0;
+        }
+
+        private static boolean masked(int mask, int x, int y) {
+            switch (mask) {
+                case 0: return (x + y) % 2 == 0;
+                case 1: return y % 2 == 0;
+                case 2: return x % 3 == 0;
+                case 3: return (x + y) % 3 == 0;
+                case 4: return (x / 3 + y / 2) % 2 == 0;
+                case 5: return x * y % 2 + x * y % 3 == 0;
+                case 6: return (x * y % 2 + x * y % 3) % 2 == 0;
+                case 7: return ((x + y) % 2 + x * y % 3) % 2 == 0;
+                default: throw new IllegalArgumentException("Mask must be 0-7");
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.ahmed.plugin.printerbridge.qr;
+
+/**
+ * Reed-Solomon error correction over GF(2^8) with the QR polynomial x^8 + x^4 + x^3 + x^2 + 1.
+ */
+final class ReedSolomon {
+    private static final int FIELD_POLYNOMIAL = 0x11D;
+
+    private ReedSolomon() {}
+
+    /** Coefficients of the generator polynomial of the given degree, highest power first, leading 1 omitted. */
+    static byte[] divisor(int degree) {
+        byte[] result = new byte[degree];
+        result[degree - 1] = 1;
+        int root = 1;
+        for (int i = 0; i < degree; i++) {
+            // Multiply by (x - r^i)
+            for (int j = 0; j < degree; j++) {
+                result[j] = (byte) multiply(result[j] & 0xFF, root);
+                if (j + 1 < degree) {
+                    result[j] ^= result[j + 1];
+                }
+            }
+            root = multiply(root, 0x02);
+        }
+        return result;
+    }
+
+    /** The error correction codewords for {@code data}, i.e. data * x^degree mod divisor. */
+    static byte[] remainder(byte[] data, int offset, int length, byte[] divisor) {
+        byte[] result = new byte[divisor.length];
+        for (int i = offset; i < offset + length; i++) {
+            int factor = (data[i] ^ result[0]) & 0xFF;
+            System.arraycopy(result, 1, result, 0, result.length - 1);
+            result[result.length - 1] = 0;
+            for (int j = 0; j < result.length; j++) {
+                result[j] ^= (byte) multiply(divisor[j] & 0xFF, factor);
+            }
+        }
+        return result;
+    }
+
+    static int multiply(int x, int y) {
+        int z = 0;
+        for (int i = 7; i >= 0; i--) {
+            z = (z << 1) ^ ((z >>> 7) * FIELD_POLYNOMIAL);
+            z ^= ((y >>> i) & 1) * x;
+        }
+        return z;
+    }
+}
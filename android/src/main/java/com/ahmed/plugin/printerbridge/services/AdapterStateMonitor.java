@@ -0,0 +1,138 @@
+package com.ahmed.plugin.printerbridge.services;
+
+import android.bluetooth.BluetoothAdapter;
+
+import com.ahmed.plugin.printerbridge.bluetooth.BluetoothStack;
+import com.ahmed.plugin.printerbridge.utils.Logger;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the Bluetooth adapter state cached in memory so hot paths never have to ask the
+ * system service over IPC. The cached value is refreshed from {@link BluetoothAdapter#ACTION_STATE_CHANGED},
+ * as delivered by the {@link BluetoothStack}.
+ */
+public class AdapterStateMonitor {
+    private static final String TAG = "AdapterStateMonitor";
+
+    public interface Listener {
+        void onAdapterStateChanged(int state, int previousState);
+    }
+
+    private final BluetoothStack bluetoothStack;
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Object enabledSignal = new Object();
+    private final BluetoothStack.Listener stackListener;
+
+    private volatile int state;
+    private volatile boolean isRegistered;
+
+    AdapterStateMonitor(BluetoothStack bluetoothStack) {
+        this.bluetoothStack = bluetoothStack;
+        this.state = BluetoothAdapter.STATE_OFF;
+        this.stackListener = new BluetoothStack.Listener() {
+            @Override
+            public void onAdapterStateChanged(int newState) {
+                updateState(newState);
+            }
+        };
+    }
+
+    void start() {
+        if (isRegistered) {
+            return;
+        }
+        bluetoothStack.addListener(stackListener);
+        isRegistered = true;
+        // Seed after registering so a toggle racing with registration is not lost
+        updateState(bluetoothStack.getState());
+        Logger.d(TAG, "Adapter state monitor started, state: {}", stateToString(state));
+    }
+
+    void stop() {
+        if (!isRegistered) {
+            return;
+        }
+        bluetoothStack.removeListener(stackListener);
+        isRegistered = false;
+        synchronized (enabledSignal) {
+            enabledSignal.notifyAll();
+        }
+    }
+
+    public boolean isEnabled() {
+        return state == BluetoothAdapter.STATE_ON;
+    }
+
+    public int getState() {
+        return state;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Parks the calling thread until the adapter reports {@code STATE_ON}.
+     *
+     * @return true if the adapter is enabled, false if the timeout elapsed or the monitor was stopped first
+     */
+    public boolean awaitEnabled(long timeout, TimeUnit unit) throws InterruptedException {
+        if (isEnabled()) {
+            return true;
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (enabledSignal) {
+            while (!isEnabled() && isRegistered) {
+                long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMs <= 0) {
+                    return false;
+                }
+                enabledSignal.wait(remainingMs);
+            }
+        }
+        return isEnabled();
+    }
+
+    private void updateState(int newState) {
+        int previousState = state;
+        if (previousState == newState) {
+            return;
+        }
+        state = newState;
+        Logger.d(TAG, "Adapter state changed: {} -> {}", stateToString(previousState), stateToString(newState));
+
+        if (newState == BluetoothAdapter.STATE_ON) {
+            synchronized (enabledSignal) {
+                enabledSignal.notifyAll();
+            }
+        }
+        for (Listener listener : listeners) {
+            try {
+                listener.onAdapterStateChanged(newState, previousState);
+            } catch (Exception e) {
+                Logger.e(TAG, "Adapter state listener failed", e);
+            }
+        }
+    }
+
+    public static String stateToString(int state) {
+        switch (state) {
+            case BluetoothAdapter.STATE_ON:
+                return "ON";
+            case BluetoothAdapter.STATE_OFF:
+                return "OFF";
+            case BluetoothAdapter.STATE_TURNING_ON:
+                return "TURNING_ON";
+            case BluetoothAdapter.STATE_TURNING_OFF:
+                return "TURNING_OFF";
+            default:
+                return "UNKNOWN";
+        }
+    }
+}
@@ -1,146 +1,172 @@
 package com.ahmed.plugin.printerbridge.services;
 
-import android.Manifest;
-import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothDevice;
-import android.content.BroadcastReceiver;
 import android.content.Context;
-import android.content.Intent;
-import android.content.IntentFilter;
-import android.content.pm.PackageManager;
-import android.os.Handler;
-import android.os.Looper;
-import android.util.Log;
-
-import androidx.core.app.ActivityCompat;
 
+import com.ahmed.plugin.printerbridge.bluetooth.AndroidBluetoothStack;
+import com.ahmed.plugin.printerbridge.bluetooth.BluetoothStack;
+import com.ahmed.plugin.printerbridge.bluetooth.RemoteDevice;
 import com.ahmed.plugin.printerbridge.exceptions.PrinterException;
+import com.ahmed.plugin.printerbridge.metrics.PrinterMetrics;
 import com.ahmed.plugin.printerbridge.utils.Logger;
 import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
 
-import java.util.Set;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class BluetoothService {
     private static final String TAG = "BluetoothService";
     private static final int DISCOVERY_TIMEOUT_SECONDS = 30;
     private static final int PAIRING_TIMEOUT_SECONDS = 30;
+    private static final int ADAPTER_RESUME_TIMEOUT_SECONDS = 60;
 
-    private final Context context;
-    private final BluetoothAdapter bluetoothAdapter;
+    private final BluetoothStack bluetoothStack;
     private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
-    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AdapterStateMonitor adapterStateMonitor;
+    private final PrinterMetrics metrics;
 
     // Device discovery management
-    private final ConcurrentHashMap<String, BluetoothDevice> discoveredDevices = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, RemoteDevice> discoveredDevices = new ConcurrentHashMap<>();
     private final AtomicBoolean isDiscovering = new AtomicBoolean(false);
-    private CountDownLatch discoveryLatch;
-    private BroadcastReceiver discoveryReceiver;
-    private BroadcastReceiver pairingReceiver;
+    private volatile CountDownLatch discoveryLatch;
+    private final BluetoothStack.Listener discoveryListener;
+    private final BluetoothStack.Listener pairingListener;
 
     // Callbacks for discovery and pairing
     public interface DiscoveryCallback {
-        void onDeviceFound(BluetoothDevice device);
+        void onDeviceFound(RemoteDevice device);
         void onDiscoveryComplete();
         void onError(String error);
     }
 
     public interface PairingCallback {
-        void onPairingSuccess(BluetoothDevice device);
+        void onPairingSuccess(RemoteDevice device);
         void onPairingFailed(String error);
         void onPinRequired(String pin);
     }
 
     public BluetoothService(Context context) throws PrinterException {
-        this.context = context;
-        this.bluetoothAdapter = BluetoothAdapter.getDefaultAdapter();
-        if (bluetoothAdapter == null) {
-            throw new PrinterException("Bluetooth is not supported on this device.");
-        }
-        setupReceivers();
+        this(new AndroidBluetoothStack(context));
+    }
+
+    public BluetoothService(BluetoothStack bluetoothStack) {
+        this(bluetoothStack, new PrinterMetrics());
     }
 
-    private void setupReceivers() {
-        // Discovery receiver
-        discoveryReceiver = new BroadcastReceiver() {
+    public BluetoothService(BluetoothStack bluetoothStack, PrinterMetrics metrics) {
+        this.bluetoothStack = bluetoothStack;
+        this.metrics = metrics;
+        this.adapterStateMonitor = new AdapterStateMonitor(bluetoothStack);
+
+        // Discovery listener
+        this.discoveryListener = new BluetoothStack.Listener() {
+            @Override
+            public void onDeviceFound(RemoteDevice device) {
+                discoveredDevices.put(device.getAddress(), device);
+                Logger.d(TAG, "Device discovered: {}", device.getAddress());
+            }
+
             @Override
-            public void onReceive(Context context, Intent intent) {
-                String action = intent.getAction();
-                if (BluetoothDevice.ACTION_FOUND.equals(action)) {
-                    BluetoothDevice device = intent.getParcelableExtra(BluetoothDevice.EXTRA_DEVICE);
-                    if (device != null) {
-                        discoveredDevices.put(device.getAddress(), device);
-                        Logger.d(TAG, "Device discovered: " + device.getAddress());
-                    }
-                } else if (BluetoothAdapter.ACTION_DISCOVERY_FINISHED.equals(action)) {
-                    isDiscovering.set(false);
-                    if (discoveryLatch != null) {
-                        discoveryLatch.countDown();
-                    }
-                    Logger.d(TAG, "Discovery finished");
+            public void onDiscoveryFinished() {
+                CountDownLatch latch = discoveryLatch;
+                if (latch != null) {
+                    latch.countDown();
                 }
+                Logger.d(TAG, "Discovery finished");
             }
         };
 
-        // Pairing receiver
-        pairingReceiver = new BroadcastReceiver() {
+        // Pairing listener
+        this.pairingListener = new BluetoothStack.Listener() {
             @Override
-            public void onReceive(Context context, Intent intent) {
-                String action = intent.getAction();
-                if (BluetoothDevice.ACTION_BOND_STATE_CHANGED.equals(action)) {
-                    BluetoothDevice device = intent.getParcelableExtra(BluetoothDevice.EXTRA_DEVICE);
-                    int bondState = intent.getIntExtra(BluetoothDevice.EXTRA_BOND_STATE, BluetoothDevice.BOND_NONE);
-
-                    if (device != null) {
-                        Logger.d(TAG, "Bond state changed for " + device.getAddress() + ": " + bondState);
-                        switch (bondState) {
-                            case BluetoothDevice.BOND_BONDED:
-                                Logger.d(TAG, "Device paired successfully: " + device.getAddress());
-                                break;
-                            case BluetoothDevice.BOND_NONE:
-                                Logger.d(TAG, "Device unpaired: " + device.getAddress());
-                                break;
-                        }
-                    }
+            public void onBondStateChanged(RemoteDevice device, int bondState) {
+                Logger.d(TAG, "Bond state changed for {}: {}", device.getAddress(), bondState);
+                switch (bondState) {
+                    case BluetoothDevice.BOND_BONDED:
+                        Logger.d(TAG, "Device paired successfully: {}", device.getAddress());
+                        break;
+                    case BluetoothDevice.BOND_NONE:
+                        Logger.d(TAG, "Device unpaired: {}", device.getAddress());
+                        break;
                 }
             }
         };
+
+        bluetoothStack.start();
+        adapterStateMonitor.start();
+    }
+
+    public BluetoothStack getBluetoothStack() {
+        return bluetoothStack;
+    }
+
+    /** Shared with {@link PrinterService}, which records its print phases into the same instance. */
+    public PrinterMetrics getMetrics() {
+        return metrics;
     }
 
     public void validateBluetoothState() throws PrinterException {
-        lock.readLock().lock();
+        // Reads the cached adapter state: no lock, no IPC
+        if (!adapterStateMonitor.isEnabled()) {
+            throw new PrinterException("Bluetooth is disabled. Please enable it.");
+        }
+    }
+
+    /**
+     * Like {@link #validateBluetoothState()}, but when Bluetooth is off the caller is parked until
+     * the adapter comes back instead of failing straight away.
+     */
+    public void awaitBluetoothEnabled() throws PrinterException {
+        if (adapterStateMonitor.isEnabled()) {
+            return;
+        }
+        Logger.w(TAG, "Bluetooth is disabled, holding job until it is enabled again...");
         try {
-            if (bluetoothAdapter == null) {
-                throw new PrinterException("Bluetooth is not supported on this device.");
-            }
-            if (!bluetoothAdapter.isEnabled()) {
+            if (!adapterStateMonitor.awaitEnabled(ADAPTER_RESUME_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
                 throw new PrinterException("Bluetooth is disabled. Please enable it.");
             }
-        } finally {
-            lock.readLock().unlock();
+            Logger.d(TAG, "Bluetooth enabled again, resuming job.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PrinterException("Interrupted while waiting for Bluetooth to be enabled.");
         }
     }
 
+    public boolean isBluetoothEnabled() {
+        return adapterStateMonitor.isEnabled();
+    }
+
+    public int getAdapterState() {
+        return adapterStateMonitor.getState();
+    }
+
+    public void addAdapterStateListener(AdapterStateMonitor.Listener listener) {
+        adapterStateMonitor.addListener(listener);
+    }
+
+    public void removeAdapterStateListener(AdapterStateMonitor.Listener listener) {
+        adapterStateMonitor.removeListener(listener);
+    }
+
     public JSObject getPairedDevices() throws PrinterException {
         lock.readLock().lock();
         try {
             validateBluetoothState();
-            Set<BluetoothDevice> pairedDevices = bluetoothAdapter.getBondedDevices();
+            List<RemoteDevice> pairedDevices = bluetoothStack.getBondedDevices();
             JSArray devicesArray = new JSArray();
 
-            if (pairedDevices != null && !pairedDevices.isEmpty()) {
-                for (BluetoothDevice device : pairedDevices) {
-                    JSObject deviceInfo = createDeviceInfo(device, true);
-                    devicesArray.put(deviceInfo);
-                }
+            for (RemoteDevice device : pairedDevices) {
+                JSObject deviceInfo = createDeviceInfo(device, true);
+                devicesArray.put(deviceInfo);
             }
 
-            Logger.d(TAG, "Found " + devicesArray.length() + " paired devices.");
+            Logger.d(TAG, "Found {} paired devices.", devicesArray.length());
             JSObject result = new JSObject();
             result.put("devices", devicesArray);
             return result;
@@ -153,59 +179,52 @@ public class BluetoothService {
     }
 
     public JSObject discoverDevices() throws PrinterException {
-        if (isDiscovering.get()) {
+        if (!isDiscovering.compareAndSet(false, true)) {
             throw new PrinterException("Discovery is already in progress.");
         }
 
+        long startNanos = System.nanoTime();
         lock.writeLock().lock();
         try {
             validateBluetoothState();
             discoveredDevices.clear();
-
-            // Register discovery receiver
-            IntentFilter filter = new IntentFilter();
-            filter.addAction(BluetoothDevice.ACTION_FOUND);
-            filter.addAction(BluetoothAdapter.ACTION_DISCOVERY_FINISHED);
-            context.registerReceiver(discoveryReceiver, filter);
+            discoveryLatch = new CountDownLatch(1);
+            bluetoothStack.addListener(discoveryListener);
 
             // Start discovery
-            if (bluetoothAdapter.isDiscovering()) {
-                bluetoothAdapter.cancelDiscovery();
+            if (bluetoothStack.isDiscovering()) {
+                bluetoothStack.cancelDiscovery();
             }
 
-            if (!bluetoothAdapter.startDiscovery()) {
+            if (!bluetoothStack.startDiscovery()) {
                 throw new PrinterException("Failed to start device discovery.");
             }
 
-            isDiscovering.set(true);
-            discoveryLatch = new CountDownLatch(1);
-
             // Wait for discovery to complete
             if (!discoveryLatch.await(DISCOVERY_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
-                bluetoothAdapter.cancelDiscovery();
+                bluetoothStack.cancelDiscovery();
                 throw new PrinterException("Discovery timed out.");
             }
 
             // Combine paired and discovered devices
-            Set<BluetoothDevice> pairedDevices = bluetoothAdapter.getBondedDevices();
+            List<RemoteDevice> pairedDevices = bluetoothStack.getBondedDevices();
             JSArray devicesArray = new JSArray();
 
             // Add paired devices
-            if (pairedDevices != null) {
-                for (BluetoothDevice device : pairedDevices) {
-                    JSObject deviceInfo = createDeviceInfo(device, true);
-                    devicesArray.put(deviceInfo);
-                }
+            for (RemoteDevice device : pairedDevices) {
+                JSObject deviceInfo = createDeviceInfo(device, true);
+                devicesArray.put(deviceInfo);
             }
 
             // Add discovered devices that are not paired
-            for (BluetoothDevice device : discoveredDevices.values()) {
-                if (pairedDevices == null || !pairedDevices.contains(device)) {
+            for (RemoteDevice device : discoveredDevices.values()) {
+                if (!pairedDevices.contains(device)) {
                     JSObject deviceInfo = createDeviceInfo(device, false);
                     devicesArray.put(deviceInfo);
                 }
             }
 
+            metrics.recordOperation(PrinterMetrics.Operation.DISCOVERY, startNanos);
             JSObject result = new JSObject();
             result.put("devices", devicesArray);
             return result;
@@ -217,13 +236,8 @@ public class BluetoothService {
             Logger.e(TAG, "Permission missing for device discovery", e);
             throw new PrinterException("Bluetooth permission denied.");
         } finally {
-            try {
-                if (discoveryReceiver != null) {
-                    context.unregisterReceiver(discoveryReceiver);
-                }
-            } catch (Exception e) {
-                Logger.e(TAG, "Error unregistering discovery receiver", e);
-            }
+            bluetoothStack.removeListener(discoveryListener);
+            discoveryLatch = null;
             isDiscovering.set(false);
             lock.writeLock().unlock();
         }
@@ -231,10 +245,19 @@ public class BluetoothService {
 
     public JSObject pairDevice(String deviceAddress) throws PrinterException {
         lock.writeLock().lock();
+        final CountDownLatch pairingLatch = new CountDownLatch(1);
+        BluetoothStack.Listener bondListener = new BluetoothStack.Listener() {
+            @Override
+            public void onBondStateChanged(RemoteDevice device, int bondState) {
+                if (device.getAddress().equalsIgnoreCase(deviceAddress) && bondState != BluetoothDevice.BOND_BONDING) {
+                    pairingLatch.countDown();
+                }
+            }
+        };
         try {
             validateBluetoothState();
 
-            BluetoothDevice device = bluetoothAdapter.getRemoteDevice(deviceAddress);
+            RemoteDevice device = bluetoothStack.getRemoteDevice(deviceAddress);
             if (device == null) {
                 throw new PrinterException("Device not found: " + deviceAddress);
             }
@@ -247,33 +270,29 @@ public class BluetoothService {
                 return result;
             }
 
-            // Register pairing receiver
-            IntentFilter filter = new IntentFilter(BluetoothDevice.ACTION_BOND_STATE_CHANGED);
-            context.registerReceiver(pairingReceiver, filter);
+            bluetoothStack.addListener(pairingListener);
+            bluetoothStack.addListener(bondListener);
 
             // Start pairing
-            if (!device.createBond()) {
+            long startNanos = System.nanoTime();
+            if (!bluetoothStack.createBond(deviceAddress)) {
                 throw new PrinterException("Failed to initiate pairing with device: " + deviceAddress);
             }
 
-            // Wait for pairing to complete
-            CountDownLatch pairingLatch = new CountDownLatch(1);
-            long startTime = System.currentTimeMillis();
-
-            while (device.getBondState() == BluetoothDevice.BOND_BONDING) {
-                if (System.currentTimeMillis() - startTime > PAIRING_TIMEOUT_SECONDS * 1000) {
+            // Wait for the bond transition instead of polling the bond state
+            try {
+                if (!pairingLatch.await(PAIRING_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                        && bluetoothStack.getBondState(deviceAddress) == BluetoothDevice.BOND_BONDING) {
                     throw new PrinterException("Pairing timed out for device: " + deviceAddress);
                 }
-                try {
-                    Thread.sleep(500);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    throw new PrinterException("Pairing was interrupted");
-                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new PrinterException("Pairing was interrupted");
             }
 
+            metrics.recordOperation(PrinterMetrics.Operation.PAIRING, startNanos);
             JSObject result = new JSObject();
-            if (device.getBondState() == BluetoothDevice.BOND_BONDED) {
+            if (bluetoothStack.getBondState(deviceAddress) == BluetoothDevice.BOND_BONDED) {
                 result.put("success", true);
                 result.put("message", "Device paired successfully");
             } else {
@@ -287,13 +306,8 @@ public class BluetoothService {
             Logger.e(TAG, "Permission missing for device pairing", e);
             throw new PrinterException("Bluetooth permission denied.");
         } finally {
-            try {
-                if (pairingReceiver != null) {
-                    context.unregisterReceiver(pairingReceiver);
-                }
-            } catch (Exception e) {
-                Logger.e(TAG, "Error unregistering pairing receiver", e);
-            }
+            bluetoothStack.removeListener(bondListener);
+            bluetoothStack.removeListener(pairingListener);
             lock.writeLock().unlock();
         }
     }
@@ -303,7 +317,7 @@ public class BluetoothService {
         try {
             validateBluetoothState();
 
-            BluetoothDevice device = bluetoothAdapter.getRemoteDevice(deviceAddress);
+            RemoteDevice device = bluetoothStack.getRemoteDevice(deviceAddress);
             if (device == null) {
                 throw new PrinterException("Device not found: " + deviceAddress);
             }
@@ -322,15 +336,15 @@ public class BluetoothService {
         lock.readLock().lock();
         try {
             validateBluetoothState();
-            Set<BluetoothDevice> pairedDevices = bluetoothAdapter.getBondedDevices();
+            List<RemoteDevice> pairedDevices = bluetoothStack.getBondedDevices();
 
-            if (pairedDevices == null || pairedDevices.isEmpty()) {
+            if (pairedDevices.isEmpty()) {
                 throw new PrinterException("No paired devices found.");
             }
 
-            for (BluetoothDevice device : pairedDevices) {
+            for (RemoteDevice device : pairedDevices) {
                 if (device.getName() != null && device.getName().equalsIgnoreCase(printerName)) {
-                    Logger.d(TAG, "Found matching device: " + device.getName() + " [" + device.getAddress() + "]");
+                    Logger.d(TAG, "Found matching device: {} [{}]", device.getName(), device.getAddress());
                     JSObject result = new JSObject();
                     result.put("deviceId", device.getAddress());
                     return result;
@@ -345,25 +359,128 @@ public class BluetoothService {
         }
     }
 
-    private JSObject createDeviceInfo(BluetoothDevice device, boolean isPaired) {
-        JSObject deviceInfo = new JSObject();
+    /**
+     * Resolves a printer by name in one pass: the paired set is checked first and, only if that misses,
+     * an inquiry is started that is cancelled as soon as a device with a matching name is reported.
+     */
+    public JSObject findPrinter(String printerName, boolean autoPair) throws PrinterException {
+        long startNanos = System.nanoTime();
+        validateBluetoothState();
+
+        RemoteDevice device = findPairedDeviceByName(printerName);
+        String source = "paired";
+        if (device == null) {
+            device = discoverDeviceByName(printerName);
+            source = "discovery";
+        }
+
+        JSObject result = new JSObject();
+        result.put("deviceName", printerName);
+        if (device == null) {
+            Logger.d(TAG, "No printer found with name: {}", printerName);
+            result.put("success", false);
+            result.put("deviceId", "");
+            result.put("isPaired", false);
+            result.put("elapsedMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            return result;
+        }
+
+        String deviceAddress = device.getAddress();
+        boolean isPaired = "paired".equals(source);
+        if (!isPaired && autoPair) {
+            JSObject pairResult = pairDevice(deviceAddress);
+            isPaired = pairResult.getBoolean("success", false);
+        }
+
+        metrics.recordOperation(PrinterMetrics.Operation.FIND_PRINTER, startNanos);
+        result.put("success", true);
+        result.put("deviceId", deviceAddress);
+        result.put("isPaired", isPaired);
+        result.put("source", source);
+        result.put("elapsedMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        Logger.d(TAG, "Resolved printer {} [{}] via {}", printerName, deviceAddress, source);
+        return result;
+    }
+
+    private RemoteDevice findPairedDeviceByName(String printerName) throws PrinterException {
+        lock.readLock().lock();
         try {
-            deviceInfo.put("name", device.getName() != null ? device.getName() : "Unknown Device");
-            deviceInfo.put("deviceId", device.getAddress());
-            deviceInfo.put("isPaired", isPaired);
-            deviceInfo.put("bondState", getBondStateString(device.getBondState()));
-
-            // Add device type info if available
-            if (device.getBluetoothClass() != null) {
-                deviceInfo.put("deviceClass", device.getBluetoothClass().getDeviceClass());
-                deviceInfo.put("majorDeviceClass", device.getBluetoothClass().getMajorDeviceClass());
+            for (RemoteDevice device : bluetoothStack.getBondedDevices()) {
+                if (printerName.equalsIgnoreCase(device.getName())) {
+                    return device;
+                }
             }
+            return null;
+        } catch (SecurityException e) {
+            Logger.e(TAG, "Permission missing for searching paired devices", e);
+            throw new PrinterException("Bluetooth permission denied.");
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
 
+    private RemoteDevice discoverDeviceByName(String printerName) throws PrinterException {
+        if (!isDiscovering.compareAndSet(false, true)) {
+            throw new PrinterException("Discovery is already in progress.");
+        }
+
+        final CountDownLatch searchLatch = new CountDownLatch(1);
+        final AtomicReference<RemoteDevice> match = new AtomicReference<>();
+        BluetoothStack.Listener searchListener = new BluetoothStack.Listener() {
+            @Override
+            public void onDeviceFound(RemoteDevice device) {
+                if (printerName.equalsIgnoreCase(device.getName()) && match.compareAndSet(null, device)) {
+                    searchLatch.countDown();
+                }
+            }
+
+            @Override
+            public void onDiscoveryFinished() {
+                searchLatch.countDown();
+            }
+        };
+
+        lock.writeLock().lock();
+        try {
+            bluetoothStack.addListener(searchListener);
+
+            if (bluetoothStack.isDiscovering()) {
+                bluetoothStack.cancelDiscovery();
+            }
+            if (!bluetoothStack.startDiscovery()) {
+                throw new PrinterException("Failed to start device discovery.");
+            }
+
+            if (!searchLatch.await(DISCOVERY_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                Logger.w(TAG, "Targeted discovery timed out for: {}", printerName);
+            }
+            // Stop the inquiry right away: it competes with the RFCOMM connect that usually follows
+            bluetoothStack.cancelDiscovery();
+            return match.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PrinterException("Discovery was interrupted.");
         } catch (SecurityException e) {
-            Logger.w(TAG, "Could not get full device info due to missing permissions.");
-            deviceInfo.put("name", "Permission Required");
-            deviceInfo.put("deviceId", device.getAddress());
-            deviceInfo.put("isPaired", isPaired);
+            Logger.e(TAG, "Permission missing for device discovery", e);
+            throw new PrinterException("Bluetooth permission denied.");
+        } finally {
+            bluetoothStack.removeListener(searchListener);
+            isDiscovering.set(false);
+            lock.writeLock().unlock();
+        }
+    }
+
+    private JSObject createDeviceInfo(RemoteDevice device, boolean isPaired) {
+        JSObject deviceInfo = new JSObject();
+        deviceInfo.put("name", device.getName() != null ? device.getName() : "Unknown Device");
+        deviceInfo.put("deviceId", device.getAddress());
+        deviceInfo.put("isPaired", isPaired);
+        deviceInfo.put("bondState", getBondStateString(device.getBondState()));
+
+        // Add device type info if available
+        if (device.hasDeviceClass()) {
+            deviceInfo.put("deviceClass", device.getDeviceClass());
+            deviceInfo.put("majorDeviceClass", device.getMajorDeviceClass());
         }
         return deviceInfo;
     }
@@ -382,44 +499,16 @@ public class BluetoothService {
     }
 
     public void cleanup() {
+        adapterStateMonitor.stop();
         lock.writeLock().lock();
         try {
-            if (ActivityCompat.checkSelfPermission(context, Manifest.permission.BLUETOOTH_SCAN) != PackageManager.PERMISSION_GRANTED) {
-                // TODO: Consider calling
-                //    ActivityCompat#requestPermissions
-                // here to request the missing permissions, and then overriding
-                //   public void onRequestPermissionsResult(int requestCode, String[] permissions,
-                //                                          int[] grantResults)
-                // to handle the case where the user grants the permission. See the documentation
-                // for ActivityCompat#requestPermissions for more details.
-                return;
-            }
-            if (bluetoothAdapter != null && bluetoothAdapter.isDiscovering()) {
-                bluetoothAdapter.cancelDiscovery();
-            }
-
-            try {
-                if (discoveryReceiver != null) {
-                    context.unregisterReceiver(discoveryReceiver);
-                }
-            } catch (Exception e) {
-                Logger.e(TAG, "Error unregistering discovery receiver during cleanup", e);
-            }
-
-            try {
-                if (pairingReceiver != null) {
-                    context.unregisterReceiver(pairingReceiver);
-                }
-            } catch (Exception e) {
-                Logger.e(TAG, "Error unregistering pairing receiver during cleanup", e);
-            }
-
+            // Also unregisters the platform receivers and cancels a running discovery
+            bluetoothStack.stop();
             discoveredDevices.clear();
             isDiscovering.set(false);
-
         } finally {
             lock.writeLock().unlock();
         }
         Logger.d(TAG, "Bluetooth service cleaned up.");
     }
-}
\ No newline at end of file
+}
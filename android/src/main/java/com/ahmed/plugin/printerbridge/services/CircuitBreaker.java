@@ -0,0 +1,90 @@
+package com.ahmed.plugin.printerbridge.services;
+
+import com.ahmed.plugin.printerbridge.exceptions.PrinterUnavailableException;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stops sending to a printer that keeps failing, e.g. one switched off or out of range, so calls fail at once
+ * instead of each waiting out its connect retries. After {@link #FAILURE_THRESHOLD} failed jobs in a row the
+ * breaker opens and turns jobs away for {@link #OPEN_MS}. Then one trial job is let through; it closes the
+ * breaker if it is delivered and opens it again if it fails.
+ * <p>
+ * Callers pass {@link System#nanoTime()} in, so tests can move the clock.
+ */
+final class CircuitBreaker {
+    static final int FAILURE_THRESHOLD = 3;
+    static final long OPEN_MS = TimeUnit.SECONDS.toMillis(30);
+
+    enum State {
+        CLOSED,
+        OPEN,
+        // Cooled down; the next job is the trial
+        HALF_OPEN;
+
+        String toJsValue() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+    private boolean trialRunning;
+
+    /**
+     * Lets a job through, or turns it away. A job let through must be reported to exactly one of
+     * {@link #onSuccess}, {@link #onFailure} or {@link #onAbandoned}.
+     */
+    synchronized void acquire(String deviceId, long now) throws PrinterUnavailableException {
+        if (state == State.OPEN) {
+            long retryInMs = retryInMs(now);
+            if (retryInMs > 0) {
+                throw new PrinterUnavailableException("Printer " + deviceId + " failed the last " + failures
+                        + " jobs; not sending to it for another " + retryInMs + " ms.", retryInMs);
+            }
+            state = State.HALF_OPEN;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialRunning) {
+                throw new PrinterUnavailableException("Printer " + deviceId + " failed the last " + failures
+                        + " jobs and a trial job is being sent to it.", 0);
+            }
+            trialRunning = true;
+        }
+    }
+
+    synchronized void onSuccess() {
+        state = State.CLOSED;
+        failures = 0;
+        trialRunning = false;
+    }
+
+    synchronized void onFailure(long now) {
+        failures++;
+        trialRunning = false;
+        if (state == State.HALF_OPEN || failures >= FAILURE_THRESHOLD) {
+            state = State.OPEN;
+            openedAt = now;
+        }
+    }
+
+    /** The job ended without showing whether the printer can be reached, e.g. it was cancelled. */
+    synchronized void onAbandoned() {
+        trialRunning = false;
+    }
+
+    synchronized State getState(long now) {
+        return state == State.OPEN && retryInMs(now) <= 0 ? State.HALF_OPEN : state;
+    }
+
+    /** Time until the open breaker lets a trial job through; 0 if it is not open. */
+    synchronized long getRetryInMs(long now) {
+        return state == State.OPEN ? Math.max(0, retryInMs(now)) : 0;
+    }
+
+    private long retryInMs(long now) {
+        return OPEN_MS - TimeUnit.NANOSECONDS.toMillis(now - openedAt);
+    }
+}
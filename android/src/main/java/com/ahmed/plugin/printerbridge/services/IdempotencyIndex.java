@@ -0,0 +1,90 @@
+package com.ahmed.plugin.printerbridge.services;
+
+import com.ahmed.plugin.printerbridge.exceptions.PrinterException;
+import com.ahmed.plugin.printerbridge.exceptions.TransferUnconfirmedException;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Print calls by idempotency key, so a call the app retries is not printed twice. A key is held while its call
+ * is in flight, and for {@link #WINDOW_MS} after the call delivered its job or may have. A call that certainly
+ * printed nothing releases its key at once, so retrying it prints.
+ */
+final class IdempotencyIndex {
+    static final long WINDOW_MS = TimeUnit.MINUTES.toMillis(10);
+    // Finished keys beyond this are dropped oldest first, even inside the window
+    static final int MAX_KEYS = 1000;
+
+    /** One call holding a key. Repeats wait in {@link #await()} and share its outcome. */
+    static final class Call {
+        final String jobId;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile PrinterException failure;
+        private long finishedAt = -1;
+
+        Call(String jobId) {
+            this.jobId = jobId;
+        }
+
+        void await() throws PrinterException {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new PrinterException("Interrupted while waiting for job " + jobId + ".", e);
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    // Insertion order, so iteration starts at the oldest key
+    private final LinkedHashMap<String, Call> calls = new LinkedHashMap<>();
+
+    /**
+     * Lets {@code call} hold {@code key}.
+     *
+     * @return the call already holding the key, which {@code call} should wait for instead of printing; null if
+     * {@code call} now holds the key and should print
+     */
+    synchronized Call claim(String key, Call call, long now) {
+        prune(now);
+        Call holder = calls.get(key);
+        if (holder != null) {
+            return holder;
+        }
+        calls.put(key, call);
+        return null;
+    }
+
+    /** Records how {@code call} ended; {@code failure} is null if its job was delivered. */
+    synchronized void finish(String key, Call call, PrinterException failure, long now) {
+        call.failure = failure;
+        if (failure == null || failure instanceof TransferUnconfirmedException) {
+            call.finishedAt = now;
+        } else {
+            calls.remove(key, call);
+        }
+        call.done.countDown();
+    }
+
+    synchronized int size() {
+        return calls.size();
+    }
+
+    private void prune(long now) {
+        long window = TimeUnit.MILLISECONDS.toNanos(WINDOW_MS);
+        Iterator<Call> oldest = calls.values().iterator();
+        while (oldest.hasNext()) {
+            Call call = oldest.next();
+            // Calls in flight keep their keys however long they take
+            if (call.finishedAt >= 0 && (now - call.finishedAt > window || calls.size() > MAX_KEYS)) {
+                oldest.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.ahmed.plugin.printerbridge.services;
+
+import com.ahmed.plugin.printerbridge.escpos.EscPosEncoder;
+import com.ahmed.plugin.printerbridge.exceptions.PrinterException;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A text job encoded ahead of checkout. The head is encoded on a worker thread while the customer is still
+ * paying; committing appends the tail with the same encoder, so the two print as one job.
+ */
+final class PreparedJob {
+    final String handle;
+    final String deviceName;
+    final String deviceId;
+    final EscPosEncoder encoder;
+    final long preparedAt = System.nanoTime();
+
+    private final FutureTask<byte[]> head;
+
+    PreparedJob(String handle, String deviceName, String deviceId, EscPosEncoder encoder, String[] lines) {
+        this.handle = handle;
+        this.deviceName = deviceName;
+        this.deviceId = deviceId;
+        this.encoder = encoder;
+        this.head = new FutureTask<>(() -> encoder.encodeTextHead(lines));
+    }
+
+    /** Encodes the head; run once, on a worker thread. */
+    void encode() {
+        head.run();
+    }
+
+    /** The encoded head, waiting for the worker if it is not done yet. */
+    byte[] awaitHead() throws PrinterException {
+        try {
+            return head.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PrinterException("Interrupted while waiting for prepared job " + handle + ".", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof PrinterException) {
+                throw (PrinterException) e.getCause();
+            }
+            throw new PrinterException("Preparing job " + handle + " failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /** The head followed by {@code tail}, as one job. */
+    byte[] withTail(byte[] tail) throws PrinterException {
+        byte[] encodedHead = awaitHead();
+        byte[] job = new byte[encodedHead.length + tail.length];
+        System.arraycopy(encodedHead, 0, job, 0, encodedHead.length);
+        System.arraycopy(tail, 0, job, encodedHead.length, tail.length);
+        return job;
+    }
+}
@@ -0,0 +1,144 @@
+package com.ahmed.plugin.printerbridge.services;
+
+import com.ahmed.plugin.printerbridge.exceptions.JobCancelledException;
+import com.ahmed.plugin.printerbridge.exceptions.PrinterException;
+import com.ahmed.plugin.printerbridge.metrics.PrinterMetrics;
+import com.ahmed.plugin.printerbridge.models.JobPriority;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * An encoded print job as seen by the {@link PrintScheduler}. The submitting thread waits in
+ * {@link #await()} while the dispatch thread sends the chunks and then completes or fails the job.
+ * Cancellation and deadlines fail the job from other threads; whichever outcome comes first wins.
+ */
+final class PrintJob {
+    // Null for feed, cut and drawer commands, which get no lifecycle events
+    final String jobId;
+    final String deviceName;
+    final String deviceId;
+    final JobPriority priority;
+    final PrinterMetrics.DeviceMetrics metrics;
+    final long totalBytes;
+    final long enqueuedAt = System.nanoTime();
+    // Relative to when the request was received; 0 for no deadline
+    final long deadlineMs;
+    final long deadlineNanos;
+
+    private final List<byte[]> chunks;
+    private final CountDownLatch done = new CountDownLatch(1);
+    private final AtomicBoolean finished = new AtomicBoolean();
+    private volatile PrinterException failure;
+
+    // Submission order within a priority class; assigned by the scheduler
+    long sequence;
+    volatile ScheduledFuture<?> deadlineTimer;
+
+    // Dispatch-thread state
+    private int nextChunk;
+    // Also read by getQueueStatus
+    volatile long bytesBefore;
+    // Removed by the optimizer from the chunks delivered so far
+    long bytesSaved;
+    volatile int attempt;
+    volatile int lastReportedPercent = -1;
+
+    PrintJob(String jobId, String deviceName, String deviceId, JobPriority priority,
+             PrinterMetrics.DeviceMetrics metrics, List<byte[]> chunks) {
+        this(jobId, deviceName, deviceId, priority, metrics, chunks, 0, 0);
+    }
+
+    /**
+     * @param receivedAt {@link System#nanoTime()} when the request came in, the origin of {@code deadlineMs}
+     */
+    PrintJob(String jobId, String deviceName, String deviceId, JobPriority priority,
+             PrinterMetrics.DeviceMetrics metrics, List<byte[]> chunks, long deadlineMs, long receivedAt) {
+        this.jobId = jobId;
+        this.deviceName = deviceName;
+        this.deviceId = deviceId;
+        this.priority = priority;
+        this.metrics = metrics;
+        this.chunks = chunks;
+        long total = 0;
+        for (byte[] chunk : chunks) {
+            total += chunk.length;
+        }
+        this.totalBytes = total;
+        this.deadlineMs = deadlineMs;
+        this.deadlineNanos = deadlineMs > 0 ? receivedAt + TimeUnit.MILLISECONDS.toNanos(deadlineMs) : 0;
+    }
+
+    /** Nanoseconds until the deadline, negative once it has passed; only meaningful when there is one. */
+    long remainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    byte[] currentChunk() {
+        return chunks.get(nextChunk);
+    }
+
+    boolean isFirstChunk() {
+        return nextChunk == 0;
+    }
+
+    boolean isLastChunk() {
+        return nextChunk == chunks.size() - 1;
+    }
+
+    int getChunkCount() {
+        return chunks.size();
+    }
+
+    /** Moves past the chunk just sent. @return whether chunks are left */
+    boolean advance() {
+        bytesBefore += chunks.get(nextChunk).length;
+        nextChunk++;
+        return nextChunk < chunks.size();
+    }
+
+    /** @return false if the job had already been failed, e.g. cancelled while its last chunk went out */
+    boolean complete() {
+        if (!finished.compareAndSet(false, true)) {
+            return false;
+        }
+        done.countDown();
+        return true;
+    }
+
+    /** @return false if the job had already finished; the first outcome stands */
+    boolean fail(PrinterException e) {
+        if (!finished.compareAndSet(false, true)) {
+            return false;
+        }
+        failure = e;
+        done.countDown();
+        return true;
+    }
+
+    boolean isFinished() {
+        return finished.get();
+    }
+
+    /** The cancellation or expiry that stopped this job, or null. */
+    JobCancelledException getCancellation() {
+        PrinterException e = failure;
+        return e instanceof JobCancelledException ? (JobCancelledException) e : null;
+    }
+
+    /** Blocks until the job was sent or failed; rethrows the failure. */
+    void await() throws PrinterException {
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PrinterException("Print operation was interrupted.");
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
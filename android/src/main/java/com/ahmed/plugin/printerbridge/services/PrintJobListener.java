@@ -0,0 +1,11 @@
+package com.ahmed.plugin.printerbridge.services;
+
+import com.ahmed.plugin.printerbridge.models.PrintJobEvent;
+
+/**
+ * Receives lifecycle updates for print jobs. Called on the thread that drives the job or on the transport's
+ * callback thread, so implementations must be quick and must not block.
+ */
+public interface PrintJobListener {
+    void onPrintJobEvent(PrintJobEvent event);
+}
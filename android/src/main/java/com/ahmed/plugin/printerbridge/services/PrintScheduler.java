@@ -0,0 +1,194 @@
+package com.ahmed.plugin.printerbridge.services;
+
+import com.ahmed.plugin.printerbridge.exceptions.JobCancelledException;
+import com.ahmed.plugin.printerbridge.exceptions.PrinterException;
+import com.ahmed.plugin.printerbridge.utils.Logger;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serializes print jobs onto the single printer link in priority order. One dispatch thread sends one
+ * chunk at a time; a job with chunks left goes back into the queue under its original sequence number,
+ * so a higher-priority job submitted meanwhile is sent before the next chunk, while jobs of the same
+ * class still print in submission order.
+ * <p>
+ * A queued job that is cancelled or runs past its deadline is taken out of the queue. If it is being
+ * sent, the dispatch thread is interrupted, which aborts the connect, transfer or retry wait it is
+ * blocked in. Either way the waiting caller is released at once.
+ */
+final class PrintScheduler {
+    private static final String TAG = "PrintScheduler";
+
+    private static final Comparator<PrintJob> ORDER = Comparator
+            .<PrintJob>comparingInt(job -> job.priority.ordinal())
+            .thenComparingLong(job -> job.sequence);
+
+    /** Sends one chunk of a job over the printer link, blocking until it was delivered or failed. */
+    interface ChunkSender {
+        void send(PrintJob job, byte[] chunk) throws PrinterException;
+    }
+
+    private final PriorityBlockingQueue<PrintJob> queue = new PriorityBlockingQueue<>(16, ORDER);
+    // Jobs with an ID that are queued or being sent, for cancelJob
+    private final ConcurrentHashMap<String, PrintJob> activeJobs = new ConcurrentHashMap<>();
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final ChunkSender sender;
+    private final Thread dispatcher;
+    private final ScheduledThreadPoolExecutor deadlines;
+    private volatile boolean running = true;
+    // Guarded by this: the job the dispatch thread is sending, the only one an interrupt may target
+    private PrintJob current;
+
+    PrintScheduler(ChunkSender sender) {
+        this.sender = sender;
+        this.deadlines = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "printer-deadlines");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.deadlines.setRemoveOnCancelPolicy(true);
+        this.dispatcher = new Thread(this::dispatchLoop, "printer-dispatch");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    void submit(PrintJob job) throws PrinterException {
+        if (job.jobId != null && activeJobs.putIfAbsent(job.jobId, job) != null) {
+            throw new PrinterException("A print job with ID " + job.jobId + " is already queued.");
+        }
+        job.sequence = nextSequence.getAndIncrement();
+        if (job.deadlineNanos != 0) {
+            long remaining = job.remainingNanos();
+            if (remaining <= 0) {
+                finish(job, JobCancelledException.expired(job.jobId, job.deadlineMs));
+                return;
+            }
+            job.deadlineTimer = deadlines.schedule(
+                    () -> abort(job, JobCancelledException.expired(job.jobId, job.deadlineMs)), remaining, TimeUnit.NANOSECONDS);
+        }
+        if (!enqueue(job)) {
+            finish(job, new PrinterException("Printer service has been shut down."));
+        }
+    }
+
+    /**
+     * Cancels a queued or in-flight job.
+     *
+     * @return false if no job with that ID is queued or being sent
+     */
+    boolean cancel(String jobId) {
+        PrintJob job = jobId != null ? activeJobs.get(jobId) : null;
+        return job != null && abort(job, JobCancelledException.cancelled(jobId));
+    }
+
+    int getQueuedCount() {
+        return queue.size();
+    }
+
+    /** The job the dispatch thread is sending, or null. */
+    synchronized PrintJob getCurrentJob() {
+        return current;
+    }
+
+    /** Stops the dispatch thread and fails every job that has not been fully sent. */
+    void shutdown() {
+        List<PrintJob> pending = new ArrayList<>();
+        synchronized (this) {
+            running = false;
+            queue.drainTo(pending);
+        }
+        dispatcher.interrupt();
+        deadlines.shutdownNow();
+        for (PrintJob job : pending) {
+            finish(job, new PrinterException("Printer service was shut down before the job was sent."));
+        }
+    }
+
+    private boolean abort(PrintJob job, JobCancelledException reason) {
+        synchronized (this) {
+            if (!finish(job, reason)) {
+                return false;
+            }
+            queue.remove(job);
+            if (current == job) {
+                dispatcher.interrupt();
+            }
+        }
+        Logger.i(TAG, reason.getMessage());
+        return true;
+    }
+
+    // Settles the job once; a late outcome (e.g. the chunk finished just after a cancel) is dropped
+    private boolean finish(PrintJob job, PrinterException failure) {
+        boolean settled = failure == null ? job.complete() : job.fail(failure);
+        if (settled) {
+            if (job.jobId != null) {
+                activeJobs.remove(job.jobId, job);
+            }
+            ScheduledFuture<?> timer = job.deadlineTimer;
+            if (timer != null) {
+                timer.cancel(false);
+            }
+        }
+        return settled;
+    }
+
+    private synchronized boolean enqueue(PrintJob job) {
+        if (!running) {
+            return false;
+        }
+        queue.offer(job);
+        return true;
+    }
+
+    private synchronized boolean startSending(PrintJob job) {
+        if (job.isFinished()) {
+            return false;
+        }
+        current = job;
+        return true;
+    }
+
+    private synchronized void stopSending() {
+        current = null;
+        // Clear an interrupt aimed at the job just sent, so it cannot hit the next one
+        Thread.interrupted();
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            PrintJob job;
+            try {
+                job = queue.take();
+            } catch (InterruptedException e) {
+                break;
+            }
+            if (!startSending(job)) {
+                continue;
+            }
+            try {
+                sender.send(job, job.currentChunk());
+                if (!job.advance()) {
+                    finish(job, null);
+                } else if (!enqueue(job)) {
+                    finish(job, new PrinterException("Printer service was shut down before the job was sent."));
+                }
+            } catch (PrinterException e) {
+                finish(job, e);
+            } catch (RuntimeException e) {
+                Logger.e(TAG, "Unexpected error while sending job {}", job.jobId, e);
+                finish(job, new PrinterException("An unexpected error occurred during printing: " + e.getMessage(), e));
+            } finally {
+                stopSending();
+            }
+        }
+    }
+}
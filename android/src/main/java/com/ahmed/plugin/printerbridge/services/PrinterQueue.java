@@ -0,0 +1,100 @@
+package com.ahmed.plugin.printerbridge.services;
+
+import com.ahmed.plugin.printerbridge.exceptions.JobCancelledException;
+import com.ahmed.plugin.printerbridge.exceptions.PrinterException;
+import com.ahmed.plugin.printerbridge.exceptions.QueueFullException;
+import com.ahmed.plugin.printerbridge.models.QueueLimits;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The load on one printer: the jobs admitted for it and not finished yet, kept within {@link QueueLimits}, the
+ * rate its transfers run at, and its {@link CircuitBreaker}.
+ */
+final class PrinterQueue {
+    // Weight of the newest transfer in the throughput average
+    private static final double THROUGHPUT_SMOOTHING = 0.3;
+    // Shorter transfers are mostly link latency and would make the printer look slower than it is
+    private static final long MIN_THROUGHPUT_SAMPLE_BYTES = 512;
+
+    final CircuitBreaker breaker = new CircuitBreaker();
+
+    // Guarded by this
+    private int jobs;
+    private long bytes;
+    private double bytesPerSecond;
+
+    /**
+     * Counts a job of {@code size} bytes against the queue, waiting for room if {@code limits} say so. Every
+     * admitted job must be {@link #release}d.
+     *
+     * @param exempt admit regardless of the limits
+     * @param receivedAt {@link System#nanoTime()} when the request came in, the origin of {@code deadlineMs}
+     */
+    synchronized void admit(String jobId, long size, QueueLimits limits, boolean exempt, long deadlineMs, long receivedAt)
+            throws PrinterException {
+        if (!exempt && !limits.admits(jobs, bytes, size)) {
+            if (limits.getWhenFull() == QueueLimits.WhenFull.REJECT) {
+                throw new QueueFullException(describeFull(jobId, limits));
+            }
+            long giveUpAt = deadlineMs > 0
+                    ? receivedAt + TimeUnit.MILLISECONDS.toNanos(deadlineMs)
+                    : System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(limits.getBlockTimeoutMs());
+            while (!limits.admits(jobs, bytes, size)) {
+                long remaining = giveUpAt - System.nanoTime();
+                if (remaining <= 0) {
+                    if (deadlineMs > 0) {
+                        throw JobCancelledException.expired(jobId, deadlineMs);
+                    }
+                    throw new QueueFullException(describeFull(jobId, limits) + " Waited " + limits.getBlockTimeoutMs() + " ms for room.");
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new PrinterException("Interrupted while waiting for room in the print queue.", e);
+                }
+            }
+        }
+        jobs++;
+        bytes += size;
+    }
+
+    synchronized void release(long size) {
+        jobs--;
+        bytes -= size;
+        notifyAll();
+    }
+
+    /** Wakes callers waiting for room, to check them against new limits. */
+    synchronized void limitsChanged() {
+        notifyAll();
+    }
+
+    synchronized void recordTransfer(long transferred, long nanos) {
+        if (transferred < MIN_THROUGHPUT_SAMPLE_BYTES || nanos <= 0) {
+            return;
+        }
+        double rate = transferred * 1e9 / nanos;
+        bytesPerSecond = bytesPerSecond == 0 ? rate : bytesPerSecond + THROUGHPUT_SMOOTHING * (rate - bytesPerSecond);
+    }
+
+    /** Jobs admitted and not finished, including the one being sent. */
+    synchronized int getJobs() {
+        return jobs;
+    }
+
+    synchronized long getBytes() {
+        return bytes;
+    }
+
+    /** Recent transfer rate; 0 until a transfer was measured. */
+    synchronized double getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    private String describeFull(String jobId, QueueLimits limits) {
+        return "Print queue is full (" + jobs + " jobs, " + bytes + " bytes waiting; limits " + limits.getMaxJobs()
+                + " jobs, " + limits.getMaxBytes() + " bytes); job " + jobId + " was not queued.";
+    }
+}
@@ -1,37 +1,142 @@
 package com.ahmed.plugin.printerbridge.services;
 
+import com.ahmed.plugin.printerbridge.escpos.EscPosCommands;
+import com.ahmed.plugin.printerbridge.escpos.EscPosEncoder;
+import com.ahmed.plugin.printerbridge.escpos.EscPosOptimizer;
+import com.ahmed.plugin.printerbridge.escpos.EscPosSession;
+import com.ahmed.plugin.printerbridge.escpos.JobChunker;
+import com.ahmed.plugin.printerbridge.exceptions.JobCancelledException;
 import com.ahmed.plugin.printerbridge.exceptions.PrinterException;
+import com.ahmed.plugin.printerbridge.exceptions.PrinterNotReadyException;
+import com.ahmed.plugin.printerbridge.exceptions.TransferUnconfirmedException;
+import com.ahmed.plugin.printerbridge.metrics.PrinterMetrics;
+import com.ahmed.plugin.printerbridge.models.CodesPrintRequest;
+import com.ahmed.plugin.printerbridge.models.CommitJobRequest;
+import com.ahmed.plugin.printerbridge.models.JobPriority;
+import com.ahmed.plugin.printerbridge.models.MultiPrintRequest;
+import com.ahmed.plugin.printerbridge.models.PrepareJobRequest;
+import com.ahmed.plugin.printerbridge.models.PrintJobEvent;
 import com.ahmed.plugin.printerbridge.models.PrintRequest;
+import com.ahmed.plugin.printerbridge.models.PrintTargetResult;
+import com.ahmed.plugin.printerbridge.models.PrinterQueueStatus;
+import com.ahmed.plugin.printerbridge.models.PrinterStatus;
 import com.ahmed.plugin.printerbridge.models.QRCodePrintRequest;
+import com.ahmed.plugin.printerbridge.models.QueueLimits;
+import com.ahmed.plugin.printerbridge.models.ReprintRequest;
+import com.ahmed.plugin.printerbridge.profile.MemoryProfileStore;
+import com.ahmed.plugin.printerbridge.profile.PaperProfileStore;
+import com.ahmed.plugin.printerbridge.profile.PrinterProfile;
+import com.ahmed.plugin.printerbridge.profile.PrinterProfiles;
+import com.ahmed.plugin.printerbridge.spool.MemorySpoolStore;
+import com.ahmed.plugin.printerbridge.spool.PaperSpoolStore;
+import com.ahmed.plugin.printerbridge.spool.PrintSpool;
+import com.ahmed.plugin.printerbridge.spool.ReprintCache;
+import com.ahmed.plugin.printerbridge.spool.SpoolEntry;
+import com.ahmed.plugin.printerbridge.transport.PrinterTransport;
+import com.ahmed.plugin.printerbridge.transport.PrintoothTransport;
 import com.ahmed.plugin.printerbridge.utils.Logger;
-import com.mazenrashed.printooth.Printooth;
-import com.mazenrashed.printooth.data.printable.Printable;
-import com.mazenrashed.printooth.data.printable.RawPrintable;
-import com.mazenrashed.printooth.utilities.Printing;
-import com.mazenrashed.printooth.utilities.PrintingCallback;
-import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class PrinterService {
     private static final String TAG = "PrinterService";
+    // Connect allowance; the time to move the job itself is added from the printer's profile
     private static final int CONNECTION_TIMEOUT_SECONDS = 20;
     private static final int MAX_RETRY_ATTEMPTS = 2;
     private static final long RETRY_DELAY_MS = 1500;
+    private static final int PROGRESS_STEP_PERCENT = 5;
+    // Bulk jobs go out in chunks of about this size; at SPP rates that is well under a second of link
+    // time an urgent job may have to wait, without paying a reconnect every few lines
+    static final int BULK_CHUNK_BYTES = 8 * 1024;
+    // GS a mask: drawer, online/offline, error and paper sensor changes
+    private static final int AUTOMATIC_STATUS_EVENTS = 0x0F;
+    private static final long STATUS_QUERY_TIMEOUT_MS = 500;
+    // Prepared jobs not committed within this time are dropped
+    static final long PREPARED_JOB_TTL_MS = 10 * 60 * 1000L;
+    private static final int MAX_PREPARED_JOBS = 32;
+    private static final String REPRINT_BOOK_NAME = "printer_bridge_reprints";
 
     private final BluetoothService bluetoothService;
-    private final ReentrantReadWriteLock connectionLock = new ReentrantReadWriteLock();
+    // Opens a link per printer; null when all printers share one transport
+    private final PrinterTransport.Factory transportFactory;
+    // The link every printer goes through when there is no factory
+    private final Link sharedLink;
+    // A link per printer, by upper-case MAC, when there is a factory
+    private final ConcurrentHashMap<String, Link> deviceLinks = new ConcurrentHashMap<>();
+    // The link a job last went out on, for feed, cut and drawer commands
+    private volatile Link lastUsedLink;
+    private volatile boolean shutDown;
+    // Runs the per-printer jobs of printToMany side by side, and encodes prepared jobs
+    private final ExecutorService workExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "printer-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // For printers without a profile yet
+    private final EscPosEncoder encoder;
+    private final PrinterProfiles profiles;
+    // Built from each printer's profile on first use
+    private final ConcurrentHashMap<String, EscPosEncoder> deviceEncoders = new ConcurrentHashMap<>();
+    private final PrinterMetrics metrics;
+    private final PrintSpool spool;
+    // Delivered jobs as encoded, for reprint
+    private final ReprintCache reprints;
+    private final CopyOnWriteArrayList<PrintJobListener> jobListeners = new CopyOnWriteArrayList<>();
+
+    // Last status each printer reported, by upper-case MAC; kept across disconnects until the printer answers again
+    private final ConcurrentHashMap<String, PrinterStatus> statuses = new ConcurrentHashMap<>();
+    // Keyed by deviceKey(); a printer gets its queue with its first job
+    private final ConcurrentHashMap<String, PrinterQueue> queues = new ConcurrentHashMap<>();
+    private volatile QueueLimits queueLimits = QueueLimits.NONE;
+    private final CopyOnWriteArrayList<PrinterStatusListener> statusListeners = new CopyOnWriteArrayList<>();
+    private final ConcurrentHashMap<String, PreparedJob> preparedJobs = new ConcurrentHashMap<>();
+    // IDs of the jobs between runPrintJob's start and end, on any printer
+    private final ConcurrentHashMap<String, Boolean> runningJobIds = new ConcurrentHashMap<>();
+    private final IdempotencyIndex idempotency = new IdempotencyIndex();
+
+    /** A print call, as run by {@link #runOnce}. */
+    @FunctionalInterface
+    public interface PrintOperation {
+        void execute() throws PrinterException;
+    }
+
+    @FunctionalInterface
+    private interface JobEncoder {
+        byte[] encode() throws PrinterException;
+    }
 
-    // Connection management
-    private final ConcurrentHashMap<String, PrinterConnection> printerConnections = new ConcurrentHashMap<>();
-    private final AtomicBoolean isPrinting = new AtomicBoolean(false);
-    private String currentPrinterKey;
-    private Printing printing;
+    private static class ActiveTransfer {
+        final PrintJob job;
+        final CountDownLatch latch;
+        final AtomicReference<PrinterException> error;
+        final AtomicBoolean canRetry;
+
+        ActiveTransfer(PrintJob job, CountDownLatch latch, AtomicReference<PrinterException> error, AtomicBoolean canRetry) {
+            this.job = job;
+            this.latch = latch;
+            this.error = error;
+            this.canRetry = canRetry;
+        }
+    }
 
     // Helper class for printer connection state
     private static class PrinterConnection {
@@ -48,446 +153,1121 @@ public class PrinterService {
         }
     }
 
-    // Helper class for QR Code settings
-    private static class QRSettings {
-        final int size;
-        final int errorCorrectionLevel;
-
-        QRSettings(int size, int errorCorrectionLevel) {
-            this.size = size;
-            this.errorCorrectionLevel = errorCorrectionLevel;
+    /**
+     * One printer link: a transport, the dispatch thread that sends through it and the state of the printer at
+     * its other end. Jobs on different links are sent side by side.
+     */
+    private class Link {
+        private final PrinterTransport transport;
+        private final PrintScheduler scheduler;
+        // State of the connected printer as left by our jobs; only the dispatch thread sends through it
+        private final EscPosSession session = new EscPosSession();
+        private final ReentrantReadWriteLock connectionLock = new ReentrantReadWriteLock();
+        private final ConcurrentHashMap<String, PrinterConnection> printerConnections = new ConcurrentHashMap<>();
+        private volatile String currentPrinterKey;
+        // Whether the transport delivers automatic status; if not, jobs are sent without knowing the printer's state
+        private final boolean automaticStatus;
+        // The chunk being sent, so a status report can stop it
+        private volatile ActiveTransfer activeTransfer;
+
+        Link(PrinterTransport transport) {
+            this.transport = transport;
+            this.scheduler = new PrintScheduler(this::sendChunk);
+            this.automaticStatus = transport.setStatusListener(this::onAutomaticStatus);
         }
-    }
-
-    public PrinterService(BluetoothService bluetoothService) {
-        this.bluetoothService = bluetoothService;
-    }
 
-    public void printText(PrintRequest request) throws PrinterException {
-        if (!isPrinting.compareAndSet(false, true)) {
-            throw new PrinterException("Another print operation is already in progress.");
-        }
-        try {
-            bluetoothService.validateBluetoothState();
-            setupPrinterConnection(request.getDeviceName(), request.getDeviceId());
-            ArrayList<Printable> printables = createTextPrintables(request);
-            executePrintJob(printables);
-        } finally {
-            isPrinting.set(false);
+        // Runs on the dispatch thread, once per chunk
+        private void sendChunk(PrintJob job, byte[] chunk) throws PrinterException {
+            try {
+                transmitChunk(job, chunk);
+            } catch (PrinterException e) {
+                JobCancelledException cancellation = job.getCancellation();
+                if (cancellation == null) {
+                    throw e;
+                }
+                // Interrupted by a cancel or deadline: drop the link so the abandoned transfer stops too
+                dropConnection();
+                throw cancellation;
+            }
         }
-    }
 
-    public void printQRCode(QRCodePrintRequest request) throws PrinterException {
-        if (!isPrinting.compareAndSet(false, true)) {
-            throw new PrinterException("Another print operation is already in progress.");
-        }
-        try {
-            bluetoothService.validateBluetoothState();
-            validateQRCodeData(request.getQrData());
-            setupPrinterConnection(request.getDeviceName(), request.getDeviceId());
-            ArrayList<Printable> printables = createQRCodePrintables(request);
-            executePrintJob(printables);
-        } finally {
-            isPrinting.set(false);
+        private void dropConnection() {
+            connectionLock.writeLock().lock();
+            try {
+                disconnectCurrentPrinter();
+            } finally {
+                connectionLock.writeLock().unlock();
+            }
         }
-    }
 
-    private void setupPrinterConnection(String deviceName, String deviceId) throws PrinterException {
-        if (deviceName == null || deviceName.trim().isEmpty() || deviceId == null || deviceId.trim().isEmpty()) {
-            throw new PrinterException("Device name and ID are required.");
+        private void transmitChunk(PrintJob job, byte[] chunk) throws PrinterException {
+            if (job.isFirstChunk()) {
+                long phaseStart = job.metrics.record(PrinterMetrics.Phase.QUEUE, job.enqueuedAt);
+                bluetoothService.awaitBluetoothEnabled();
+                phaseStart = job.metrics.record(PrinterMetrics.Phase.BLUETOOTH_READY, phaseStart);
+                setupPrinterConnection(job.deviceName, job.deviceId);
+                if (profiles.ensureProbed(job.deviceName, job.deviceId, transport) != null) {
+                    // Jobs encoded from here on use the new profile
+                    deviceEncoders.remove(job.deviceId);
+                }
+                // Feed, cut and drawer commands go out regardless: the drawer opens fine without paper
+                if (job.jobId != null) {
+                    ensurePrinterReady(job.deviceId);
+                }
+                job.metrics.record(PrinterMetrics.Phase.CONNECTION_SETUP, phaseStart);
+            } else {
+                // A job interleaved between chunks may have switched printers
+                bluetoothService.awaitBluetoothEnabled();
+                setupPrinterConnection(job.deviceName, job.deviceId);
+            }
+            if (job.getChunkCount() > 1) {
+                Logger.d(TAG, "Sending job {}: {} of {} bytes already sent", job.jobId, job.bytesBefore, job.totalBytes);
+            }
+            executePrintJob(chunk, job);
         }
 
-        String printerKey = deviceId + ":" + deviceName;
-
-        connectionLock.writeLock().lock();
-        try {
-            // Check if we're already connected to this printer
-            if (printerKey.equals(currentPrinterKey) && printing != null) {
-                Logger.d(TAG, "Already connected to printer: " + deviceName);
-                return;
+        private void setupPrinterConnection(String deviceName, String deviceId) throws PrinterException {
+            if (deviceName == null || deviceName.trim().isEmpty() || deviceId == null || deviceId.trim().isEmpty()) {
+                throw new PrinterException("Device name and ID are required.");
             }
 
-            // Disconnect from current printer if different
-            if (currentPrinterKey != null && !printerKey.equals(currentPrinterKey)) {
-                Logger.d(TAG, "Switching from " + currentPrinterKey + " to " + printerKey);
-                disconnectCurrentPrinter();
-            }
+            String printerKey = deviceId + ":" + deviceName;
 
-            // Setup new printer connection
+            connectionLock.writeLock().lock();
             try {
-                Printooth.INSTANCE.setPrinter(deviceName, deviceId);
-                printing = Printooth.INSTANCE.printer();
+                // Check if we're already connected to this printer
+                if (printerKey.equals(currentPrinterKey)) {
+                    Logger.d(TAG, "Already connected to printer: {}", deviceName);
+                    lastUsedLink = this;
+                    return;
+                }
+
+                // Disconnect from current printer if different
+                if (currentPrinterKey != null && !printerKey.equals(currentPrinterKey)) {
+                    Logger.d(TAG, "Switching from {} to {}", currentPrinterKey, printerKey);
+                    disconnectCurrentPrinter();
+                }
+
+                // Setup new printer connection
+                try {
+                    transport.connect(deviceName, deviceId);
+
+                    currentPrinterKey = printerKey;
+                    printerConnections.put(printerKey, new PrinterConnection(deviceName, deviceId, true));
+                    lastUsedLink = this;
 
-                if (printing == null) {
-                    throw new PrinterException("Failed to initialize printer with Printooth.");
+                    Logger.d(TAG, "Printer connection established: {} [{}]", deviceName, deviceId);
+
+                } catch (Exception e) {
+                    throw new PrinterException("Failed to setup printer connection: " + e.getMessage(), e);
                 }
+            } finally {
+                connectionLock.writeLock().unlock();
+            }
+        }
 
-                currentPrinterKey = printerKey;
-                printerConnections.put(printerKey, new PrinterConnection(deviceName, deviceId, true));
+        private void disconnectCurrentPrinter() {
+            try {
+                if (currentPrinterKey != null) {
+                    PrinterConnection connection = printerConnections.get(currentPrinterKey);
+                    if (connection != null) {
+                        printerConnections.put(currentPrinterKey,
+                                new PrinterConnection(connection.deviceName, connection.deviceId, false));
+                    }
+                }
 
-                Logger.d(TAG, "Printer connection established: " + deviceName + " [" + deviceId + "]");
+                transport.disconnect();
+                currentPrinterKey = null;
+                session.invalidate();
 
+                Logger.d(TAG, "Disconnected from current printer");
             } catch (Exception e) {
-                throw new PrinterException("Failed to setup printer connection: " + e.getMessage());
+                Logger.e(TAG, "Error during printer disconnection", e);
             }
-        } finally {
-            connectionLock.writeLock().unlock();
         }
-    }
 
-    private void disconnectCurrentPrinter() {
-        try {
-            if (printing != null) {
-                printing.setPrintingCallback(null);
-                printing = null;
+        private void executePrintJob(byte[] chunk, PrintJob job) throws PrinterException {
+            if (currentPrinterKey == null) {
+                throw new PrinterException("Printer not initialized. Call setupPrinterConnection first.");
             }
 
-            if (currentPrinterKey != null) {
-                PrinterConnection connection = printerConnections.get(currentPrinterKey);
-                if (connection != null) {
-                    printerConnections.put(currentPrinterKey,
-                            new PrinterConnection(connection.deviceName, connection.deviceId, false));
+            PrinterException lastException = null;
+            boolean delivered = false;
+
+            try {
+                for (int attempt = 1; attempt <= MAX_RETRY_ATTEMPTS; attempt++) {
+                    // Optimized per attempt: a failed attempt leaves the printer state unknown
+                    EscPosOptimizer.Result optimized = EscPosOptimizer.optimize(chunk, session);
+                    byte[] data = automaticStatus && job.isFirstChunk()
+                            ? withAutomaticStatus(optimized.getData())
+                            : optimized.getData();
+                    final CountDownLatch latch = new CountDownLatch(1);
+                    final AtomicReference<PrinterException> error = new AtomicReference<>();
+                    final AtomicBoolean canRetry = new AtomicBoolean(false);
+                    final AtomicLong connectedAt = new AtomicLong();
+                    final AtomicLong lastProgressAt = new AtomicLong();
+
+                    try {
+                        long sendStart = System.nanoTime();
+                        long timeoutMs = transferTimeoutMs(job.deviceId, data.length);
+                        configureFlowControl(job.deviceId);
+                        activeTransfer = new ActiveTransfer(job, latch, error, canRetry);
+                        boolean finished;
+                        try {
+                            transport.send(data, createTransportCallback(job, chunk.length, optimized.getBytesSaved(), latch, error, canRetry, connectedAt, lastProgressAt, attempt));
+                            finished = awaitTransfer(latch, timeoutMs, lastProgressAt);
+                        } finally {
+                            activeTransfer = null;
+                        }
+                        if (!finished) {
+                            throw new TransferUnconfirmedException("Print operation timed out after "
+                                    + TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - sendStart) + " seconds.");
+                        }
+
+                        if (error.get() == null) {
+                            Logger.d(TAG, "Printing successful on attempt {}", attempt);
+                            delivered = true;
+                            session.commit(optimized);
+                            job.bytesSaved += optimized.getBytesSaved();
+                            job.metrics.recordBytesSaved(optimized.getBytesSaved());
+                            recordTransfer(job, sendStart, connectedAt.get(), data.length);
+                            if (job.isLastChunk() && job.bytesSaved != 0) {
+                                Logger.d(TAG, "Job {}: optimizer saved {} bytes", job.jobId, job.bytesSaved);
+                            }
+                            return; // Success
+                        }
+
+                        lastException = error.get();
+                        session.invalidate();
+                        if (lastException instanceof PrinterNotReadyException) {
+                            // The printer stops taking data; drop the link so the rest of the chunk does not hang on it
+                            dropConnection();
+                            throw lastException;
+                        }
+                        if (canRetry.get() && attempt < MAX_RETRY_ATTEMPTS) {
+                            job.metrics.recordRetry();
+                            if (!bluetoothService.isBluetoothEnabled()) {
+                                // The link dropped because Bluetooth was switched off: resume once it is back
+                                Logger.w(TAG, "Attempt {} failed while Bluetooth is off. Waiting for it to be enabled...", attempt);
+                                bluetoothService.awaitBluetoothEnabled();
+                            } else {
+                                Logger.w(TAG, "Attempt {} failed. Retrying in {}ms...", attempt, RETRY_DELAY_MS);
+                                Thread.sleep(RETRY_DELAY_MS);
+                            }
+                        } else {
+                            throw lastException; // Non-retriable error or max retries reached
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new PrinterException("Print operation was interrupted.");
+                    } catch (PrinterNotReadyException | TransferUnconfirmedException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        throw new PrinterException("An unexpected error occurred during printing: " + e.getMessage());
+                    }
+                }
+                throw lastException != null ? lastException : new PrinterException("Print job failed after all retries.");
+            } finally {
+                if (!delivered) {
+                    session.invalidate();
                 }
             }
+        }
 
-            // Clear current printer from Printooth
-            Printooth.INSTANCE.removeCurrentPrinter();
-            currentPrinterKey = null;
+        /**
+         * Turns a job away at once if the printer last reported it is out of paper or its cover is open. The
+         * report may be old, so the printer is asked again first; if it does not answer, the job is sent anyway.
+         */
+        private void ensurePrinterReady(String deviceId) throws PrinterException {
+            String key = deviceKey(deviceId);
+            PrinterStatus known = statuses.get(key);
+            if (known == null || known.isReady()) {
+                return;
+            }
+            PrinterStatus current = queryStatus(deviceId);
+            if (current == null) {
+                statuses.remove(key, known);
+                return;
+            }
+            updateStatus(current);
+            if (!current.isReady()) {
+                throw notReady(current);
+            }
+        }
 
-            Logger.d(TAG, "Disconnected from current printer");
-        } catch (Exception e) {
-            Logger.e(TAG, "Error during printer disconnection", e);
+        // DLE EOT 1, 2 and 4 over the open link; null if the printer does not answer
+        private PrinterStatus queryStatus(String deviceId) {
+            int[] replies = new int[3];
+            int[] requests = { 1, 2, 4 };
+            try {
+                for (int i = 0; i < requests.length; i++) {
+                    byte[] reply = transport.query(EscPosCommands.realTimeStatus(requests[i]), 1, -1, STATUS_QUERY_TIMEOUT_MS);
+                    // Fixed bits 1 and 4 set, bits 0 and 7 clear, in every DLE EOT reply
+                    if (reply == null || reply.length != 1 || (reply[0] & 0x93) != 0x12) {
+                        return null;
+                    }
+                    replies[i] = reply[0];
+                }
+            } catch (PrinterException e) {
+                Logger.w(TAG, "Status query to {} failed: {}", deviceId, e.getMessage());
+                return null;
+            }
+            return PrinterStatus.fromRealTimeStatus(deviceId, replies[0], replies[1], replies[2]);
         }
-    }
 
-    private void executePrintJob(ArrayList<Printable> printables) throws PrinterException {
-        if (printing == null) {
-            throw new PrinterException("Printer not initialized. Call setupPrinterConnection first.");
+        // On the transport's reader thread
+        private void onAutomaticStatus(String deviceId, byte[] frame) {
+            PrinterStatus status = PrinterStatus.fromAutomaticStatus(deviceId, frame);
+            updateStatus(status);
+            ActiveTransfer transfer = activeTransfer;
+            if (!status.isReady() && transfer != null && transfer.job.jobId != null
+                    && deviceKey(transfer.job.deviceId).equals(deviceKey(deviceId))) {
+                Logger.w(TAG, "Job {} stopped: {}", transfer.job.jobId, status.describeProblem());
+                transfer.error.compareAndSet(null, notReady(status));
+                transfer.canRetry.set(false);
+                transfer.latch.countDown();
+            }
         }
 
-        PrinterException lastException = null;
+        // Paced transports slow down to what the printer takes; how fast that is comes from its profile
+        private void configureFlowControl(String deviceId) {
+            PrinterProfile profile = profiles.get(deviceId);
+            if (profile != null) {
+                transport.setFlowControl(profile.getBufferBytes(), profile.getBytesPerSecond(), profile.isProbed());
+            }
+        }
 
-        for (int attempt = 1; attempt <= MAX_RETRY_ATTEMPTS; attempt++) {
-            final CountDownLatch latch = new CountDownLatch(1);
-            final AtomicReference<PrinterException> error = new AtomicReference<>();
-            final AtomicBoolean canRetry = new AtomicBoolean(false);
+        private PrinterTransport.Callback createTransportCallback(PrintJob job, int chunkBytes, int chunkBytesSaved, CountDownLatch latch, AtomicReference<PrinterException> error, AtomicBoolean canRetry, AtomicLong connectedAt, AtomicLong lastProgressAt, int attempt) {
+            job.attempt = attempt;
+            job.lastReportedPercent = -1;
+            return new PrinterTransport.Callback() {
+                @Override
+                public void onConnecting() {
+                    Logger.d(TAG, "Connecting to printer... (Attempt {})", attempt);
+                    // Later chunks of a bulk job reconnect too, but JS only sees the job connect once
+                    if (job.isFirstChunk()) {
+                        emit(job, PrintJobEvent.State.CONNECTING, 0, null);
+                    }
+                }
+
+                @Override
+                public void onConnected() {
+                    connectedAt.set(System.nanoTime());
+                    if (job.isFirstChunk()) {
+                        emit(job, PrintJobEvent.State.CONNECTED, 0, null);
+                    }
+                }
 
-            printing.setPrintingCallback(createPrintingCallback(latch, error, canRetry, attempt));
+                @Override
+                public void onProgress(long bytesWritten, long total) {
+                    lastProgressAt.set(System.nanoTime());
+                    // Progress is reported for the whole job as encoded, not the optimized chunk being sent
+                    long jobBytesWritten = job.bytesBefore + (total > 0 ? Math.min(bytesWritten, total) * chunkBytes / total : 0);
+                    int percent = job.totalBytes > 0 ? (int) (jobBytesWritten * 100 / job.totalBytes) : 0;
+                    // Throttle: a long report would otherwise flood the bridge with one event per chunk
+                    if (percent - job.lastReportedPercent >= PROGRESS_STEP_PERCENT || jobBytesWritten == job.totalBytes) {
+                        job.lastReportedPercent = percent;
+                        emit(job, PrintJobEvent.State.SENDING, jobBytesWritten, null);
+                    }
+                }
 
-            try {
-                printing.print(printables);
-                if (!latch.await(CONNECTION_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
-                    throw new PrinterException("Print operation timed out after " + CONNECTION_TIMEOUT_SECONDS + " seconds.");
+                @Override
+                public void onConnectionFailed(String message) {
+                    Logger.e(TAG, "Connection failed: {}", message);
+                    error.set(new PrinterException("Connection Failed: " + message));
+                    canRetry.set(true);
+                    latch.countDown();
+                }
+
+                @Override
+                public void onError(String message) {
+                    Logger.e(TAG, "Printer error: {}", message);
+                    error.set(new PrinterException("Printer Error: " + message));
+                    canRetry.set(false); // Assume printer errors are not recoverable by retrying
+                    latch.countDown();
+                }
+
+                @Override
+                public void onMessage(String message) {
+                    Logger.d(TAG, "Printer message: {}", message);
+                }
+
+                @Override
+                public void onSent() {
+                    Logger.d(TAG, "Print job sent to printer successfully.");
+                    // Emitted from the transport thread, before the waiting job thread wakes up
+                    if (job.isLastChunk()) {
+                        emitSent(job, job.bytesSaved + chunkBytesSaved);
+                    }
+                    latch.countDown();
                 }
 
-                if (error.get() == null) {
-                    Logger.d(TAG, "Printing successful on attempt " + attempt);
-                    return; // Success
+                @Override
+                public void onDisconnected() {
+                    Logger.d(TAG, "Disconnected from printer.");
+                    // Update connection state
+                    if (currentPrinterKey != null) {
+                        PrinterConnection connection = printerConnections.get(currentPrinterKey);
+                        if (connection != null) {
+                            printerConnections.put(currentPrinterKey,
+                                    new PrinterConnection(connection.deviceName, connection.deviceId, false));
+                        }
+                    }
                 }
+            };
+        }
+
+        PrinterConnection currentConnection() {
+            String printerKey = currentPrinterKey;
+            return printerKey != null ? printerConnections.get(printerKey) : null;
+        }
 
-                lastException = error.get();
-                if (canRetry.get() && attempt < MAX_RETRY_ATTEMPTS) {
-                    Logger.w(TAG, "Attempt " + attempt + " failed. Retrying in " + RETRY_DELAY_MS + "ms...");
-                    Thread.sleep(RETRY_DELAY_MS);
+        void disconnect(String deviceId) {
+            connectionLock.writeLock().lock();
+            try {
+                if (currentPrinterKey != null && currentPrinterKey.startsWith(deviceId + ":")) {
+                    disconnectCurrentPrinter();
+                    Logger.d(TAG, "Disconnected from printer: {}", deviceId);
                 } else {
-                    throw lastException; // Non-retriable error or max retries reached
+                    Logger.w(TAG, "Printer not connected or different device: {}", deviceId);
                 }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new PrinterException("Print operation was interrupted.");
-            } catch (Exception e) {
-                throw new PrinterException("An unexpected error occurred during printing: " + e.getMessage());
+            } finally {
+                connectionLock.writeLock().unlock();
             }
         }
-        throw lastException != null ? lastException : new PrinterException("Print job failed after all retries.");
-    }
 
-    private PrintingCallback createPrintingCallback(CountDownLatch latch, AtomicReference<PrinterException> error, AtomicBoolean canRetry, int attempt) {
-        return new PrintingCallback() {
-            @Override
-            public void connectingWithPrinter() {
-                Logger.d(TAG, "Connecting to printer... (Attempt " + attempt + ")");
+        boolean isConnected(String deviceId) {
+            connectionLock.readLock().lock();
+            try {
+                if (currentPrinterKey != null && currentPrinterKey.startsWith(deviceId + ":")) {
+                    PrinterConnection connection = printerConnections.get(currentPrinterKey);
+                    return connection != null && connection.isConnected;
+                }
+                return false;
+            } finally {
+                connectionLock.readLock().unlock();
             }
+        }
 
-            @Override
-            public void connectionFailed(String message) {
-                Logger.e(TAG, "Connection failed: " + message);
-                error.set(new PrinterException("Connection Failed: " + message));
-                canRetry.set(true);
-                latch.countDown();
+        void shutdown() {
+            scheduler.shutdown();
+            connectionLock.writeLock().lock();
+            try {
+                if (currentPrinterKey != null) {
+                    disconnectCurrentPrinter();
+                }
+                printerConnections.clear();
+            } finally {
+                connectionLock.writeLock().unlock();
             }
-
-            @Override
-            public void onError(String message) {
-                Logger.e(TAG, "Printer error: " + message);
-                error.set(new PrinterException("Printer Error: " + message));
-                canRetry.set(false); // Assume printer errors are not recoverable by retrying
-                latch.countDown();
+            // A transport handed to the constructor is the caller's to close
+            if (transportFactory != null) {
+                transport.close();
             }
+        }
+    }
 
-            @Override
-            public void onMessage(String message) {
-                Logger.d(TAG, "Printer message: " + message);
-            }
+    public PrinterService(BluetoothService bluetoothService) {
+        this(bluetoothService, new EscPosEncoder());
+    }
 
-            @Override
-            public void printingOrderSentSuccessfully() {
-                Logger.d(TAG, "Print job sent to printer successfully.");
-                latch.countDown();
-            }
+    public PrinterService(BluetoothService bluetoothService, EscPosEncoder encoder) {
+        this(bluetoothService, new PrintoothTransport(), encoder);
+    }
 
-            @Override
-            public void disconnected() {
-                Logger.d(TAG, "Disconnected from printer.");
-                // Update connection state
-                if (currentPrinterKey != null) {
-                    PrinterConnection connection = printerConnections.get(currentPrinterKey);
-                    if (connection != null) {
-                        printerConnections.put(currentPrinterKey,
-                                new PrinterConnection(connection.deviceName, connection.deviceId, false));
+    public PrinterService(BluetoothService bluetoothService, PrinterTransport transport, EscPosEncoder encoder) {
+        this(bluetoothService, transport, new PrintSpool(new PaperSpoolStore()), encoder,
+                new PrinterProfiles(new PaperProfileStore(), encoder.getPaperWidthDots(), encoder.hasNativeQr()),
+                new ReprintCache(new PaperSpoolStore(REPRINT_BOOK_NAME)));
+    }
+
+    public PrinterService(BluetoothService bluetoothService, PrinterTransport transport) {
+        this(bluetoothService, transport, new PrintSpool(new MemorySpoolStore()));
+    }
+
+    public PrinterService(BluetoothService bluetoothService, PrinterTransport transport, PrintSpool spool) {
+        this(bluetoothService, transport, spool, new EscPosEncoder());
+    }
+
+    public PrinterService(BluetoothService bluetoothService, PrinterTransport transport, PrintSpool spool, EscPosEncoder encoder) {
+        this(bluetoothService, transport, spool, encoder,
+                new PrinterProfiles(new MemoryProfileStore(), encoder.getPaperWidthDots(), encoder.hasNativeQr()));
+    }
+
+    public PrinterService(BluetoothService bluetoothService, PrinterTransport transport, PrintSpool spool, EscPosEncoder encoder,
+            PrinterProfiles profiles) {
+        this(bluetoothService, transport, spool, encoder, profiles, new ReprintCache());
+    }
+
+    public PrinterService(BluetoothService bluetoothService, PrinterTransport transport, PrintSpool spool, EscPosEncoder encoder,
+            PrinterProfiles profiles, ReprintCache reprints) {
+        this(bluetoothService, transport, null, spool, encoder, profiles, reprints);
+    }
+
+    /** Each printer gets a transport of its own from {@code transportFactory}, so printers do not wait on each other. */
+    public PrinterService(BluetoothService bluetoothService, PrinterTransport.Factory transportFactory, EscPosEncoder encoder) {
+        this(bluetoothService, transportFactory, new PrintSpool(new PaperSpoolStore()), encoder,
+                new PrinterProfiles(new PaperProfileStore(), encoder.getPaperWidthDots(), encoder.hasNativeQr()),
+                new ReprintCache(new PaperSpoolStore(REPRINT_BOOK_NAME)));
+    }
+
+    public PrinterService(BluetoothService bluetoothService, PrinterTransport.Factory transportFactory) {
+        this(bluetoothService, transportFactory, new PrintSpool(new MemorySpoolStore()), new EscPosEncoder(),
+                new PrinterProfiles(new MemoryProfileStore(), EscPosEncoder.PAPER_58MM_DOTS, true));
+    }
+
+    public PrinterService(BluetoothService bluetoothService, PrinterTransport.Factory transportFactory, PrintSpool spool,
+            EscPosEncoder encoder, PrinterProfiles profiles) {
+        this(bluetoothService, transportFactory, spool, encoder, profiles, new ReprintCache());
+    }
+
+    public PrinterService(BluetoothService bluetoothService, PrinterTransport.Factory transportFactory, PrintSpool spool,
+            EscPosEncoder encoder, PrinterProfiles profiles, ReprintCache reprints) {
+        this(bluetoothService, null, transportFactory, spool, encoder, profiles, reprints);
+    }
+
+    private PrinterService(BluetoothService bluetoothService, PrinterTransport transport, PrinterTransport.Factory transportFactory,
+            PrintSpool spool, EscPosEncoder encoder, PrinterProfiles profiles, ReprintCache reprints) {
+        this.bluetoothService = bluetoothService;
+        this.encoder = encoder;
+        this.profiles = profiles;
+        this.spool = spool;
+        this.reprints = reprints;
+        this.metrics = bluetoothService.getMetrics();
+        this.transportFactory = transportFactory;
+        this.sharedLink = transport != null ? new Link(transport) : null;
+    }
+
+    public PrinterMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void addPrintJobListener(PrintJobListener listener) {
+        jobListeners.addIfAbsent(listener);
+    }
+
+    public void removePrintJobListener(PrintJobListener listener) {
+        jobListeners.remove(listener);
+    }
+
+    public void addPrinterStatusListener(PrinterStatusListener listener) {
+        statusListeners.addIfAbsent(listener);
+    }
+
+    public void removePrinterStatusListener(PrinterStatusListener listener) {
+        statusListeners.remove(listener);
+    }
+
+    /**
+     * Limits applied to every printer's queue from now on. Calls waiting for room are checked against the new
+     * limits at once.
+     */
+    public void setQueueLimits(QueueLimits limits) {
+        queueLimits = limits != null ? limits : QueueLimits.NONE;
+        for (PrinterQueue queue : queues.values()) {
+            queue.limitsChanged();
+        }
+    }
+
+    public QueueLimits getQueueLimits() {
+        return queueLimits;
+    }
+
+    /**
+     * The load on each printer that has been sent a job, or on {@code deviceId} only. The estimated wait is the
+     * time the printer's link needs to send everything queued on it at the printer's measured rate; with a
+     * shared link that includes the jobs of other printers. Connects are not included.
+     */
+    public List<PrinterQueueStatus> getQueueStatus(String deviceId) {
+        long now = System.nanoTime();
+        List<PrinterQueueStatus> result = new ArrayList<>();
+        for (Map.Entry<String, PrinterQueue> entry : queues.entrySet()) {
+            if (deviceId != null && !entry.getKey().equals(deviceKey(deviceId))) {
+                continue;
+            }
+            PrinterQueue queue = entry.getValue();
+            Link link = existingLink(entry.getKey());
+            PrintJob current = link != null ? link.scheduler.getCurrentJob() : null;
+            PrintJob inFlight = current != null && current.jobId != null && entry.getKey().equals(deviceKey(current.deviceId))
+                    ? current : null;
+
+            double bytesPerSecond = queue.getBytesPerSecond();
+            long estimatedWaitMs = -1;
+            if (bytesPerSecond > 0) {
+                long backlog = 0;
+                if (transportFactory == null) {
+                    for (PrinterQueue other : queues.values()) {
+                        backlog += other.getBytes();
                     }
+                } else {
+                    backlog = queue.getBytes();
+                }
+                if (current != null) {
+                    backlog -= current.bytesBefore;
                 }
+                estimatedWaitMs = Math.round(Math.max(0, backlog) * 1000 / bytesPerSecond);
             }
-        };
+            result.add(new PrinterQueueStatus(entry.getKey(), queue.getJobs(), queue.getBytes(),
+                    inFlight != null ? inFlight.jobId : null, inFlight != null ? inFlight.priority : null,
+                    inFlight != null ? inFlight.totalBytes : 0, inFlight != null ? inFlight.bytesBefore : 0,
+                    Math.round(bytesPerSecond), estimatedWaitMs, queue.breaker.getState(now).toJsValue(),
+                    queue.breaker.getRetryInMs(now)));
+        }
+        return result;
     }
 
-    public void disconnectPrinter(String deviceId) throws PrinterException {
-        connectionLock.writeLock().lock();
+    /** The last status the printer reported, or null if it never did. Does not touch the printer. */
+    public PrinterStatus getPrinterStatus(String deviceId) {
+        return deviceId != null ? statuses.get(deviceKey(deviceId)) : null;
+    }
+
+    public void printText(PrintRequest request) throws PrinterException {
+        runPrintJob(request.getJobId(), request.getDeviceName(), request.getDeviceId(), request.getPriority(),
+                request.getDeadlineMs(), () -> encoderFor(request.getDeviceId()).encodeText(request.getData(), request.getFinishing()));
+    }
+
+    public void printQRCode(QRCodePrintRequest request) throws PrinterException {
+        runPrintJob(request.getJobId(), request.getDeviceName(), request.getDeviceId(), request.getPriority(),
+                request.getDeadlineMs(), () -> {
+            validateQRCodeData(request.getQrData());
+            return encoderFor(request.getDeviceId()).encodeQRCode(request.getQrData(), request.getFinishing());
+        });
+    }
+
+    /**
+     * Prints a run of QR codes and barcodes as a single job: one spool entry, one queue slot and one
+     * transmission, with the shared symbol setup sent once.
+     */
+    public void printCodes(CodesPrintRequest request) throws PrinterException {
+        runPrintJob(request.getJobId(), request.getDeviceName(), request.getDeviceId(), request.getPriority(),
+                request.getDeadlineMs(), () -> encoderFor(request.getDeviceId())
+                .encodeCodes(request.getCodes(), request.getCutBetween(), request.getFinishing()));
+    }
+
+    /**
+     * Prints one text job on every target at once. The job is encoded once per distinct printer setup and the
+     * bytes are shared; each target gets a job of its own on its own link, so the call takes about as long as
+     * the slowest printer. Targets that share a link, as all do with Printooth, print one after another.
+     *
+     * @return one result per target, in the order given; one printer failing does not stop the others
+     */
+    public List<PrintTargetResult> printToMany(MultiPrintRequest request) throws PrinterException {
+        List<MultiPrintRequest.Target> targets = request.getTargets();
+        Map<String, byte[]> encoded = new HashMap<>();
+        List<Future<PrintTargetResult>> pending = new ArrayList<>(targets.size());
         try {
-            if (currentPrinterKey != null && currentPrinterKey.startsWith(deviceId + ":")) {
-                disconnectCurrentPrinter();
-                Logger.d(TAG, "Disconnected from printer: " + deviceId);
-            } else {
-                Logger.w(TAG, "Printer not connected or different device: " + deviceId);
+            for (MultiPrintRequest.Target target : targets) {
+                String encoding = encodingKey(target.getDeviceId());
+                byte[] data = encoded.get(encoding);
+                if (data == null) {
+                    data = encoderFor(target.getDeviceId()).encodeText(request.getData(), request.getFinishing());
+                    encoded.put(encoding, data);
+                }
+                byte[] job = data;
+                pending.add(workExecutor.submit(() -> printTarget(request, target, job)));
             }
-        } finally {
-            connectionLock.writeLock().unlock();
+            List<PrintTargetResult> results = new ArrayList<>(targets.size());
+            for (Future<PrintTargetResult> result : pending) {
+                results.add(result.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PrinterException("Interrupted while printing to several printers.", e);
+        } catch (ExecutionException e) {
+            throw new PrinterException("Print to several printers failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (RejectedExecutionException e) {
+            throw new PrinterException("Printer service has been shut down.", e);
         }
     }
 
-    public boolean isConnected(String deviceId) {
-        connectionLock.readLock().lock();
+    /**
+     * Runs {@code operation} unless a call with the same {@code idempotencyKey} is in flight, or delivered its job
+     * within {@link IdempotencyIndex#WINDOW_MS}. A repeat of a call in flight waits for it and shares its outcome;
+     * a repeat of a delivered call returns at once without printing. A call that timed out mid-transfer may have
+     * printed, so it counts as delivered for this. Calls that printed nothing are forgotten, so a retry prints.
+     *
+     * @param idempotencyKey null to always run {@code operation}
+     * @return the job ID of the call that printed
+     */
+    public String runOnce(String idempotencyKey, String jobId, PrintOperation operation) throws PrinterException {
+        if (idempotencyKey == null) {
+            operation.execute();
+            return jobId;
+        }
+        IdempotencyIndex.Call call = new IdempotencyIndex.Call(jobId);
+        IdempotencyIndex.Call holder = idempotency.claim(idempotencyKey, call, System.nanoTime());
+        if (holder != null) {
+            Logger.i(TAG, "Idempotency key {} belongs to job {}; not printing again", idempotencyKey, holder.jobId);
+            holder.await();
+            return holder.jobId;
+        }
+        PrinterException failure = null;
         try {
-            if (currentPrinterKey != null && currentPrinterKey.startsWith(deviceId + ":")) {
-                PrinterConnection connection = printerConnections.get(currentPrinterKey);
-                return connection != null && connection.isConnected;
-            }
-            return false;
+            operation.execute();
+            return jobId;
+        } catch (PrinterException e) {
+            failure = e;
+            throw e;
+        } catch (RuntimeException e) {
+            failure = new PrinterException("Print call failed: " + e.getMessage(), e);
+            throw e;
         } finally {
-            connectionLock.readLock().unlock();
+            idempotency.finish(idempotencyKey, call, failure, System.nanoTime());
         }
     }
 
-    private ArrayList<Printable> createTextPrintables(PrintRequest request) throws PrinterException {
-        try {
-            ArrayList<Printable> printables = new ArrayList<>();
-
-            // Initialize printer (same as original)
-            printables.add(new RawPrintable.Builder(new byte[] { 0x1B, 0x40 }).build());
-
-            // Set character code table for Arabic support (same as original)
-            printables.add(new RawPrintable.Builder(new byte[] { 0x1B, 0x74, 28 }).build());
+    /**
+     * Sends a delivered job again from its encoded bytes, {@code copies} times in one transmission, as a new job
+     * to the same printer. Only the most recent jobs are kept for this; see {@link ReprintCache}.
+     */
+    public void reprint(ReprintRequest request) throws PrinterException {
+        SpoolEntry original = reprints.get(request.getOriginalJobId());
+        if (original == null) {
+            throw new PrinterException("Print job " + request.getOriginalJobId() + " is not available for reprint.");
+        }
+        runPrintJob(request.getJobId(), original.getDeviceName(), original.getDeviceId(), request.getPriority(),
+                request.getDeadlineMs(), () -> repeat(original.getData(), request.getCopies()));
+    }
 
-            // Process each line of text - using ISO-8859-6 encoding like in the original
-            for (String line : request.getData()) {
-                if (line != null) { // Remove the trim().isEmpty() check to match original behavior
-                    try {
-                        // Using ISO-8859-6 encoding for Arabic support (same as original)
-                        byte[] textBytes = line.getBytes("ISO-8859-6");
-                        printables.add(new RawPrintable.Builder(textBytes).setNewLinesAfter(1).build());
-                    } catch (UnsupportedEncodingException e) {
-                        // Fallback to UTF-8 if ISO-8859-6 is not available
-                        byte[] textBytes = line.getBytes("UTF-8");
-                        printables.add(new RawPrintable.Builder(textBytes).setNewLinesAfter(1).build());
-                    }
-                }
-            }
+    private static byte[] repeat(byte[] data, int copies) {
+        if (copies == 1) {
+            return data;
+        }
+        byte[] job = new byte[data.length * copies];
+        for (int i = 0; i < copies; i++) {
+            System.arraycopy(data, 0, job, i * data.length, data.length);
+        }
+        return job;
+    }
 
-            // Add line feeds at the end (same as original)
-            addLineFeed(3, printables);
-            return printables;
-        } catch (UnsupportedEncodingException e) {
-            throw new PrinterException("Failed to encode text for printing: " + e.getMessage());
+    /**
+     * Starts a text job whose last lines are only known at checkout. The known lines are encoded on a worker
+     * thread and the printer's link is opened, where the transport keeps links open, so {@link #commitJob} only
+     * has to encode the tail and send.
+     *
+     * @return the handle to commit the job with; it expires after {@link #PREPARED_JOB_TTL_MS}
+     */
+    public String prepareJob(PrepareJobRequest request) throws PrinterException {
+        dropExpiredPreparedJobs();
+        if (preparedJobs.size() >= MAX_PREPARED_JOBS) {
+            throw new PrinterException("Too many prepared jobs; commit some first.");
         }
+        Link link = linkFor(request.getDeviceId());
+        PreparedJob prepared = new PreparedJob(UUID.randomUUID().toString(), request.getDeviceName(), request.getDeviceId(),
+                encoderFor(request.getDeviceId()), request.getData());
+        preparedJobs.put(prepared.handle, prepared);
+        try {
+            workExecutor.execute(() -> {
+                prepared.encode();
+                link.transport.preconnect(prepared.deviceId);
+            });
+        } catch (RejectedExecutionException e) {
+            preparedJobs.remove(prepared.handle);
+            throw new PrinterException("Printer service has been shut down.", e);
+        }
+        return prepared.handle;
     }
 
-    // Updated lineFeed method to match original implementation
-    private void addLineFeed(int lines, ArrayList<Printable> printables) {
-        for (int i = 0; i < lines; i++) {
-            // Using 0x0D, 0x0A (CR+LF) like in the original code
-            printables.add(new RawPrintable.Builder(new byte[] { 0x0D, 0x0A }).build());
+    /** Appends the checkout lines to a prepared job and sends it. A handle can be committed once. */
+    public void commitJob(CommitJobRequest request) throws PrinterException {
+        PreparedJob prepared = preparedJobs.remove(request.getHandle());
+        if (prepared == null || isExpired(prepared, System.nanoTime())) {
+            throw new PrinterException("Prepared job " + request.getHandle() + " was already committed or has expired.");
         }
+        runPrintJob(request.getJobId(), prepared.deviceName, prepared.deviceId, request.getPriority(), request.getDeadlineMs(),
+                () -> prepared.withTail(prepared.encoder.encodeTextTail(request.getTail(), request.getFinishing())));
     }
 
-    private ArrayList<Printable> createQRCodePrintables(QRCodePrintRequest request) throws PrinterException {
-        try {
-            ArrayList<Printable> printables = new ArrayList<>();
-            byte[] qrBytes = request.getQrData().getBytes("UTF-8");
-            QRSettings settings = determineQRSettings(qrBytes.length);
+    private void dropExpiredPreparedJobs() {
+        long now = System.nanoTime();
+        preparedJobs.values().removeIf(prepared -> isExpired(prepared, now));
+    }
 
-            // Initialize printer
-            printables.add(new RawPrintable.Builder(new byte[] { 0x1B, 0x40 }).build());
+    private static boolean isExpired(PreparedJob prepared, long now) {
+        return now - prepared.preparedAt > TimeUnit.MILLISECONDS.toNanos(PREPARED_JOB_TTL_MS);
+    }
 
-            // Set center alignment
-            printables.add(new RawPrintable.Builder(new byte[] { 0x1B, 0x61, 0x01 }).build());
+    // Jobs are never changed after encoding, so every target may send the same array
+    private PrintTargetResult printTarget(MultiPrintRequest request, MultiPrintRequest.Target target, byte[] data) {
+        String jobId = request.getTargetJobId(target);
+        try {
+            runPrintJob(jobId, target.getDeviceName(), target.getDeviceId(), request.getPriority(), request.getDeadlineMs(),
+                    () -> data);
+            return PrintTargetResult.sent(target.getDeviceId(), jobId);
+        } catch (PrinterException e) {
+            Logger.w(TAG, "Print to {} failed: {}", target.getDeviceId(), e.getMessage());
+            return PrintTargetResult.failed(target.getDeviceId(), jobId, e);
+        }
+    }
 
-            // QR Code ESC/POS commands
-            // Select QR Code model (Model 2)
-            printables.add(new RawPrintable.Builder(new byte[] { 0x1D, 0x28, 0x6B, 0x04, 0x00, 0x31, 0x41, 0x32, 0x00 }).build());
+    /** The printer's stored profile, or null if it was never connected. */
+    public PrinterProfile getPrinterProfile(String deviceId) {
+        return profiles.get(deviceId);
+    }
 
-            // Set module size
-            printables.add(new RawPrintable.Builder(new byte[] { 0x1D, 0x28, 0x6B, 0x03, 0x00, 0x31, 0x43, (byte) settings.size }).build());
+    /**
+     * Sends the jobs that were spooled but never finished before the app was last stopped, oldest first.
+     * Their lifecycle events carry the original job IDs.
+     *
+     * @return the number of replayed jobs that were delivered
+     */
+    public int replaySpool() {
+        List<SpoolEntry> pending = spool.recover();
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        Logger.i(TAG, "Replaying {} unfinished print jobs from the spool", pending.size());
+        int delivered = 0;
+        for (SpoolEntry entry : pending) {
+            try {
+                // Already spooled: send the stored bytes as they are
+                runPrintJob(entry.getJobId(), entry.getDeviceName(), entry.getDeviceId(), JobPriority.NORMAL, 0,
+                        entry::getData, false);
+                delivered++;
+            } catch (PrinterException e) {
+                Logger.w(TAG, "Replay of job {} failed: {}", entry.getJobId(), e.getMessage());
+            }
+        }
+        return delivered;
+    }
+
+    /**
+     * Cancels a print job that is queued or being sent. Its print call fails with a
+     * {@link JobCancelledException}; a job cut off mid-transfer may leave a partial printout.
+     *
+     * @return false if no job with that ID is queued or being sent
+     */
+    public boolean cancelJob(String jobId) {
+        boolean cancelled = false;
+        for (Link link : links()) {
+            cancelled |= link.scheduler.cancel(jobId);
+        }
+        return cancelled;
+    }
 
-            // Set error correction level
-            printables.add(new RawPrintable.Builder(new byte[] { 0x1D, 0x28, 0x6B, 0x03, 0x00, 0x31, 0x45, (byte) settings.errorCorrectionLevel }).build());
+    private void runPrintJob(String jobId, String deviceName, String deviceId, JobPriority priority, long deadlineMs, JobEncoder jobEncoder) throws PrinterException {
+        runPrintJob(jobId, deviceName, deviceId, priority, deadlineMs, jobEncoder, true);
+    }
 
-            // Store QR code data
-            int len = qrBytes.length + 3;
-            byte pL = (byte) (len % 256);
-            byte pH = (byte) (len / 256);
+    /**
+     * Encodes and spools a job on the calling thread, then queues it and blocks until the dispatch
+     * thread has sent it.
+     */
+    private void runPrintJob(String jobId, String deviceName, String deviceId, JobPriority priority, long deadlineMs, JobEncoder jobEncoder, boolean writeAhead) throws PrinterException {
+        // Turned away before any event or spool write, which would land on the job already running under this ID
+        if (jobId != null && runningJobIds.putIfAbsent(jobId, Boolean.TRUE) != null) {
+            throw new PrinterException("A print job with ID " + jobId + " is already queued.");
+        }
+        try {
+            runClaimedPrintJob(jobId, deviceName, deviceId, priority, deadlineMs, jobEncoder, writeAhead);
+        } finally {
+            if (jobId != null) {
+                runningJobIds.remove(jobId);
+            }
+        }
+    }
 
-            // Build the store data command
-            byte[] storeCommand = new byte[qrBytes.length + 8];
-            storeCommand[0] = 0x1D;
-            storeCommand[1] = 0x28;
-            storeCommand[2] = 0x6B;
-            storeCommand[3] = pL;
-            storeCommand[4] = pH;
-            storeCommand[5] = 0x31;
-            storeCommand[6] = 0x50;
-            storeCommand[7] = 0x30;
-            System.arraycopy(qrBytes, 0, storeCommand, 8, qrBytes.length);
+    private void runClaimedPrintJob(String jobId, String deviceName, String deviceId, JobPriority priority, long deadlineMs, JobEncoder jobEncoder, boolean writeAhead) throws PrinterException {
+        PrinterMetrics.DeviceMetrics deviceMetrics = metrics.device(deviceId);
+        emit(jobId, deviceId, 0, PrintJobEvent.State.QUEUED, 0, 0, null);
+        long jobStart = System.nanoTime();
+        boolean success = false;
+        boolean cancelled = false;
+        boolean spooled = !writeAhead;
+        PrintJob job = null;
+        PrinterQueue queue = null;
+        boolean breakerPassed = false;
+        long admittedBytes = -1;
+        PrinterException failure = null;
+        try {
+            byte[] data = jobEncoder.encode();
+            long phaseStart = deviceMetrics.record(PrinterMetrics.Phase.ENCODE, jobStart);
+            queue = queueFor(deviceId);
+            queue.breaker.acquire(deviceId, System.nanoTime());
+            breakerPassed = true;
+            queue.admit(jobId, data.length, queueLimits, priority == JobPriority.URGENT, deadlineMs, jobStart);
+            admittedBytes = data.length;
+            if (writeAhead) {
+                // Persist before anything reaches the printer, so a kill from here on can be replayed
+                spooled = spool.append(new SpoolEntry(jobId, deviceName, deviceId, data));
+                deviceMetrics.record(PrinterMetrics.Phase.SPOOL, phaseStart);
+            }
+            List<byte[]> chunks = priority == JobPriority.BULK
+                    ? JobChunker.split(data, BULK_CHUNK_BYTES)
+                    : Collections.singletonList(data);
+            Link link = linkFor(deviceId);
+            job = new PrintJob(jobId, deviceName, deviceId, priority, deviceMetrics, chunks, deadlineMs, jobStart);
+            link.scheduler.submit(job);
+            job.await();
+            success = true;
+            metrics.recordPrintDelivered();
+            reprints.put(new SpoolEntry(jobId, deviceName, deviceId, data));
+        } catch (JobCancelledException e) {
+            cancelled = true;
+            emit(jobId, deviceId, job != null ? job.attempt : 0,
+                    e.isExpired() ? PrintJobEvent.State.EXPIRED : PrintJobEvent.State.CANCELLED, 0, 0, e.getMessage());
+            throw e;
+        } catch (PrinterException e) {
+            failure = e;
+            emit(jobId, deviceId, job != null ? job.attempt : 0, PrintJobEvent.State.FAILED, 0, 0, e.getMessage());
+            throw e;
+        } finally {
+            // Delivered or failed for good: either way the caller has its answer, so nothing to replay
+            if (spooled) {
+                spool.finish(jobId);
+            }
+            if (admittedBytes >= 0) {
+                queue.release(admittedBytes);
+            }
+            if (breakerPassed) {
+                // Paper out and the like say nothing about whether the printer can be reached
+                if (success) {
+                    queue.breaker.onSuccess();
+                } else if (failure != null && admittedBytes >= 0 && !(failure instanceof PrinterNotReadyException)) {
+                    queue.breaker.onFailure(System.nanoTime());
+                } else {
+                    queue.breaker.onAbandoned();
+                }
+            }
+            if (cancelled) {
+                deviceMetrics.recordCancelled();
+            } else {
+                deviceMetrics.recordJob(success, jobStart);
+            }
+        }
+    }
 
-            printables.add(new RawPrintable.Builder(storeCommand).build());
+    private static PrinterNotReadyException notReady(PrinterStatus status) {
+        return new PrinterNotReadyException(status.getDeviceId(), status.describeProblem(), status.isPaperOut(), status.isCoverOpen());
+    }
 
-            // Print the QR code
-            printables.add(new RawPrintable.Builder(new byte[] { 0x1D, 0x28, 0x6B, 0x03, 0x00, 0x31, 0x51, 0x30 }).build());
+    private void updateStatus(PrinterStatus status) {
+        PrinterStatus previous = statuses.put(deviceKey(status.getDeviceId()), status);
+        if (status.sameConditionAs(previous)) {
+            return;
+        }
+        Logger.i(TAG, "Printer {}: {}", status.getDeviceId(), status.isReady() ? "ready" : status.describeProblem());
+        for (PrinterStatusListener listener : statusListeners) {
+            try {
+                listener.onPrinterStatusChanged(status);
+            } catch (Exception e) {
+                Logger.e(TAG, "Printer status listener failed", e);
+            }
+        }
+    }
 
-            // Reset alignment to left
-            printables.add(new RawPrintable.Builder(new byte[] { 0x1B, 0x61, 0x00 }).build());
+    // GS a right after the job's ESC @, in case the reset turns automatic status off again
+    private static byte[] withAutomaticStatus(byte[] data) {
+        byte[] enable = EscPosCommands.automaticStatusBack(AUTOMATIC_STATUS_EVENTS);
+        int at = data.length >= 2 && data[0] == EscPosCommands.INITIALIZE[0] && data[1] == EscPosCommands.INITIALIZE[1] ? 2 : 0;
+        byte[] result = new byte[data.length + enable.length];
+        System.arraycopy(data, 0, result, 0, at);
+        System.arraycopy(enable, 0, result, at, enable.length);
+        System.arraycopy(data, at, result, at + enable.length, data.length - at);
+        return result;
+    }
 
-            // Add line feeds
-            addLineFeed(2, printables);
+    private static String deviceKey(String deviceId) {
+        return deviceId.trim().toUpperCase(Locale.ROOT);
+    }
 
-            return printables;
-        } catch (UnsupportedEncodingException e) {
-            throw new PrinterException("Failed to encode QR code data: " + e.getMessage());
+    // Printers that encode a job to the same bytes share a key
+    private String encodingKey(String deviceId) {
+        PrinterProfile profile = profiles.get(deviceId);
+        if (profile == null) {
+            return "";
         }
+        return profile.getDotsPerLine() + "/" + profile.hasNativeQr() + "/" + profile.getCodeTable();
     }
 
-    private void validateQRCodeData(String qrData) throws PrinterException {
-        if (qrData == null || qrData.trim().isEmpty()) {
-            throw new PrinterException("QR code data cannot be null or empty.");
+    // Printers without a profile get the configured encoder
+    private EscPosEncoder encoderFor(String deviceId) {
+        PrinterProfile profile = profiles.get(deviceId);
+        if (profile == null) {
+            return encoder;
         }
+        return deviceEncoders.computeIfAbsent(deviceId,
+                id -> new EscPosEncoder(profile.getDotsPerLine(), profile.hasNativeQr(), profile.getCodeTable()));
+    }
 
-        // Check for maximum QR code data length (typical limit is around 2953 bytes for alphanumeric)
-        if (qrData.length() > 2900) {
-            throw new PrinterException("QR code data is too long. Maximum length is approximately 2900 characters.");
+    /**
+     * Waits out the transfer's allowance, extended for as long as the transport keeps reporting progress: a
+     * paced transfer to a printer slower than its profile says is slow, not stuck.
+     */
+    private static boolean awaitTransfer(CountDownLatch latch, long timeoutMs, AtomicLong lastProgressAt) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (true) {
+            long remaining = deadline - System.nanoTime();
+            if (latch.await(Math.max(0, remaining), TimeUnit.NANOSECONDS)) {
+                return true;
+            }
+            long progressAt = lastProgressAt.get();
+            long idleDeadline = progressAt + TimeUnit.SECONDS.toNanos(CONNECTION_TIMEOUT_SECONDS);
+            if (progressAt == 0 || idleDeadline - System.nanoTime() <= 0) {
+                return false;
+            }
+            deadline = idleDeadline;
         }
     }
 
-    private QRSettings determineQRSettings(int dataLength) {
-        // Determine appropriate QR code size and error correction based on data length
-        int size = 6; // Default module size
-        int errorCorrectionLevel = 48; // Default error correction level (L = 48, M = 49, Q = 50, H = 51)
+    private long transferTimeoutMs(String deviceId, int bytes) {
+        PrinterProfile profile = profiles.get(deviceId);
+        long transferMs = profile != null ? bytes * 1000L / profile.getBytesPerSecond() : 0;
+        return CONNECTION_TIMEOUT_SECONDS * 1000L + transferMs;
+    }
 
-        if (dataLength > 1000) {
-            size = 4; // Smaller size for longer data
-            errorCorrectionLevel = 48; // Lower error correction for more data capacity
-        } else if (dataLength > 500) {
-            size = 5;
-            errorCorrectionLevel = 49; // Medium error correction
-        } else {
-            size = 6;
-            errorCorrectionLevel = 50; // Higher error correction for short data
+    private void emit(PrintJob job, PrintJobEvent.State state, long bytesSent, String error) {
+        if (job.isFinished()) {
+            // Late callback from a transfer abandoned by a cancel
+            return;
         }
-
-        return new QRSettings(size, errorCorrectionLevel);
+        emit(job.jobId, job.deviceId, job.attempt, state, bytesSent, job.totalBytes, error);
     }
 
-    // Additional utility methods
-    public void feedPaper(int lines) throws PrinterException {
-        if (!isPrinting.compareAndSet(false, true)) {
-            throw new PrinterException("Another print operation is already in progress.");
+    private void emitSent(PrintJob job, long bytesSaved) {
+        if (!job.isFinished()) {
+            emit(new PrintJobEvent(job.jobId, job.deviceId, PrintJobEvent.State.SENT, job.attempt, job.totalBytes, job.totalBytes, null, bytesSaved));
         }
-        try {
-            if (printing == null) {
-                throw new PrinterException("No printer connected. Please connect to a printer first.");
-            }
+    }
 
-            ArrayList<Printable> printables = new ArrayList<>();
-            addLineFeed(lines, printables);
-            executePrintJob(printables);
-        } finally {
-            isPrinting.set(false);
+    private void emit(String jobId, String deviceId, int attempt, PrintJobEvent.State state, long bytesSent, long totalBytes, String error) {
+        if (jobId == null || jobListeners.isEmpty()) {
+            return;
         }
+        emit(new PrintJobEvent(jobId, deviceId, state, attempt, bytesSent, totalBytes, error));
     }
 
-    public void cutPaper() throws PrinterException {
-        if (!isPrinting.compareAndSet(false, true)) {
-            throw new PrinterException("Another print operation is already in progress.");
+    private void emit(PrintJobEvent event) {
+        if (event.getJobId() == null || jobListeners.isEmpty()) {
+            return;
         }
-        try {
-            if (printing == null) {
-                throw new PrinterException("No printer connected. Please connect to a printer first.");
+        for (PrintJobListener listener : jobListeners) {
+            try {
+                listener.onPrintJobEvent(event);
+            } catch (Exception e) {
+                Logger.e(TAG, "Print job listener failed", e);
             }
+        }
+    }
 
-            ArrayList<Printable> printables = new ArrayList<>();
-            // Full cut command
-            printables.add(new RawPrintable.Builder(new byte[] { 0x1D, 0x56, 0x00 }).build());
-            executePrintJob(printables);
-        } finally {
-            isPrinting.set(false);
+    private void recordTransfer(PrintJob job, long sendStart, long connectedAt, int bytes) {
+        long transferStart = sendStart;
+        if (connectedAt != 0) {
+            job.metrics.recordNanos(PrinterMetrics.Phase.CONNECT, connectedAt - sendStart);
+            transferStart = connectedAt;
         }
+        long now = job.metrics.record(PrinterMetrics.Phase.TRANSFER, transferStart);
+        job.metrics.recordBytesSent(bytes);
+        queueFor(job.deviceId).recordTransfer(bytes, now - transferStart);
     }
 
-    public void partialCutPaper() throws PrinterException {
-        if (!isPrinting.compareAndSet(false, true)) {
-            throw new PrinterException("Another print operation is already in progress.");
+    /**
+     * Feed, cut and drawer commands go to the printer in use, through the same queue as print jobs.
+     * They are timed, but have no job ID and so no lifecycle events.
+     */
+    private void runPrinterCommand(byte[] command, JobPriority priority) throws PrinterException {
+        Link link = lastUsedLink;
+        PrinterConnection connection = link != null ? link.currentConnection() : null;
+        if (connection == null) {
+            throw new PrinterException("No printer connected. Please connect to a printer first.");
         }
-        try {
-            if (printing == null) {
-                throw new PrinterException("No printer connected. Please connect to a printer first.");
-            }
+        PrintJob job = new PrintJob(null, connection.deviceName, connection.deviceId, priority,
+                metrics.device(connection.deviceId), Collections.singletonList(command));
+        link.scheduler.submit(job);
+        job.await();
+    }
 
-            ArrayList<Printable> printables = new ArrayList<>();
-            // Partial cut command
-            printables.add(new RawPrintable.Builder(new byte[] { 0x1D, 0x56, 0x01 }).build());
-            executePrintJob(printables);
-        } finally {
-            isPrinting.set(false);
+    public void disconnectPrinter(String deviceId) throws PrinterException {
+        Link link = existingLink(deviceId);
+        if (link != null) {
+            link.disconnect(deviceId);
+        } else {
+            Logger.w(TAG, "Printer not connected or different device: {}", deviceId);
         }
     }
 
-    public void openCashDrawer() throws PrinterException {
-        if (!isPrinting.compareAndSet(false, true)) {
-            throw new PrinterException("Another print operation is already in progress.");
+    public boolean isConnected(String deviceId) {
+        Link link = existingLink(deviceId);
+        return link != null && link.isConnected(deviceId);
+    }
+
+    // Opens the printer's link on first use
+    private Link linkFor(String deviceId) throws PrinterException {
+        if (transportFactory == null) {
+            return sharedLink;
         }
-        try {
-            if (printing == null) {
-                throw new PrinterException("No printer connected. Please connect to a printer first.");
+        if (deviceId == null || deviceId.trim().isEmpty()) {
+            throw new PrinterException("Device name and ID are required.");
+        }
+        String key = deviceKey(deviceId);
+        synchronized (deviceLinks) {
+            Link link = deviceLinks.get(key);
+            if (link == null) {
+                if (shutDown) {
+                    throw new PrinterException("Printer service has been shut down.");
+                }
+                link = new Link(transportFactory.create());
+                deviceLinks.put(key, link);
             }
+            return link;
+        }
+    }
 
-            ArrayList<Printable> printables = new ArrayList<>();
-            // Cash drawer kick command (standard ESC/POS)
-            printables.add(new RawPrintable.Builder(new byte[] { 0x1B, 0x70, 0x00, 0x19, (byte) 0xFA }).build());
-            executePrintJob(printables);
-        } finally {
-            isPrinting.set(false);
+    private Link existingLink(String deviceId) {
+        if (transportFactory == null) {
+            return sharedLink;
+        }
+        return deviceId != null ? deviceLinks.get(deviceKey(deviceId)) : null;
+    }
+
+    private PrinterQueue queueFor(String deviceId) {
+        String key = deviceId != null ? deviceKey(deviceId) : "";
+        PrinterQueue queue = queues.get(key);
+        return queue != null ? queue : queues.computeIfAbsent(key, k -> new PrinterQueue());
+    }
+
+    private Collection<Link> links() {
+        return transportFactory == null ? Collections.singletonList(sharedLink) : deviceLinks.values();
+    }
+
+    private void validateQRCodeData(String qrData) throws PrinterException {
+        if (qrData == null || qrData.trim().isEmpty()) {
+            throw new PrinterException("QR code data cannot be null or empty.");
         }
+        // The length limit depends on the symbol that fits the paper; the encoder checks it
+    }
+
+    // Additional utility methods
+    public void feedPaper(int lines) throws PrinterException {
+        runPrinterCommand(encoder.encodeLineFeed(lines), JobPriority.NORMAL);
+    }
+
+    public void cutPaper() throws PrinterException {
+        runPrinterCommand(encoder.encodeCut(false), JobPriority.NORMAL);
+    }
+
+    public void partialCutPaper() throws PrinterException {
+        runPrinterCommand(encoder.encodeCut(true), JobPriority.NORMAL);
+    }
+
+    // The drawer opens ahead of anything queued: the cashier is waiting on it, not on the paper
+    public void openCashDrawer() throws PrinterException {
+        runPrinterCommand(encoder.encodeCashDrawerKick(), JobPriority.URGENT);
     }
 
     public void cleanup() {
-        connectionLock.writeLock().lock();
-        try {
-            if (currentPrinterKey != null) {
-                disconnectCurrentPrinter();
-            }
-            printerConnections.clear();
-            isPrinting.set(false);
-        } finally {
-            connectionLock.writeLock().unlock();
+        synchronized (deviceLinks) {
+            shutDown = true;
+        }
+        for (Link link : links()) {
+            link.shutdown();
         }
+        deviceLinks.clear();
+        workExecutor.shutdownNow();
+        preparedJobs.clear();
+        spool.close();
+        reprints.close();
         Logger.d(TAG, "Printer service cleaned up.");
     }
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.ahmed.plugin.printerbridge.services;
+
+import com.ahmed.plugin.printerbridge.models.PrinterStatus;
+
+/**
+ * Receives a printer's status whenever its condition changes. Called on the transport's reader thread or on
+ * the dispatch thread, so implementations must be quick and must not block.
+ */
+public interface PrinterStatusListener {
+    void onPrinterStatusChanged(PrinterStatus status);
+}
@@ -0,0 +1,65 @@
+package com.ahmed.plugin.printerbridge.spool;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-durable {@link SpoolStore}, used when no persistent store is configured. Survives a service restart
+ * within the same process, which is also what the JVM tests rely on.
+ */
+public class MemorySpoolStore implements SpoolStore {
+    private final ConcurrentHashMap<String, SpoolEntry> entries = new ConcurrentHashMap<>();
+    private final AtomicInteger writes = new AtomicInteger();
+    private final AtomicInteger deleteBatches = new AtomicInteger();
+    private volatile List<String> index;
+
+    @Override
+    public void write(SpoolEntry entry) {
+        writes.incrementAndGet();
+        entries.put(entry.getJobId(), entry);
+    }
+
+    @Override
+    public void delete(Collection<String> jobIds) {
+        deleteBatches.incrementAndGet();
+        for (String jobId : jobIds) {
+            entries.remove(jobId);
+        }
+    }
+
+    @Override
+    public List<SpoolEntry> readAll() {
+        return new ArrayList<>(entries.values());
+    }
+
+    @Override
+    public SpoolEntry read(String jobId) {
+        return entries.get(jobId);
+    }
+
+    @Override
+    public void writeIndex(List<String> jobIds) {
+        index = new ArrayList<>(jobIds);
+    }
+
+    @Override
+    public List<String> readIndex() {
+        List<String> current = index;
+        return current != null ? new ArrayList<>(current) : null;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int getWriteCount() {
+        return writes.get();
+    }
+
+    public int getDeleteBatchCount() {
+        return deleteBatches.get();
+    }
+}
@@ -0,0 +1,119 @@
+package com.ahmed.plugin.printerbridge.spool;
+
+import com.ahmed.plugin.printerbridge.utils.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import io.paperdb.Book;
+import io.paperdb.Paper;
+
+/**
+ * {@link SpoolStore} on Paper: one key per job in a dedicated book. Paper writes each key to its own file
+ * through a backup file, so a write interrupted by a crash leaves the previous state readable. Keys are
+ * hashes of the job ids, which may hold characters a file name cannot; the job id itself is kept in the entry.
+ * Requires {@code Paper.init} to have been called.
+ */
+public class PaperSpoolStore implements SpoolStore {
+    private static final String TAG = "PaperSpoolStore";
+    private static final String BOOK_NAME = "printer_bridge_spool";
+    // Not a hex hash, so no job's key can be this
+    private static final String INDEX_KEY = "index";
+
+    private final Book book;
+
+    public PaperSpoolStore() {
+        this(BOOK_NAME);
+    }
+
+    /** A store in its own book, for entries kept apart from the spool. */
+    public PaperSpoolStore(String bookName) {
+        this.book = Paper.book(bookName);
+    }
+
+    @Override
+    public void write(SpoolEntry entry) {
+        book.write(key(entry.getJobId()), entry);
+    }
+
+    @Override
+    public void delete(Collection<String> jobIds) {
+        for (String jobId : jobIds) {
+            book.delete(key(jobId));
+        }
+    }
+
+    @Override
+    public SpoolEntry read(String jobId) {
+        try {
+            return book.read(key(jobId));
+        } catch (Exception e) {
+            Logger.w(TAG, "Dropping unreadable spool entry {}", jobId);
+            book.delete(key(jobId));
+            return null;
+        }
+    }
+
+    @Override
+    public List<SpoolEntry> readAll() {
+        List<SpoolEntry> entries = new ArrayList<>();
+        for (String key : book.getAllKeys()) {
+            if (INDEX_KEY.equals(key)) {
+                continue;
+            }
+            try {
+                SpoolEntry entry = book.read(key);
+                if (entry == null) {
+                    continue;
+                }
+                // Entries from before keys were hashed move to their hashed key, so delete() finds them
+                String hashed = key(entry.getJobId());
+                if (!hashed.equals(key)) {
+                    book.write(hashed, entry);
+                    book.delete(key);
+                }
+                entries.add(entry);
+            } catch (Exception e) {
+                // A half-written or incompatible entry must not block the rest of the spool
+                Logger.w(TAG, "Dropping unreadable spool entry {}", key);
+                book.delete(key);
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public void writeIndex(List<String> jobIds) {
+        book.write(INDEX_KEY, new ArrayList<>(jobIds));
+    }
+
+    @Override
+    public List<String> readIndex() {
+        try {
+            return book.read(INDEX_KEY);
+        } catch (Exception e) {
+            Logger.w(TAG, "Dropping unreadable spool index");
+            book.delete(INDEX_KEY);
+            return null;
+        }
+    }
+
+    /** The Paper key, and so the file name, {@code jobId} is stored under. */
+    static String key(String jobId) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(jobId.getBytes(StandardCharsets.UTF_8));
+            StringBuilder key = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                key.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
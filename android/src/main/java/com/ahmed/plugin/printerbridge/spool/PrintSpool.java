@@ -0,0 +1,122 @@
+package com.ahmed.plugin.printerbridge.spool;
+
+import com.ahmed.plugin.printerbridge.utils.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-ahead spool for print jobs. A job's encoded bytes are persisted before they are handed to the
+ * transport, so a job interrupted by the app being killed can be replayed at the next start.
+ * <p>
+ * Finished jobs are not deleted one by one: they are collected and removed from the store in batches,
+ * once {@link #COMPACTION_BATCH_SIZE} have finished or {@link #COMPACTION_DELAY_MS} after the last one.
+ * Replay is therefore at-least-once: a job that finished within that window before a crash is sent again.
+ */
+public class PrintSpool {
+    private static final String TAG = "PrintSpool";
+    static final int COMPACTION_BATCH_SIZE = 16;
+    static final long COMPACTION_DELAY_MS = 1000;
+    // Receipts older than this are not worth printing anymore after a restart
+    static final long MAX_REPLAY_AGE_MS = TimeUnit.MINUTES.toMillis(30);
+
+    private final SpoolStore store;
+    private final Set<String> finished = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "printer-spool-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ScheduledFuture<?> pendingCompaction;
+
+    public PrintSpool(SpoolStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Persists an accepted job. A failing store is logged and the job goes out unspooled: losing crash
+     * safety for one receipt is better than refusing to print it.
+     */
+    public boolean append(SpoolEntry entry) {
+        try {
+            store.write(entry);
+            return true;
+        } catch (Exception e) {
+            Logger.e(TAG, "Failed to spool job {}", entry.getJobId(), e);
+            return false;
+        }
+    }
+
+    /** Marks a job as done (delivered or failed for good); it is removed with the next compaction. */
+    public void finish(String jobId) {
+        finished.add(jobId);
+        synchronized (this) {
+            if (compactor.isShutdown()) {
+                return;
+            }
+            if (pendingCompaction != null) {
+                pendingCompaction.cancel(false);
+            }
+            long delay = finished.size() >= COMPACTION_BATCH_SIZE ? 0 : COMPACTION_DELAY_MS;
+            pendingCompaction = compactor.schedule(this::compact, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Jobs that were accepted but never finished, oldest first. Stale entries are discarded. */
+    public List<SpoolEntry> recover() {
+        List<SpoolEntry> pending = new ArrayList<>();
+        List<String> stale = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        try {
+            for (SpoolEntry entry : store.readAll()) {
+                if (finished.contains(entry.getJobId())) {
+                    continue;
+                }
+                if (now - entry.getCreatedAt() > MAX_REPLAY_AGE_MS || entry.getData() == null) {
+                    stale.add(entry.getJobId());
+                } else {
+                    pending.add(entry);
+                }
+            }
+            if (!stale.isEmpty()) {
+                Logger.w(TAG, "Discarding {} stale spooled jobs", stale.size());
+                store.delete(stale);
+            }
+        } catch (Exception e) {
+            Logger.e(TAG, "Failed to read the print spool", e);
+            return Collections.emptyList();
+        }
+        Collections.sort(pending, (a, b) -> Long.compare(a.getCreatedAt(), b.getCreatedAt()));
+        return pending;
+    }
+
+    /** Removes all finished jobs from the store in one batch. */
+    public synchronized void compact() {
+        if (finished.isEmpty()) {
+            return;
+        }
+        List<String> batch = new ArrayList<>(finished);
+        try {
+            store.delete(batch);
+            finished.removeAll(batch);
+            Logger.d(TAG, "Compacted {} finished jobs", batch.size());
+        } catch (Exception e) {
+            Logger.e(TAG, "Spool compaction failed", e);
+        }
+    }
+
+    /** Flushes pending compaction; the spool must not be used afterwards. */
+    public void close() {
+        synchronized (this) {
+            compactor.shutdownNow();
+        }
+        compact();
+    }
+}
@@ -0,0 +1,280 @@
+package com.ahmed.plugin.printerbridge.spool;
+
+import com.ahmed.plugin.printerbridge.utils.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The jobs delivered most recently, as encoded, so a reprint or a customer copy goes out without being
+ * encoded again. The newest are kept in memory within an entry and a byte limit. Older ones spill to an
+ * optional {@link SpoolStore}, which also keeps them across restarts.
+ * <p>
+ * The store is only written on a background thread, so keeping a job never waits on the disk. What the store
+ * holds is listed in an index kept next to the entries; it is read in the background on first use, not at
+ * construction, and a reprint waits for it only if the job is not in memory.
+ */
+public class ReprintCache {
+    private static final String TAG = "ReprintCache";
+    public static final int DEFAULT_MAX_ENTRIES = 20;
+    public static final int DEFAULT_MAX_BYTES = 512 * 1024;
+    public static final int DEFAULT_MAX_STORED_ENTRIES = 100;
+
+    private final int maxEntries;
+    private final int maxBytes;
+    private final SpoolStore store;
+    private final int maxStoredEntries;
+    // Null without a store
+    private final ExecutorService spiller;
+    // Access order, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, SpoolEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private int bytes;
+    // Pushed out of memory and not yet written to the store
+    private final Map<String, SpoolEntry> spilling = new LinkedHashMap<>();
+    // Jobs in the store, oldest first; only complete once loading is done
+    private final LinkedHashSet<String> stored = new LinkedHashSet<>();
+    private Future<?> loading;
+
+    /** Memory only, with the default limits. */
+    public ReprintCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES, null, 0);
+    }
+
+    /** Spilling to {@code store}, with the default limits. */
+    public ReprintCache(SpoolStore store) {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES, store, DEFAULT_MAX_STORED_ENTRIES);
+    }
+
+    /**
+     * @param store where jobs pushed out of memory go; null to drop them
+     * @param maxStoredEntries jobs kept in {@code store}; the oldest are deleted beyond that
+     */
+    public ReprintCache(int maxEntries, int maxBytes, SpoolStore store, int maxStoredEntries) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.store = maxStoredEntries > 0 ? store : null;
+        this.maxStoredEntries = maxStoredEntries;
+        this.spiller = this.store == null ? null : Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "printer-reprints");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Keeps a delivered job; {@code entry}'s data must not be modified afterwards. Does not touch the store. */
+    public void put(SpoolEntry entry) {
+        List<SpoolEntry> evicted = new ArrayList<>();
+        synchronized (this) {
+            startLoading();
+            SpoolEntry previous = entries.put(entry.getJobId(), entry);
+            if (previous != null) {
+                bytes -= previous.getData().length;
+            }
+            bytes += entry.getData().length;
+            Iterator<Map.Entry<String, SpoolEntry>> eldest = entries.entrySet().iterator();
+            while ((entries.size() > maxEntries || bytes > maxBytes) && entries.size() > 1) {
+                SpoolEntry next = eldest.next().getValue();
+                bytes -= next.getData().length;
+                eldest.remove();
+                if (spiller != null) {
+                    spilling.put(next.getJobId(), next);
+                    evicted.add(next);
+                }
+            }
+        }
+        if (!evicted.isEmpty()) {
+            submit(() -> spill(evicted));
+        }
+    }
+
+    /** The job delivered as {@code jobId}, or null if it was never delivered or has been dropped since. */
+    public SpoolEntry get(String jobId) {
+        Future<?> index;
+        synchronized (this) {
+            SpoolEntry entry = entries.get(jobId);
+            if (entry == null) {
+                entry = spilling.get(jobId);
+            }
+            if (entry != null || spiller == null) {
+                return entry;
+            }
+            startLoading();
+            index = loading;
+        }
+        awaitQuietly(index);
+        synchronized (this) {
+            SpoolEntry entry = spilling.get(jobId);
+            if (entry != null || !stored.contains(jobId)) {
+                return entry;
+            }
+        }
+        SpoolEntry entry = null;
+        try {
+            entry = store.read(jobId);
+        } catch (Exception e) {
+            Logger.w(TAG, "Failed to read job {} for reprint: {}", jobId, e.getMessage());
+        }
+        if (entry == null) {
+            synchronized (this) {
+                stored.remove(jobId);
+            }
+        }
+        return entry;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /** Waits until every job pushed out of memory so far is in the store. */
+    void flush() {
+        if (spiller != null) {
+            try {
+                awaitQuietly(spiller.submit(() -> { }));
+            } catch (RejectedExecutionException e) {
+                // Closed: close() already waited
+            }
+        }
+    }
+
+    /** Writes out what is still pending; the cache must not be used afterwards. */
+    public void close() {
+        if (spiller == null) {
+            return;
+        }
+        spiller.shutdown();
+        try {
+            spiller.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Called with the lock held; the executor runs the load before any spill submitted after it
+    private void startLoading() {
+        if (loading == null && spiller != null) {
+            try {
+                loading = spiller.submit(this::load);
+            } catch (RejectedExecutionException e) {
+                Logger.w(TAG, "Reprint cache is closed; kept jobs are not listed");
+            }
+        }
+    }
+
+    private void submit(Runnable task) {
+        try {
+            spiller.execute(task);
+        } catch (RejectedExecutionException e) {
+            Logger.w(TAG, "Reprint cache is closed; not keeping older jobs");
+        }
+    }
+
+    // On the spiller thread. Drops come first and the new jobs last, so a kill in between leaves the index
+    // naming a job that is gone, which get() copes with, rather than a file the index no longer names.
+    private void spill(List<SpoolEntry> evicted) {
+        List<String> dropped;
+        List<String> index;
+        synchronized (this) {
+            for (SpoolEntry entry : evicted) {
+                stored.remove(entry.getJobId());
+                stored.add(entry.getJobId());
+            }
+            dropped = trimStored();
+            index = new ArrayList<>(stored);
+        }
+        try {
+            if (!dropped.isEmpty()) {
+                store.delete(dropped);
+            }
+            store.writeIndex(index);
+            for (SpoolEntry entry : evicted) {
+                store.write(entry);
+            }
+        } catch (Exception e) {
+            Logger.w(TAG, "Failed to keep {} jobs for reprint: {}", evicted.size(), e.getMessage());
+            synchronized (this) {
+                for (SpoolEntry entry : evicted) {
+                    stored.remove(entry.getJobId());
+                }
+            }
+        } finally {
+            synchronized (this) {
+                for (SpoolEntry entry : evicted) {
+                    spilling.remove(entry.getJobId(), entry);
+                }
+            }
+        }
+    }
+
+    // On the spiller thread: lists what the store kept from earlier sessions, oldest first
+    private void load() {
+        List<String> kept;
+        try {
+            kept = store.readIndex();
+            if (kept == null) {
+                // A store written before the index existed; read once, then indexed from here on
+                List<SpoolEntry> entries = new ArrayList<>(store.readAll());
+                Collections.sort(entries, Comparator.comparingLong(SpoolEntry::getCreatedAt));
+                kept = new ArrayList<>();
+                for (SpoolEntry entry : entries) {
+                    kept.add(entry.getJobId());
+                }
+            }
+        } catch (Exception e) {
+            Logger.w(TAG, "Failed to read kept jobs for reprint: {}", e.getMessage());
+            return;
+        }
+        List<String> dropped;
+        List<String> index;
+        synchronized (this) {
+            // Runs before any spill, so nothing is listed yet
+            stored.addAll(kept);
+            dropped = trimStored();
+            index = new ArrayList<>(stored);
+        }
+        try {
+            if (!dropped.isEmpty()) {
+                store.delete(dropped);
+            }
+            store.writeIndex(index);
+        } catch (Exception e) {
+            Logger.w(TAG, "Failed to drop {} kept jobs: {}", dropped.size(), e.getMessage());
+        }
+    }
+
+    // Called with the lock held
+    private List<String> trimStored() {
+        List<String> dropped = new ArrayList<>();
+        Iterator<String> eldest = stored.iterator();
+        while (stored.size() > maxStoredEntries) {
+            dropped.add(eldest.next());
+            eldest.remove();
+        }
+        return dropped;
+    }
+
+    private static void awaitQuietly(Future<?> task) {
+        if (task == null) {
+            return;
+        }
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Logger.w(TAG, "Reprint store task failed: {}", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.ahmed.plugin.printerbridge.spool;
+
+/**
+ * An accepted print job as persisted in the spool: the encoded ESC/POS bytes plus what is needed to send
+ * them again after a restart. Serialized field by field by Paper, so fields must not be renamed.
+ */
+public class SpoolEntry {
+    private String jobId;
+    private String deviceName;
+    private String deviceId;
+    private byte[] data;
+    private long createdAt;
+
+    // Required by Paper (Kryo) for deserialization
+    @SuppressWarnings("unused")
+    private SpoolEntry() {
+    }
+
+    public SpoolEntry(String jobId, String deviceName, String deviceId, byte[] data) {
+        this.jobId = jobId;
+        this.deviceName = deviceName;
+        this.deviceId = deviceId;
+        this.data = data;
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public String getDeviceName() {
+        return deviceName;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+}
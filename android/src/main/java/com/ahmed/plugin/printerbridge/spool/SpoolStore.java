@@ -0,0 +1,30 @@
+package com.ahmed.plugin.printerbridge.spool;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Durable storage behind {@link PrintSpool}. {@link #write} must not return before the entry is on disk.
+ */
+public interface SpoolStore {
+    void write(SpoolEntry entry);
+
+    void delete(Collection<String> jobIds);
+
+    List<SpoolEntry> readAll();
+
+    /** The entry stored under {@code jobId}, or null. */
+    SpoolEntry read(String jobId);
+
+    /**
+     * Keeps a list of job IDs next to the entries, so they can be listed without reading every entry.
+     * Stores that keep no such list ignore it.
+     */
+    default void writeIndex(List<String> jobIds) {
+    }
+
+    /** The list last given to {@link #writeIndex}, or null if there is none. */
+    default List<String> readIndex() {
+        return null;
+    }
+}
@@ -0,0 +1,123 @@
+package com.ahmed.plugin.printerbridge.transport;
+
+/**
+ * Paces writes to one printer so its receive buffer never overflows. The buffer is modelled as a leaky bucket
+ * drained at {@link #getRate()}: up to three quarters of it may be filled at once, after that each write waits
+ * for the estimated room. The rate is learned AIMD-style from status checkpoints. A real-time request is only
+ * taken in once the printer has buffer space for it, so a slow answer means the buffer was full: rate and
+ * write size are halved. A quick answer raises the rate by a fixed step and the write size by
+ * {@link #MIN_CHUNK_BYTES}. Times are passed in, in nanoseconds, so the model can be driven by tests.
+ */
+final class FlowControl {
+    static final int MIN_CHUNK_BYTES = 64;
+    // A checkpoint answered later than this waited for buffer space
+    static final long CONGESTED_RTT_NANOS = 200_000_000L;
+    // Increase step and bounds, as fractions of the profile's rate
+    private static final int INCREASE_DIVISOR = 16;
+    private static final int MIN_RATE_DIVISOR = 4;
+    private static final int MAX_RATE_MULTIPLIER = 2;
+    // Weight of the newest sample in the measured drain rate
+    private static final double DRAIN_SMOOTHING = 0.25;
+
+    private final int bufferBytes;
+    private final int profileRate;
+    // Bytes allowed in the printer's buffer at once; the rest is headroom for estimation errors
+    private final int budget;
+    private final int maxChunk;
+    private final boolean checkpoints;
+
+    private double rate;
+    private int chunk;
+    private double fill;
+    private long lastUpdate = -1;
+    private long bytesSinceCheckpoint;
+    private long lastCheckpoint = -1;
+    private double measuredRate;
+
+    /**
+     * @param bufferBytes size of the printer's receive buffer
+     * @param bytesPerSecond rate the printer is expected to take data at
+     * @param checkpoints whether the printer answers real-time status requests; without them the rate is
+     * never adjusted
+     */
+    FlowControl(int bufferBytes, int bytesPerSecond, boolean checkpoints) {
+        this.bufferBytes = bufferBytes;
+        this.profileRate = bytesPerSecond;
+        this.budget = bufferBytes * 3 / 4;
+        this.maxChunk = Math.max(MIN_CHUNK_BYTES, budget / 2);
+        this.checkpoints = checkpoints;
+        this.rate = bytesPerSecond;
+        this.chunk = Math.max(MIN_CHUNK_BYTES, budget / 4);
+    }
+
+    /** Whether this was built for the same printer parameters. */
+    boolean matches(int bufferBytes, int bytesPerSecond, boolean checkpoints) {
+        return this.bufferBytes == bufferBytes && this.profileRate == bytesPerSecond && this.checkpoints == checkpoints;
+    }
+
+    /** Size of the next write. */
+    int chunkBytes() {
+        return chunk;
+    }
+
+    /** Pacing rate in bytes per second. */
+    double getRate() {
+        return rate;
+    }
+
+    /** Rate the printer was seen to take data at over the recent checkpoints; 0 before the first. */
+    double getMeasuredRate() {
+        return measuredRate;
+    }
+
+    /** How long to wait before writing {@code bytes}, so the buffer has room for them. */
+    long delayNanos(int bytes, long now) {
+        drain(now);
+        double excess = fill + bytes - budget;
+        return excess > 0 ? (long) (excess * 1_000_000_000L / rate) : 0;
+    }
+
+    void onWritten(int bytes, long now) {
+        drain(now);
+        fill += bytes;
+        bytesSinceCheckpoint += bytes;
+        if (lastCheckpoint < 0) {
+            lastCheckpoint = now;
+        }
+    }
+
+    /** Whether a buffer's worth has gone out since the last checkpoint. */
+    boolean checkpointDue() {
+        return checkpoints && bytesSinceCheckpoint >= budget;
+    }
+
+    /**
+     * @param answered whether the printer answered before the query timed out
+     * @param roundTripNanos time from writing the request to the answer
+     */
+    void onCheckpoint(boolean answered, long roundTripNanos, long now) {
+        if (lastCheckpoint >= 0 && now > lastCheckpoint) {
+            double sample = bytesSinceCheckpoint * 1_000_000_000.0 / (now - lastCheckpoint);
+            measuredRate = measuredRate == 0 ? sample : measuredRate + DRAIN_SMOOTHING * (sample - measuredRate);
+        }
+        bytesSinceCheckpoint = 0;
+        lastCheckpoint = now;
+        drain(now);
+        if (!answered || roundTripNanos > CONGESTED_RTT_NANOS) {
+            rate = Math.max((double) profileRate / MIN_RATE_DIVISOR, rate / 2);
+            chunk = Math.max(MIN_CHUNK_BYTES, chunk / 2);
+            // It was full a moment ago
+            fill = budget;
+        } else {
+            rate = Math.min((double) profileRate * MAX_RATE_MULTIPLIER, rate + (double) profileRate / INCREASE_DIVISOR);
+            chunk = Math.min(maxChunk, chunk + MIN_CHUNK_BYTES);
+        }
+    }
+
+    private void drain(long now) {
+        if (lastUpdate >= 0 && now > lastUpdate) {
+            fill = Math.max(0, fill - rate * (now - lastUpdate) / 1_000_000_000L);
+        }
+        lastUpdate = now;
+    }
+}
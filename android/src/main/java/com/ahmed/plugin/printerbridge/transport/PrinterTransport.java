@@ -0,0 +1,95 @@
+package com.ahmed.plugin.printerbridge.transport;
+
+import com.ahmed.plugin.printerbridge.exceptions.PrinterException;
+
+/**
+ * Moves encoded ESC/POS jobs to a printer. Completion is reported asynchronously through a {@link Callback},
+ * the same way the underlying Bluetooth printing libraries do.
+ */
+public interface PrinterTransport {
+
+    interface Callback {
+        void onConnecting();
+
+        /** The link to the printer is open and the job is about to be written. Not every transport can tell. */
+        default void onConnected() {
+        }
+
+        void onConnectionFailed(String message);
+
+        /** Part of the job has been written to the link. Transports that hand the job over in one piece never call this. */
+        default void onProgress(long bytesWritten, long totalBytes) {
+        }
+
+        void onError(String message);
+
+        void onMessage(String message);
+
+        void onSent();
+
+        void onDisconnected();
+    }
+
+    /** Receives the status frames a printer sends on its own once automatic status back is on. */
+    interface StatusListener {
+        /** Called on the transport's reader thread with one four-byte ASB frame; must not block. */
+        void onAutomaticStatus(String deviceId, byte[] frame);
+    }
+
+    /** Opens a transport per printer, for transports whose links to different printers are independent. */
+    interface Factory {
+        PrinterTransport create() throws PrinterException;
+    }
+
+    /** Selects the printer subsequent jobs are sent to. */
+    void connect(String deviceName, String deviceId) throws PrinterException;
+
+    /** Sends one complete job to the selected printer. */
+    void send(byte[] data, Callback callback) throws PrinterException;
+
+    /**
+     * Opens the link to {@code deviceId} ahead of its next job, for transports that keep links open between
+     * jobs. Does nothing while another printer is selected. Failures are left for the job itself to report.
+     */
+    default void preconnect(String deviceId) {
+    }
+
+    /** Releases the selected printer. */
+    void disconnect();
+
+    /** Releases the selected printer and any threads this transport runs. It is not used again afterwards. */
+    default void close() {
+        disconnect();
+    }
+
+    /**
+     * Writes {@code request} to the selected printer and reads its reply, up to and including {@code terminator}
+     * or until {@code maxBytes} have arrived. Only called between jobs, never while a job is being sent.
+     *
+     * @param terminator byte that ends the reply, or -1 for fixed-length replies
+     * @return the reply, cut short or empty if the printer did not answer in time; null if this transport cannot
+     * read from the printer
+     */
+    default byte[] query(byte[] request, int maxBytes, int terminator, long timeoutMs) throws PrinterException {
+        return null;
+    }
+
+    /**
+     * Tells the transport how fast the selected printer takes data, so writes to it can be paced to what its
+     * buffer holds. Transports that hand the whole job to a library ignore this.
+     *
+     * @param statusCheckpoints whether the printer answers real-time status requests, so the pace can be
+     * checked against it and adjusted
+     */
+    default void setFlowControl(int bufferBytes, int bytesPerSecond, boolean statusCheckpoints) {
+    }
+
+    /**
+     * Delivers automatic status frames from the selected printer to {@code listener} while the link is open.
+     *
+     * @return false if this transport cannot read from the printer, so no status will ever arrive
+     */
+    default boolean setStatusListener(StatusListener listener) {
+        return false;
+    }
+}
@@ -0,0 +1,97 @@
+package com.ahmed.plugin.printerbridge.transport;
+
+import android.content.Context;
+
+import com.ahmed.plugin.printerbridge.exceptions.PrinterException;
+import com.mazenrashed.printooth.Printooth;
+import com.mazenrashed.printooth.data.printable.Printable;
+import com.mazenrashed.printooth.data.printable.RawPrintable;
+import com.mazenrashed.printooth.utilities.Printing;
+import com.mazenrashed.printooth.utilities.PrintingCallback;
+
+import java.util.ArrayList;
+
+/**
+ * {@link PrinterTransport} on top of Printooth. Each job is handed over as a single raw printable.
+ */
+public class PrintoothTransport implements PrinterTransport {
+    // Set until Printooth has been initialized with it on the first connect
+    private Context context;
+    private Printing printing;
+
+    /** For a Printooth the caller has initialized. */
+    public PrintoothTransport() {
+    }
+
+    /** Initializes Printooth with {@code context} on the first connect, so an app that never prints does not pay for it. */
+    public PrintoothTransport(Context context) {
+        this.context = context;
+    }
+
+    @Override
+    public synchronized void connect(String deviceName, String deviceId) throws PrinterException {
+        if (context != null) {
+            Printooth.INSTANCE.init(context);
+            context = null;
+        }
+        Printooth.INSTANCE.setPrinter(deviceName, deviceId);
+        printing = Printooth.INSTANCE.printer();
+
+        if (printing == null) {
+            throw new PrinterException("Failed to initialize printer with Printooth.");
+        }
+    }
+
+    @Override
+    public synchronized void send(byte[] data, Callback callback) throws PrinterException {
+        if (printing == null) {
+            throw new PrinterException("Printer not initialized. Call connect first.");
+        }
+        ArrayList<Printable> printables = new ArrayList<>(1);
+        printables.add(new RawPrintable.Builder(data).build());
+        printing.setPrintingCallback(new PrintingCallback() {
+            @Override
+            public void connectingWithPrinter() {
+                callback.onConnecting();
+            }
+
+            @Override
+            public void connectionFailed(String message) {
+                callback.onConnectionFailed(message);
+            }
+
+            @Override
+            public void onError(String message) {
+                callback.onError(message);
+            }
+
+            @Override
+            public void onMessage(String message) {
+                callback.onMessage(message);
+            }
+
+            @Override
+            public void printingOrderSentSuccessfully() {
+                callback.onSent();
+            }
+
+            @Override
+            public void disconnected() {
+                callback.onDisconnected();
+            }
+        });
+        printing.print(printables);
+    }
+
+    @Override
+    public synchronized void disconnect() {
+        if (printing != null) {
+            printing.setPrintingCallback(null);
+            printing = null;
+        }
+        // Clear current printer from Printooth, unless it was never set up
+        if (context == null) {
+            Printooth.INSTANCE.removeCurrentPrinter();
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package com.ahmed.plugin.printerbridge.transport;
+
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothSocket;
+
+import com.ahmed.plugin.printerbridge.escpos.AsbFrameReader;
+import com.ahmed.plugin.printerbridge.escpos.EscPosCommands;
+import com.ahmed.plugin.printerbridge.escpos.EscPosStreamParser;
+import com.ahmed.plugin.printerbridge.exceptions.PrinterException;
+import com.ahmed.plugin.printerbridge.utils.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * {@link PrinterTransport} on a plain RFCOMM (serial port profile) socket. Unlike Printooth it keeps the
+ * link open between jobs, so back-to-back jobs skip the connect, and it can read the printer's replies.
+ * A reader thread per link takes everything the printer sends: replies go to the waiting {@link #query},
+ * automatic status frames to the {@link PrinterTransport.StatusListener}. Writes are paced per printer by a
+ * {@link FlowControl} once the printer's buffer size and rate are known.
+ */
+public class RfcommTransport implements PrinterTransport {
+    private static final String TAG = "RfcommTransport";
+    // Serial port profile service class
+    private static final UUID SPP_UUID = UUID.fromString("00001101-0000-1000-8000-00805F9B34FB");
+    // Written in pieces so progress can be reported; about one RFCOMM frame
+    private static final int WRITE_CHUNK_BYTES = 990;
+    private static final byte[] CHECKPOINT_REQUEST = EscPosCommands.realTimeStatus(1);
+    private static final long CHECKPOINT_TIMEOUT_MS = 1000;
+
+    private final BluetoothAdapter adapter;
+    // Jobs are written here so send() returns at once, like the other transports
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "printer-rfcomm");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Guards the socket and its streams
+    private final Object lock = new Object();
+    private volatile String deviceId;
+    private volatile BluetoothSocket socket;
+    private OutputStream output;
+    private volatile PendingReply pendingReply;
+    private volatile StatusListener statusListener;
+    // Learned pace per printer, kept across jobs and reconnects; only used on the writer thread
+    private final ConcurrentHashMap<String, FlowControl> flows = new ConcurrentHashMap<>();
+
+    // The reply a query is waiting for, filled in by the reader thread
+    private static final class PendingReply {
+        private final byte[] bytes;
+        private final int terminator;
+        private int length;
+        private boolean done;
+
+        PendingReply(int maxBytes, int terminator) {
+            this.bytes = new byte[maxBytes];
+            this.terminator = terminator;
+        }
+
+        synchronized boolean isOpen() {
+            return !done;
+        }
+
+        synchronized boolean isStarted() {
+            return length > 0;
+        }
+
+        synchronized void add(int b) {
+            if (done) {
+                return;
+            }
+            bytes[length++] = (byte) b;
+            if (length == bytes.length || b == terminator) {
+                done = true;
+                notifyAll();
+            }
+        }
+
+        synchronized byte[] await(long timeoutMs) throws InterruptedException {
+            long deadline = System.nanoTime() + timeoutMs * 1_000_000L;
+            long remainingMs = timeoutMs;
+            while (!done && remainingMs > 0) {
+                wait(remainingMs);
+                remainingMs = (deadline - System.nanoTime()) / 1_000_000L;
+            }
+            done = true;
+            return Arrays.copyOf(bytes, length);
+        }
+    }
+
+    public RfcommTransport() throws PrinterException {
+        this.adapter = BluetoothAdapter.getDefaultAdapter();
+        if (adapter == null) {
+            throw new PrinterException("Bluetooth is not supported on this device.");
+        }
+    }
+
+    @Override
+    public void connect(String deviceName, String deviceId) throws PrinterException {
+        if (deviceId == null || deviceId.trim().isEmpty()) {
+            throw new PrinterException("Device ID is required.");
+        }
+        synchronized (lock) {
+            if (!deviceId.equals(this.deviceId)) {
+                closeSocket();
+                this.deviceId = deviceId;
+            }
+        }
+    }
+
+    @Override
+    public void send(byte[] data, Callback callback) throws PrinterException {
+        if (deviceId == null) {
+            throw new PrinterException("Printer not initialized. Call connect first.");
+        }
+        writer.execute(() -> {
+            synchronized (lock) {
+                try {
+                    if (socket == null) {
+                        callback.onConnecting();
+                        open();
+                        callback.onConnected();
+                    }
+                    FlowControl flow = flows.get(deviceId);
+                    if (flow == null) {
+                        writeUnpaced(data, callback);
+                    } else {
+                        writePaced(data, flow, callback);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    closeSocket();
+                    callback.onConnectionFailed("Interrupted while sending.");
+                    return;
+                } catch (IOException e) {
+                    // Dropped link or failed connect alike: the next attempt starts from a fresh socket
+                    closeSocket();
+                    callback.onDisconnected();
+                    callback.onConnectionFailed(e.getMessage());
+                    return;
+                }
+            }
+            callback.onSent();
+        });
+    }
+
+    @Override
+    public void preconnect(String address) {
+        writer.execute(() -> {
+            synchronized (lock) {
+                if (socket != null || deviceId != null && !deviceId.equals(address)) {
+                    return;
+                }
+                deviceId = address;
+                try {
+                    open();
+                } catch (IOException e) {
+                    Logger.d(TAG, "Pre-connect to {} failed: {}", address, e.getMessage());
+                }
+            }
+        });
+    }
+
+    @Override
+    public void setFlowControl(int bufferBytes, int bytesPerSecond, boolean statusCheckpoints) {
+        String address = deviceId;
+        if (address == null || bufferBytes <= 0 || bytesPerSecond <= 0) {
+            return;
+        }
+        flows.compute(address, (id, current) -> current != null && current.matches(bufferBytes, bytesPerSecond, statusCheckpoints)
+                ? current
+                : new FlowControl(bufferBytes, bytesPerSecond, statusCheckpoints));
+    }
+
+    @Override
+    public byte[] query(byte[] request, int maxBytes, int terminator, long timeoutMs) throws PrinterException {
+        synchronized (lock) {
+            try {
+                if (socket == null) {
+                    open();
+                }
+                PendingReply reply = new PendingReply(maxBytes, terminator);
+                pendingReply = reply;
+                try {
+                    output.write(request);
+                    output.flush();
+                    return reply.await(timeoutMs);
+                } finally {
+                    pendingReply = null;
+                }
+            } catch (IOException e) {
+                closeSocket();
+                throw new PrinterException("Printer query failed: " + e.getMessage(), e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new PrinterException("Printer query was interrupted.");
+            }
+        }
+    }
+
+    @Override
+    public boolean setStatusListener(StatusListener listener) {
+        this.statusListener = listener;
+        return true;
+    }
+
+    @Override
+    public void disconnect() {
+        // Closing the socket first aborts a write in progress, which holds the lock
+        BluetoothSocket current = socket;
+        if (current != null) {
+            closeQuietly(current);
+        }
+        synchronized (lock) {
+            closeSocket();
+            deviceId = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        disconnect();
+        writer.shutdownNow();
+    }
+
+    // Called with the lock held
+    private void open() throws IOException {
+        String address = deviceId;
+        if (address == null) {
+            throw new IOException("No printer selected.");
+        }
+        BluetoothDevice device = adapter.getRemoteDevice(address);
+        if (device == null) {
+            throw new IOException("Unknown device " + address);
+        }
+        // An ongoing discovery slows the connect down considerably
+        adapter.cancelDiscovery();
+        BluetoothSocket newSocket = device.createRfcommSocketToServiceRecord(SPP_UUID);
+        try {
+            newSocket.connect();
+            startReader(newSocket.getInputStream(), address);
+            output = newSocket.getOutputStream();
+        } catch (IOException e) {
+            closeQuietly(newSocket);
+            throw e;
+        }
+        socket = newSocket;
+        Logger.d(TAG, "RFCOMM link open to {}", address);
+    }
+
+    // Called with the lock held
+    private void writeUnpaced(byte[] data, Callback callback) throws IOException {
+        for (int offset = 0; offset < data.length; offset += WRITE_CHUNK_BYTES) {
+            int length = Math.min(WRITE_CHUNK_BYTES, data.length - offset);
+            output.write(data, offset, length);
+            callback.onProgress(offset + length, data.length);
+        }
+        output.flush();
+    }
+
+    // Called with the lock held
+    private void writePaced(byte[] data, FlowControl flow, Callback callback) throws IOException, InterruptedException {
+        // A real-time request inside another command's parameters would be read as part of them
+        BitSet insideCommand = commandInteriors(data);
+        for (int offset = 0; offset < data.length; ) {
+            int length = Math.min(flow.chunkBytes(), data.length - offset);
+            long delay = flow.delayNanos(length, System.nanoTime());
+            if (delay > 0) {
+                Thread.sleep(delay / 1_000_000L, (int) (delay % 1_000_000L));
+            }
+            output.write(data, offset, length);
+            output.flush();
+            offset += length;
+            flow.onWritten(length, System.nanoTime());
+            callback.onProgress(offset, data.length);
+            if (flow.checkpointDue() && !insideCommand.get(offset)) {
+                checkpoint(flow);
+            }
+        }
+        Logger.d(TAG, "Paced at {} B/s, printer measured at {} B/s", (int) flow.getRate(), (int) flow.getMeasuredRate());
+    }
+
+    // Called with the lock held, between two commands
+    private void checkpoint(FlowControl flow) throws IOException, InterruptedException {
+        PendingReply reply = new PendingReply(1, -1);
+        pendingReply = reply;
+        try {
+            long start = System.nanoTime();
+            output.write(CHECKPOINT_REQUEST);
+            output.flush();
+            byte[] status = reply.await(CHECKPOINT_TIMEOUT_MS);
+            long now = System.nanoTime();
+            // Fixed bits 1 and 4 set, bits 0 and 7 clear, in every DLE EOT reply
+            flow.onCheckpoint(status.length == 1 && (status[0] & 0x93) == 0x12, now - start, now);
+        } finally {
+            pendingReply = null;
+        }
+    }
+
+    // Offsets that fall strictly inside a command; text runs may be split anywhere
+    private static BitSet commandInteriors(byte[] data) {
+        BitSet interiors = new BitSet(data.length);
+        for (EscPosStreamParser.Command command : new EscPosStreamParser().parse(data)) {
+            if (command.type != EscPosStreamParser.Type.TEXT && command.length > 1) {
+                interiors.set(command.offset + 1, command.offset + command.length);
+            }
+        }
+        return interiors;
+    }
+
+    // Runs until the socket closes, which makes the blocking read fail
+    private void startReader(InputStream input, String address) {
+        Thread reader = new Thread(() -> {
+            AsbFrameReader frames = new AsbFrameReader();
+            try {
+                int b;
+                while ((b = input.read()) >= 0) {
+                    PendingReply reply = pendingReply;
+                    // A status frame may arrive while a query waits, but not in the middle of its reply
+                    if (reply != null && reply.isOpen()
+                            && (reply.isStarted() || !frames.inFrame() && !AsbFrameReader.isFrameStart(b))) {
+                        reply.add(b);
+                        continue;
+                    }
+                    byte[] frame = frames.feed(b);
+                    StatusListener listener = statusListener;
+                    if (frame != null && listener != null) {
+                        listener.onAutomaticStatus(address, frame);
+                    }
+                }
+            } catch (IOException e) {
+                // Closed by disconnect() or a failed write, or the printer went away
+            }
+            Logger.d(TAG, "RFCOMM reader for {} stopped", address);
+        }, "printer-rfcomm-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    // Called with the lock held
+    private void closeSocket() {
+        if (socket != null) {
+            closeQuietly(socket);
+            socket = null;
+            output = null;
+        }
+    }
+
+    private static void closeQuietly(BluetoothSocket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            Logger.w(TAG, "Error closing RFCOMM socket: {}", e.getMessage());
+        }
+    }
+}
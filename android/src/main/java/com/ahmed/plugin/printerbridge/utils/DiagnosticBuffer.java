@@ -0,0 +1,125 @@
+package com.ahmed.plugin.printerbridge.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed-size, lock-free ring buffer of recent log events. Writers claim a slot with one atomic increment
+ * and store the raw pattern and arguments into preallocated slots; no formatting or string building happens
+ * until {@link #snapshot()} is called. The only allocation left to the caller is autoboxing of primitive
+ * arguments. Once full, the oldest events are overwritten.
+ */
+public class DiagnosticBuffer {
+
+    /** A formatted event, as returned by {@link #snapshot()}. */
+    public static class Record {
+        public final long sequence;
+        public final long timestamp;
+        public final int level;
+        public final String tag;
+        public final String thread;
+        public final String message;
+
+        Record(long sequence, long timestamp, int level, String tag, String thread, String message) {
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+            this.level = level;
+            this.tag = tag;
+            this.thread = thread;
+            this.message = message;
+        }
+    }
+
+    // Fields are volatile so a reader that sees the same sequence before and after copying a slot
+    // has read one consistent event (seqlock)
+    private static class Slot {
+        volatile long sequence = -1;
+        volatile long timestamp;
+        volatile int level;
+        volatile String tag;
+        volatile String thread;
+        volatile String pattern;
+        volatile Object arg1;
+        volatile Object arg2;
+        volatile Object arg3;
+        volatile Throwable throwable;
+    }
+
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong cursor = new AtomicLong();
+
+    public DiagnosticBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+        }
+        mask = size - 1;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    /** Total number of events ever recorded, including the ones already overwritten. */
+    public long recorded() {
+        return cursor.get();
+    }
+
+    public void record(int level, String tag, String pattern, Object arg1, Object arg2, Object arg3, Throwable throwable) {
+        long sequence = cursor.getAndIncrement();
+        Slot slot = slots[(int) (sequence & mask)];
+        slot.sequence = -1;
+        slot.timestamp = System.currentTimeMillis();
+        slot.level = level;
+        slot.tag = tag;
+        slot.thread = Thread.currentThread().getName();
+        slot.pattern = pattern;
+        slot.arg1 = arg1;
+        slot.arg2 = arg2;
+        slot.arg3 = arg3;
+        slot.throwable = throwable;
+        slot.sequence = sequence;
+    }
+
+    /** Formats the retained events, oldest first. Events being overwritten while reading are skipped. */
+    public List<Record> snapshot() {
+        long end = cursor.get();
+        long start = Math.max(0, end - slots.length);
+        List<Record> records = new ArrayList<>((int) (end - start));
+        for (long sequence = start; sequence < end; sequence++) {
+            Slot slot = slots[(int) (sequence & mask)];
+            if (slot.sequence != sequence) {
+                continue;
+            }
+            long timestamp = slot.timestamp;
+            int level = slot.level;
+            String tag = slot.tag;
+            String thread = slot.thread;
+            String pattern = slot.pattern;
+            Object arg1 = slot.arg1;
+            Object arg2 = slot.arg2;
+            Object arg3 = slot.arg3;
+            Throwable throwable = slot.throwable;
+            if (slot.sequence != sequence) {
+                continue;
+            }
+            String message = Logger.format(pattern, arg1, arg2, arg3);
+            if (throwable != null) {
+                message = message + ": " + throwable;
+            }
+            records.add(new Record(sequence, timestamp, level, tag, thread, message));
+        }
+        return records;
+    }
+
+    public void clear() {
+        for (Slot slot : slots) {
+            slot.sequence = -1;
+            slot.arg1 = slot.arg2 = slot.arg3 = null;
+            slot.throwable = null;
+        }
+    }
+}
@@ -1,31 +1,199 @@
 package com.ahmed.plugin.printerbridge.utils;
 
 import android.util.Log;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Level-gated logging with {@code {}} placeholders. Messages below both thresholds return before anything is
+ * formatted, so call sites pass raw arguments instead of concatenating. Events at or above the diagnostics
+ * level are kept, unformatted, in a {@link DiagnosticBuffer} that can be exported after a field incident;
+ * only events at or above the logcat level are written to logcat.
+ */
 public class Logger {
-    // You can set this to false to disable all logs for a production release
-    private static final boolean IS_LOGGING_ENABLED = true;
+    public static final int VERBOSE = Log.VERBOSE;
+    public static final int DEBUG = Log.DEBUG;
+    public static final int INFO = Log.INFO;
+    public static final int WARN = Log.WARN;
+    public static final int ERROR = Log.ERROR;
+    public static final int NONE = Integer.MAX_VALUE;
 
-    public static void d(String tag, String message) {
-        if (IS_LOGGING_ENABLED) {
-            Log.d(tag, message);
+    private static final int DIAGNOSTIC_CAPACITY = 512;
+    // Marks calls without arguments, whose message is used verbatim even if it contains "{}"
+    private static final Object MESSAGE_ONLY = new Object();
+    private static final DiagnosticBuffer diagnostics = new DiagnosticBuffer(DIAGNOSTIC_CAPACITY);
+
+    // Hot-path logging stays in the ring buffer; logcat only gets warnings and errors unless configured
+    private static volatile int logcatLevel = WARN;
+    private static volatile int diagnosticsLevel = DEBUG;
+    private static volatile int minimumLevel = DEBUG;
+
+    private Logger() {
+    }
+
+    public static void setLogcatLevel(int level) {
+        logcatLevel = level;
+        minimumLevel = Math.min(logcatLevel, diagnosticsLevel);
+    }
+
+    public static void setDiagnosticsLevel(int level) {
+        diagnosticsLevel = level;
+        minimumLevel = Math.min(logcatLevel, diagnosticsLevel);
+    }
+
+    public static boolean isEnabled(int level) {
+        return level >= minimumLevel;
+    }
+
+    /** Parses a level name from plugin configuration ("debug", "warn", "none", ...). */
+    public static int parseLevel(String name, int defaultLevel) {
+        if (name == null) {
+            return defaultLevel;
+        }
+        switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case "verbose":
+                return VERBOSE;
+            case "debug":
+                return DEBUG;
+            case "info":
+                return INFO;
+            case "warn":
+                return WARN;
+            case "error":
+                return ERROR;
+            case "none":
+                return NONE;
+            default:
+                return defaultLevel;
         }
     }
 
-    public static void w(String tag, String message) {
-        if (IS_LOGGING_ENABLED) {
-            Log.w(tag, message);
+    public static String levelToString(int level) {
+        switch (level) {
+            case VERBOSE:
+                return "verbose";
+            case DEBUG:
+                return "debug";
+            case INFO:
+                return "info";
+            case WARN:
+                return "warn";
+            case ERROR:
+                return "error";
+            default:
+                return "none";
         }
     }
 
+    public static List<DiagnosticBuffer.Record> dumpDiagnostics() {
+        return diagnostics.snapshot();
+    }
+
+    public static DiagnosticBuffer getDiagnostics() {
+        return diagnostics;
+    }
+
+    // --- Debug ---
+
+    public static void d(String tag, String message) {
+        log(DEBUG, tag, message, MESSAGE_ONLY, null, null, null);
+    }
+
+    public static void d(String tag, String pattern, Object arg) {
+        log(DEBUG, tag, pattern, arg, null, null, null);
+    }
+
+    public static void d(String tag, String pattern, Object arg1, Object arg2) {
+        log(DEBUG, tag, pattern, arg1, arg2, null, null);
+    }
+
+    public static void d(String tag, String pattern, Object arg1, Object arg2, Object arg3) {
+        log(DEBUG, tag, pattern, arg1, arg2, arg3, null);
+    }
+
+    // --- Info ---
+
+    public static void i(String tag, String message) {
+        log(INFO, tag, message, MESSAGE_ONLY, null, null, null);
+    }
+
+    public static void i(String tag, String pattern, Object arg) {
+        log(INFO, tag, pattern, arg, null, null, null);
+    }
+
+    public static void i(String tag, String pattern, Object arg1, Object arg2) {
+        log(INFO, tag, pattern, arg1, arg2, null, null);
+    }
+
+    // --- Warn ---
+
+    public static void w(String tag, String message) {
+        log(WARN, tag, message, MESSAGE_ONLY, null, null, null);
+    }
+
+    public static void w(String tag, String pattern, Object arg) {
+        log(WARN, tag, pattern, arg, null, null, null);
+    }
+
+    public static void w(String tag, String pattern, Object arg1, Object arg2) {
+        log(WARN, tag, pattern, arg1, arg2, null, null);
+    }
+
+    public static void w(String tag, String message, Throwable throwable) {
+        log(WARN, tag, message, MESSAGE_ONLY, null, null, throwable);
+    }
+
+    // --- Error ---
+
     public static void e(String tag, String message) {
-        if (IS_LOGGING_ENABLED) {
-            Log.e(tag, message);
-        }
+        log(ERROR, tag, message, MESSAGE_ONLY, null, null, null);
+    }
+
+    public static void e(String tag, String pattern, Object arg) {
+        log(ERROR, tag, pattern, arg, null, null, null);
     }
 
     public static void e(String tag, String message, Throwable throwable) {
-        if (IS_LOGGING_ENABLED) {
-            Log.e(tag, message, throwable);
+        log(ERROR, tag, message, MESSAGE_ONLY, null, null, throwable);
+    }
+
+    public static void e(String tag, String pattern, Object arg, Throwable throwable) {
+        log(ERROR, tag, pattern, arg, null, null, throwable);
+    }
+
+    private static void log(int level, String tag, String pattern, Object arg1, Object arg2, Object arg3, Throwable throwable) {
+        if (level < minimumLevel) {
+            return;
+        }
+        if (level >= diagnosticsLevel) {
+            diagnostics.record(level, tag, pattern, arg1, arg2, arg3, throwable);
+        }
+        if (level >= logcatLevel) {
+            String message = format(pattern, arg1, arg2, arg3);
+            if (throwable != null) {
+                message = message + '\n' + Log.getStackTraceString(throwable);
+            }
+            Log.println(level, tag, message);
+        }
+    }
+
+    /** Substitutes up to three {@code {}} placeholders in order. */
+    static String format(String pattern, Object arg1, Object arg2, Object arg3) {
+        if (arg1 == MESSAGE_ONLY || pattern == null || pattern.indexOf('{') < 0) {
+            return pattern;
+        }
+        StringBuilder message = new StringBuilder(pattern.length() + 32);
+        int argIndex = 0;
+        int from = 0;
+        int placeholder;
+        while (argIndex < 3 && (placeholder = pattern.indexOf("{}", from)) >= 0) {
+            message.append(pattern, from, placeholder);
+            message.append(argIndex == 0 ? arg1 : argIndex == 1 ? arg2 : arg3);
+            argIndex++;
+            from = placeholder + 2;
         }
+        message.append(pattern, from, pattern.length());
+        return message.toString();
     }
 }
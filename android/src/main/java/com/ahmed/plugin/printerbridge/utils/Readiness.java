@@ -0,0 +1,99 @@
+package com.ahmed.plugin.printerbridge.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Completes once, when something started in the background is ready or has failed. Work that arrives before
+ * that waits in {@link #whenReady}, up to a limit, instead of being turned away.
+ */
+public final class Readiness {
+    /** Runs once the outcome is known, on the thread that settled it or, if already settled, on the caller's. */
+    public interface Waiter {
+        void onReady();
+
+        void onFailed(Exception cause);
+    }
+
+    private final int maxWaiting;
+    private final CountDownLatch settled = new CountDownLatch(1);
+    private final List<Waiter> waiting = new ArrayList<>();
+    private volatile boolean ready;
+    private volatile Exception failure;
+
+    public Readiness(int maxWaiting) {
+        this.maxWaiting = maxWaiting;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** The cause given to {@link #fail}, or null. */
+    public Exception getFailure() {
+        return failure;
+    }
+
+    /**
+     * Runs {@code waiter} once the outcome is known, or now if it already is.
+     *
+     * @return false, without running {@code waiter}, if {@code maxWaiting} waiters are already waiting
+     */
+    public boolean whenReady(Waiter waiter) {
+        synchronized (waiting) {
+            if (settled.getCount() > 0) {
+                if (waiting.size() >= maxWaiting) {
+                    return false;
+                }
+                waiting.add(waiter);
+                return true;
+            }
+        }
+        deliver(waiter);
+        return true;
+    }
+
+    /**
+     * Blocks until the outcome is known.
+     *
+     * @return false if it is still unknown after {@code timeout}
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return settled.await(timeout, unit);
+    }
+
+    public void complete() {
+        settle(null);
+    }
+
+    public void fail(Exception cause) {
+        settle(cause);
+    }
+
+    private void settle(Exception cause) {
+        List<Waiter> waiters;
+        synchronized (waiting) {
+            if (settled.getCount() == 0) {
+                return;
+            }
+            failure = cause;
+            ready = cause == null;
+            settled.countDown();
+            waiters = new ArrayList<>(waiting);
+            waiting.clear();
+        }
+        for (Waiter waiter : waiters) {
+            deliver(waiter);
+        }
+    }
+
+    private void deliver(Waiter waiter) {
+        if (failure != null) {
+            waiter.onFailed(failure);
+        } else {
+            waiter.onReady();
+        }
+    }
+}
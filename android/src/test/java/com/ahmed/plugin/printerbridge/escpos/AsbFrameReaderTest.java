@@ -0,0 +1,43 @@
+package com.ahmed.plugin.printerbridge.escpos;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class AsbFrameReaderTest {
+
+    @Test
+    public void framesAreFoundAmongOtherBytes() {
+        AsbFrameReader reader = new AsbFrameReader();
+        // A DLE EOT reply and a GS I reply, then a frame reporting cover open
+        int[] received = { 0x12, '_', 'T', 'M', 0, 0x30, 0x00, 0x00, 0x00 };
+        byte[] frame = null;
+        for (int b : received) {
+            byte[] completed = reader.feed(b);
+            if (completed != null) {
+                assertNull("one frame only", frame);
+                frame = completed;
+            }
+        }
+        assertArrayEquals(new byte[] { 0x30, 0x00, 0x00, 0x00 }, frame);
+        assertFalse(reader.inFrame());
+    }
+
+    @Test
+    public void brokenFrameIsDroppedAndNextStartTaken() {
+        AsbFrameReader reader = new AsbFrameReader();
+        // Bit 7 set in the second byte: not a frame
+        assertNull(reader.feed(0x10));
+        assertNull(reader.feed(0x80));
+        assertFalse(reader.inFrame());
+
+        // Bit 4 set in the second byte: that byte starts a frame of its own
+        assertNull(reader.feed(0x10));
+        assertNull(reader.feed(0x18));
+        assertNull(reader.feed(0x00));
+        assertNull(reader.feed(0x0C));
+        assertArrayEquals(new byte[] { 0x18, 0x00, 0x0C, 0x00 }, reader.feed(0x00));
+    }
+}
@@ -0,0 +1,196 @@
+package com.ahmed.plugin.printerbridge.escpos;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.ahmed.plugin.printerbridge.exceptions.PrinterException;
+import com.ahmed.plugin.printerbridge.qr.QrCode;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class EscPosEncoderTest {
+
+    @Test
+    public void codePageEncoderMatchesCharsetEncoding() {
+        CodePageEncoder codePage = new CodePageEncoder(EscPosEncoder.ARABIC_CODE_TABLE);
+        Charset charset = Charset.forName("ISO-8859-6");
+        String[] samples = { "", "Total: 12.50", "فاتورة رقم 42", "Item عصير x2", "emoji 😀 falls back" };
+
+        for (String sample : samples) {
+            assertArrayEquals(sample, sample.getBytes(charset), codePage.encode(sample));
+        }
+    }
+
+    @Test
+    public void encodeTextProducesHeaderLinesAndTrailingFeeds() throws Exception {
+        String[] lines = { "Receipt", null, "مجموع 10" };
+        byte[] job = new EscPosEncoder().encodeText(lines);
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(EscPosCommands.INITIALIZE);
+        expected.write(EscPosCommands.selectCodeTable(EscPosEncoder.ARABIC_CODE_TABLE));
+        expected.write("Receipt".getBytes("ISO-8859-6"));
+        expected.write(EscPosCommands.LF);
+        expected.write("مجموع 10".getBytes("ISO-8859-6"));
+        expected.write(EscPosCommands.LF);
+        for (int i = 0; i < 3; i++) {
+            expected.write(EscPosCommands.CR_LF);
+        }
+        assertArrayEquals(expected.toByteArray(), job);
+    }
+
+    @Test
+    public void headAndTailTogetherMatchTheWholeJob() throws Exception {
+        EscPosEncoder encoder = new EscPosEncoder();
+        JobFinishing finishing = JobFinishing.fromOptions(1, "full", false);
+        byte[] whole = encoder.encodeText(new String[] { "Coffee  3.50", "Total  3.50", "Cash  5.00" }, finishing);
+
+        ByteArrayOutputStream split = new ByteArrayOutputStream();
+        split.write(encoder.encodeTextHead(new String[] { "Coffee  3.50", "Total  3.50" }));
+        split.write(encoder.encodeTextTail(new String[] { "Cash  5.00" }, finishing));
+        assertArrayEquals(whole, split.toByteArray());
+    }
+
+    @Test
+    public void finishingIsAppendedAsFeedThenCutThenDrawerKick() throws Exception {
+        EscPosEncoder encoder = new EscPosEncoder();
+        byte[] plain = encoder.encodeText(new String[] { "Total 12.50" });
+
+        byte[] job = encoder.encodeText(new String[] { "Total 12.50" }, JobFinishing.fromOptions(2, "partial", true));
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(plain);
+        expected.write(EscPosCommands.CR_LF);
+        expected.write(EscPosCommands.CR_LF);
+        expected.write(EscPosCommands.PARTIAL_CUT);
+        expected.write(EscPosCommands.CASH_DRAWER_KICK);
+        assertArrayEquals(expected.toByteArray(), job);
+        assertSame(JobFinishing.NONE, JobFinishing.fromOptions(null, null, false));
+    }
+
+    @Test
+    public void qrLayoutRaisesErrorCorrectionAndFitsModulesToThePaper() throws Exception {
+        // 19 bytes: version 2 at MEDIUM, which still holds them at QUARTILE but not at HIGH
+        QrLayout small = QrLayout.plan(19, EscPosEncoder.PAPER_58MM_DOTS);
+        assertEquals(2, small.getVersion());
+        assertEquals(QrCode.ErrorCorrection.QUARTILE, small.getErrorCorrection());
+        assertEquals(QrLayout.MAX_MODULE_DOTS, small.getModuleDots());
+
+        QrLayout narrow = QrLayout.plan(1000, EscPosEncoder.PAPER_58MM_DOTS);
+        QrLayout wide = QrLayout.plan(1000, EscPosEncoder.PAPER_80MM_DOTS);
+        assertEquals(narrow.getVersion(), wide.getVersion());
+        assertTrue(narrow.getWidthDots() <= EscPosEncoder.PAPER_58MM_DOTS);
+        assertTrue(wide.getWidthDots() <= EscPosEncoder.PAPER_80MM_DOTS);
+        assertTrue(wide.getModuleDots() > narrow.getModuleDots());
+
+        // Past MEDIUM capacity the level drops to LOW rather than failing
+        QrLayout largest = QrLayout.plan(2953, EscPosEncoder.PAPER_58MM_DOTS);
+        assertEquals(40, largest.getVersion());
+        assertEquals(QrCode.ErrorCorrection.LOW, largest.getErrorCorrection());
+    }
+
+    @Test(expected = PrinterException.class)
+    public void qrPayloadBeyondAnySymbolIsRejected() throws Exception {
+        char[] data = new char[2954];
+        Arrays.fill(data, 'x');
+        new EscPosEncoder().encodeQRCode(new String(data));
+    }
+
+    @Test
+    public void nativeQrJobUsesThePlannedModuleSizeAndLevel() throws Exception {
+        byte[] job = new EscPosEncoder().encodeQRCode("https://ex.com/t/42");
+
+        assertTrue(contains(job, EscPosCommands.qrModuleSize(QrLayout.MAX_MODULE_DOTS)));
+        assertTrue(contains(job, EscPosCommands.qrErrorCorrection(50)));
+        assertTrue(contains(job, EscPosCommands.QR_PRINT));
+    }
+
+    @Test
+    public void printerWithoutNativeQrGetsACachedRaster() throws Exception {
+        EscPosEncoder encoder = new EscPosEncoder(EscPosEncoder.PAPER_58MM_DOTS, false);
+
+        byte[] first = encoder.encodeQRCode("https://ex.com/t/42");
+        byte[] second = encoder.encodeQRCode("https://ex.com/t/42");
+
+        boolean raster = false;
+        for (EscPosStreamParser.Command command : new EscPosStreamParser().parse(first)) {
+            assertFalse(command.type == EscPosStreamParser.Type.QR);
+            raster |= command.type == EscPosStreamParser.Type.RASTER_IMAGE;
+        }
+        assertTrue(raster);
+        assertArrayEquals(first, second);
+        assertEquals(1, encoder.getQrRasterCache().getMisses());
+        assertEquals(1, encoder.getQrRasterCache().getHits());
+    }
+
+    @Test
+    public void codesJobSendsSharedSetupOnce() throws Exception {
+        List<PrintCode> codes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            codes.add(new PrintCode(PrintCode.Symbology.QR, "https://ex.com/t/" + (40 + i), "Seat " + i));
+        }
+        codes.add(new PrintCode(PrintCode.Symbology.CODE128, "12345678", null));
+
+        byte[] job = new EscPosEncoder().encodeCodes(codes, JobFinishing.Cut.PARTIAL, JobFinishing.NONE);
+
+        assertEquals(1, count(job, EscPosCommands.INITIALIZE));
+        assertEquals(1, count(job, EscPosCommands.QR_SELECT_MODEL_2));
+        assertEquals(1, count(job, EscPosCommands.qrModuleSize(QrLayout.MAX_MODULE_DOTS)));
+        assertEquals(1, count(job, EscPosCommands.qrErrorCorrection(50)));
+        assertEquals(3, count(job, EscPosCommands.QR_PRINT));
+        assertEquals(3, count(job, EscPosCommands.PARTIAL_CUT));
+        assertTrue(contains(job, "Seat 2\n".getBytes("ISO-8859-6")));
+        // All digits: code set C, two digits per symbol character
+        assertTrue(contains(job, EscPosCommands.barcode(73, new byte[] { '{', 'C', 12, 34, 56, 78 })));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ean13RejectsLetters() {
+        new PrintCode(PrintCode.Symbology.EAN13, "12345678901A", null);
+    }
+
+    @Test(expected = PrinterException.class)
+    public void barcodeWiderThanThePaperIsRejected() throws Exception {
+        PrintCode code = new PrintCode(PrintCode.Symbology.CODE128, "TICKET-ABCDEFGHIJKLMN", null);
+
+        new EscPosEncoder().encodeCodes(Arrays.asList(code), JobFinishing.Cut.NONE, JobFinishing.NONE);
+    }
+
+    @Test
+    public void jobBufferGrowsPastInitialCapacity() {
+        JobBuffer job = new JobBuffer(16);
+        for (int i = 0; i < 1000; i++) {
+            job.write((byte) i);
+        }
+        byte[] bytes = job.toByteArray();
+        assertEquals(1000, bytes.length);
+        assertEquals((byte) 999, bytes[999]);
+    }
+
+    private static boolean contains(byte[] data, byte[] part) {
+        return count(data, part) > 0;
+    }
+
+    private static int count(byte[] data, byte[] part) {
+        int count = 0;
+        outer:
+        for (int i = 0; i + part.length <= data.length; i++) {
+            for (int j = 0; j < part.length; j++) {
+                if (data[i + j] != part[j]) {
+                    continue outer;
+                }
+            }
+            count++;
+        }
+        return count;
+    }
+}
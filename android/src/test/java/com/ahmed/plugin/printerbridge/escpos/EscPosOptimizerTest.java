@@ -0,0 +1,162 @@
+package com.ahmed.plugin.printerbridge.escpos;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.ahmed.plugin.printerbridge.simulator.EscPosPrinterEmulator;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class EscPosOptimizerTest {
+    private static final byte ESC = EscPosCommands.ESC;
+    private static final byte LF = EscPosCommands.LF;
+
+    private final EscPosEncoder encoder = new EscPosEncoder();
+
+    @Test
+    public void coldTextJobKeepsInitializeAndMergesFeedRuns() throws Exception {
+        byte[] job = encoder.encodeText(new String[] { "A", "B" });
+
+        EscPosOptimizer.Result result = EscPosOptimizer.optimize(job, new EscPosSession());
+
+        assertArrayEquals(new byte[] { ESC, 0x40, ESC, 0x74, 28, 'A', LF, 'B', ESC, 0x64, 4 }, result.getData());
+        assertEquals(4, result.getBytesSaved());
+    }
+
+    @Test
+    public void warmSessionDropsInitializeAndRepeatedCodeTable() throws Exception {
+        EscPosSession session = new EscPosSession();
+        session.commit(EscPosOptimizer.optimize(encoder.encodeText(new String[] { "first" }), session));
+
+        EscPosOptimizer.Result result = EscPosOptimizer.optimize(encoder.encodeText(new String[] { "A", "B" }), session);
+
+        assertArrayEquals(new byte[] { 'A', LF, 'B', ESC, 0x64, 4 }, result.getData());
+        assertEquals(9, result.getBytesSaved());
+    }
+
+    @Test
+    public void invalidatedSessionSendsTheFullHeaderAgain() throws Exception {
+        EscPosSession session = new EscPosSession();
+        session.commit(EscPosOptimizer.optimize(encoder.encodeText(new String[] { "first" }), session));
+        session.invalidate();
+
+        EscPosOptimizer.Result result = EscPosOptimizer.optimize(encoder.encodeText(new String[] { "A" }), session);
+
+        assertArrayEquals(new byte[] { ESC, 0x40, ESC, 0x74, 28, 'A', ESC, 0x64, 4 }, result.getData());
+    }
+
+    @Test
+    public void initializeIsKeptAfterAJobThatStoppedMidLine() throws Exception {
+        EscPosSession session = new EscPosSession();
+        session.commit(EscPosOptimizer.optimize(new byte[] { ESC, 0x40, 'x' }, session));
+
+        EscPosOptimizer.Result result = EscPosOptimizer.optimize(new byte[] { ESC, 0x40, 'y', LF }, session);
+
+        // ESC @ also discards the unprinted "x"
+        assertArrayEquals(new byte[] { ESC, 0x40, 'y', LF }, result.getData());
+    }
+
+    @Test
+    public void settingsThatCancelOutOrRepeatAreDropped() {
+        byte[] job = {
+                ESC, 0x40,
+                ESC, 0x61, 1, ESC, 0x61, 0,
+                ESC, 0x74, 28, ESC, 0x74, 28,
+                'X', LF,
+                ESC, 0x61, 1, ESC, 0x61, 0,
+                'Y', LF
+        };
+
+        EscPosOptimizer.Result result = EscPosOptimizer.optimize(job, new EscPosSession());
+
+        assertArrayEquals(new byte[] { ESC, 0x40, ESC, 0x74, 28, 'X', LF, 'Y', LF }, result.getData());
+        assertEquals(15, result.getBytesSaved());
+    }
+
+    @Test
+    public void printModeKeepsTheOrderOfEmphasisChanges() {
+        // ESC ! clears the emphasis ESC E turned on
+        byte[] job = { ESC, 0x40, ESC, 0x45, 1, ESC, 0x21, 0x01, 'X', LF };
+
+        EscPosOptimizer.Result result = EscPosOptimizer.optimize(job, new EscPosSession());
+
+        assertArrayEquals(new byte[] { ESC, 0x40, ESC, 0x21, 0x01, 'X', LF }, result.getData());
+    }
+
+    @Test
+    public void settingsLeftAtTheEndOfAJobAreStillSent() {
+        byte[] job = { ESC, 0x40, 'X', LF, ESC, 0x61, 1 };
+
+        EscPosOptimizer.Result result = EscPosOptimizer.optimize(job, new EscPosSession());
+
+        assertArrayEquals(job, result.getData());
+    }
+
+    @Test
+    public void longFeedRunsAreSplitAt255Lines() {
+        ByteArrayOutputStream job = new ByteArrayOutputStream();
+        for (int i = 0; i < 300; i++) {
+            job.write(EscPosCommands.CR_LF, 0, 2);
+        }
+
+        EscPosOptimizer.Result result = EscPosOptimizer.optimize(job.toByteArray(), new EscPosSession());
+
+        assertArrayEquals(new byte[] { ESC, 0x64, (byte) 255, ESC, 0x64, 45 }, result.getData());
+    }
+
+    @Test
+    public void optimizedSessionPrintsTheSameAsTheRawOne() throws Exception {
+        List<byte[]> jobs = new ArrayList<>();
+        jobs.add(encoder.encodeText(new String[] { "Table 4", "Coffee   x2   7.00" }));
+        jobs.add(encoder.encodeQRCode("https://example.com/order/1234", new JobFinishing(2, JobFinishing.Cut.PARTIAL, false)));
+        jobs.add(encoder.encodeText(new String[] { "Total 7.00" }, new JobFinishing(3, JobFinishing.Cut.FULL, true)));
+        jobs.addAll(JobChunker.split(encoder.encodeText(lines(120)), 1024));
+        jobs.add(encoder.encodeLineFeed(4));
+        jobs.add(encoder.encodeCut(false));
+        jobs.add(new byte[] { ESC, 0x40, ESC, 0x61, 1, ESC, 0x45, 1, 'B', 'o', 'l', 'd', LF, ESC, 0x45, 0, ESC, 0x61, 0 });
+        jobs.add(encoder.encodeText(new String[] { "After" }));
+
+        EscPosPrinterEmulator raw = new EscPosPrinterEmulator();
+        EscPosPrinterEmulator optimized = new EscPosPrinterEmulator();
+        EscPosSession session = new EscPosSession();
+        int rawBytes = 0;
+        int sentBytes = 0;
+        for (byte[] job : jobs) {
+            raw.process(job);
+            EscPosOptimizer.Result result = EscPosOptimizer.optimize(job, session);
+            optimized.process(result.getData());
+            session.commit(result);
+            rawBytes += job.length;
+            sentBytes += result.getData().length;
+        }
+
+        assertSamePixels(raw.renderPreview(), optimized.renderPreview());
+        assertEquals(raw.getCuts(), optimized.getCuts());
+        assertEquals(raw.getCashDrawerKicks(), optimized.getCashDrawerKicks());
+        assertTrue(sentBytes < rawBytes);
+    }
+
+    private static void assertSamePixels(BufferedImage expected, BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals("pixel " + x + "," + y, expected.getRGB(x, y), actual.getRGB(x, y));
+            }
+        }
+    }
+
+    private static String[] lines(int count) {
+        String[] lines = new String[count];
+        for (int i = 0; i < count; i++) {
+            lines[i] = "Item " + i + "        1 x 2.50";
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,122 @@
+package com.ahmed.plugin.printerbridge.escpos;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class JobChunkerTest {
+
+    @Test
+    public void shortJobIsNotSplit() throws Exception {
+        byte[] job = new EscPosEncoder().encodeText(lines(5));
+
+        List<byte[]> chunks = JobChunker.split(job, 4096);
+
+        assertEquals(1, chunks.size());
+        assertSame(job, chunks.get(0));
+    }
+
+    @Test
+    public void chunksEndAfterLineFeedsAndReselectTheCodeTable() throws Exception {
+        byte[] job = new EscPosEncoder().encodeText(lines(200));
+        byte[] restore = EscPosCommands.selectCodeTable(EscPosEncoder.ARABIC_CODE_TABLE);
+
+        List<byte[]> chunks = JobChunker.split(job, 1024);
+
+        assertTrue(chunks.size() > 1);
+        ByteArrayOutputStream rejoined = new ByteArrayOutputStream();
+        for (int i = 0; i < chunks.size(); i++) {
+            byte[] chunk = chunks.get(i);
+            assertTrue("chunk " + i + " is " + chunk.length + " bytes", chunk.length <= 1024);
+            if (i < chunks.size() - 1) {
+                assertEquals(EscPosCommands.LF, chunk[chunk.length - 1]);
+            }
+            int from = 0;
+            if (i > 0) {
+                assertArrayEquals(restore, Arrays.copyOf(chunk, restore.length));
+                from = restore.length;
+            }
+            rejoined.write(chunk, from, chunk.length - from);
+        }
+        assertArrayEquals(job, rejoined.toByteArray());
+    }
+
+    @Test
+    public void restorePrefixCarriesAlignmentAndPrintModeInEffect() {
+        ByteArrayOutputStream job = new ByteArrayOutputStream();
+        job.write(EscPosCommands.INITIALIZE, 0, 2);
+        job.write(EscPosCommands.ALIGN_CENTER, 0, 3);
+        job.write(new byte[] { EscPosCommands.ESC, 0x21, 0x08 }, 0, 3);
+        for (int i = 0; i < 40; i++) {
+            byte[] line = ("Line " + i + "\n").getBytes();
+            job.write(line, 0, line.length);
+        }
+
+        List<byte[]> chunks = JobChunker.split(job.toByteArray(), 64);
+
+        byte[] expectedPrefix = { EscPosCommands.ESC, 0x61, 0x01, EscPosCommands.ESC, 0x21, 0x08 };
+        for (int i = 1; i < chunks.size(); i++) {
+            assertArrayEquals(expectedPrefix, Arrays.copyOf(chunks.get(i), expectedPrefix.length));
+        }
+    }
+
+    @Test
+    public void restorePrefixCarriesQrSettingsInEffect() throws Exception {
+        List<PrintCode> codes = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            codes.add(new PrintCode(PrintCode.Symbology.QR, "https://ex.com/t/" + i, null));
+        }
+        byte[] job = new EscPosEncoder().encodeCodes(codes, JobFinishing.Cut.NONE, JobFinishing.NONE);
+
+        List<byte[]> chunks = JobChunker.split(job, 256);
+
+        assertTrue(chunks.size() > 1);
+        byte[] settings = concat(EscPosCommands.QR_SELECT_MODEL_2,
+                EscPosCommands.qrModuleSize(QrLayout.MAX_MODULE_DOTS), EscPosCommands.qrErrorCorrection(50));
+        byte[] alignment = EscPosCommands.ALIGN_CENTER;
+        for (int i = 1; i < chunks.size(); i++) {
+            byte[] prefix = Arrays.copyOfRange(chunks.get(i), 3 + alignment.length, 3 + alignment.length + settings.length);
+            assertArrayEquals("chunk " + i, settings, prefix);
+        }
+    }
+
+    @Test
+    public void lineLongerThanTheChunkSizeIsKeptWhole() {
+        byte[] longLine = new byte[300];
+        Arrays.fill(longLine, (byte) 'x');
+        ByteArrayOutputStream job = new ByteArrayOutputStream();
+        job.write("short\n".getBytes(), 0, 6);
+        job.write(longLine, 0, longLine.length);
+        job.write(EscPosCommands.LF);
+
+        List<byte[]> chunks = JobChunker.split(job.toByteArray(), 100);
+
+        assertEquals(2, chunks.size());
+        assertEquals(6, chunks.get(0).length);
+        assertEquals(301, chunks.get(1).length);
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.write(part, 0, part.length);
+        }
+        return out.toByteArray();
+    }
+
+    private static String[] lines(int count) {
+        String[] lines = new String[count];
+        for (int i = 0; i < count; i++) {
+            lines[i] = "Item " + i + "            x1        12.50";
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,81 @@
+package com.ahmed.plugin.printerbridge.escpos;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import com.ahmed.plugin.printerbridge.qr.QrCode;
+import com.ahmed.plugin.printerbridge.qr.QrEncoder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class QrRasterCacheTest {
+
+    @Test
+    public void rasterBandsReproduceTheModules() {
+        QrCode code = QrEncoder.encode("https://ex.com/t/42".getBytes(StandardCharsets.UTF_8), QrCode.ErrorCorrection.QUARTILE);
+        int moduleDots = 8;
+
+        byte[] raster = QrRasterCache.render(code, moduleDots);
+
+        // 33 modules * 8 dots = 264 rows: one full band and one of 8 rows
+        int widthDots = (code.getSize() + 2 * QrCode.QUIET_ZONE_MODULES) * moduleDots;
+        int widthBytes = widthDots / 8;
+        byte[][] rows = new byte[widthDots][];
+        int row = 0;
+        int bands = 0;
+        for (EscPosStreamParser.Command command : new EscPosStreamParser().parse(raster)) {
+            assertEquals(EscPosStreamParser.Type.RASTER_IMAGE, command.type);
+            assertEquals(widthBytes, command.arg);
+            for (int offset = 0; offset < command.payloadLength; offset += widthBytes, row++) {
+                rows[row] = Arrays.copyOfRange(raster, command.payloadOffset + offset,
+                        command.payloadOffset + offset + widthBytes);
+            }
+            bands++;
+        }
+        assertEquals(2, bands);
+        assertEquals(widthDots, row);
+        for (int y = 0; y < widthDots; y++) {
+            for (int x = 0; x < widthDots; x++) {
+                int moduleX = x / moduleDots - QrCode.QUIET_ZONE_MODULES;
+                int moduleY = y / moduleDots - QrCode.QUIET_ZONE_MODULES;
+                boolean expected = moduleX >= 0 && moduleX < code.getSize() && moduleY >= 0 && moduleY < code.getSize()
+                        && code.isDark(moduleX, moduleY);
+                boolean dark = (rows[y][x / 8] & (0x80 >> (x % 8))) != 0;
+                assertEquals("dot " + x + "," + y, expected, dark);
+            }
+        }
+    }
+
+    @Test
+    public void leastRecentlyUsedPayloadIsEvicted() throws Exception {
+        QrRasterCache cache = new QrRasterCache(2, Integer.MAX_VALUE);
+        QrLayout layout = QrLayout.plan(10, EscPosEncoder.PAPER_58MM_DOTS);
+
+        byte[] a = cache.get("table-1", layout);
+        cache.get("table-2", layout);
+        cache.get("table-1", layout);
+        cache.get("table-3", layout); // evicts table-2
+
+        assertSame(a, cache.get("table-1", layout));
+        cache.get("table-2", layout);
+        assertEquals(2, cache.size());
+        assertEquals(2, cache.getHits());
+        assertEquals(4, cache.getMisses());
+    }
+
+    @Test
+    public void byteBudgetBoundsTheCache() throws Exception {
+        QrLayout layout = QrLayout.plan(10, EscPosEncoder.PAPER_58MM_DOTS);
+        int rasterBytes = new QrRasterCache(1, Integer.MAX_VALUE).get("x", layout).length;
+        QrRasterCache cache = new QrRasterCache(100, rasterBytes * 3);
+
+        for (int i = 0; i < 10; i++) {
+            cache.get("table-" + i, layout);
+        }
+
+        assertEquals(3, cache.size());
+    }
+}
@@ -0,0 +1,76 @@
+package com.ahmed.plugin.printerbridge.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsAreContiguousAndBoundTheirValues() {
+        int previous = -1;
+        for (long value = 0; value < 1 << 20; value++) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(index == previous || index == previous + 1);
+            assertTrue(LatencyHistogram.highestEquivalentValue(index) >= value);
+            previous = index;
+        }
+    }
+
+    @Test
+    public void percentilesAreWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 1 ms .. 1000 ms uniformly
+        for (int i = 1; i <= 1000; i++) {
+            histogram.recordMicros(i * 1000L);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(1000, snapshot.getCount());
+        assertWithin(500_000, snapshot.percentileMicros(50));
+        assertWithin(950_000, snapshot.percentileMicros(95));
+        assertWithin(990_000, snapshot.percentileMicros(99));
+        assertEquals(1_000_000, snapshot.getMaxMicros());
+        assertEquals(500_500, snapshot.getMeanMicros(), 0.001);
+    }
+
+    @Test
+    public void concurrentRecordingLosesNothing() throws Exception {
+        LatencyHistogram histogram = new LatencyHistogram();
+        int threads = 8;
+        int perThread = 50_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    histogram.recordMicros(i % 5_000);
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals((long) threads * perThread, histogram.snapshot().getCount());
+        assertEquals(4_999, histogram.snapshot().getMaxMicros());
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        // 32 sub-buckets per power of two: at most 1/16 relative error
+        assertTrue("expected ~" + expected + " got " + actual, Math.abs(actual - expected) <= expected / 16);
+    }
+}
@@ -0,0 +1,30 @@
+package com.ahmed.plugin.printerbridge.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class PrinterMetricsTest {
+    @Test
+    public void addressesMatchRegardlessOfCase() {
+        PrinterMetrics metrics = new PrinterMetrics();
+
+        assertSame(metrics.device("00:11:22:aa:bb:cc"), metrics.device(" 00:11:22:AA:BB:CC"));
+    }
+
+    @Test
+    public void jobInFlightKeepsRecordingAcrossAReset() {
+        PrinterMetrics metrics = new PrinterMetrics();
+        PrinterMetrics.DeviceMetrics inFlight = metrics.device("00:11:22:33:44:66");
+        inFlight.recordBytesSent(100);
+
+        metrics.reset();
+        inFlight.recordBytesSent(40);
+        inFlight.recordJob(true, System.nanoTime());
+
+        PrinterMetrics.DeviceMetrics after = metrics.device("00:11:22:33:44:66");
+        assertEquals(40, after.getBytesSent());
+        assertEquals(1, after.getJobs());
+    }
+}
@@ -0,0 +1,114 @@
+package com.ahmed.plugin.printerbridge.profile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.ahmed.plugin.printerbridge.escpos.EscPosCommands;
+import com.ahmed.plugin.printerbridge.escpos.EscPosEncoder;
+import com.ahmed.plugin.printerbridge.simulator.SimulatedPrinterTransport;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PrinterProfilesTest {
+    private static final String ADDRESS = "00:11:22:33:44:77";
+
+    private SimulatedPrinterTransport transport;
+    private MemoryProfileStore store;
+
+    @Before
+    public void setUp() {
+        transport = new SimulatedPrinterTransport();
+        transport.connect("printer", ADDRESS);
+        store = new MemoryProfileStore();
+    }
+
+    @After
+    public void tearDown() {
+        transport.shutdown();
+    }
+
+    @Test
+    public void answeringPrinterIsMatchedByWhatItReports() {
+        transport.respondTo(PrinterProber.STATUS_REQUEST, new byte[] { 0x16 })
+                .respondTo(EscPosCommands.printerInfo(PrinterProber.INFO_MANUFACTURER), info("EPSON"))
+                .respondTo(EscPosCommands.printerInfo(PrinterProber.INFO_MODEL), info("TM-m30"))
+                .respondTo(EscPosCommands.printerInfo(PrinterProber.INFO_FIRMWARE), info("1.02 ESC/POS"));
+        PrinterProfiles profiles = new PrinterProfiles(store, EscPosEncoder.PAPER_58MM_DOTS, true);
+
+        // The Bluetooth name says nothing about the vendor
+        PrinterProfile profile = profiles.ensureProbed("Front desk", ADDRESS, transport);
+
+        assertEquals("epson", profile.getVendor());
+        assertEquals("TM-m30", profile.getModel());
+        assertEquals("1.02 ESC/POS", profile.getFirmware());
+        assertEquals(EscPosEncoder.PAPER_80MM_DOTS, profile.getDotsPerLine());
+        assertEquals(48, profile.getColumns());
+        assertTrue(profile.isProbed());
+        assertSame(profile, store.read(ADDRESS));
+    }
+
+    @Test
+    public void silentPrinterIsGuessedFromItsNameAndProbedAgainNextSession() {
+        PrinterProfiles profiles = new PrinterProfiles(store, EscPosEncoder.PAPER_58MM_DOTS, true);
+
+        PrinterProfile guessed = profiles.ensureProbed("MTP-II", ADDRESS, transport);
+        int queries = transport.getQueryCount();
+
+        assertEquals("goojprt", guessed.getVendor());
+        assertFalse(guessed.isProbed());
+        assertFalse(guessed.hasNativeQr());
+        assertNull("tried once per session", profiles.ensureProbed("MTP-II", ADDRESS, transport));
+        assertEquals(queries, transport.getQueryCount());
+
+        PrinterProfiles nextSession = new PrinterProfiles(store, EscPosEncoder.PAPER_58MM_DOTS, true);
+        assertNotNull(nextSession.get(ADDRESS.toLowerCase()));
+        assertNull(nextSession.ensureProbed("MTP-II", ADDRESS, transport));
+        assertTrue(transport.getQueryCount() > queries);
+    }
+
+    @Test
+    public void unknownPrinterGetsTheConfiguredDefaults() {
+        PrinterProfiles profiles = new PrinterProfiles(store, EscPosEncoder.PAPER_80MM_DOTS, false);
+
+        PrinterProfile profile = profiles.ensureProbed("Kitchen", ADDRESS, transport);
+
+        assertEquals(VendorTable.GENERIC_VENDOR, profile.getVendor());
+        assertEquals(EscPosEncoder.PAPER_80MM_DOTS, profile.getDotsPerLine());
+        assertEquals(48, profile.getColumns());
+        assertFalse(profile.hasNativeQr());
+        assertEquals(EscPosEncoder.ARABIC_CODE_TABLE, profile.getCodeTable());
+    }
+
+    @Test
+    public void printerWithoutAProfileReadsTheStoreOnce() {
+        PrinterProfiles profiles = new PrinterProfiles(store, EscPosEncoder.PAPER_58MM_DOTS, true);
+
+        for (int i = 0; i < 4; i++) {
+            assertNull(profiles.get(ADDRESS));
+        }
+        assertEquals(1, store.getReadCount());
+
+        PrinterProfile probed = profiles.ensureProbed("MTP-II", ADDRESS, transport);
+        assertSame(probed, profiles.get(ADDRESS));
+    }
+
+    @Test
+    public void replyThatIsNotAStatusByteMeansNoAnswer() throws Exception {
+        // Bits 0 and 7 must be clear in a DLE EOT reply
+        transport.respondTo(PrinterProber.STATUS_REQUEST, new byte[] { (byte) 0x93 });
+
+        assertNull(PrinterProber.probe(transport));
+    }
+
+    private static byte[] info(String text) {
+        return ("_" + text + "\0").getBytes(StandardCharsets.US_ASCII);
+    }
+}
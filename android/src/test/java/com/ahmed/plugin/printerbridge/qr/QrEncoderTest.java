@@ -0,0 +1,172 @@
+package com.ahmed.plugin.printerbridge.qr;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class QrEncoderTest {
+
+    @Test
+    public void reedSolomonMatchesTheSpecExample() {
+        // 1-M "HELLO WORLD" from the QR specification walkthrough
+        byte[] data = bytes(32, 91, 11, 120, 209, 114, 220, 77, 67, 64, 236, 17, 236, 17, 236, 17);
+
+        byte[] ecc = ReedSolomon.remainder(data, 0, data.length, ReedSolomon.divisor(10));
+
+        assertArrayEquals(bytes(196, 35, 39, 119, 235, 215, 231, 226, 93, 23), ecc);
+    }
+
+    @Test
+    public void formatAndVersionBitsMatchTheSpecTables() {
+        assertEquals(0b101010000010010, QrEncoder.formatBits(QrCode.ErrorCorrection.MEDIUM, 0));
+        assertEquals(0b111011111000100, QrEncoder.formatBits(QrCode.ErrorCorrection.LOW, 0));
+        assertEquals(0b110011000101111, QrEncoder.formatBits(QrCode.ErrorCorrection.LOW, 4));
+        assertEquals(0b000111110010010100, QrEncoder.versionBits(7));
+    }
+
+    @Test
+    public void byteCapacitiesMatchTheSpecTables() {
+        assertEquals(17, QrEncoder.capacity(1, QrCode.ErrorCorrection.LOW));
+        assertEquals(14, QrEncoder.capacity(1, QrCode.ErrorCorrection.MEDIUM));
+        assertEquals(7, QrEncoder.capacity(1, QrCode.ErrorCorrection.HIGH));
+        assertEquals(213, QrEncoder.capacity(10, QrCode.ErrorCorrection.MEDIUM));
+        assertEquals(2953, QrEncoder.capacity(40, QrCode.ErrorCorrection.LOW));
+        assertEquals(1273, QrEncoder.capacity(40, QrCode.ErrorCorrection.HIGH));
+        assertEquals(2, QrEncoder.minVersion(15, QrCode.ErrorCorrection.MEDIUM));
+        assertEquals(-1, QrEncoder.minVersion(2954, QrCode.ErrorCorrection.LOW));
+        assertArrayEquals(new int[] { 6, 22, 38 }, QrEncoder.alignmentPositions(7));
+        assertArrayEquals(new int[] { 6, 34, 60, 86, 112, 138 }, QrEncoder.alignmentPositions(32));
+    }
+
+    @Test
+    public void symbolReadsBackToItsPayload() {
+        byte[] payload = "https://ex.com/t/42".getBytes(StandardCharsets.UTF_8);
+
+        QrCode code = QrEncoder.encode(payload, QrCode.ErrorCorrection.QUARTILE);
+
+        // 19 bytes at Q: version 2, which has a single error correction block, so nothing is interleaved
+        assertEquals(2, code.getVersion());
+        assertEquals(25, code.getSize());
+        assertEquals(QrEncoder.formatBits(QrCode.ErrorCorrection.QUARTILE, code.getMask()), readFormatBits(code));
+        assertFinder(code, 0, 0);
+        assertFinder(code, code.getSize() - 7, 0);
+        assertFinder(code, 0, code.getSize() - 7);
+
+        byte[] codewords = readCodewords(code);
+        int dataLength = QrEncoder.dataCodewords(2, QrCode.ErrorCorrection.QUARTILE);
+        // Mode 0100, 8-bit length, then the bytes
+        assertEquals(0x4, (codewords[0] & 0xF0) >> 4);
+        assertEquals(payload.length, ((codewords[0] & 0x0F) << 4) | ((codewords[1] & 0xF0) >> 4));
+        byte[] decoded = new byte[payload.length];
+        for (int i = 0; i < payload.length; i++) {
+            decoded[i] = (byte) (((codewords[i + 1] & 0x0F) << 4) | ((codewords[i + 2] & 0xF0) >> 4));
+        }
+        assertArrayEquals(payload, decoded);
+        byte[] ecc = ReedSolomon.remainder(codewords, 0, dataLength, ReedSolomon.divisor(codewords.length - dataLength));
+        assertArrayEquals(ecc, Arrays.copyOfRange(codewords, dataLength, codewords.length));
+    }
+
+    @Test
+    public void largestPayloadFitsVersion40() {
+        byte[] payload = new byte[2953];
+        Arrays.fill(payload, (byte) 'x');
+
+        QrCode code = QrEncoder.encode(payload, QrCode.ErrorCorrection.LOW);
+
+        assertEquals(40, code.getVersion());
+        assertEquals(177, code.getSize());
+        assertTrue(code.isDark(8, code.getSize() - 8));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void payloadBeyondVersion40IsRejected() {
+        QrEncoder.encode(new byte[2954], QrCode.ErrorCorrection.LOW);
+    }
+
+    // --- A minimal reader for versions 2-6, independent of the encoder's placement code ---
+
+    private static int readFormatBits(QrCode code) {
+        int bits = 0;
+        for (int i = 0; i <= 5; i++) {
+            bits |= (code.isDark(8, i) ? 1 : 0) << i;
+        }
+        bits |= (code.isDark(8, 7) ? 1 : 0) << 6;
+        bits |= (code.isDark(8, 8) ? 1 : 0) << 7;
+        bits |= (code.isDark(7, 8) ? 1 : 0) << 8;
+        for (int i = 9; i < 15; i++) {
+            bits |= (code.isDark(14 - i, 8) ? 1 : 0) << i;
+        }
+        return bits;
+    }
+
+    private static void assertFinder(QrCode code, int left, int top) {
+        for (int y = 0; y < 7; y++) {
+            for (int x = 0; x < 7; x++) {
+                boolean ring = x == 1 || x == 5 || y == 1 || y == 5;
+                boolean inner = x >= 1 && x <= 5 && y >= 1 && y <= 5;
+                assertEquals("finder module " + x + "," + y, !(ring && inner), code.isDark(left + x, top + y));
+            }
+        }
+    }
+
+    private static byte[] readCodewords(QrCode code) {
+        int size = code.getSize();
+        byte[] result = new byte[QrEncoder.rawDataModules(code.getVersion()) / 8];
+        int bit = 0;
+        for (int right = size - 1; right >= 1; right -= 2) {
+            if (right == 6) {
+                right = 5;
+            }
+            for (int step = 0; step < size; step++) {
+                boolean upward = ((right + 1) & 2) == 0;
+                int y = upward ? size - 1 - step : step;
+                for (int x = right; x > right - 2; x--) {
+                    if (isFunction(size, x, y) || bit >= result.length * 8) {
+                        continue;
+                    }
+                    boolean dark = code.isDark(x, y) ^ masked(code.getMask(), x, y);
+                    if (dark) {
+                        result[bit >>> 3] |= (byte) (0x80 >>> (bit & 7));
+                    }
+                    bit++;
+                }
+            }
+        }
+        return result;
+    }
+
+    private static boolean isFunction(int size, int x, int y) {
+        int alignment = size - 7;
+        return x < 9 && y < 9
+                || x >= size - 8 && y < 9
+                || x < 9 && y >= size - 8
+                || x == 6 || y == 6
+                || Math.abs(x - alignment) <= 2 && Math.abs(y - alignment) <= 2;
+    }
+
+    private static boolean masked(int mask, int x, int y) {
+        switch (mask) {
+            case 0: return (x + y) % 2 == 0;
+            case 1: return y % 2 == 0;
+            case 2: return x % 3 == 0;
+            case 3: return (x + y) % 3 == 0;
+            case 4: return (x / 3 + y / 2) % 2 == 0;
+            case 5: return x * y % 2 + x * y % 3 == 0;
+            case 6: return (x * y % 2 + x * y % 3) % 2 == 0;
+            default: return ((x + y) % 2 + x * y % 3) % 2 == 0;
+        }
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] result = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = (byte) values[i];
+        }
+        return result;
+    }
+}
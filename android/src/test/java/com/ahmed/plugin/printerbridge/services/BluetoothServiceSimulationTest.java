@@ -0,0 +1,188 @@
+package com.ahmed.plugin.printerbridge.services;
+
+import static org.junit.Assert.*;
+
+import android.bluetooth.BluetoothAdapter;
+
+import com.ahmed.plugin.printerbridge.exceptions.PrinterException;
+import com.ahmed.plugin.printerbridge.simulator.SimulatedBluetoothStack;
+import com.getcapacitor.JSObject;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class BluetoothServiceSimulationTest {
+    private static final String KITCHEN = "KITCHEN-01";
+    private static final String KITCHEN_ADDRESS = "00:11:22:33:44:55";
+
+    private SimulatedBluetoothStack stack;
+    private BluetoothService service;
+
+    @Before
+    public void setUp() {
+        stack = new SimulatedBluetoothStack();
+    }
+
+    @After
+    public void tearDown() {
+        if (service != null) {
+            service.cleanup();
+        }
+        stack.shutdown();
+    }
+
+    @Test
+    public void findPrinter_pairedPrinter_resolvesWithoutDiscovery() throws Exception {
+        stack.addPairedDevice(KITCHEN, KITCHEN_ADDRESS);
+        service = new BluetoothService(stack);
+
+        JSObject result = service.findPrinter("kitchen-01", false);
+
+        assertTrue(result.getBoolean("success"));
+        assertEquals(KITCHEN_ADDRESS, result.getString("deviceId"));
+        assertEquals("paired", result.getString("source"));
+        assertEquals(0, stack.getStartDiscoveryCount());
+        assertTrue(result.getLong("elapsedMs") < 100);
+    }
+
+    @Test
+    public void findPrinter_stopsDiscoveryOnFirstMatch() throws Exception {
+        stack.addDiscoverableDevice("OTHER", "00:11:22:33:44:00", 100)
+                .addDiscoverableDevice(KITCHEN, KITCHEN_ADDRESS, 400)
+                .setDiscoveryDuration(12_000);
+        service = new BluetoothService(stack);
+
+        long start = System.nanoTime();
+        JSObject result = service.findPrinter(KITCHEN, false);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(result.getBoolean("success"));
+        assertEquals("discovery", result.getString("source"));
+        assertFalse(result.getBoolean("isPaired"));
+        assertTrue("took " + elapsedMs + " ms", elapsedMs < 1_500);
+        assertFalse("inquiry must be cancelled once the printer is found", stack.isDiscovering());
+    }
+
+    @Test
+    public void findPrinter_autoPair_pairsDiscoveredPrinter() throws Exception {
+        stack.addDiscoverableDevice(KITCHEN, KITCHEN_ADDRESS, 300).setBondTransition(KITCHEN_ADDRESS, 500, true);
+        service = new BluetoothService(stack);
+
+        long start = System.nanoTime();
+        JSObject result = service.findPrinter(KITCHEN, true);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(result.getBoolean("isPaired"));
+        assertEquals(1, stack.getCreateBondCount());
+        assertTrue("took " + elapsedMs + " ms", elapsedMs < 2_000);
+    }
+
+    @Test
+    public void findPrinter_unknownPrinter_reportsNotFound() throws Exception {
+        stack.setDiscoveryDuration(300);
+        service = new BluetoothService(stack);
+
+        JSObject result = service.findPrinter(KITCHEN, true);
+
+        assertFalse(result.getBoolean("success"));
+        assertEquals("", result.getString("deviceId"));
+        assertEquals(0, stack.getCreateBondCount());
+    }
+
+    @Test
+    public void pairDevice_failedBond_reportsFailure() throws Exception {
+        stack.addDiscoverableDevice(KITCHEN, KITCHEN_ADDRESS, 0).setBondTransition(KITCHEN_ADDRESS, 200, false);
+        service = new BluetoothService(stack);
+
+        JSObject result = service.pairDevice(KITCHEN_ADDRESS);
+
+        assertFalse(result.getBoolean("success"));
+    }
+
+    @Test
+    public void discoverDevices_concurrentCallIsRejected() throws Exception {
+        stack.setDiscoveryDuration(800);
+        service = new BluetoothService(stack);
+        CountDownLatch done = new CountDownLatch(1);
+        new Thread(() -> {
+            try {
+                service.discoverDevices();
+            } catch (PrinterException ignored) {
+            }
+            done.countDown();
+        }).start();
+        awaitDiscoveryStarted();
+
+        try {
+            service.discoverDevices();
+            fail("second discovery should be rejected");
+        } catch (PrinterException e) {
+            assertEquals("Discovery is already in progress.", e.getMessage());
+        }
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        assertEquals(1, stack.getStartDiscoveryCount());
+    }
+
+    @Test
+    public void validateBluetoothState_doesNotWaitForDiscoveryLock() throws Exception {
+        stack.setDiscoveryDuration(1_000);
+        service = new BluetoothService(stack);
+        new Thread(() -> {
+            try {
+                service.discoverDevices();
+            } catch (PrinterException ignored) {
+            }
+        }).start();
+        awaitDiscoveryStarted();
+
+        // Discovery holds the write lock for its whole duration
+        long start = System.nanoTime();
+        for (int i = 0; i < 10_000; i++) {
+            service.validateBluetoothState();
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("took " + elapsedMs + " ms", elapsedMs < 100);
+    }
+
+    @Test
+    public void awaitBluetoothEnabled_resumesWhenAdapterComesBack() throws Exception {
+        stack.withInitialState(BluetoothAdapter.STATE_OFF);
+        service = new BluetoothService(stack);
+        AtomicReference<String> stateEvent = new AtomicReference<>();
+        CountDownLatch stateEventReceived = new CountDownLatch(1);
+        service.addAdapterStateListener((state, previous) -> {
+            stateEvent.set(AdapterStateMonitor.stateToString(state));
+            stateEventReceived.countDown();
+        });
+
+        try {
+            service.validateBluetoothState();
+            fail("Bluetooth is off");
+        } catch (PrinterException expected) {
+        }
+
+        stack.scheduleAdapterState(BluetoothAdapter.STATE_ON, 300);
+        long start = System.nanoTime();
+        service.awaitBluetoothEnabled();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(service.isBluetoothEnabled());
+        // Listeners run on the event thread, independently of the resumed waiter
+        assertTrue(stateEventReceived.await(1, TimeUnit.SECONDS));
+        assertEquals("ON", stateEvent.get());
+        assertTrue("took " + elapsedMs + " ms", elapsedMs >= 250 && elapsedMs < 1_000);
+    }
+
+    private void awaitDiscoveryStarted() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 1_000;
+        while (!stack.isDiscovering() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(stack.isDiscovering());
+    }
+}
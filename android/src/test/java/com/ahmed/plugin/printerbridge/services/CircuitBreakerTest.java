@@ -0,0 +1,48 @@
+package com.ahmed.plugin.printerbridge.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import com.ahmed.plugin.printerbridge.exceptions.PrinterUnavailableException;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class CircuitBreakerTest {
+    private static final String PRINTER_ADDRESS = "00:11:22:33:44:66";
+    private static final long COOLED_DOWN = TimeUnit.MILLISECONDS.toNanos(CircuitBreaker.OPEN_MS + 1);
+
+    @Test
+    public void oneTrialJobDecidesWhetherTheBreakerCloses() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker();
+        long now = 0;
+        for (int i = 0; i < CircuitBreaker.FAILURE_THRESHOLD; i++) {
+            breaker.acquire(PRINTER_ADDRESS, now);
+            breaker.onFailure(now);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState(now));
+
+        now += COOLED_DOWN;
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState(now));
+        breaker.acquire(PRINTER_ADDRESS, now);
+        assertTurnedAway(breaker, now);
+        breaker.onFailure(now);
+        assertEquals("a failed trial opens it again", CircuitBreaker.State.OPEN, breaker.getState(now));
+        assertTurnedAway(breaker, now);
+
+        now += COOLED_DOWN;
+        breaker.acquire(PRINTER_ADDRESS, now);
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(now));
+        breaker.acquire(PRINTER_ADDRESS, now);
+    }
+
+    private static void assertTurnedAway(CircuitBreaker breaker, long now) {
+        try {
+            breaker.acquire(PRINTER_ADDRESS, now);
+            fail("the breaker lets one job through at a time");
+        } catch (PrinterUnavailableException expected) {
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.ahmed.plugin.printerbridge.services;
+
+import static org.junit.Assert.*;
+
+import com.ahmed.plugin.printerbridge.models.PrintRequest;
+import com.ahmed.plugin.printerbridge.simulator.EscPosPrinterEmulator;
+import com.ahmed.plugin.printerbridge.simulator.SimulatedBluetoothStack;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end print time of a receipt through {@link PrinterService} on the emulated printer.
+ */
+public class PrintThroughputTest {
+    private static final String PRINTER = "COUNTER-01";
+    private static final String PRINTER_ADDRESS = "00:11:22:33:44:66";
+
+    private SimulatedBluetoothStack stack;
+    private EscPosPrinterEmulator printer;
+    private BluetoothService bluetoothService;
+    private PrinterService printerService;
+
+    @Before
+    public void setUp() {
+        stack = new SimulatedBluetoothStack().addPairedDevice(PRINTER, PRINTER_ADDRESS);
+        // Typical 58 mm printer: 11 KB/s SPP link, 4 KB input buffer, 80 mm/s head
+        printer = new EscPosPrinterEmulator()
+                .setPaperWidthDots(EscPosPrinterEmulator.PAPER_58MM_DOTS)
+                .setConnectLatency(300)
+                .setBandwidth(11_000)
+                .setBufferSize(4096)
+                .setFeedSpeed(80)
+                .setTimeScale(0.1);
+        bluetoothService = new BluetoothService(stack);
+        printerService = new PrinterService(bluetoothService, printer);
+    }
+
+    @After
+    public void tearDown() {
+        printerService.cleanup();
+        bluetoothService.cleanup();
+        printer.shutdown();
+        stack.shutdown();
+    }
+
+    @Test
+    public void customerReceipt_printsWithinBudget() throws Exception {
+        printerService.printText(receipt(30));
+
+        EscPosPrinterEmulator.JobTiming timing = printer.getLastTiming();
+        // 30 item lines + 3 trailing feeds at 80 mm/s, plus the connect
+        assertTrue("print took " + timing.printCompleteMs + " ms", timing.printCompleteMs < 2_000);
+        assertTrue("transfer took " + timing.transferCompleteMs + " ms", timing.transferCompleteMs < 500);
+        printer.writePreview(new File("build/emulator-previews/customer-receipt.png"));
+    }
+
+    @Test
+    public void longReport_isPaperSpeedBound() throws Exception {
+        long start = System.nanoTime();
+        printerService.printText(receipt(500));
+        long wallMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        EscPosPrinterEmulator.JobTiming timing = printer.getLastTiming();
+        double feedMs = timing.paperDots / (80.0 * EscPosPrinterEmulator.DOTS_PER_MM) * 1000;
+        assertEquals(300 + feedMs, timing.printCompleteMs, 100);
+        assertTrue(timing.linkStallMs > 0);
+        // PrinterService returns once the last byte is accepted, scaled by the emulator's time scale
+        assertTrue("returned after " + wallMs + " ms", wallMs >= timing.transferCompleteMs * 0.1 - 20);
+    }
+
+    private static PrintRequest receipt(int lines) {
+        String[] data = new String[lines];
+        for (int i = 0; i < lines; i++) {
+            data[i] = "Item " + i + "            x1        12.50";
+        }
+        return new PrintRequest(PRINTER, PRINTER_ADDRESS, data);
+    }
+}
@@ -0,0 +1,748 @@
+package com.ahmed.plugin.printerbridge.services;
+
+import static org.junit.Assert.*;
+
+import android.bluetooth.BluetoothAdapter;
+
+import com.ahmed.plugin.printerbridge.escpos.EscPosCommands;
+import com.ahmed.plugin.printerbridge.escpos.EscPosStreamParser;
+import com.ahmed.plugin.printerbridge.escpos.JobFinishing;
+import com.ahmed.plugin.printerbridge.exceptions.JobCancelledException;
+import com.ahmed.plugin.printerbridge.exceptions.PrinterException;
+import com.ahmed.plugin.printerbridge.exceptions.PrinterNotReadyException;
+import com.ahmed.plugin.printerbridge.exceptions.PrinterUnavailableException;
+import com.ahmed.plugin.printerbridge.exceptions.QueueFullException;
+import com.ahmed.plugin.printerbridge.metrics.PrinterMetrics;
+import com.ahmed.plugin.printerbridge.models.CommitJobRequest;
+import com.ahmed.plugin.printerbridge.models.JobPriority;
+import com.ahmed.plugin.printerbridge.models.MultiPrintRequest;
+import com.ahmed.plugin.printerbridge.models.PrepareJobRequest;
+import com.ahmed.plugin.printerbridge.models.PrintJobEvent;
+import com.ahmed.plugin.printerbridge.models.PrintRequest;
+import com.ahmed.plugin.printerbridge.models.PrintTargetResult;
+import com.ahmed.plugin.printerbridge.models.PrinterQueueStatus;
+import com.ahmed.plugin.printerbridge.models.PrinterStatus;
+import com.ahmed.plugin.printerbridge.models.QRCodePrintRequest;
+import com.ahmed.plugin.printerbridge.models.QueueLimits;
+import com.ahmed.plugin.printerbridge.models.ReprintRequest;
+import com.ahmed.plugin.printerbridge.profile.PrinterProfile;
+import com.ahmed.plugin.printerbridge.simulator.SimulatedBluetoothStack;
+import com.ahmed.plugin.printerbridge.simulator.SimulatedPrinterTransport;
+import com.ahmed.plugin.printerbridge.spool.MemorySpoolStore;
+import com.ahmed.plugin.printerbridge.spool.PrintSpool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class PrinterServiceSimulationTest {
+    private static final String PRINTER = "COUNTER-01";
+    private static final String PRINTER_ADDRESS = "00:11:22:33:44:66";
+    // Scheduling slack on a loaded build machine
+    private static final long SLACK_MS = 400;
+
+    private SimulatedBluetoothStack stack;
+    private SimulatedPrinterTransport transport;
+    private BluetoothService bluetoothService;
+    private PrinterService printerService;
+
+    @Before
+    public void setUp() {
+        stack = new SimulatedBluetoothStack().addPairedDevice(PRINTER, PRINTER_ADDRESS);
+        transport = new SimulatedPrinterTransport().setConnectLatency(200).setBandwidth(20_000);
+    }
+
+    @After
+    public void tearDown() {
+        if (printerService != null) {
+            printerService.cleanup();
+        }
+        if (bluetoothService != null) {
+            bluetoothService.cleanup();
+        }
+        transport.shutdown();
+        stack.shutdown();
+    }
+
+    @Test
+    public void printText_completesWithinConnectPlusTransferBudget() throws Exception {
+        startServices();
+        PrintRequest request = receipt(100);
+
+        long start = System.nanoTime();
+        printerService.printText(request);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        byte[] sent = transport.getReceivedJobs().get(0);
+        long budgetMs = 200 + transport.transferTimeMs(sent.length);
+        assertTrue("took " + elapsedMs + " ms, budget " + budgetMs, elapsedMs >= budgetMs - 20 && elapsedMs < budgetMs + SLACK_MS);
+        assertEquals(PRINTER_ADDRESS, transport.getSelectedDeviceId());
+    }
+
+    @Test
+    public void printText_concurrentJobIsQueuedAndLinkNeverShared() throws Exception {
+        startServices();
+        CountDownLatch firstDone = new CountDownLatch(1);
+        new Thread(() -> {
+            try {
+                printerService.printText(receipt(200));
+            } catch (PrinterException ignored) {
+            }
+            firstDone.countDown();
+        }).start();
+        Thread.sleep(50);
+
+        printerService.printText(receipt(1));
+
+        assertEquals(0, firstDone.getCount());
+        assertEquals(2, transport.getReceivedJobs().size());
+        assertEquals(1, transport.getMaxConcurrentSends());
+    }
+
+    @Test
+    public void printText_urgentJobIsSentBetweenChunksOfBulkJob() throws Exception {
+        startServices();
+        AtomicReference<Exception> bulkFailure = new AtomicReference<>();
+        CountDownLatch bulkDone = new CountDownLatch(1);
+        PrintRequest report = new PrintRequest(PRINTER, PRINTER_ADDRESS, receipt(1000).getData(), "report", JobPriority.BULK);
+        new Thread(() -> {
+            try {
+                printerService.printText(report);
+            } catch (PrinterException e) {
+                bulkFailure.set(e);
+            }
+            bulkDone.countDown();
+        }).start();
+        Thread.sleep(300);
+
+        long start = System.nanoTime();
+        printerService.printText(new PrintRequest(PRINTER, PRINTER_ADDRESS, receipt(3).getData(), "urgent", JobPriority.URGENT));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // At worst the chunk in flight finishes first, never the whole report
+        long budgetMs = 2 * (200 + transport.transferTimeMs(PrinterService.BULK_CHUNK_BYTES));
+        assertTrue("urgent job took " + elapsedMs + " ms, budget " + budgetMs, elapsedMs < budgetMs + SLACK_MS);
+        assertEquals("report still printing", 1, bulkDone.getCount());
+
+        assertTrue(bulkDone.await(10, TimeUnit.SECONDS));
+        assertNull(bulkFailure.get());
+        List<byte[]> sent = transport.getReceivedJobs();
+        assertTrue("report was chunked", sent.size() > 3);
+        assertEquals(1, transport.getMaxConcurrentSends());
+        PrinterMetrics.DeviceMetrics metrics = printerService.getMetrics().device(PRINTER_ADDRESS);
+        assertEquals(2, metrics.getJobs());
+        assertEquals(0, metrics.getFailures());
+    }
+
+    @Test
+    public void printText_retriesAfterFailedConnect() throws Exception {
+        startServices();
+        transport.failNextConnections(1);
+
+        long start = System.nanoTime();
+        printerService.printText(receipt(10));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(2, transport.getSendCount());
+        assertEquals(1, transport.getReceivedJobs().size());
+        // failed connect + retry delay + successful connect
+        assertTrue("took " + elapsedMs + " ms", elapsedMs >= 200 + 1_500 + 200);
+    }
+
+    @Test
+    public void printText_retriesWhenLinkDropsMidTransfer() throws Exception {
+        startServices();
+        transport.disconnectNextTransferAfter(64);
+
+        printerService.printText(receipt(50));
+
+        assertEquals(2, transport.getSendCount());
+        assertEquals(1, transport.getReceivedJobs().size());
+    }
+
+    @Test
+    public void printText_heldWhileBluetoothOffAndResumedWhenEnabled() throws Exception {
+        stack.withInitialState(BluetoothAdapter.STATE_OFF);
+        startServices();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        new Thread(() -> {
+            try {
+                printerService.printText(receipt(5));
+            } catch (PrinterException e) {
+                failure.set(e);
+            }
+            done.countDown();
+        }).start();
+
+        Thread.sleep(300);
+        assertEquals("job must be held, not sent or failed", 0, transport.getSendCount());
+        assertEquals(1, done.getCount());
+
+        stack.setAdapterState(BluetoothAdapter.STATE_ON);
+        assertTrue(done.await(3, TimeUnit.SECONDS));
+        assertNull(failure.get());
+        assertEquals(1, transport.getReceivedJobs().size());
+    }
+
+    @Test
+    public void printText_recordsPhaseTimingsAndRetriesPerDevice() throws Exception {
+        startServices();
+        transport.failNextConnections(1);
+
+        printerService.printText(receipt(100));
+
+        PrinterMetrics.DeviceMetrics metrics = printerService.getMetrics().device(PRINTER_ADDRESS);
+        byte[] sent = transport.getReceivedJobs().get(0);
+        assertEquals(1, metrics.getJobs());
+        assertEquals(0, metrics.getFailures());
+        assertEquals(1, metrics.getRetries());
+        assertEquals(sent.length, metrics.getBytesSent());
+
+        long connectMs = metrics.snapshot(PrinterMetrics.Phase.CONNECT).percentileMicros(50) / 1000;
+        long transferMs = metrics.snapshot(PrinterMetrics.Phase.TRANSFER).percentileMicros(50) / 1000;
+        assertTrue("connect " + connectMs + " ms", connectMs >= 190 && connectMs < 200 + SLACK_MS);
+        long expectedTransferMs = transport.transferTimeMs(sent.length);
+        assertTrue("transfer " + transferMs + " ms", transferMs >= expectedTransferMs - 20 && transferMs < expectedTransferMs + SLACK_MS);
+        assertEquals(1, metrics.snapshot(PrinterMetrics.Phase.ENCODE).getCount());
+        assertEquals(1, metrics.snapshot(PrinterMetrics.Phase.TOTAL).getCount());
+    }
+
+    @Test
+    public void printText_failedJobCountsAsFailure() throws Exception {
+        startServices();
+        transport.failNextConnections(2);
+
+        try {
+            printerService.printText(receipt(1));
+            fail("both attempts fail to connect");
+        } catch (PrinterException expected) {
+        }
+
+        PrinterMetrics.DeviceMetrics metrics = printerService.getMetrics().device(PRINTER_ADDRESS);
+        assertEquals(1, metrics.getJobs());
+        assertEquals(1, metrics.getFailures());
+        assertEquals(0, metrics.getBytesSent());
+        assertEquals(0, metrics.snapshot(PrinterMetrics.Phase.TOTAL).getCount());
+    }
+
+    @Test
+    public void printText_streamsLifecycleEventsForItsJobId() throws Exception {
+        startServices();
+        List<PrintJobEvent> events = new CopyOnWriteArrayList<>();
+        printerService.addPrintJobListener(events::add);
+        String[] lines = receipt(200).getData();
+
+        printerService.printText(new PrintRequest(PRINTER, PRINTER_ADDRESS, lines, "order-42"));
+
+        List<PrintJobEvent.State> states = new ArrayList<>();
+        int lastPercent = -1;
+        for (PrintJobEvent event : events) {
+            assertEquals("order-42", event.getJobId());
+            assertEquals(PRINTER_ADDRESS, event.getDeviceId());
+            if (states.isEmpty() || states.get(states.size() - 1) != event.getState()) {
+                states.add(event.getState());
+            }
+            if (event.getState() == PrintJobEvent.State.SENDING) {
+                assertTrue(event.getPercent() > lastPercent);
+                lastPercent = event.getPercent();
+            }
+        }
+        assertEquals(Arrays.asList(PrintJobEvent.State.QUEUED, PrintJobEvent.State.CONNECTING, PrintJobEvent.State.CONNECTED,
+                PrintJobEvent.State.SENDING, PrintJobEvent.State.SENT), states);
+        assertEquals(100, lastPercent);
+        PrintJobEvent sent = events.get(events.size() - 1);
+        assertTrue(sent.getBytesSaved() > 0);
+        assertEquals(transport.getReceivedJobs().get(0).length + sent.getBytesSaved(), sent.getTotalBytes());
+    }
+
+    @Test
+    public void printText_reportsFailureWithRetryAttempt() throws Exception {
+        startServices();
+        List<PrintJobEvent> events = new CopyOnWriteArrayList<>();
+        printerService.addPrintJobListener(events::add);
+        transport.failNextConnections(2);
+
+        try {
+            printerService.printText(receipt(1));
+            fail("both attempts fail to connect");
+        } catch (PrinterException expected) {
+        }
+
+        PrintJobEvent last = events.get(events.size() - 1);
+        assertEquals(PrintJobEvent.State.FAILED, last.getState());
+        assertEquals(2, last.getAttempt());
+        assertNotNull(last.getError());
+    }
+
+    @Test
+    public void printText_sendsCheckoutSequenceAsOneTransmission() throws Exception {
+        startServices();
+        JobFinishing checkout = JobFinishing.fromOptions(3, "partial", true);
+
+        printerService.printText(new PrintRequest(PRINTER, PRINTER_ADDRESS, receipt(10).getData(), null,
+                JobPriority.NORMAL, 0, checkout));
+
+        assertEquals(1, transport.getSendCount());
+        byte[] sent = transport.getReceivedJobs().get(0);
+        byte[] tail = Arrays.copyOfRange(sent, sent.length - 8, sent.length);
+        assertArrayEquals(new byte[] { 0x1D, 0x56, 0x01, 0x1B, 0x70, 0x00, 0x19, (byte) 0xFA }, tail);
+    }
+
+    @Test
+    public void cancelJob_releasesCallerAndLinkMidTransfer() throws Exception {
+        startServices();
+        List<PrintJobEvent> events = new CopyOnWriteArrayList<>();
+        printerService.addPrintJobListener(events::add);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        new Thread(() -> {
+            try {
+                printerService.printText(new PrintRequest(PRINTER, PRINTER_ADDRESS, receipt(500).getData(), "long"));
+            } catch (PrinterException e) {
+                failure.set(e);
+            }
+            done.countDown();
+        }).start();
+        Thread.sleep(500);
+
+        assertTrue(printerService.cancelJob("long"));
+
+        assertTrue("caller released at once", done.await(100, TimeUnit.MILLISECONDS));
+        assertTrue(failure.get() instanceof JobCancelledException);
+        assertFalse(((JobCancelledException) failure.get()).isExpired());
+        assertEquals(PrintJobEvent.State.CANCELLED, events.get(events.size() - 1).getState());
+        assertEquals(0, transport.getReceivedJobs().size());
+        PrinterMetrics.DeviceMetrics metrics = printerService.getMetrics().device(PRINTER_ADDRESS);
+        assertEquals(1, metrics.getCancellations());
+        assertEquals(0, metrics.getFailures());
+
+        // The link was dropped, not left to the abandoned transfer
+        printerService.printText(receipt(1));
+        assertEquals(1, transport.getAbortedTransfers());
+        assertEquals(1, transport.getReceivedJobs().size());
+        assertEquals(1, transport.getMaxConcurrentSends());
+        assertFalse(printerService.cancelJob("long"));
+    }
+
+    @Test
+    public void cancelJob_removesQueuedJobWithoutSendingIt() throws Exception {
+        startServices();
+        CountDownLatch firstDone = new CountDownLatch(1);
+        new Thread(() -> {
+            try {
+                printerService.printText(receipt(200));
+            } catch (PrinterException ignored) {
+            }
+            firstDone.countDown();
+        }).start();
+        Thread.sleep(50);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        CountDownLatch queuedDone = new CountDownLatch(1);
+        new Thread(() -> {
+            try {
+                printerService.printText(new PrintRequest(PRINTER, PRINTER_ADDRESS, receipt(5).getData(), "queued"));
+            } catch (PrinterException e) {
+                failure.set(e);
+            }
+            queuedDone.countDown();
+        }).start();
+        Thread.sleep(50);
+
+        assertTrue(printerService.cancelJob("queued"));
+
+        assertTrue(queuedDone.await(100, TimeUnit.MILLISECONDS));
+        assertTrue(failure.get() instanceof JobCancelledException);
+        assertTrue(firstDone.await(5, TimeUnit.SECONDS));
+        assertEquals(1, transport.getReceivedJobs().size());
+        assertEquals(0, transport.getAbortedTransfers());
+    }
+
+    @Test
+    public void printText_duplicateJobIdTurnedAwayWithoutTouchingTheRunningJob() throws Exception {
+        MemorySpoolStore store = new MemorySpoolStore();
+        bluetoothService = new BluetoothService(stack);
+        printerService = new PrinterService(bluetoothService, transport, new PrintSpool(store));
+        List<PrintJobEvent> events = new CopyOnWriteArrayList<>();
+        printerService.addPrintJobListener(events::add);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        new Thread(() -> {
+            try {
+                printerService.printText(new PrintRequest(PRINTER, PRINTER_ADDRESS, receipt(200).getData(), "order-7"));
+            } catch (PrinterException e) {
+                failure.set(e);
+            }
+            done.countDown();
+        }).start();
+        Thread.sleep(300);
+
+        try {
+            printerService.printText(new PrintRequest(PRINTER, PRINTER_ADDRESS, receipt(1).getData(), "order-7"));
+            fail("duplicate job ID accepted");
+        } catch (PrinterException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("already queued"));
+        }
+
+        assertNotNull("the running job is still spooled", store.read("order-7"));
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertNull(failure.get());
+        assertEquals(1, transport.getReceivedJobs().size());
+        assertTrue("the original was sent", new String(transport.getReceivedJobs().get(0), StandardCharsets.US_ASCII).contains("Item 199"));
+        for (PrintJobEvent event : events) {
+            assertNotEquals(PrintJobEvent.State.FAILED, event.getState());
+        }
+        assertEquals(PrintJobEvent.State.SENT, events.get(events.size() - 1).getState());
+    }
+
+    @Test
+    public void deadline_expiresDuringRetryWait() throws Exception {
+        startServices();
+        List<PrintJobEvent> events = new CopyOnWriteArrayList<>();
+        printerService.addPrintJobListener(events::add);
+        transport.failNextConnections(1);
+
+        long start = System.nanoTime();
+        try {
+            printerService.printText(new PrintRequest(PRINTER, PRINTER_ADDRESS, receipt(5).getData(), "timed",
+                    JobPriority.NORMAL, 800));
+            fail("the retry delay alone outlasts the deadline");
+        } catch (JobCancelledException e) {
+            assertTrue(e.isExpired());
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue("took " + elapsedMs + " ms", elapsedMs >= 790 && elapsedMs < 800 + SLACK_MS);
+        assertEquals(1, transport.getSendCount());
+        assertEquals(PrintJobEvent.State.EXPIRED, events.get(events.size() - 1).getState());
+    }
+
+    @Test
+    public void profile_probedOnFirstConnectAndUsedForLaterJobs() throws Exception {
+        // A mobile printer without a QR engine
+        transport.respondTo(new byte[] { EscPosCommands.DLE, 0x04, 0x01 }, new byte[] { 0x12 })
+                .respondTo(EscPosCommands.printerInfo(66), "_GOOJPRT\0".getBytes("US-ASCII"))
+                .respondTo(EscPosCommands.printerInfo(67), "_PT-210\0".getBytes("US-ASCII"));
+        startServices();
+
+        printerService.printQRCode(new QRCodePrintRequest(PRINTER, PRINTER_ADDRESS, "https://ex.com/t/1"));
+        int queries = transport.getQueryCount();
+        printerService.printQRCode(new QRCodePrintRequest(PRINTER, PRINTER_ADDRESS, "https://ex.com/t/2"));
+
+        PrinterProfile profile = printerService.getPrinterProfile(PRINTER_ADDRESS.toLowerCase());
+        assertEquals("goojprt", profile.getVendor());
+        assertEquals("PT-210", profile.getModel());
+        assertTrue(profile.isProbed());
+        assertFalse(profile.hasNativeQr());
+        assertEquals("probed once", queries, transport.getQueryCount());
+        // Encoded before the probe: native QR; after it: an image
+        assertTrue(hasCommand(transport.getReceivedJobs().get(0), EscPosStreamParser.Type.QR));
+        assertFalse(hasCommand(transport.getReceivedJobs().get(1), EscPosStreamParser.Type.QR));
+        assertTrue(hasCommand(transport.getReceivedJobs().get(1), EscPosStreamParser.Type.RASTER_IMAGE));
+    }
+
+    @Test
+    public void status_paperOutStopsJobAndTurnsAwayNextUntilRefilled() throws Exception {
+        transport.enableStatusReporting();
+        startServices();
+        List<PrinterStatus> changes = new CopyOnWriteArrayList<>();
+        printerService.addPrinterStatusListener(changes::add);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        CountDownLatch failed = new CountDownLatch(1);
+        new Thread(() -> {
+            try {
+                printerService.printText(receipt(400));
+            } catch (PrinterException e) {
+                failure.set(e);
+            }
+            failed.countDown();
+        }).start();
+        Thread.sleep(400);
+
+        // ASB: byte 3 bits 2-3, paper roll end
+        transport.sendAutomaticStatus(new byte[] { 0x10, 0x00, 0x0C, 0x00 });
+
+        assertTrue("failed without waiting for the timeout", failed.await(SLACK_MS, TimeUnit.MILLISECONDS));
+        assertTrue(failure.get() instanceof PrinterNotReadyException);
+        assertTrue(changes.get(0).isPaperOut());
+
+        // Still out when asked again: DLE EOT 4 bits 5-6
+        transport.respondTo(EscPosCommands.realTimeStatus(1), new byte[] { 0x12 })
+                .respondTo(EscPosCommands.realTimeStatus(2), new byte[] { 0x32 })
+                .respondTo(EscPosCommands.realTimeStatus(4), new byte[] { 0x72 });
+        int sends = transport.getSendCount();
+        try {
+            printerService.printText(receipt(1));
+            fail("expected the job to be turned away");
+        } catch (PrinterNotReadyException expected) {
+            assertTrue(expected.isPaperOut());
+        }
+        assertEquals(sends, transport.getSendCount());
+
+        transport.respondTo(EscPosCommands.realTimeStatus(2), new byte[] { 0x12 })
+                .respondTo(EscPosCommands.realTimeStatus(4), new byte[] { 0x12 });
+        printerService.printText(receipt(1));
+
+        assertTrue(printerService.getPrinterStatus(PRINTER_ADDRESS).isReady());
+        assertTrue(changes.get(changes.size() - 1).isReady());
+        byte[] lastJob = transport.getReceivedJobs().get(transport.getReceivedJobs().size() - 1);
+        assertTrue("automatic status enabled", hasCommand(lastJob, EscPosStreamParser.Type.STATUS_REQUEST));
+    }
+
+    @Test
+    public void printToMany_sendsToEveryPrinterSideBySide() throws Exception {
+        List<SimulatedPrinterTransport> links = new CopyOnWriteArrayList<>();
+        bluetoothService = new BluetoothService(stack);
+        printerService = new PrinterService(bluetoothService, () -> {
+            SimulatedPrinterTransport link = new SimulatedPrinterTransport().setConnectLatency(200).setBandwidth(20_000);
+            links.add(link);
+            return link;
+        });
+        List<MultiPrintRequest.Target> targets = Arrays.asList(new MultiPrintRequest.Target(PRINTER, PRINTER_ADDRESS),
+                new MultiPrintRequest.Target("KITCHEN-01", "00:11:22:33:44:77"),
+                new MultiPrintRequest.Target("KITCHEN-02", "00:11:22:33:44:88"));
+        MultiPrintRequest request = new MultiPrintRequest(targets, receipt(100).getData(), "order-7", JobPriority.NORMAL, 0,
+                JobFinishing.NONE);
+
+        try {
+            long start = System.nanoTime();
+            List<PrintTargetResult> results = printerService.printToMany(request);
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertEquals(3, results.size());
+            assertEquals(3, links.size());
+            for (int i = 0; i < targets.size(); i++) {
+                assertTrue(results.get(i).isSuccess());
+                assertEquals(targets.get(i).getDeviceId(), results.get(i).getDeviceId());
+                assertEquals("order-7:" + targets.get(i).getDeviceId(), results.get(i).getJobId());
+            }
+            byte[] sent = links.get(0).getReceivedJobs().get(0);
+            for (SimulatedPrinterTransport link : links) {
+                assertArrayEquals(sent, link.getReceivedJobs().get(0));
+            }
+            // One printer's time, not three
+            long budgetMs = 200 + links.get(0).transferTimeMs(sent.length);
+            assertTrue("took " + elapsedMs + " ms, budget " + budgetMs, elapsedMs < budgetMs + SLACK_MS);
+        } finally {
+            printerService.cleanup();
+            for (SimulatedPrinterTransport link : links) {
+                link.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void printToMany_failedPrinterDoesNotStopTheOthers() throws Exception {
+        startServices();
+        // Both attempts of whichever target goes first over the shared link
+        transport.failNextConnections(2);
+        MultiPrintRequest request = new MultiPrintRequest(Arrays.asList(new MultiPrintRequest.Target(PRINTER, PRINTER_ADDRESS),
+                new MultiPrintRequest.Target("KITCHEN-01", "00:11:22:33:44:77")), receipt(1).getData());
+
+        List<PrintTargetResult> results = printerService.printToMany(request);
+
+        int failed = 0;
+        for (PrintTargetResult result : results) {
+            if (!result.isSuccess()) {
+                failed++;
+                assertEquals("failed", result.getStatus());
+                assertNotNull(result.getError());
+            }
+        }
+        assertEquals(1, failed);
+        assertEquals(1, transport.getReceivedJobs().size());
+    }
+
+    @Test
+    public void commitJob_sendsPreparedLinesWithTailOnce() throws Exception {
+        startServices();
+        String[] items = receipt(20).getData();
+        String handle = printerService.prepareJob(new PrepareJobRequest(PRINTER, PRINTER_ADDRESS, items));
+
+        printerService.commitJob(new CommitJobRequest(handle, new String[] { "Paid by card" }, "sale-9", JobPriority.URGENT, 0,
+                JobFinishing.NONE));
+
+        try {
+            printerService.commitJob(new CommitJobRequest(handle, null));
+            fail("a handle is committed once");
+        } catch (PrinterException expected) {
+        }
+        assertEquals(1, transport.getReceivedJobs().size());
+
+        // The same receipt printed in one piece by a fresh service goes out byte for byte the same
+        String[] all = Arrays.copyOf(items, items.length + 1);
+        all[items.length] = "Paid by card";
+        SimulatedPrinterTransport reference = new SimulatedPrinterTransport().setConnectLatency(0).setBandwidth(1_000_000);
+        PrinterService referenceService = new PrinterService(bluetoothService, reference);
+        try {
+            referenceService.printText(new PrintRequest(PRINTER, PRINTER_ADDRESS, all));
+            assertArrayEquals(reference.getReceivedJobs().get(0), transport.getReceivedJobs().get(0));
+        } finally {
+            referenceService.cleanup();
+            reference.shutdown();
+        }
+    }
+
+    @Test
+    public void reprint_sendsStoredJobWithoutEncodingAgain() throws Exception {
+        startServices();
+        printerService.printText(new PrintRequest(PRINTER, PRINTER_ADDRESS, new String[] { "Order 41", "Total 9.00" }, "sale-41"));
+
+        printerService.reprint(new ReprintRequest("sale-41", 2, "sale-41-copy", JobPriority.URGENT, 0));
+
+        List<byte[]> jobs = transport.getReceivedJobs();
+        assertEquals(2, jobs.size());
+        assertEquals("both copies in one transmission", 2, occurrences(jobs.get(1), "Order 41".getBytes("ISO-8859-6")));
+        try {
+            printerService.reprint(new ReprintRequest("never-printed", 1));
+            fail("only delivered jobs can be reprinted");
+        } catch (PrinterException expected) {
+        }
+    }
+
+    @Test
+    public void runOnce_printsARetriedCallOnce() throws Exception {
+        startServices();
+        PrintRequest first = new PrintRequest(PRINTER, PRINTER_ADDRESS, receipt(20).getData(), "order-7");
+        PrintRequest retry = new PrintRequest(PRINTER, PRINTER_ADDRESS, receipt(20).getData(), "order-7-retry");
+        AtomicReference<String> retried = new AtomicReference<>();
+        Thread retrying = new Thread(() -> {
+            try {
+                retried.set(printerService.runOnce("order-7", retry.getJobId(), () -> printerService.printText(retry)));
+            } catch (PrinterException e) {
+                retried.set(e.getMessage());
+            }
+        });
+
+        retrying.start();
+        String printed = printerService.runOnce("order-7", first.getJobId(), () -> printerService.printText(first));
+        retrying.join(5000);
+
+        assertEquals(printed, retried.get());
+        assertEquals(1, transport.getReceivedJobs().size());
+
+        // Nothing reached the printer, so the same key prints on the next try
+        transport.failNextConnections(2);
+        try {
+            printerService.runOnce("order-8", "order-8", () -> printerService.printText(receipt(1)));
+            fail("both connection attempts fail");
+        } catch (PrinterException expected) {
+        }
+        printerService.runOnce("order-8", "order-8", () -> printerService.printText(receipt(1)));
+        assertEquals(2, transport.getReceivedJobs().size());
+    }
+
+    @Test
+    public void queueLimits_turnAwayBulkJobsBeyondTheLimitButNotUrgentOnes() throws Exception {
+        startServices();
+        printerService.setQueueLimits(new QueueLimits(1, 0, QueueLimits.WhenFull.REJECT, 1000));
+        CountDownLatch reportDone = new CountDownLatch(1);
+        PrintRequest report = new PrintRequest(PRINTER, PRINTER_ADDRESS, receipt(200).getData(), "report", JobPriority.BULK);
+        new Thread(() -> {
+            try {
+                printerService.printText(report);
+            } catch (PrinterException ignored) {
+            }
+            reportDone.countDown();
+        }).start();
+        Thread.sleep(300);
+
+        PrinterQueueStatus status = printerService.getQueueStatus(PRINTER_ADDRESS).get(0);
+        assertEquals(1, status.getDepth());
+        assertEquals("report", status.getInFlightJobId());
+        try {
+            printerService.printText(new PrintRequest(PRINTER, PRINTER_ADDRESS, receipt(1).getData(), "report-2", JobPriority.BULK));
+            fail("the queue holds one job");
+        } catch (QueueFullException expected) {
+        }
+        printerService.printText(new PrintRequest(PRINTER, PRINTER_ADDRESS, receipt(3).getData(), "urgent", JobPriority.URGENT));
+
+        assertTrue(reportDone.await(10, TimeUnit.SECONDS));
+        assertEquals(2, transport.getReceivedJobs().size());
+        status = printerService.getQueueStatus(PRINTER_ADDRESS).get(0);
+        assertEquals(0, status.getDepth());
+        assertEquals("throughput measured, nothing left to send", 0, status.getEstimatedWaitMs());
+    }
+
+    @Test
+    public void circuitBreaker_turnsJobsAwayAfterRepeatedFailures() throws Exception {
+        startServices();
+        // Both connection attempts of each job
+        transport.failNextConnections(2 * CircuitBreaker.FAILURE_THRESHOLD);
+        for (int i = 0; i < CircuitBreaker.FAILURE_THRESHOLD; i++) {
+            try {
+                printerService.printText(receipt(1));
+                fail("both attempts fail to connect");
+            } catch (PrinterException expected) {
+                assertFalse(expected instanceof PrinterUnavailableException);
+            }
+        }
+
+        try {
+            printerService.printText(receipt(1));
+            fail("the breaker is open");
+        } catch (PrinterUnavailableException expected) {
+            assertTrue(expected.getRetryInMs() > 0);
+        }
+        assertEquals("open", printerService.getQueueStatus(PRINTER_ADDRESS).get(0).getBreaker());
+        assertEquals(0, transport.getReceivedJobs().size());
+    }
+
+    private static int occurrences(byte[] job, byte[] text) {
+        int count = 0;
+        for (int i = 0; i + text.length <= job.length; i++) {
+            if (Arrays.equals(Arrays.copyOfRange(job, i, i + text.length), text)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean hasCommand(byte[] job, EscPosStreamParser.Type type) {
+        for (EscPosStreamParser.Command command : new EscPosStreamParser().parse(job)) {
+            if (command.type == type) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void cleanup_closesTransportsItOpenedButNotOnesHandedToIt() throws Exception {
+        bluetoothService = new BluetoothService(stack);
+        printerService = new PrinterService(bluetoothService, () -> transport);
+        printerService.printText(receipt(1));
+
+        printerService.cleanup();
+        assertTrue(transport.isClosed());
+
+        SimulatedPrinterTransport handed = new SimulatedPrinterTransport();
+        PrinterService shared = new PrinterService(bluetoothService, handed);
+        shared.printText(receipt(1));
+        shared.cleanup();
+        assertFalse(handed.isClosed());
+        handed.shutdown();
+    }
+
+    private void startServices() {
+        bluetoothService = new BluetoothService(stack);
+        printerService = new PrinterService(bluetoothService, transport);
+    }
+
+    private static PrintRequest receipt(int lines) {
+        String[] data = new String[lines];
+        for (int i = 0; i < lines; i++) {
+            data[i] = "Item " + i + "            x1        12.50";
+        }
+        return new PrintRequest(PRINTER, PRINTER_ADDRESS, data);
+    }
+}
@@ -0,0 +1,455 @@
+package com.ahmed.plugin.printerbridge.simulator;
+
+import com.ahmed.plugin.printerbridge.escpos.EscPosStreamParser;
+import com.ahmed.plugin.printerbridge.exceptions.PrinterException;
+import com.ahmed.plugin.printerbridge.transport.PrinterTransport;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Virtual thermal printer behind the {@link PrinterTransport} seam. It interprets the ESC/POS stream,
+ * draws the resulting paper, and models the timing of a whole job in virtual time:
+ * <ul>
+ *     <li>the link delivers bytes at a fixed bandwidth after the RFCOMM connect,</li>
+ *     <li>bytes wait in a bounded input buffer until the print head gets to them (the link stalls when it is full),</li>
+ *     <li>the print head advances paper at a fixed feed speed.</li>
+ * </ul>
+ * {@link Callback#onSent()} fires when the last byte is accepted by the printer, as on real hardware. The
+ * transport waits out the virtual time scaled by {@link #setTimeScale(double)}, so end-to-end timings can also
+ * be measured through {@code PrinterService}.
+ */
+public class EscPosPrinterEmulator implements PrinterTransport {
+    public static final int DOTS_PER_MM = 8; // 203 dpi
+    public static final int PAPER_58MM_DOTS = 384;
+    public static final int PAPER_80MM_DOTS = 576;
+
+    private static final int FONT_A_WIDTH = 12;
+    private static final int LINE_HEIGHT_DOTS = 30;
+    private static final double CUT_MS = 250;
+
+    /** Timing of one job in virtual milliseconds, measured from the call to {@code send}. */
+    public static class JobTiming {
+        public final int bytes;
+        public final double connectedMs;
+        public final double transferCompleteMs;
+        public final double printCompleteMs;
+        public final double linkStallMs;
+        public final int paperDots;
+
+        JobTiming(int bytes, double connectedMs, double transferCompleteMs, double printCompleteMs, double linkStallMs, int paperDots) {
+            this.bytes = bytes;
+            this.connectedMs = connectedMs;
+            this.transferCompleteMs = transferCompleteMs;
+            this.printCompleteMs = printCompleteMs;
+            this.linkStallMs = linkStallMs;
+            this.paperDots = paperDots;
+        }
+
+        public double paperLengthMm() {
+            return (double) paperDots / DOTS_PER_MM;
+        }
+    }
+
+    private final EscPosStreamParser parser = new EscPosStreamParser();
+    private final ExecutorService linkThread = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "emulated-printer-link");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final List<JobTiming> timings = Collections.synchronizedList(new ArrayList<>());
+    private final List<EscPosStreamParser.Type> commandLog = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> printedLines = Collections.synchronizedList(new ArrayList<>());
+
+    private int paperWidthDots = PAPER_58MM_DOTS;
+    private int bytesPerSecond = SimulatedPrinterTransport.DEFAULT_BYTES_PER_SECOND;
+    private int bufferBytes = 4096;
+    private double feedMmPerSecond = 80;
+    private double connectLatencyMs = SimulatedPrinterTransport.DEFAULT_CONNECT_LATENCY_MS;
+    private double timeScale = 1.0;
+    private volatile String selectedDeviceId;
+
+    // Paper and interpreter state, kept across jobs like a real printer until ESC @
+    private final Paper paper = new Paper();
+    private int alignment;
+    private Charset codePage = StandardCharsets.ISO_8859_1;
+    private int cashDrawerKicks;
+    private int cuts;
+
+    // --- Configuration ---
+
+    public EscPosPrinterEmulator setPaperWidthDots(int dots) {
+        this.paperWidthDots = dots;
+        return this;
+    }
+
+    public EscPosPrinterEmulator setBandwidth(int bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        return this;
+    }
+
+    public EscPosPrinterEmulator setBufferSize(int bytes) {
+        this.bufferBytes = bytes;
+        return this;
+    }
+
+    public EscPosPrinterEmulator setFeedSpeed(double mmPerSecond) {
+        this.feedMmPerSecond = mmPerSecond;
+        return this;
+    }
+
+    public EscPosPrinterEmulator setConnectLatency(double latencyMs) {
+        this.connectLatencyMs = latencyMs;
+        return this;
+    }
+
+    /** Real time spent per virtual millisecond; 0 completes jobs immediately. */
+    public EscPosPrinterEmulator setTimeScale(double scale) {
+        this.timeScale = scale;
+        return this;
+    }
+
+    // --- Results ---
+
+    public JobTiming getLastTiming() {
+        synchronized (timings) {
+            return timings.isEmpty() ? null : timings.get(timings.size() - 1);
+        }
+    }
+
+    public List<EscPosStreamParser.Type> getCommandLog() {
+        synchronized (commandLog) {
+            return new ArrayList<>(commandLog);
+        }
+    }
+
+    public List<String> getPrintedLines() {
+        synchronized (printedLines) {
+            return new ArrayList<>(printedLines);
+        }
+    }
+
+    public synchronized int getCashDrawerKicks() {
+        return cashDrawerKicks;
+    }
+
+    public synchronized int getCuts() {
+        return cuts;
+    }
+
+    public synchronized BufferedImage renderPreview() {
+        return paper.render(paperWidthDots);
+    }
+
+    public void writePreview(File file) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Could not create " + parent);
+        }
+        ImageIO.write(renderPreview(), "png", file);
+    }
+
+    /**
+     * Interprets a job without going through the transport callbacks and returns its virtual timing.
+     */
+    public synchronized JobTiming process(byte[] data) {
+        List<EscPosStreamParser.Command> commands = parser.parse(data);
+        double dotsPerMs = feedMmPerSecond * DOTS_PER_MM / 1000.0;
+        double msPerByte = 1000.0 / bytesPerSecond;
+
+        // consumedAt[k]: when the print head picked up command k (its bytes leave the buffer)
+        double[] consumedAt = new double[commands.size()];
+        int[] commandOfByte = new int[data.length];
+        double arrival = connectLatencyMs;
+        double headFree = connectLatencyMs;
+        double stall = 0;
+        int startDots = paper.heightDots();
+
+        for (int k = 0; k < commands.size(); k++) {
+            EscPosStreamParser.Command command = commands.get(k);
+            for (int b = command.offset; b < command.offset + command.length; b++) {
+                commandOfByte[b] = k;
+                double next = arrival + msPerByte;
+                int blocker = b - bufferBytes;
+                // The link cannot deliver byte b until byte b - buffer has left the buffer
+                if (blocker >= 0 && commandOfByte[blocker] != k && consumedAt[commandOfByte[blocker]] > next) {
+                    stall += consumedAt[commandOfByte[blocker]] - next;
+                    next = consumedAt[commandOfByte[blocker]];
+                }
+                arrival = next;
+            }
+            consumedAt[k] = Math.max(headFree, arrival);
+            int fedDots = execute(command, data);
+            double duration = fedDots / dotsPerMs + (command.type == EscPosStreamParser.Type.CUT ? CUT_MS : 0);
+            headFree = consumedAt[k] + duration;
+            commandLog.add(command.type);
+        }
+
+        JobTiming timing = new JobTiming(data.length, connectLatencyMs, arrival, Math.max(arrival, headFree), stall,
+                paper.heightDots() - startDots);
+        timings.add(timing);
+        return timing;
+    }
+
+    // --- PrinterTransport ---
+
+    @Override
+    public void connect(String deviceName, String deviceId) {
+        selectedDeviceId = deviceId;
+    }
+
+    @Override
+    public void send(byte[] data, Callback callback) throws PrinterException {
+        if (selectedDeviceId == null) {
+            throw new PrinterException("Printer not initialized. Call connect first.");
+        }
+        linkThread.execute(() -> {
+            callback.onConnecting();
+            JobTiming timing = process(data);
+            try {
+                Thread.sleep(Math.round(timing.connectedMs * timeScale));
+                callback.onConnected();
+                Thread.sleep(Math.round((timing.transferCompleteMs - timing.connectedMs) * timeScale));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            callback.onSent();
+        });
+    }
+
+    @Override
+    public void disconnect() {
+        selectedDeviceId = null;
+    }
+
+    public void shutdown() {
+        linkThread.shutdownNow();
+    }
+
+    // --- Interpreter ---
+
+    /** Applies one command to the paper and returns how many dot rows it fed. */
+    private int execute(EscPosStreamParser.Command command, byte[] data) {
+        switch (command.type) {
+            case INITIALIZE:
+                alignment = 0;
+                codePage = StandardCharsets.ISO_8859_1;
+                paper.clearLine();
+                return 0;
+            case SELECT_CODE_TABLE:
+                codePage = command.arg == 28 ? Charset.forName("ISO-8859-6") : StandardCharsets.ISO_8859_1;
+                return 0;
+            case ALIGN:
+                alignment = command.arg;
+                return 0;
+            case TEXT:
+                paper.appendText(new String(data, command.payloadOffset, command.payloadLength, codePage));
+                return 0;
+            case LINE_FEED: {
+                String line = paper.pendingText();
+                printedLines.add(line);
+                return paper.flushLine(alignment, paperWidthDots);
+            }
+            case FEED_LINES: {
+                int fed = 0;
+                for (int i = 0; i < command.arg; i++) {
+                    fed += paper.flushLine(alignment, paperWidthDots);
+                }
+                return fed;
+            }
+            case QR:
+                return command.arg == 0x51 ? paper.drawQr(alignment, paperWidthDots) : paper.configureQr(command, data);
+            case RASTER_IMAGE:
+                return paper.drawRaster(command, data, alignment, paperWidthDots);
+            case CUT:
+                cuts++;
+                return paper.drawCut(command.arg == 1);
+            case CASH_DRAWER:
+                cashDrawerKicks++;
+                paper.addMarker("[drawer kick]");
+                return 0;
+            default:
+                return 0;
+        }
+    }
+
+    /** Accumulates printed dot rows; rendering happens lazily. */
+    private static class Paper {
+        private static final int QR_MODULE_PLACEHOLDER = 25;
+
+        private final List<Row> rows = new ArrayList<>();
+        private final StringBuilder pendingText = new StringBuilder();
+        private int heightDots;
+        private int qrModuleSize = 3;
+        private int qrDataLength;
+
+        private interface Row {
+            int height();
+
+            void draw(Graphics2D g, int y, int width);
+        }
+
+        int heightDots() {
+            return heightDots;
+        }
+
+        void appendText(String text) {
+            pendingText.append(text);
+        }
+
+        void clearLine() {
+            pendingText.setLength(0);
+        }
+
+        String pendingText() {
+            return pendingText.toString();
+        }
+
+        int flushLine(int alignment, int widthDots) {
+            String text = pendingText.toString();
+            pendingText.setLength(0);
+            return add(new Row() {
+                public int height() {
+                    return LINE_HEIGHT_DOTS;
+                }
+
+                public void draw(Graphics2D g, int y, int width) {
+                    g.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 22));
+                    int textWidth = Math.min(width, text.length() * FONT_A_WIDTH);
+                    g.drawString(text, offset(alignment, width, textWidth), y + 22);
+                }
+            });
+        }
+
+        int configureQr(EscPosStreamParser.Command command, byte[] data) {
+            if (command.arg == 0x43 && command.payloadLength > 0) {
+                qrModuleSize = data[command.payloadOffset] & 0xFF;
+            } else if (command.arg == 0x50) {
+                qrDataLength = command.payloadLength - 1; // minus the m byte
+            }
+            return 0;
+        }
+
+        int drawQr(int alignment, int widthDots) {
+            // Symbol size estimate for the preview: version grows by 4 modules per ~30 bytes of payload
+            int modules = Math.min(177, 21 + 4 * (qrDataLength / 30));
+            int size = Math.min(widthDots, Math.max(QR_MODULE_PLACEHOLDER, modules * qrModuleSize));
+            return add(new Row() {
+                public int height() {
+                    return size;
+                }
+
+                public void draw(Graphics2D g, int y, int width) {
+                    int x = offset(alignment, width, size);
+                    g.drawRect(x, y, size - 1, size - 1);
+                    int finder = 7 * qrModuleSize;
+                    g.fillRect(x, y, finder, finder);
+                    g.fillRect(x + size - finder, y, finder, finder);
+                    g.fillRect(x, y + size - finder, finder, finder);
+                    g.drawString("QR " + qrDataLength + "B", x + finder + 4, y + size / 2);
+                }
+            });
+        }
+
+        int drawRaster(EscPosStreamParser.Command command, byte[] data, int alignment, int widthDots) {
+            int widthBytes = command.arg;
+            int height = widthBytes == 0 ? 0 : command.payloadLength / widthBytes;
+            int offset = command.payloadOffset;
+            return add(new Row() {
+                public int height() {
+                    return height;
+                }
+
+                public void draw(Graphics2D g, int y, int width) {
+                    int x0 = offset(alignment, width, widthBytes * 8);
+                    for (int row = 0; row < height; row++) {
+                        for (int col = 0; col < widthBytes * 8; col++) {
+                            int bits = data[offset + row * widthBytes + col / 8] & 0xFF;
+                            if ((bits & (0x80 >> (col % 8))) != 0) {
+                                g.fillRect(x0 + col, y + row, 1, 1);
+                            }
+                        }
+                    }
+                }
+            });
+        }
+
+        int drawCut(boolean partial) {
+            return add(new Row() {
+                public int height() {
+                    return 12;
+                }
+
+                public void draw(Graphics2D g, int y, int width) {
+                    g.setStroke(new BasicStroke(1, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10,
+                            new float[] { partial ? 4 : 10, 4 }, 0));
+                    g.drawLine(0, y + 6, width, y + 6);
+                    g.setStroke(new BasicStroke(1));
+                }
+            });
+        }
+
+        void addMarker(String marker) {
+            add(new Row() {
+                public int height() {
+                    return 0;
+                }
+
+                public void draw(Graphics2D g, int y, int width) {
+                    g.setColor(Color.RED);
+                    g.drawString(marker, width - g.getFontMetrics().stringWidth(marker) - 2, y + 12);
+                    g.setColor(Color.BLACK);
+                }
+            });
+        }
+
+        private int add(Row row) {
+            rows.add(row);
+            heightDots += row.height();
+            return row.height();
+        }
+
+        BufferedImage render(int widthDots) {
+            BufferedImage image = new BufferedImage(widthDots, Math.max(1, heightDots + LINE_HEIGHT_DOTS), BufferedImage.TYPE_BYTE_GRAY);
+            Graphics2D g = image.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, image.getWidth(), image.getHeight());
+            g.setColor(Color.BLACK);
+            int y = 0;
+            for (Row row : rows) {
+                row.draw(g, y, widthDots);
+                y += row.height();
+            }
+            g.dispose();
+            return image;
+        }
+
+        private static int offset(int alignment, int width, int contentWidth) {
+            switch (alignment) {
+                case 1:
+                    return Math.max(0, (width - contentWidth) / 2);
+                case 2:
+                    return Math.max(0, width - contentWidth);
+                default:
+                    return 0;
+            }
+        }
+    }
+}
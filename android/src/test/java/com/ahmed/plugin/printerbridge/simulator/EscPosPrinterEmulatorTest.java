@@ -0,0 +1,104 @@
+package com.ahmed.plugin.printerbridge.simulator;
+
+import static org.junit.Assert.*;
+
+import com.ahmed.plugin.printerbridge.escpos.EscPosEncoder;
+import com.ahmed.plugin.printerbridge.escpos.EscPosStreamParser.Type;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+public class EscPosPrinterEmulatorTest {
+    private static final File PREVIEW_DIR = new File("build/emulator-previews");
+
+    private final EscPosEncoder encoder = new EscPosEncoder();
+
+    @Test
+    public void textJob_isInterpretedLineByLine() throws Exception {
+        EscPosPrinterEmulator printer = new EscPosPrinterEmulator();
+
+        printer.process(encoder.encodeText(new String[] { "Table 4", "Coffee   x2   7.00" }));
+
+        List<Type> commands = printer.getCommandLog();
+        assertEquals(Arrays.asList(Type.INITIALIZE, Type.SELECT_CODE_TABLE, Type.TEXT, Type.LINE_FEED), commands.subList(0, 4));
+        assertEquals(Arrays.asList("Table 4", "Coffee   x2   7.00", "", "", ""), printer.getPrintedLines());
+    }
+
+    @Test
+    public void qrJobAndFinishingCommands_areRecognised() throws Exception {
+        EscPosPrinterEmulator printer = new EscPosPrinterEmulator().setPaperWidthDots(EscPosPrinterEmulator.PAPER_80MM_DOTS);
+
+        printer.process(encoder.encodeQRCode("https://example.com/order/1234"));
+        printer.process(encoder.encodeCut(true));
+        printer.process(encoder.encodeCashDrawerKick());
+
+        List<Type> commands = printer.getCommandLog();
+        assertTrue(commands.contains(Type.QR));
+        assertEquals(1, printer.getCuts());
+        assertEquals(1, printer.getCashDrawerKicks());
+        assertFalse(commands.contains(Type.UNKNOWN));
+
+        BufferedImage preview = printer.renderPreview();
+        assertEquals(EscPosPrinterEmulator.PAPER_80MM_DOTS, preview.getWidth());
+        printer.writePreview(new File(PREVIEW_DIR, "qr-cut-drawer.png"));
+    }
+
+    @Test
+    public void slowLink_isTheBottleneck() throws Exception {
+        byte[] job = encoder.encodeText(lines(40));
+        EscPosPrinterEmulator printer = new EscPosPrinterEmulator().setConnectLatency(0).setBandwidth(500);
+
+        EscPosPrinterEmulator.JobTiming timing = printer.process(job);
+
+        double linkMs = job.length * 1000.0 / 500;
+        assertEquals(linkMs, timing.transferCompleteMs, 1);
+        // The head keeps up with a 500 B/s link: only the last line and the 3 trailing feeds (~47 ms each) remain
+        double tailMs = timing.printCompleteMs - timing.transferCompleteMs;
+        assertTrue(tailMs + " ms", tailMs < 4 * 50);
+        assertEquals(0, timing.linkStallMs, 0.001);
+    }
+
+    @Test
+    public void smallBuffer_stallsFastLinkAtPaperSpeed() throws Exception {
+        byte[] job = encoder.encodeText(lines(200));
+        EscPosPrinterEmulator printer = new EscPosPrinterEmulator()
+                .setConnectLatency(0)
+                .setBandwidth(100_000)
+                .setBufferSize(512)
+                .setFeedSpeed(80);
+
+        EscPosPrinterEmulator.JobTiming timing = printer.process(job);
+
+        double feedMs = timing.paperDots / (80.0 * EscPosPrinterEmulator.DOTS_PER_MM) * 1000;
+        assertTrue(timing.linkStallMs > 0);
+        assertEquals(feedMs, timing.printCompleteMs, 50);
+        // The link only finishes once the buffer has drained down to the last 512 bytes
+        assertTrue(timing.transferCompleteMs > feedMs / 2);
+    }
+
+    @Test
+    public void rasterImage_isDrawnBitForBit() throws Exception {
+        // GS v 0: 2 bytes wide (16 dots), 2 rows, left column and right column set
+        byte[] raster = { 0x1D, 0x76, 0x30, 0x00, 0x02, 0x00, 0x02, 0x00, (byte) 0x80, 0x01, (byte) 0x80, 0x01 };
+        EscPosPrinterEmulator printer = new EscPosPrinterEmulator();
+
+        printer.process(raster);
+
+        BufferedImage preview = printer.renderPreview();
+        assertEquals(0, preview.getRaster().getSample(0, 0, 0));
+        assertEquals(0, preview.getRaster().getSample(15, 1, 0));
+        assertEquals(255, preview.getRaster().getSample(7, 0, 0));
+    }
+
+    private static String[] lines(int count) {
+        String[] lines = new String[count];
+        for (int i = 0; i < count; i++) {
+            lines[i] = "Item " + i + "            x1        12.50";
+        }
+        return lines;
+    }
+}
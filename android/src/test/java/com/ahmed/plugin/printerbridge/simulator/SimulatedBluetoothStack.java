@@ -0,0 +1,249 @@
+package com.ahmed.plugin.printerbridge.simulator;
+
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothDevice;
+
+import com.ahmed.plugin.printerbridge.bluetooth.BluetoothStack;
+import com.ahmed.plugin.printerbridge.bluetooth.RemoteDevice;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scriptable {@link BluetoothStack} for JVM tests. All events are delivered in order on a single
+ * event thread, the same way broadcasts arrive on the main looper on a device.
+ */
+public class SimulatedBluetoothStack implements BluetoothStack {
+    public static final long DEFAULT_DISCOVERY_DURATION_MS = 12_000;
+    public static final long DEFAULT_BOND_DELAY_MS = 1_500;
+
+    private static class ScriptedDevice {
+        final String name;
+        final String address;
+        volatile int bondState;
+        long foundAfterMs = -1;
+        long bondDelayMs = DEFAULT_BOND_DELAY_MS;
+        boolean bondSucceeds = true;
+
+        ScriptedDevice(String name, String address, int bondState) {
+            this.name = name;
+            this.address = address;
+            this.bondState = bondState;
+        }
+
+        RemoteDevice snapshot() {
+            return new RemoteDevice(name, address, bondState, 0x0680, 0x0600);
+        }
+    }
+
+    private final ScheduledExecutorService eventThread = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "simulated-bluetooth-events");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<String, ScriptedDevice> devices = new LinkedHashMap<>();
+    private final List<ScheduledFuture<?>> discoveryEvents = new ArrayList<>();
+    private final AtomicInteger startDiscoveryCount = new AtomicInteger();
+    private final AtomicInteger createBondCount = new AtomicInteger();
+
+    private volatile int state = BluetoothAdapter.STATE_ON;
+    private volatile boolean discovering;
+    private long discoveryDurationMs = DEFAULT_DISCOVERY_DURATION_MS;
+
+    // --- Scripting ---
+
+    public synchronized SimulatedBluetoothStack addPairedDevice(String name, String address) {
+        devices.put(address, new ScriptedDevice(name, address, BluetoothDevice.BOND_BONDED));
+        return this;
+    }
+
+    /** Adds an unpaired device that is reported {@code foundAfterMs} after each discovery starts. */
+    public synchronized SimulatedBluetoothStack addDiscoverableDevice(String name, String address, long foundAfterMs) {
+        ScriptedDevice device = new ScriptedDevice(name, address, BluetoothDevice.BOND_NONE);
+        device.foundAfterMs = foundAfterMs;
+        devices.put(address, device);
+        return this;
+    }
+
+    public synchronized SimulatedBluetoothStack setBondTransition(String address, long delayMs, boolean succeeds) {
+        ScriptedDevice device = devices.get(address);
+        device.bondDelayMs = delayMs;
+        device.bondSucceeds = succeeds;
+        return this;
+    }
+
+    public synchronized SimulatedBluetoothStack setDiscoveryDuration(long durationMs) {
+        this.discoveryDurationMs = durationMs;
+        return this;
+    }
+
+    /** Changes the adapter state immediately and broadcasts it. */
+    public void setAdapterState(int newState) {
+        scheduleAdapterState(newState, 0);
+    }
+
+    public void scheduleAdapterState(int newState, long afterMs) {
+        eventThread.schedule(() -> {
+            state = newState;
+            for (Listener listener : listeners) {
+                listener.onAdapterStateChanged(newState);
+            }
+        }, afterMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Sets the initial adapter state without broadcasting, as if it was already in that state. */
+    public SimulatedBluetoothStack withInitialState(int initialState) {
+        this.state = initialState;
+        return this;
+    }
+
+    public int getStartDiscoveryCount() {
+        return startDiscoveryCount.get();
+    }
+
+    public int getCreateBondCount() {
+        return createBondCount.get();
+    }
+
+    public void shutdown() {
+        eventThread.shutdownNow();
+    }
+
+    // --- BluetoothStack ---
+
+    @Override
+    public void start() {}
+
+    @Override
+    public void stop() {
+        cancelDiscovery();
+    }
+
+    @Override
+    public void addListener(Listener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    @Override
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public int getState() {
+        return state;
+    }
+
+    @Override
+    public synchronized List<RemoteDevice> getBondedDevices() {
+        List<RemoteDevice> bonded = new ArrayList<>();
+        for (ScriptedDevice device : devices.values()) {
+            if (device.bondState == BluetoothDevice.BOND_BONDED) {
+                bonded.add(device.snapshot());
+            }
+        }
+        return bonded;
+    }
+
+    @Override
+    public synchronized RemoteDevice getRemoteDevice(String address) {
+        ScriptedDevice device = devices.get(address);
+        return device != null ? device.snapshot() : new RemoteDevice(null, address, BluetoothDevice.BOND_NONE);
+    }
+
+    @Override
+    public boolean isDiscovering() {
+        return discovering;
+    }
+
+    @Override
+    public synchronized boolean startDiscovery() {
+        if (state != BluetoothAdapter.STATE_ON || discovering) {
+            return false;
+        }
+        startDiscoveryCount.incrementAndGet();
+        discovering = true;
+        for (ScriptedDevice device : devices.values()) {
+            if (device.foundAfterMs >= 0 && device.foundAfterMs < discoveryDurationMs) {
+                RemoteDevice found = device.snapshot();
+                discoveryEvents.add(eventThread.schedule(() -> {
+                    for (Listener listener : listeners) {
+                        listener.onDeviceFound(found);
+                    }
+                }, device.foundAfterMs, TimeUnit.MILLISECONDS));
+            }
+        }
+        discoveryEvents.add(eventThread.schedule(this::finishDiscovery, discoveryDurationMs, TimeUnit.MILLISECONDS));
+        return true;
+    }
+
+    @Override
+    public synchronized boolean cancelDiscovery() {
+        if (!discovering) {
+            return true;
+        }
+        for (ScheduledFuture<?> event : discoveryEvents) {
+            event.cancel(false);
+        }
+        discoveryEvents.clear();
+        discovering = false;
+        // The platform also broadcasts ACTION_DISCOVERY_FINISHED when an inquiry is cancelled
+        eventThread.execute(this::broadcastDiscoveryFinished);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean createBond(String address) {
+        ScriptedDevice device = devices.get(address);
+        if (device == null || state != BluetoothAdapter.STATE_ON) {
+            return false;
+        }
+        createBondCount.incrementAndGet();
+        device.bondState = BluetoothDevice.BOND_BONDING;
+        eventThread.execute(() -> broadcastBondState(device));
+        eventThread.schedule(() -> {
+            device.bondState = device.bondSucceeds ? BluetoothDevice.BOND_BONDED : BluetoothDevice.BOND_NONE;
+            broadcastBondState(device);
+        }, device.bondDelayMs, TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    @Override
+    public synchronized int getBondState(String address) {
+        ScriptedDevice device = devices.get(address);
+        return device != null ? device.bondState : BluetoothDevice.BOND_NONE;
+    }
+
+    private void finishDiscovery() {
+        synchronized (this) {
+            if (!discovering) {
+                return;
+            }
+            discovering = false;
+            discoveryEvents.clear();
+        }
+        broadcastDiscoveryFinished();
+    }
+
+    private void broadcastDiscoveryFinished() {
+        for (Listener listener : listeners) {
+            listener.onDiscoveryFinished();
+        }
+    }
+
+    private void broadcastBondState(ScriptedDevice device) {
+        RemoteDevice snapshot = device.snapshot();
+        for (Listener listener : listeners) {
+            listener.onBondStateChanged(snapshot, snapshot.getBondState());
+        }
+    }
+}
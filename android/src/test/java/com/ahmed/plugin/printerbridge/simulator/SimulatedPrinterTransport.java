@@ -0,0 +1,250 @@
+package com.ahmed.plugin.printerbridge.simulator;
+
+import com.ahmed.plugin.printerbridge.exceptions.PrinterException;
+import com.ahmed.plugin.printerbridge.transport.PrinterTransport;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scriptable {@link PrinterTransport} for JVM tests: models RFCOMM connect latency, link bandwidth,
+ * failed connects and links that drop in the middle of a transfer. Jobs are delivered asynchronously
+ * like the real transport does.
+ */
+public class SimulatedPrinterTransport implements PrinterTransport {
+    public static final long DEFAULT_CONNECT_LATENCY_MS = 300;
+    // Typical effective SPP throughput of a cheap thermal printer
+    public static final int DEFAULT_BYTES_PER_SECOND = 11_000;
+    public static final int CHUNK_SIZE = 990;
+
+    private final ExecutorService linkThread = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "simulated-printer-link");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final List<byte[]> receivedJobs = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger sendCount = new AtomicInteger();
+    private final AtomicInteger activeSends = new AtomicInteger();
+    private final AtomicInteger maxConcurrentSends = new AtomicInteger();
+    private final AtomicInteger failNextConnections = new AtomicInteger();
+    private final AtomicInteger abortedTransfers = new AtomicInteger();
+    private final List<Future<?>> inFlight = Collections.synchronizedList(new ArrayList<>());
+    // Replies to queries, keyed by Arrays.toString of the request
+    private final Map<String, byte[]> queryReplies = new ConcurrentHashMap<>();
+    private final AtomicInteger queryCount = new AtomicInteger();
+    private volatile boolean reportsStatus;
+    private volatile StatusListener statusListener;
+
+    private volatile long connectLatencyMs = DEFAULT_CONNECT_LATENCY_MS;
+    private volatile int bytesPerSecond = DEFAULT_BYTES_PER_SECOND;
+    private volatile long disconnectAfterBytes = -1;
+    private volatile String selectedDeviceId;
+    private volatile boolean closed;
+
+    // --- Scripting ---
+
+    public SimulatedPrinterTransport setConnectLatency(long latencyMs) {
+        this.connectLatencyMs = latencyMs;
+        return this;
+    }
+
+    public SimulatedPrinterTransport setBandwidth(int bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        return this;
+    }
+
+    /** The next {@code count} connection attempts fail with a retriable connection error. */
+    public SimulatedPrinterTransport failNextConnections(int count) {
+        failNextConnections.set(count);
+        return this;
+    }
+
+    /** The next transfer drops the link once {@code bytes} have been written. */
+    public SimulatedPrinterTransport disconnectNextTransferAfter(long bytes) {
+        this.disconnectAfterBytes = bytes;
+        return this;
+    }
+
+    /** The printer answers {@code request} with {@code reply}; unscripted queries go unanswered. */
+    public SimulatedPrinterTransport respondTo(byte[] request, byte[] reply) {
+        queryReplies.put(Arrays.toString(request), reply.clone());
+        return this;
+    }
+
+    /** The link reads automatic status, like an RFCOMM socket; call before the service is created. */
+    public SimulatedPrinterTransport enableStatusReporting() {
+        this.reportsStatus = true;
+        return this;
+    }
+
+    /** The selected printer sends an automatic status frame, on the calling thread. */
+    public void sendAutomaticStatus(byte[] frame) {
+        StatusListener listener = statusListener;
+        if (listener != null) {
+            listener.onAutomaticStatus(selectedDeviceId, frame.clone());
+        }
+    }
+
+    public int getQueryCount() {
+        return queryCount.get();
+    }
+
+    public List<byte[]> getReceivedJobs() {
+        synchronized (receivedJobs) {
+            return new ArrayList<>(receivedJobs);
+        }
+    }
+
+    public int getSendCount() {
+        return sendCount.get();
+    }
+
+    public int getMaxConcurrentSends() {
+        return maxConcurrentSends.get();
+    }
+
+    /** Transfers cut off by {@link #disconnect()} before the printer had all bytes. */
+    public int getAbortedTransfers() {
+        return abortedTransfers.get();
+    }
+
+    public String getSelectedDeviceId() {
+        return selectedDeviceId;
+    }
+
+    /** Time the link needs to move {@code bytes}, excluding the connect. */
+    public long transferTimeMs(long bytes) {
+        return bytes * 1000 / bytesPerSecond;
+    }
+
+    public void shutdown() {
+        linkThread.shutdownNow();
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    // --- PrinterTransport ---
+
+    @Override
+    public void close() {
+        closed = true;
+        disconnect();
+    }
+
+    @Override
+    public void connect(String deviceName, String deviceId) {
+        selectedDeviceId = deviceId;
+    }
+
+    @Override
+    public void send(byte[] data, Callback callback) throws PrinterException {
+        if (selectedDeviceId == null) {
+            throw new PrinterException("Printer not initialized. Call connect first.");
+        }
+        sendCount.incrementAndGet();
+        Future<?>[] self = new Future<?>[1];
+        synchronized (inFlight) {
+            self[0] = linkThread.submit(() -> {
+                try {
+                    runTransfer(data, callback);
+                } finally {
+                    inFlight.remove(self[0]);
+                }
+            });
+            inFlight.add(self[0]);
+        }
+    }
+
+    @Override
+    public void disconnect() {
+        selectedDeviceId = null;
+        // Closing the socket kills whatever is still being written
+        synchronized (inFlight) {
+            for (Future<?> transfer : inFlight) {
+                transfer.cancel(true);
+            }
+            inFlight.clear();
+        }
+    }
+
+    @Override
+    public byte[] query(byte[] request, int maxBytes, int terminator, long timeoutMs) throws PrinterException {
+        if (selectedDeviceId == null) {
+            throw new PrinterException("Printer not initialized. Call connect first.");
+        }
+        queryCount.incrementAndGet();
+        byte[] reply = queryReplies.get(Arrays.toString(request));
+        return reply != null ? Arrays.copyOf(reply, Math.min(reply.length, maxBytes)) : new byte[0];
+    }
+
+    @Override
+    public boolean setStatusListener(StatusListener listener) {
+        if (!reportsStatus) {
+            return false;
+        }
+        this.statusListener = listener;
+        return true;
+    }
+
+    private void runTransfer(byte[] data, Callback callback) {
+        int active = activeSends.incrementAndGet();
+        maxConcurrentSends.accumulateAndGet(active, Math::max);
+        boolean released = false;
+        try {
+            callback.onConnecting();
+            Thread.sleep(connectLatencyMs);
+            if (failNextConnections.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                released = release();
+                callback.onConnectionFailed("read failed, socket might closed or timeout");
+                return;
+            }
+            callback.onConnected();
+
+            long dropAfter = disconnectAfterBytes;
+            disconnectAfterBytes = -1;
+            int toWrite = dropAfter >= 0 ? (int) Math.min(dropAfter, data.length) : data.length;
+            ByteArrayOutputStream printer = new ByteArrayOutputStream(data.length);
+            // Written in RFCOMM-sized chunks so progress is reported the way a streaming transport would
+            for (int offset = 0; offset < toWrite; offset += CHUNK_SIZE) {
+                int length = Math.min(CHUNK_SIZE, toWrite - offset);
+                printer.write(data, offset, length);
+                Thread.sleep(transferTimeMs(length));
+                callback.onProgress(offset + length, data.length);
+            }
+
+            if (toWrite < data.length) {
+                released = release();
+                callback.onDisconnected();
+                callback.onConnectionFailed("Broken pipe");
+                return;
+            }
+            receivedJobs.add(printer.toByteArray());
+            released = release();
+            callback.onSent();
+        } catch (InterruptedException e) {
+            abortedTransfers.incrementAndGet();
+            Thread.currentThread().interrupt();
+        } finally {
+            if (!released) {
+                release();
+            }
+        }
+    }
+
+    // The link is free as soon as the outcome is reported: the caller may send again from the callback
+    private boolean release() {
+        activeSends.decrementAndGet();
+        return true;
+    }
+}
@@ -0,0 +1,21 @@
+package com.ahmed.plugin.printerbridge.spool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class PaperSpoolStoreTest {
+    @Test
+    public void jobIdsMapToDistinctFileNameSafeKeys() {
+        // printToMany names each printer's job <jobId>:<MAC>
+        String target = PaperSpoolStore.key("order-7:00:11:22:33:44:77");
+        String nested = PaperSpoolStore.key("order-7/00:11:22:33:44:77");
+
+        assertTrue(target, target.matches("[0-9a-f]{64}"));
+        assertTrue(nested, nested.matches("[0-9a-f]{64}"));
+        assertNotEquals(target, nested);
+        assertEquals(target, PaperSpoolStore.key("order-7:00:11:22:33:44:77"));
+    }
+}
@@ -0,0 +1,96 @@
+package com.ahmed.plugin.printerbridge.spool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.ahmed.plugin.printerbridge.escpos.EscPosEncoder;
+import com.ahmed.plugin.printerbridge.escpos.EscPosOptimizer;
+import com.ahmed.plugin.printerbridge.escpos.EscPosSession;
+import com.ahmed.plugin.printerbridge.models.PrintRequest;
+import com.ahmed.plugin.printerbridge.services.BluetoothService;
+import com.ahmed.plugin.printerbridge.services.PrinterService;
+import com.ahmed.plugin.printerbridge.simulator.SimulatedBluetoothStack;
+import com.ahmed.plugin.printerbridge.simulator.SimulatedPrinterTransport;
+
+import org.junit.Test;
+
+import java.util.List;
+
+public class PrintSpoolTest {
+    private static final String PRINTER = "COUNTER-01";
+    private static final String PRINTER_ADDRESS = "00:11:22:33:44:77";
+
+    @Test
+    public void finishedJobsAreCompactedInBatches() throws Exception {
+        MemorySpoolStore store = new MemorySpoolStore();
+        PrintSpool spool = new PrintSpool(store);
+        for (int i = 0; i < 3; i++) {
+            spool.append(new SpoolEntry("job-" + i, PRINTER, PRINTER_ADDRESS, new byte[] { 1 }));
+            spool.finish("job-" + i);
+        }
+
+        assertEquals("deletes wait for the batch", 3, store.size());
+        assertTrue(spool.recover().isEmpty());
+        Thread.sleep(PrintSpool.COMPACTION_DELAY_MS + 300);
+        assertEquals(0, store.size());
+        assertEquals(1, store.getDeleteBatchCount());
+        spool.close();
+    }
+
+    @Test
+    public void fullBatchIsCompactedImmediately() throws Exception {
+        MemorySpoolStore store = new MemorySpoolStore();
+        PrintSpool spool = new PrintSpool(store);
+        for (int i = 0; i < PrintSpool.COMPACTION_BATCH_SIZE; i++) {
+            spool.append(new SpoolEntry("job-" + i, PRINTER, PRINTER_ADDRESS, new byte[] { 1 }));
+            spool.finish("job-" + i);
+        }
+
+        Thread.sleep(200);
+        assertEquals(0, store.size());
+        spool.close();
+    }
+
+    @Test
+    public void jobInterruptedByAKillIsReplayedOnNextStart() throws Exception {
+        MemorySpoolStore store = new MemorySpoolStore();
+        SimulatedBluetoothStack stack = new SimulatedBluetoothStack().addPairedDevice(PRINTER, PRINTER_ADDRESS);
+        // First process: the link never comes up before the "kill"
+        SimulatedPrinterTransport stalled = new SimulatedPrinterTransport().setConnectLatency(60_000);
+        PrinterService first = new PrinterService(new BluetoothService(stack), stalled, new PrintSpool(store));
+        PrintRequest request = new PrintRequest(PRINTER, PRINTER_ADDRESS, new String[] { "Order 1001", "Total 12.50" }, "order-1001");
+        Thread worker = new Thread(() -> {
+            try {
+                first.printText(request);
+            } catch (Exception ignored) {
+            }
+        });
+        worker.setDaemon(true);
+        worker.start();
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (store.size() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("job is spooled before it reaches the printer", 1, store.size());
+
+        // Second process: same store, working printer
+        SimulatedPrinterTransport transport = new SimulatedPrinterTransport().setConnectLatency(50);
+        PrintSpool spool = new PrintSpool(store);
+        PrinterService second = new PrinterService(new BluetoothService(stack), transport, spool);
+        assertEquals(1, second.replaySpool());
+
+        List<byte[]> received = transport.getReceivedJobs();
+        assertEquals(1, received.size());
+        // A fresh process knows nothing about the printer, so only the cold-session optimizations apply
+        byte[] encoded = new EscPosEncoder().encodeText(request.getData());
+        assertArrayEquals(EscPosOptimizer.optimize(encoded, new EscPosSession()).getData(), received.get(0));
+        spool.compact();
+        assertEquals(0, store.size());
+        assertEquals("replayed jobs are not spooled again", 1, store.getWriteCount());
+
+        stalled.shutdown();
+        transport.shutdown();
+        stack.shutdown();
+    }
+}
@@ -0,0 +1,180 @@
+package com.ahmed.plugin.printerbridge.spool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ReprintCacheTest {
+    private static final String PRINTER = "COUNTER-01";
+    private static final String PRINTER_ADDRESS = "00:11:22:33:44:77";
+
+    @Test
+    public void oldestJobsSpillToTheStoreAndAreDroppedPastItsLimit() {
+        MemorySpoolStore store = new MemorySpoolStore();
+        // Two 400-byte jobs fit in memory, two more in the store
+        ReprintCache cache = new ReprintCache(10, 1000, store, 2);
+        for (int i = 0; i < 5; i++) {
+            cache.put(job("job-" + i, 400));
+        }
+        cache.flush();
+
+        assertEquals(2, cache.size());
+        assertEquals(2, store.size());
+        assertNull("dropped from the store", cache.get("job-0"));
+        assertNotNull("read back from the store", cache.get("job-1"));
+        assertNotNull(cache.get("job-2"));
+        assertSame(cache.get("job-4"), cache.get("job-4"));
+    }
+
+    @Test
+    public void storedJobsAreFoundAfterARestart() {
+        MemorySpoolStore store = new MemorySpoolStore();
+        ReprintCache before = new ReprintCache(1, 1000, store, 10);
+        before.put(job("job-0", 100));
+        before.put(job("job-1", 100));
+        before.close();
+
+        ReprintCache after = new ReprintCache(1, 1000, store, 10);
+
+        assertNotNull(after.get("job-0"));
+        assertNull("the newest was only in memory", after.get("job-1"));
+    }
+
+    @Test
+    public void printToManyJobsSpillUnderFileNameSafeKeys() {
+        FileNamedStore store = new FileNamedStore();
+        String target = "order-7:" + PRINTER_ADDRESS;
+        ReprintCache before = new ReprintCache(1, 1000, store, 10);
+        before.put(job(target, 100));
+        before.put(job("order-8", 100));
+        before.close();
+
+        ReprintCache after = new ReprintCache(1, 1000, store, 10);
+
+        SpoolEntry kept = after.get(target);
+        assertNotNull(kept);
+        assertEquals(target, kept.getJobId());
+    }
+
+    @Test
+    public void keepingAJobLeavesTheStoreToABackgroundThread() {
+        Thread caller = Thread.currentThread();
+        List<String> onCaller = new ArrayList<>();
+        MemorySpoolStore store = new MemorySpoolStore() {
+            @Override
+            public void write(SpoolEntry entry) {
+                note("write");
+                super.write(entry);
+            }
+
+            @Override
+            public void delete(Collection<String> jobIds) {
+                note("delete");
+                super.delete(jobIds);
+            }
+
+            @Override
+            public List<SpoolEntry> readAll() {
+                note("readAll");
+                return super.readAll();
+            }
+
+            @Override
+            public void writeIndex(List<String> jobIds) {
+                note("writeIndex");
+                super.writeIndex(jobIds);
+            }
+
+            @Override
+            public List<String> readIndex() {
+                note("readIndex");
+                return super.readIndex();
+            }
+
+            private void note(String call) {
+                if (Thread.currentThread() == caller) {
+                    onCaller.add(call);
+                }
+            }
+        };
+        ReprintCache cache = new ReprintCache(1, 1000, store, 2);
+        for (int i = 0; i < 5; i++) {
+            cache.put(job("job-" + i, 100));
+        }
+
+        assertNotNull("served while its write is pending or done", cache.get("job-3"));
+        cache.flush();
+        assertEquals(Collections.emptyList(), onCaller);
+        assertEquals(2, store.size());
+        assertEquals(Arrays.asList("job-2", "job-3"), store.readIndex());
+    }
+
+    @Test
+    public void restartListsKeptJobsFromTheIndexWithoutReadingThemAll() {
+        MemorySpoolStore store = new MemorySpoolStore() {
+            @Override
+            public List<SpoolEntry> readAll() {
+                throw new AssertionError("read every kept job");
+            }
+        };
+        ReprintCache before = new ReprintCache(1, 1000, store, 10);
+        before.put(job("job-0", 100));
+        before.put(job("job-1", 100));
+        before.close();
+
+        ReprintCache after = new ReprintCache(1, 1000, store, 10);
+
+        assertNotNull(after.get("job-0"));
+        assertNull(after.get("job-9"));
+    }
+
+    private static SpoolEntry job(String jobId, int bytes) {
+        return new SpoolEntry(jobId, PRINTER, PRINTER_ADDRESS, new byte[bytes]);
+    }
+
+    // Keys entries the way PaperSpoolStore does and, like Paper's files, refuses names a file cannot have
+    private static class FileNamedStore implements SpoolStore {
+        private final Map<String, SpoolEntry> files = new HashMap<>();
+
+        @Override
+        public void write(SpoolEntry entry) {
+            files.put(fileName(entry.getJobId()), entry);
+        }
+
+        @Override
+        public void delete(Collection<String> jobIds) {
+            for (String jobId : jobIds) {
+                files.remove(fileName(jobId));
+            }
+        }
+
+        @Override
+        public List<SpoolEntry> readAll() {
+            return new ArrayList<>(files.values());
+        }
+
+        @Override
+        public SpoolEntry read(String jobId) {
+            return files.get(fileName(jobId));
+        }
+
+        private static String fileName(String jobId) {
+            String key = PaperSpoolStore.key(jobId);
+            if (key.contains("/") || key.contains(":")) {
+                throw new IllegalArgumentException("Not a file name: " + key);
+            }
+            return key;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.ahmed.plugin.printerbridge.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class FlowControlTest {
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void fillsThreeQuartersOfTheBufferThenPacesAtTheRate() {
+        FlowControl flow = new FlowControl(1024, 8000, true);
+        int chunk = flow.chunkBytes();
+        assertEquals(192, chunk);
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0, flow.delayNanos(chunk, 0));
+            flow.onWritten(chunk, 0);
+        }
+
+        // 192 bytes at 8000 B/s
+        assertEquals(24 * MS, flow.delayNanos(chunk, 0));
+        assertEquals(0, flow.delayNanos(chunk, 24 * MS));
+        assertTrue(flow.checkpointDue());
+    }
+
+    @Test
+    public void slowCheckpointHalvesAndQuickOneAddsAStep() {
+        FlowControl flow = new FlowControl(1024, 8000, true);
+        flow.onWritten(768, 0);
+
+        flow.onCheckpoint(true, 450 * MS, 500 * MS);
+
+        assertEquals(4000, flow.getRate(), 0.01);
+        assertEquals(96, flow.chunkBytes());
+        // 768 bytes taken in half a second
+        assertEquals(1536, flow.getMeasuredRate(), 0.01);
+        assertFalse(flow.checkpointDue());
+
+        flow.onWritten(768, 600 * MS);
+        flow.onCheckpoint(true, 30 * MS, 700 * MS);
+
+        assertEquals(4500, flow.getRate(), 0.01);
+        assertEquals(96 + FlowControl.MIN_CHUNK_BYTES, flow.chunkBytes());
+    }
+
+    @Test
+    public void rateStaysWithinBoundsAndIsNotCheckedWithoutStatusReplies() {
+        FlowControl flow = new FlowControl(1024, 8000, true);
+        for (int i = 1; i <= 5; i++) {
+            flow.onCheckpoint(false, 1000 * MS, i * 1000 * MS);
+        }
+        assertEquals(2000, flow.getRate(), 0.01);
+        assertEquals(FlowControl.MIN_CHUNK_BYTES, flow.chunkBytes());
+
+        FlowControl silent = new FlowControl(1024, 8000, false);
+        silent.onWritten(4096, 0);
+        assertFalse(silent.checkpointDue());
+        assertEquals(8000, silent.getRate(), 0.01);
+    }
+}
@@ -0,0 +1,112 @@
+package com.ahmed.plugin.printerbridge.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LoggerTest {
+
+    @After
+    public void tearDown() {
+        Logger.setLogcatLevel(Logger.WARN);
+        Logger.setDiagnosticsLevel(Logger.DEBUG);
+    }
+
+    @Test
+    public void formatSubstitutesPlaceholdersInOrder() {
+        assertEquals("a 1 b 2 c", Logger.format("a {} b {} c", 1, 2, null));
+        assertEquals("x [y] z", Logger.format("{} [{}] {}", "x", "y", "z"));
+        assertEquals("no args", Logger.format("no args", null, null, null));
+        assertEquals("extra {}", Logger.format("{} {}", "extra", "{}", null));
+    }
+
+    @Test
+    public void disabledLevelsNeverFormatTheirArguments() {
+        Logger.setLogcatLevel(Logger.NONE);
+        Logger.setDiagnosticsLevel(Logger.WARN);
+        AtomicInteger formatted = new AtomicInteger();
+        Object expensive = new Object() {
+            @Override
+            public String toString() {
+                formatted.incrementAndGet();
+                return "expensive";
+            }
+        };
+        long before = Logger.getDiagnostics().recorded();
+
+        Logger.d("Test", "value {}", expensive);
+
+        assertFalse(Logger.isEnabled(Logger.DEBUG));
+        assertEquals(before, Logger.getDiagnostics().recorded());
+        assertEquals(0, formatted.get());
+    }
+
+    @Test
+    public void enabledEventsAreFormattedOnlyWhenDumped() {
+        Logger.setLogcatLevel(Logger.NONE);
+        AtomicInteger formatted = new AtomicInteger();
+        Object lazy = new Object() {
+            @Override
+            public String toString() {
+                formatted.incrementAndGet();
+                return "lazy";
+            }
+        };
+
+        Logger.w("Test", "marker {}", lazy);
+        assertEquals(0, formatted.get());
+
+        List<DiagnosticBuffer.Record> records = Logger.dumpDiagnostics();
+        DiagnosticBuffer.Record last = records.get(records.size() - 1);
+        assertEquals("marker lazy", last.message);
+        assertEquals(Logger.WARN, last.level);
+        assertEquals("Test", last.tag);
+        assertEquals(1, formatted.get());
+    }
+
+    @Test
+    public void ringBufferKeepsTheMostRecentEvents() {
+        DiagnosticBuffer buffer = new DiagnosticBuffer(8);
+        for (int i = 0; i < 20; i++) {
+            buffer.record(Logger.DEBUG, "Test", "event {}", i, null, null, null);
+        }
+
+        List<DiagnosticBuffer.Record> records = buffer.snapshot();
+        assertEquals(8, records.size());
+        assertEquals("event 12", records.get(0).message);
+        assertEquals("event 19", records.get(7).message);
+        assertEquals(20, buffer.recorded());
+    }
+
+    @Test
+    public void concurrentWritersNeverProduceTornRecords() throws Exception {
+        DiagnosticBuffer buffer = new DiagnosticBuffer(64);
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            String tag = "T" + t;
+            Thread writer = new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    buffer.record(Logger.DEBUG, tag, "{} {}", tag, i, null, null);
+                }
+            });
+            writers.add(writer);
+            writer.start();
+        }
+        for (int i = 0; i < 200; i++) {
+            for (DiagnosticBuffer.Record record : buffer.snapshot()) {
+                assertTrue(record.message, record.message.startsWith(record.tag + " "));
+            }
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        assertEquals(80_000, buffer.recorded());
+    }
+}
@@ -0,0 +1,58 @@
+package com.ahmed.plugin.printerbridge.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ReadinessTest {
+    @Test
+    public void earlyWaitersRunOnceReadyAndLateOnesAtOnce() {
+        Readiness readiness = new Readiness(2);
+        List<String> events = new ArrayList<>();
+
+        assertTrue(readiness.whenReady(recording(events, "first")));
+        assertTrue(readiness.whenReady(recording(events, "second")));
+        assertFalse("over the limit", readiness.whenReady(recording(events, "third")));
+        assertTrue(events.isEmpty());
+
+        readiness.complete();
+        assertTrue(readiness.whenReady(recording(events, "late")));
+
+        assertTrue(readiness.isReady());
+        assertEquals(Arrays.asList("first ready", "second ready", "late ready"), events);
+    }
+
+    @Test
+    public void waitersLearnWhyStartupFailed() {
+        Readiness readiness = new Readiness(4);
+        List<String> events = new ArrayList<>();
+        readiness.whenReady(recording(events, "early"));
+
+        readiness.fail(new IllegalStateException("no adapter"));
+        readiness.complete();
+        readiness.whenReady(recording(events, "late"));
+
+        assertFalse(readiness.isReady());
+        assertEquals(Arrays.asList("early failed: no adapter", "late failed: no adapter"), events);
+    }
+
+    private static Readiness.Waiter recording(List<String> events, String name) {
+        return new Readiness.Waiter() {
+            @Override
+            public void onReady() {
+                events.add(name + " ready");
+            }
+
+            @Override
+            public void onFailed(Exception cause) {
+                events.add(name + " failed: " + cause.getMessage());
+            }
+        };
+    }
+}
@@ -1,19 +1,185 @@
+import type { PluginListenerHandle } from '@capacitor/core';
+
 export interface PrinterBridgePlugin {
   /**
    * Send text data to the printer.
    * @param options.deviceName The name of the paired Bluetooth device
    * @param options.deviceId The Bluetooth MAC address
    * @param options.data The plain text string to print (newline-separated if needed)
+   * @param options.jobId Optional ID used in `printJobUpdate` events; generated when omitted
+   * @param options.priority Scheduling class; `'normal'` when omitted. `'bulk'` jobs are sent in chunks
+   * so urgent jobs can print in between
+   * @param options.deadlineMs Optional time limit in milliseconds, counted from when the call is received.
+   * A job still queued or printing when it passes is stopped and resolves with status `'expired'`
+   * @param options.idempotencyKey Optional key naming this print, e.g. an order ID. Repeating the call with the
+   * same key while it runs, or within 10 minutes of it printing, resolves with the first call's `jobId` without
+   * printing again. A call that failed before anything reached the printer can be retried under the same key
+   * @param options.feed Extra lines to feed after the content (0-255)
+   * @param options.cut Cut the paper after the content and feed
+   * @param options.openDrawer Kick the cash drawer once the job has printed. Feed, cut and drawer kick go out
+   * in the same transmission as the content
+   */
+  print(options: {
+    deviceName: string;
+    deviceId: string;
+    data: string;
+    jobId?: string;
+    priority?: JobPriority;
+    deadlineMs?: number;
+    idempotencyKey?: string;
+    feed?: number;
+    cut?: CutMode;
+    openDrawer?: boolean;
+  }): Promise<PrintResult>;
+
+  /**
+   * Prints the same text job on several printers at once, e.g. an order on the counter printer and the kitchen
+   * printers. The job is encoded once and sent to every target over its own link, so the call takes about as long
+   * as the slowest printer. Resolves once every target has finished; one printer failing does not stop the others.
+   * @param options.targets The printers to print on (1-8), each listed once
+   * @param options.data The plain text string to print (newline-separated if needed)
+   * @param options.jobId Optional ID; each target's job is `<jobId>:<deviceId>` in `printJobUpdate` events.
+   * Generated when omitted
+   * @param options.priority Scheduling class; `'normal'` when omitted
+   * @param options.deadlineMs Optional time limit in milliseconds for each target, counted from when the call is received
+   * @param options.feed Extra lines to feed after the content (0-255)
+   * @param options.cut Cut the paper after the content and feed
+   * @param options.openDrawer Kick the cash drawer on every target once the job has printed
+   */
+  printToMany(options: {
+    targets: PrintTarget[];
+    data: string;
+    jobId?: string;
+    priority?: JobPriority;
+    deadlineMs?: number;
+    feed?: number;
+    cut?: CutMode;
+    openDrawer?: boolean;
+  }): Promise<MultiPrintResult>;
+
+  /**
+   * Starts a text job whose last lines are only known at checkout, e.g. the items and totals of a sale before
+   * the customer pays. The lines are encoded in the background and, over `rfcomm`, the printer link is opened,
+   * so `commitJob` only has to add the payment lines and send.
+   * @param options.deviceName The name of the paired Bluetooth device
+   * @param options.deviceId The Bluetooth MAC address
+   * @param options.data The lines known now (newline-separated if needed)
+   * @returns A handle for `commitJob`, valid for 10 minutes
    */
-  print(options: { deviceName: string; deviceId: string; data: string }): Promise<{ success: boolean }>;
+  prepareJob(options: { deviceName: string; deviceId: string; data: string }): Promise<{ handle: string }>;
+
+  /**
+   * Prints a prepared job with `tail` appended, as one job. A handle can be committed once.
+   * @param options.handle The handle `prepareJob` returned
+   * @param options.tail Lines printed after the prepared ones (newline-separated if needed)
+   * @param options.jobId Optional ID used in `printJobUpdate` events; generated when omitted
+   * @param options.priority Scheduling class; `'normal'` when omitted
+   * @param options.deadlineMs Optional time limit in milliseconds, counted from when the commit is received
+   * @param options.idempotencyKey Optional key naming this print, e.g. an order ID. Repeating the call with the
+   * same key while it runs, or within 10 minutes of it printing, resolves with the first call's `jobId` without
+   * printing again. A call that failed before anything reached the printer can be retried under the same key
+   * @param options.feed Extra lines to feed after the tail (0-255)
+   * @param options.cut Cut the paper after the tail and feed
+   * @param options.openDrawer Kick the cash drawer once the job has printed
+   */
+  commitJob(options: {
+    handle: string;
+    tail?: string;
+    jobId?: string;
+    priority?: JobPriority;
+    deadlineMs?: number;
+    idempotencyKey?: string;
+    feed?: number;
+    cut?: CutMode;
+    openDrawer?: boolean;
+  }): Promise<PrintResult>;
+
+  /**
+   * Prints a delivered job again, as it was encoded, on the printer it went to: a lost receipt or a customer copy
+   * without sending the content through the bridge again. The last 20 jobs (up to 512 KB) are kept in memory and
+   * the 100 before them on disk.
+   * @param options.jobId The job to print again
+   * @param options.copies Copies to print (1-10), sent as one transmission; 1 when omitted
+   * @param options.reprintJobId Optional ID for the reprint's own `printJobUpdate` events; generated when omitted
+   * @param options.priority Scheduling class; `'normal'` when omitted
+   * @param options.deadlineMs Optional time limit in milliseconds, counted from when the call is received
+   * @param options.idempotencyKey Optional key naming this print, e.g. an order ID. Repeating the call with the
+   * same key while it runs, or within 10 minutes of it printing, resolves with the first call's `jobId` without
+   * printing again. A call that failed before anything reached the printer can be retried under the same key
+   */
+  reprint(options: {
+    jobId: string;
+    copies?: number;
+    reprintJobId?: string;
+    priority?: JobPriority;
+    deadlineMs?: number;
+    idempotencyKey?: string;
+  }): Promise<PrintResult>;
 
   /**
    * Prints a QR Code containing the provided data.
    * @param options.deviceName The name of the paired Bluetooth device
    * @param options.deviceId The Bluetooth MAC address
-   * @param options.qrData The data to encode inside the QR code
+   * @param options.qrData The data to encode inside the QR code, up to 2953 bytes as UTF-8
+   * @param options.jobId Optional ID used in `printJobUpdate` events; generated when omitted
+   * @param options.priority Scheduling class; `'normal'` when omitted. `'bulk'` jobs are sent in chunks
+   * so urgent jobs can print in between
+   * @param options.deadlineMs Optional time limit in milliseconds, counted from when the call is received.
+   * A job still queued or printing when it passes is stopped and resolves with status `'expired'`
+   * @param options.idempotencyKey Optional key naming this print, e.g. an order ID. Repeating the call with the
+   * same key while it runs, or within 10 minutes of it printing, resolves with the first call's `jobId` without
+   * printing again. A call that failed before anything reached the printer can be retried under the same key
+   * @param options.feed Extra lines to feed after the content (0-255)
+   * @param options.cut Cut the paper after the content and feed
+   * @param options.openDrawer Kick the cash drawer once the job has printed. Feed, cut and drawer kick go out
+   * in the same transmission as the content
    */
-  printQRCode(options: { deviceName: string; deviceId: string; qrData: string }): Promise<{ success: boolean }>;
+  printQRCode(options: {
+    deviceName: string;
+    deviceId: string;
+    qrData: string;
+    jobId?: string;
+    priority?: JobPriority;
+    deadlineMs?: number;
+    idempotencyKey?: string;
+    feed?: number;
+    cut?: CutMode;
+    openDrawer?: boolean;
+  }): Promise<PrintResult>;
+
+  /**
+   * Prints a run of QR codes and barcodes, e.g. a batch of event tickets, as a single job. The printer is set up
+   * once for the whole run and the codes go out in one transmission, instead of one call and one round trip per code.
+   * @param options.deviceName The name of the paired Bluetooth device
+   * @param options.deviceId The Bluetooth MAC address
+   * @param options.codes The codes to print, in order (1-500). Barcodes must fit the paper width; CODE128 data made of
+   * an even number of digits prints at half the width
+   * @param options.cutBetween Cut the paper after every code but the last
+   * @param options.jobId Optional ID used in `printJobUpdate` events; generated when omitted
+   * @param options.priority Scheduling class; `'normal'` when omitted. `'bulk'` jobs are sent in chunks
+   * so urgent jobs can print in between
+   * @param options.deadlineMs Optional time limit in milliseconds, counted from when the call is received.
+   * A job still queued or printing when it passes is stopped and resolves with status `'expired'`
+   * @param options.idempotencyKey Optional key naming this print, e.g. an order ID. Repeating the call with the
+   * same key while it runs, or within 10 minutes of it printing, resolves with the first call's `jobId` without
+   * printing again. A call that failed before anything reached the printer can be retried under the same key
+   * @param options.feed Extra lines to feed after the last code (0-255)
+   * @param options.cut Cut the paper after the last code and feed
+   * @param options.openDrawer Kick the cash drawer once the job has printed
+   */
+  printCodes(options: {
+    deviceName: string;
+    deviceId: string;
+    codes: PrintCodeItem[];
+    cutBetween?: CutMode;
+    jobId?: string;
+    priority?: JobPriority;
+    deadlineMs?: number;
+    idempotencyKey?: string;
+    feed?: number;
+    cut?: CutMode;
+    openDrawer?: boolean;
+  }): Promise<PrintResult>;
 
   /**
    * Checks if the necessary Bluetooth permissions are granted.
@@ -44,6 +210,16 @@ export interface PrinterBridgePlugin {
     success: boolean;
   }>;
 
+  /**
+   * Resolves a printer by name in a single call. The paired devices are checked first; if no match is found,
+   * a discovery is started that stops as soon as a device with that name is reported, and the printer is
+   * optionally paired.
+   * @param options.name The Bluetooth name of the printer (case-insensitive)
+   * @param options.autoPair Pair with the printer if it was found through discovery (default: false)
+   * @returns Promise with the resolved printer; `success` is false when no printer with that name was found
+   */
+  findPrinter(options: { name: string; autoPair?: boolean }): Promise<FindPrinterResult>;
+
   /**
    * Gets a list of all paired Bluetooth devices.
    * @returns Promise with array of paired devices
@@ -79,6 +255,368 @@ export interface PrinterBridgePlugin {
    * @returns Promise with device information
    */
   getDeviceInfo(options: { deviceAddress: string }): Promise<BluetoothDevice>;
+
+  /**
+   * Cancels a print job that is queued or being sent, identified by the `jobId` it was started with.
+   * Its print call resolves at once with status `'cancelled'`. A job cut off while printing may leave a
+   * partial printout.
+   * @param options.jobId The ID of the job to cancel
+   * @returns Promise with `cancelled: false` when no such job is queued or printing
+   */
+  cancelJob(options: { jobId: string }): Promise<{ cancelled: boolean }>;
+
+  /**
+   * Returns what the plugin knows about a printer. A printer is probed for its manufacturer, model and firmware the
+   * first time a job connects to it; the answer is matched against a bundled vendor capability table and stored on
+   * the device, and jobs encoded after that use the printer's paper width, code table and QR support.
+   * @param options.deviceId The Bluetooth MAC address
+   * @returns Promise with `found: false` when the printer was never connected
+   */
+  getPrinterProfile(options: { deviceId: string }): Promise<{ found: boolean; profile?: PrinterProfile }>;
+
+  /**
+   * Returns the last status a printer reported: paper out or low, cover open, offline or in error. Printers
+   * report their status only over the `rfcomm` transport, from the first job sent to them on.
+   * @param options.deviceId The Bluetooth MAC address
+   * @returns Promise with `known: false` when the printer never reported its status
+   */
+  getPrinterStatus(options: { deviceId: string }): Promise<{ known: boolean; status?: PrinterStatus }>;
+
+  /**
+   * Returns the load on each printer that has been sent a job: jobs and bytes waiting, the job being sent, the
+   * estimated wait from the printer's measured throughput, and its circuit breaker. Nothing is sent to the
+   * printers, so it can be polled, e.g. to hold back bulk printing while receipts are waiting.
+   * @param options.deviceId Only this printer
+   */
+  getQueueStatus(options?: { deviceId?: string }): Promise<QueueStatus>;
+
+  /**
+   * Returns per-printer latency and throughput metrics collected since the plugin was loaded (or last reset).
+   * Phase timings are reported as p50/p95/p99/max/mean in milliseconds, so a slow receipt can be attributed to
+   * the Bluetooth check, connection setup, encoding, connect or transfer.
+   * @param options.reset Clear the collected metrics after reading them (default: false)
+   */
+  getMetrics(options?: { reset?: boolean }): Promise<PrinterMetrics>;
+
+  /**
+   * Exports the most recent log events kept in memory (a fixed-size ring buffer), oldest first.
+   * Use it to collect diagnostics after a field incident without enabling logcat output.
+   * @param options.clear Empty the buffer after reading it (default: false)
+   */
+  dumpDiagnostics(options?: { clear?: boolean }): Promise<DiagnosticsDump>;
+
+  /**
+   * Listens for Bluetooth adapter state changes (e.g. Bluetooth switched off or back on).
+   * Print jobs issued while Bluetooth is off are held and resumed automatically once it is enabled again.
+   */
+  addListener(
+    eventName: 'bluetoothStateChange',
+    listenerFunc: (event: BluetoothStateChangeEvent) => void,
+  ): Promise<PluginListenerHandle>;
+
+  /**
+   * Listens for print job lifecycle updates: queued, connecting, connected, sending (with bytes and percent),
+   * sent, failed, cancelled and expired. `sent` fires as soon as the printer has taken all bytes, before the print call resolves.
+   * Sending progress is only reported by transports that stream the job in chunks.
+   */
+  addListener(
+    eventName: 'printJobUpdate',
+    listenerFunc: (event: PrintJobUpdateEvent) => void,
+  ): Promise<PluginListenerHandle>;
+
+  /**
+   * Listens for printer status changes: paper out or low, cover opened or closed, offline, errors. Printers report
+   * these on their own over the `rfcomm` transport. While a printer is out of paper or its cover is open, print
+   * calls to it resolve at once with status `'not_ready'`.
+   */
+  addListener(
+    eventName: 'printerStatusChange',
+    listenerFunc: (event: PrinterStatus) => void,
+  ): Promise<PluginListenerHandle>;
+
+  /**
+   * Removes all listeners for this plugin.
+   */
+  removeAllListeners(): Promise<void>;
+}
+
+export interface PrintResult {
+  /** Whether the job was delivered to the printer */
+  success: boolean;
+  /** The job ID used in `printJobUpdate` events */
+  jobId: string;
+  /** How the job ended */
+  status: PrintStatus;
+}
+
+export interface PrintTarget {
+  /** The name of the paired Bluetooth device */
+  deviceName: string;
+  /** The Bluetooth MAC address */
+  deviceId: string;
+}
+
+export interface MultiPrintResult {
+  /** Whether the job was delivered to every target */
+  success: boolean;
+  /** The job ID the target job IDs are made from */
+  jobId: string;
+  /** One result per target, in the order given */
+  results: PrintTargetResult[];
+}
+
+export interface PrintTargetResult {
+  /** The printer MAC address */
+  deviceId: string;
+  /** This target's job ID, `<jobId>:<deviceId>` */
+  jobId: string;
+  /** Whether the job was delivered to this printer */
+  success: boolean;
+  /** How the job ended on this printer */
+  status: PrintStatus;
+  /** Failure reason, when not delivered */
+  error?: string;
+}
+
+export interface PrintCodeItem {
+  /** Symbology; `'qr'` when omitted */
+  type?: CodeType;
+  /** The data to encode: up to 2953 bytes as UTF-8 for QR codes, the digits or characters the barcode type allows otherwise */
+  data: string;
+  /** Text printed centred under the code */
+  caption?: string;
+}
+
+export type CodeType = 'qr' | 'code128' | 'code39' | 'ean13' | 'ean8' | 'upca';
+
+export type PrintStatus = 'sent' | 'failed' | 'cancelled' | 'expired' | 'not_ready' | 'queue_full' | 'unavailable';
+
+export type JobPriority = 'urgent' | 'normal' | 'bulk';
+
+export type BreakerState = 'closed' | 'open' | 'half_open';
+
+export type CutMode = 'full' | 'partial';
+
+export type PrintJobState = 'queued' | 'connecting' | 'connected' | 'sending' | 'sent' | 'failed' | 'cancelled' | 'expired';
+
+export interface QueueStatus {
+  printers: PrinterQueueStatus[];
+  /** The limits every printer's queue is held to, from `capacitor.config` */
+  limits: QueueLimits;
+}
+
+export interface PrinterQueueStatus {
+  /** The printer MAC address */
+  deviceId: string;
+  /** Jobs waiting or being sent */
+  depth: number;
+  /** Encoded bytes of those jobs */
+  queuedBytes: number;
+  /** The job being sent to the printer, if any */
+  inFlight?: InFlightJob;
+  /** Recent transfer rate; absent until a transfer was measured */
+  bytesPerSecond?: number;
+  /**
+   * Time to send everything queued on the printer's link at that rate, in milliseconds; connects not included.
+   * With Printooth the link is shared, so this includes other printers' jobs. Absent until a transfer was measured
+   */
+  estimatedWaitMs?: number;
+  /** `'open'` after 3 failed jobs in a row: jobs resolve with status `'unavailable'` without being sent */
+  breaker: BreakerState;
+  /** Time until the open breaker lets a trial job through, in milliseconds */
+  breakerRetryInMs?: number;
+}
+
+export interface InFlightJob {
+  jobId: string;
+  priority: JobPriority;
+  /** Encoded size of the job */
+  bytes: number;
+  /** Bytes of it the printer has taken, counted in whole chunks */
+  bytesSent: number;
+}
+
+export interface QueueLimits {
+  /** Jobs per printer; 0 for no limit */
+  maxJobs: number;
+  /** Encoded bytes per printer; 0 for no limit */
+  maxBytes: number;
+  /** What a call does when its printer's queue is full */
+  whenFull: 'reject' | 'block';
+  /** Longest a blocked call without a deadline waits for room, in milliseconds */
+  blockTimeoutMs: number;
+}
+
+export interface PrinterStatus {
+  /** The printer MAC address */
+  deviceId: string;
+  /** Whether the printer can print: not out of paper and cover closed */
+  ready: boolean;
+  online: boolean;
+  coverOpen: boolean;
+  paperOut: boolean;
+  /** The paper near-end sensor is triggered */
+  paperLow: boolean;
+  /** A mechanical, cutter or unrecoverable error */
+  error: boolean;
+  /** `'automatic'` when the printer sent it on its own, `'query'` when it answered a status request */
+  source: 'automatic' | 'query';
+  /** Epoch milliseconds of the report */
+  timestamp: number;
+}
+
+export interface PrintJobUpdateEvent {
+  /** The job this update belongs to */
+  jobId: string;
+  /** The printer MAC address */
+  deviceId: string;
+  /** The new job state */
+  state: PrintJobState;
+  /** The delivery attempt (1-based, 0 before the first attempt) */
+  attempt: number;
+  /** Bytes written to the printer so far */
+  bytesSent: number;
+  /** Size of the encoded job in bytes, 0 until it is encoded */
+  totalBytes: number;
+  /** Transfer progress, 0-100 */
+  percent: number;
+  /** Failure reason, only for `failed` */
+  error?: string;
+  /** Bytes the stream optimizer kept off the link, only for `sent` */
+  bytesSaved?: number;
+  /** Epoch milliseconds of the update */
+  timestamp: number;
+}
+
+export interface FindPrinterResult {
+  /** Whether a printer with the requested name was found */
+  success: boolean;
+  /** The Bluetooth MAC address, empty when not found */
+  deviceId: string;
+  /** The requested printer name */
+  deviceName: string;
+  /** Whether the printer is paired (after auto-pairing, if requested) */
+  isPaired: boolean;
+  /** Where the printer was found: the paired set or a discovery */
+  source?: 'paired' | 'discovery';
+  /** Time spent resolving the printer, in milliseconds */
+  elapsedMs: number;
+}
+
+export interface LatencySummary {
+  /** Number of recorded samples */
+  count: number;
+  /** Median, in milliseconds */
+  p50: number;
+  /** 95th percentile, in milliseconds */
+  p95: number;
+  /** 99th percentile, in milliseconds */
+  p99: number;
+  /** Slowest sample, in milliseconds */
+  max: number;
+  /** Mean, in milliseconds */
+  mean: number;
+}
+
+export type PrintPhase = 'encode' | 'spool' | 'queue' | 'bluetoothReady' | 'connectionSetup' | 'connect' | 'transfer' | 'total';
+
+export interface DeviceMetrics {
+  /** Print jobs attempted on this printer */
+  jobs: number;
+  /** Jobs that failed after all retries */
+  failures: number;
+  /** Jobs stopped by `cancelJob` or their deadline */
+  cancelled: number;
+  /** Retries after a failed connect or a dropped link */
+  retries: number;
+  /** Bytes delivered to the printer */
+  bytesSent: number;
+  /** Bytes the stream optimizer kept off the link */
+  bytesSaved: number;
+  /** Epoch milliseconds of the last job, 0 if none */
+  lastJobAt: number;
+  /** Latency per job phase; phases without samples are omitted */
+  phases: Partial<Record<PrintPhase, LatencySummary>>;
+}
+
+export interface PrinterProfile {
+  deviceId: string;
+  deviceName: string;
+  /** Vendor from the capability table, or `'generic'` for printers not in it */
+  vendor: string;
+  /** As reported by the printer; absent if it did not answer the probe */
+  manufacturer?: string;
+  model?: string;
+  firmware?: string;
+  /** Whether the printer answered the probe; if not, the vendor was guessed from its Bluetooth name */
+  probed: boolean;
+  /** When the profile was created, in ms since the epoch */
+  updatedAt: number;
+  /** Characters per line in the default font */
+  columns: number;
+  dotsPerLine: number;
+  /** The ESC/POS code table text is printed with */
+  codeTable: number;
+  codeTables: number[];
+  nativeQr: boolean;
+  rasterImages: boolean;
+  nvGraphics: boolean;
+  /** Size of the printer's receive buffer in bytes */
+  bufferBytes: number;
+  /** Sustained rate at which the printer takes data, used to size the send timeout */
+  bytesPerSecond: number;
+}
+
+export interface PrinterMetrics {
+  /** Epoch milliseconds at which collection started */
+  since: number;
+  /** Metrics keyed by printer MAC address */
+  devices: Record<string, DeviceMetrics>;
+  /** Bluetooth operations not tied to a print job */
+  operations: Partial<Record<'discovery' | 'pairing' | 'findPrinter', LatencySummary>>;
+  /** How long the plugin took to start; kept across resets */
+  startup?: StartupMetrics;
+}
+
+export interface StartupMetrics {
+  /** From plugin load until calls could be served, in milliseconds. Calls made earlier waited for this */
+  readyMs: number;
+  /** From plugin load until the first job was delivered, in milliseconds; absent until then */
+  firstPrintMs?: number;
+}
+
+export type LogLevel = 'verbose' | 'debug' | 'info' | 'warn' | 'error' | 'none';
+
+export interface DiagnosticEntry {
+  /** Position of the event in the overall log sequence */
+  sequence: number;
+  /** Epoch milliseconds */
+  timestamp: number;
+  level: LogLevel;
+  tag: string;
+  /** Name of the thread that logged the event */
+  thread: string;
+  message: string;
+}
+
+export interface DiagnosticsDump {
+  /** Retained events, oldest first */
+  entries: DiagnosticEntry[];
+  /** Number of events the buffer retains */
+  capacity: number;
+  /** Events recorded since start, including those already overwritten */
+  recorded: number;
+}
+
+export type BluetoothAdapterState = 'ON' | 'OFF' | 'TURNING_ON' | 'TURNING_OFF' | 'UNKNOWN';
+
+export interface BluetoothStateChangeEvent {
+  /** The new adapter state */
+  state: BluetoothAdapterState;
+  /** The adapter state before this change */
+  previousState: BluetoothAdapterState;
+  /** Whether Bluetooth is usable (state is ON) */
+  enabled: boolean;
 }
 
 export interface BluetoothDevice {
@@ -1,6 +1,21 @@
 import { WebPlugin } from '@capacitor/core';
 
-import type { PrinterBridgePlugin, BluetoothDevice } from './definitions';
+import type {
+  PrinterBridgePlugin,
+  BluetoothDevice,
+  CutMode,
+  DiagnosticsDump,
+  FindPrinterResult,
+  JobPriority,
+  MultiPrintResult,
+  PrinterMetrics,
+  PrinterProfile,
+  PrinterStatus,
+  PrintCodeItem,
+  PrintResult,
+  PrintTarget,
+  QueueStatus,
+} from './definitions';
 
 export class PrinterBridgePluginWeb extends WebPlugin implements PrinterBridgePlugin {
   getPairedDevices(): Promise<{ devices: BluetoothDevice[]; count: number }> {
@@ -97,10 +112,64 @@ export class PrinterBridgePluginWeb extends WebPlugin implements PrinterBridgePl
     });
   }
 
-  async print(options: { deviceName: string; deviceId: string; data: string }): Promise<{ success: boolean }> {
+  findPrinter(options: { name: string; autoPair?: boolean }): Promise<FindPrinterResult> {
+    console.warn('findPrinter is not supported on the web.');
+    console.log('Searching for printer:', options.name);
+    return Promise.resolve({
+      success: true,
+      deviceId: '00:11:22:33:44:55',
+      deviceName: options.name,
+      isPaired: true,
+      source: 'paired',
+      elapsedMs: 0,
+    });
+  }
+
+  async cancelJob(_options: { jobId: string }): Promise<{ cancelled: boolean }> {
+    console.warn('cancelJob is not supported on the web.');
+    return { cancelled: false };
+  }
+
+  async getPrinterProfile(_options: { deviceId: string }): Promise<{ found: boolean; profile?: PrinterProfile }> {
+    console.warn('getPrinterProfile is not supported on the web.');
+    return { found: false };
+  }
+
+  async getPrinterStatus(_options: { deviceId: string }): Promise<{ known: boolean; status?: PrinterStatus }> {
+    console.warn('getPrinterStatus is not supported on the web.');
+    return { known: false };
+  }
+
+  async getQueueStatus(_options?: { deviceId?: string }): Promise<QueueStatus> {
+    console.warn('getQueueStatus is not supported on the web.');
+    return { printers: [], limits: { maxJobs: 0, maxBytes: 0, whenFull: 'reject', blockTimeoutMs: 30000 } };
+  }
+
+  async getMetrics(_options?: { reset?: boolean }): Promise<PrinterMetrics> {
+    console.warn('getMetrics is not supported on the web.');
+    return { since: Date.now(), devices: {}, operations: {} };
+  }
+
+  async dumpDiagnostics(_options?: { clear?: boolean }): Promise<DiagnosticsDump> {
+    console.warn('dumpDiagnostics is not supported on the web.');
+    return { entries: [], capacity: 0, recorded: 0 };
+  }
+
+  async print(options: {
+    deviceName: string;
+    deviceId: string;
+    data: string;
+    jobId?: string;
+    priority?: JobPriority;
+    deadlineMs?: number;
+    idempotencyKey?: string;
+    feed?: number;
+    cut?: CutMode;
+    openDrawer?: boolean;
+  }): Promise<PrintResult> {
     console.log('PrinterPlugin: printing on web is not supported.');
     console.log('Received data:', options.data);
-    return { success: false };
+    return { success: false, jobId: options.jobId ?? '', status: 'failed' };
   }
 
   async checkPermissions(): Promise<{
@@ -114,10 +183,97 @@ export class PrinterBridgePluginWeb extends WebPlugin implements PrinterBridgePl
     };
   }
 
-  async printQRCode(options: { deviceName: string; deviceId: string; qrData: string }): Promise<{ success: boolean }> {
+  async printToMany(options: {
+    targets: PrintTarget[];
+    data: string;
+    jobId?: string;
+    priority?: JobPriority;
+    deadlineMs?: number;
+    feed?: number;
+    cut?: CutMode;
+    openDrawer?: boolean;
+  }): Promise<MultiPrintResult> {
+    console.log('PrinterPlugin: printToMany is not supported on web.');
+    const jobId = options.jobId ?? '';
+    return {
+      success: false,
+      jobId,
+      results: options.targets.map((target) => ({
+        deviceId: target.deviceId,
+        jobId: `${jobId}:${target.deviceId}`,
+        success: false,
+        status: 'failed' as const,
+        error: 'Not supported on web.',
+      })),
+    };
+  }
+
+  async prepareJob(options: { deviceName: string; deviceId: string; data: string }): Promise<{ handle: string }> {
+    console.log('PrinterPlugin: prepareJob is not supported on web.');
+    console.log('Received data:', options.data);
+    return { handle: '' };
+  }
+
+  async commitJob(options: {
+    handle: string;
+    tail?: string;
+    jobId?: string;
+    priority?: JobPriority;
+    deadlineMs?: number;
+    idempotencyKey?: string;
+    feed?: number;
+    cut?: CutMode;
+    openDrawer?: boolean;
+  }): Promise<PrintResult> {
+    console.log('PrinterPlugin: commitJob is not supported on web.');
+    return { success: false, jobId: options.jobId ?? '', status: 'failed' };
+  }
+
+  async reprint(options: {
+    jobId: string;
+    copies?: number;
+    reprintJobId?: string;
+    priority?: JobPriority;
+    deadlineMs?: number;
+    idempotencyKey?: string;
+  }): Promise<PrintResult> {
+    console.log('PrinterPlugin: reprint is not supported on web.');
+    return { success: false, jobId: options.reprintJobId ?? '', status: 'failed' };
+  }
+
+  async printQRCode(options: {
+    deviceName: string;
+    deviceId: string;
+    qrData: string;
+    jobId?: string;
+    priority?: JobPriority;
+    deadlineMs?: number;
+    idempotencyKey?: string;
+    feed?: number;
+    cut?: CutMode;
+    openDrawer?: boolean;
+  }): Promise<PrintResult> {
     console.log('PrinterPlugin: printQRCode is not supported on web.');
     console.log('QR Code data:', options.qrData);
-    return { success: false };
+    return { success: false, jobId: options.jobId ?? '', status: 'failed' };
+  }
+
+  async printCodes(options: {
+    deviceName: string;
+    deviceId: string;
+    codes: PrintCodeItem[];
+    cutBetween?: CutMode;
+    jobId?: string;
+    priority?: JobPriority;
+    deadlineMs?: number;
+    idempotencyKey?: string;
+    feed?: number;
+    cut?: CutMode;
+    openDrawer?: boolean;
+  }): Promise<PrintResult> {
+    console.log('PrinterPlugin: printCodes is not supported on web.');
+    console.log('Codes:', options.codes.length);
+    return { success: false, jobId: options.jobId ?? '', status: 'failed' };
   }
 
   async requestPermissions(): Promise<{